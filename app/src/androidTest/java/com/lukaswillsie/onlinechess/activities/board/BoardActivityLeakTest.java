@@ -0,0 +1,202 @@
+package com.lukaswillsie.onlinechess.activities.board;
+
+import android.content.Intent;
+
+import androidx.lifecycle.ViewModelProviders;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.lukaswillsie.onlinechess.data.UserGame;
+import com.lukaswillsie.onlinechess.network.Server;
+import com.lukaswillsie.onlinechess.network.helper.ServerHelper;
+import com.lukaswillsie.onlinechess.network.helper.requesters.Connector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that a load game request the server is slow to answer doesn't keep the screen that made
+ * it in memory. We stand in a server that reads requests but never answers them, open and close
+ * BoardActivity several times, each time leaving a load waiting, and then check that neither the
+ * Activities nor their GameViewModels can still be reached once the garbage collector has run.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BoardActivityLeakTest {
+    private static final String USERNAME = "alice";
+    private static final String GAME_ID = "leak";
+
+    /**
+     * How many times we open and close the board
+     */
+    private static final int VISITS = 5;
+
+    /**
+     * Accepts our connection and never answers anything sent on it
+     */
+    private ServerSocket server;
+
+    /**
+     * Every connection made to server, so they can be closed after the test
+     */
+    private final List<Socket> connections = Collections.synchronizedList(new ArrayList<Socket>());
+
+    @Before
+    public void connect() throws Exception {
+        server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                acceptForever();
+            }
+        }, "SilentServer");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        // ServerHelper's Handlers have to be made on the UI thread
+        final CountDownLatch connected = new CountDownLatch(1);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                Server.build(new Connector() {
+                    @Override
+                    public void connectionEstablished(ServerHelper helper) {
+                        connected.countDown();
+                    }
+
+                    @Override
+                    public void connectionFailed() {
+                    }
+
+                    @Override
+                    public void systemError() {
+                    }
+                }, "127.0.0.1", server.getLocalPort());
+            }
+        });
+        assertTrue("Couldn't connect to the stand-in server", connected.await(10, TimeUnit.SECONDS));
+
+        List<UserGame> games = new ArrayList<>();
+        games.add(UserGame.created(GAME_ID, USERNAME));
+        Server.loggedIn(USERNAME, games);
+    }
+
+    @After
+    public void disconnect() throws IOException {
+        server.close();
+        synchronized (connections) {
+            for (Socket connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    @Test
+    public void pendingLoadsDontKeepDestroyedBoards() throws Exception {
+        List<WeakReference<Object>> refs = new ArrayList<>();
+        for (int i = 0; i < VISITS; i++) {
+            visit(refs);
+        }
+
+        // The collector doesn't promise to clear everything on the first request, so we give it a
+        // few tries before deciding something is still reachable
+        for (int attempt = 0; attempt < 10 && !cleared(refs); attempt++) {
+            Runtime.getRuntime().gc();
+            Runtime.getRuntime().runFinalization();
+            Thread.sleep(100);
+        }
+
+        for (WeakReference<Object> ref : refs) {
+            assertNull("Still reachable after being destroyed: " + ref.get(), ref.get());
+        }
+    }
+
+    /**
+     * Open the board, check that it's waiting on the server for the game, note its Activity and
+     * GameViewModel in refs, and close it again
+     */
+    private void visit(List<WeakReference<Object>> refs) {
+        Intent intent = new Intent(ApplicationProvider.getApplicationContext(), BoardActivity.class);
+        intent.putExtra(BoardActivity.GAMEID_TAG, GAME_ID);
+
+        final List<Object> seen = new ArrayList<>();
+        ActivityScenario<BoardActivity> scenario = ActivityScenario.launch(intent);
+        scenario.onActivity(new ActivityScenario.ActivityAction<BoardActivity>() {
+            @Override
+            public void perform(BoardActivity activity) {
+                GameViewModel model = ViewModelProviders.of(activity).get(GameViewModel.class);
+                assertTrue("Board should be waiting on the server for its game", model.isLoading());
+                seen.add(activity);
+                seen.add(model);
+            }
+        });
+        scenario.close();
+
+        for (Object object : seen) {
+            refs.add(new WeakReference<>(object));
+        }
+    }
+
+    /**
+     * Check whether every one of the given references has been cleared
+     */
+    private static boolean cleared(List<WeakReference<Object>> refs) {
+        for (WeakReference<Object> ref : refs) {
+            if (ref.get() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Run on the stand-in server's thread: accept connections, and read and discard whatever is
+     * sent on them, until the server is closed
+     */
+    private void acceptForever() {
+        while (true) {
+            final Socket connection;
+            try {
+                connection = server.accept();
+            } catch (IOException e) {
+                return;
+            }
+            connections.add(connection);
+
+            Thread reader = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        InputStream in = connection.getInputStream();
+                        byte[] buffer = new byte[256];
+                        while (in.read(buffer) != -1) {
+                            // Requests are read so the app's writes never block, and never answered
+                        }
+                    } catch (IOException e) {
+                        // Closed after the test
+                    }
+                }
+            }, "SilentServerReader");
+            reader.setDaemon(true);
+            reader.start();
+        }
+    }
+}
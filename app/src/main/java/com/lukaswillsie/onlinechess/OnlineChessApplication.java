@@ -0,0 +1,48 @@
+package com.lukaswillsie.onlinechess;
+
+import android.app.Application;
+import android.content.pm.ApplicationInfo;
+import android.os.StrictMode;
+
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
+import com.lukaswillsie.onlinechess.network.NetworkTrace;
+
+/**
+ * Sets up app-wide state before any of our activities are created.
+ * <p>
+ * In debuggable builds, we have StrictMode crash the app the moment anything reads from or writes
+ * to disk on the UI thread. All of our own disk access goes through background threads (see
+ * KeyValueStore), so a crash here means something has slipped back onto the UI thread, and we'd
+ * rather find out straight away than from dropped frames later on.
+ * <p>
+ * We also have StrictMode log any Activity that's still in memory after it has been destroyed.
+ * Network requests can outlive the screens that made them, so ServerHelper lets go of a requester
+ * as soon as its Lifecycle ends; one of these logs means something has started holding on to an
+ * Activity it shouldn't.
+ * <p>
+ * Finally, debuggable builds record NetworkMetrics for every request we make of the server, and a
+ * NetworkTrace of each one, which can be looked at by long-pressing the title on MainActivity.
+ * Release builds leave both off.
+ */
+public class OnlineChessApplication extends Application {
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .penaltyLog()
+                    .penaltyDeath()
+                    .build());
+            StrictMode.setVmPolicy(new StrictMode.VmPolicy.Builder()
+                    .detectActivityLeaks()
+                    .penaltyLog()
+                    .build());
+
+            NetworkMetrics.setEnabled(true);
+            NetworkTrace.setEnabled(true);
+        }
+    }
+}
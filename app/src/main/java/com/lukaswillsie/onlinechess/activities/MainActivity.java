@@ -1,8 +1,8 @@
 package com.lukaswillsie.onlinechess.activities;
 
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
-import android.util.Log;
 import android.view.View;
 
 import androidx.appcompat.app.AppCompatActivity;
@@ -15,7 +15,6 @@ import com.lukaswillsie.onlinechess.activities.login.LoginActivity;
 import com.lukaswillsie.onlinechess.data.RememberMeHelper;
 import com.lukaswillsie.onlinechess.network.Server;
 
-import java.io.IOException;
 
 /**
  * MainActivity is the main screen of our app; the one with our title and a list of buttons allowing
@@ -38,6 +37,18 @@ public class MainActivity extends AppCompatActivity implements ReconnectListener
             // Re-establish a connection with the server and re-login the user
             new Reconnector(this, this).reconnect();
         }
+
+        // In debuggable builds, long-pressing the title opens a screen showing how our requests to
+        // the server have been doing
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            findViewById(R.id.main_title).setOnLongClickListener(new View.OnLongClickListener() {
+                @Override
+                public boolean onLongClick(View v) {
+                    startActivity(new Intent(MainActivity.this, NetworkMetricsActivity.class));
+                    return true;
+                }
+            });
+        }
     }
 
     /**
@@ -92,12 +103,9 @@ public class MainActivity extends AppCompatActivity implements ReconnectListener
 
     public void logout(View v) {
         // Ensures that the user who's currently logged in won't automatically be logged in next
-        // time, if they clicked "Remember Me" when logging in.
-        try {
-            new RememberMeHelper(this).logout();
-        } catch (IOException e) {
-            Log.e(tag, "Couldn't create RememberMeHelper to log out the user");
-        }
+        // time, if they clicked "Remember Me" when logging in. The saved data is erased in the
+        // background.
+        new RememberMeHelper(this).logout();
 
         Server.logout();
         startActivity(new Intent(this, LoginActivity.class));
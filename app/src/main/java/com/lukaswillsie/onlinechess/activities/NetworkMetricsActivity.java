@@ -0,0 +1,71 @@
+package com.lukaswillsie.onlinechess.activities;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.lukaswillsie.onlinechess.R;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
+
+/**
+ * A debugging screen that shows what NetworkMetrics has recorded about our requests to the server:
+ * how many of each command we've sent, how they turned out, how long they took and how much data
+ * they moved. It's only reachable from MainActivity in debuggable builds, by long-pressing the
+ * title, and leads on to RequestTraceActivity for a request-by-request breakdown.
+ */
+public class NetworkMetricsActivity extends AppCompatActivity {
+    /**
+     * Where we show the metrics
+     */
+    private TextView text;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_network_metrics);
+
+        text = findViewById(R.id.network_metrics_text);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refresh(null);
+    }
+
+    /**
+     * Onclick event for the "Refresh" button. Shows a fresh snapshot of the metrics.
+     *
+     * @param view - the View that was clicked
+     */
+    public void refresh(View view) {
+        if (NetworkMetrics.isEnabled()) {
+            text.setText(NetworkMetrics.snapshot().toString());
+        } else {
+            text.setText(R.string.network_metrics_disabled);
+        }
+    }
+
+    /**
+     * Onclick event for the "Reset" button. Forgets everything recorded so far, so that a single
+     * scenario can be measured on its own.
+     *
+     * @param view - the View that was clicked
+     */
+    public void reset(View view) {
+        NetworkMetrics.reset();
+        refresh(view);
+    }
+
+    /**
+     * Onclick event for the "Traces" button. Opens the timeline of individual requests.
+     *
+     * @param view - the View that was clicked
+     */
+    public void showTraces(View view) {
+        startActivity(new Intent(this, RequestTraceActivity.class));
+    }
+}
@@ -7,12 +7,16 @@ import android.view.View;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
 
 import com.lukaswillsie.onlinechess.R;
 import com.lukaswillsie.onlinechess.activities.load.LoadActivity;
 import com.lukaswillsie.onlinechess.activities.login.LoginActivity;
+import com.lukaswillsie.onlinechess.data.KeyValueStore;
 import com.lukaswillsie.onlinechess.data.RememberMeHelper;
 import com.lukaswillsie.onlinechess.data.UserGame;
 import com.lukaswillsie.onlinechess.network.Server;
@@ -21,7 +25,6 @@ import com.lukaswillsie.onlinechess.network.helper.ServerHelper;
 import com.lukaswillsie.onlinechess.network.helper.requesters.Connector;
 import com.lukaswillsie.onlinechess.network.helper.requesters.LoginRequester;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 
@@ -51,7 +54,7 @@ import java.util.List;
  * message until a connection is established and the user has been re-logged in, at which point the
  * dialog disappears and the class behind the dialog is notified that the process has completed.
  */
-public class Reconnector implements Connector, LoginRequester {
+public class Reconnector implements Connector, LoginRequester, LifecycleOwner {
     /**
      * Tag for logging to the console
      */
@@ -101,6 +104,17 @@ public class Reconnector implements Connector, LoginRequester {
         this.state = ReconnectState.NOT_ACTIVE;
     }
 
+    /**
+     * A reconnection attempt only matters while the Activity it's being made for is alive, so we
+     * share that Activity's Lifecycle. This lets ServerHelper let go of us, and the Activity, if
+     * it's destroyed before the server answers.
+     */
+    @NonNull
+    @Override
+    public Lifecycle getLifecycle() {
+        return activity.getLifecycle();
+    }
+
     /**
      * Initiates the process of reconnection. This involves first connecting to the server and then
      * handling a re-login of the user. If they have saved their login information at some point
@@ -131,42 +145,51 @@ public class Reconnector implements Connector, LoginRequester {
      * Called by ServerHelper if our connect request succeeds
      */
     @Override
-    public void connectionEstablished(ServerHelper helper) {
+    public void connectionEstablished(final ServerHelper helper) {
         if (this.state == ReconnectState.CONNECTING) {
             // Change the text in the loading dialog box to read "Logging in..."
             TextView dialogText = this.activeDialog.findViewById(R.id.connecting_dialog_text);
             dialogText.setText(R.string.logging_in_dialog_text);
 
+            // Fetch a HashMap containing any user login information that has been saved on this
+            // device through use of the 'Remember Me' login feature. It's read in the background,
+            // and we carry on in savedUserRead() once we have it.
+            this.state = ReconnectState.READING_SAVED_USER;
+            new RememberMeHelper(activity).savedUserData(new KeyValueStore.Callback<HashMap<String, String>>() {
+                @Override
+                public void done(HashMap<String, String> savedUserData) {
+                    savedUserRead(helper, savedUserData);
+                }
+            });
+        }
+    }
+
+    /**
+     * Called once we've read any saved user data, after connecting to the server. If there is
+     * saved user data, we use it to log the user back in.
+     *
+     * @param helper        - the ServerHelper connected to the server
+     * @param savedUserData - the saved user data, as returned by RememberMeHelper.savedUserData()
+     */
+    private void savedUserRead(ServerHelper helper, HashMap<String, String> savedUserData) {
+        if (this.state == ReconnectState.READING_SAVED_USER) {
             try {
-                this.state = ReconnectState.LOGGING_IN;
-
-                try {
-                    // Fetch a HashMap containing any user login information that has been saved on
-                    // this device through use of the 'Remember Me' login feature
-                    HashMap<String, String> savedUserData = new RememberMeHelper(activity).savedUserData();
-
-                    String username = savedUserData.get(RememberMeHelper.USERNAME_KEY);
-                    String password = savedUserData.get(RememberMeHelper.PASSWORD_KEY);
-                    // If either username or password is non-null in the HashMap, there is saved
-                    // user data. Otherwise, both are null, and either an error occurred or there
-                    // is no saved data. In either case we require here that the user log in again
-                    // by moving to LoginActivity
-                    if (username != null) {
-                        helper.login(this, username, password);
-                        this.username = username;
-                        this.state = ReconnectState.LOGGING_IN;
-                    } else {
-                        Intent intent = new Intent(activity, LoginActivity.class);
-                        activity.startActivity(intent);
-                        activity.finish();
-                    }
-                } catch (IOException e) {
-                    Log.e(tag, "IOException creating RememberMeHelper");
+                String username = savedUserData.get(RememberMeHelper.USERNAME_KEY);
+                String password = savedUserData.get(RememberMeHelper.PASSWORD_KEY);
+                // If either username or password is non-null in the HashMap, there is saved
+                // user data. Otherwise, both are null, and either an error occurred or there
+                // is no saved data. In either case we require here that the user log in again
+                // by moving to LoginActivity
+                if (username != null) {
+                    helper.login(this, username, password);
+                    this.username = username;
+                    this.state = ReconnectState.LOGGING_IN;
+                } else {
+                    this.state = ReconnectState.NOT_ACTIVE;
                     Intent intent = new Intent(activity, LoginActivity.class);
                     activity.startActivity(intent);
                     activity.finish();
                 }
-
             } catch (MultipleRequestException e) {
                 // This should never happen, but if it does, we notify the user that a problem
                 // came up, and we present the option to try again. It's possible that the other
@@ -382,6 +405,7 @@ public class Reconnector implements Connector, LoginRequester {
     private enum ReconnectState {
         NOT_ACTIVE,
         CONNECTING,
+        READING_SAVED_USER,
         LOGGING_IN
     }
 
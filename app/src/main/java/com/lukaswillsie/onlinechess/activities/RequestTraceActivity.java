@@ -0,0 +1,130 @@
+package com.lukaswillsie.onlinechess.activities;
+
+import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.lukaswillsie.onlinechess.R;
+import com.lukaswillsie.onlinechess.network.NetworkTrace;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * A debugging screen that shows the requests NetworkTrace has followed as a timeline, broken down
+ * by stage, so that we can see where a slow request spent its time. The traces can also be
+ * exported as a JSON file that chrome://tracing and Perfetto open. It's reached from
+ * NetworkMetricsActivity.
+ */
+public class RequestTraceActivity extends AppCompatActivity {
+    private static final String tag = "RequestTraceActivity";
+
+    /**
+     * The name of the file we export traces to, in the app's external files directory
+     */
+    private static final String EXPORT_FILE = "network-trace.json";
+
+    private TraceTimelineView timeline;
+    private TextView empty;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_request_trace);
+
+        timeline = findViewById(R.id.request_trace_timeline);
+        empty = findViewById(R.id.request_trace_empty);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refresh(null);
+    }
+
+    /**
+     * Onclick event for the "Refresh" button. Shows every request traced so far.
+     *
+     * @param view - the View that was clicked
+     */
+    public void refresh(View view) {
+        List<NetworkTrace.Trace> traces = NetworkTrace.traces();
+        timeline.setTraces(traces);
+
+        if (!NetworkTrace.isEnabled()) {
+            empty.setText(R.string.request_trace_disabled);
+            empty.setVisibility(View.VISIBLE);
+        } else if (traces.isEmpty()) {
+            empty.setText(R.string.request_trace_empty);
+            empty.setVisibility(View.VISIBLE);
+        } else {
+            empty.setVisibility(View.GONE);
+        }
+    }
+
+    /**
+     * Onclick event for the "Clear" button. Forgets every request traced so far.
+     *
+     * @param view - the View that was clicked
+     */
+    public void clear(View view) {
+        NetworkTrace.clear();
+        refresh(view);
+    }
+
+    /**
+     * Onclick event for the "Export" button. Writes every request traced so far to a file, on a
+     * background thread, and tells the user where it went.
+     *
+     * @param view - the View that was clicked
+     */
+    public void export(View view) {
+        final String json = NetworkTrace.toChromeJson(NetworkTrace.traces());
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                File directory = getExternalFilesDir(null);
+                if (directory == null) {
+                    directory = getFilesDir();
+                }
+                final File file = new File(directory, EXPORT_FILE);
+
+                Writer writer = null;
+                boolean written = false;
+                try {
+                    writer = new FileWriter(file);
+                    writer.write(json);
+                    written = true;
+                    Log.i(tag, "Wrote request traces to " + file);
+                } catch (IOException e) {
+                    Log.e(tag, "Couldn't write request traces to " + file, e);
+                } finally {
+                    if (writer != null) {
+                        try {
+                            writer.close();
+                        } catch (IOException e) {
+                            Log.e(tag, "Couldn't close " + file, e);
+                        }
+                    }
+                }
+
+                final String message = written
+                        ? getString(R.string.request_trace_exported, file.getAbsolutePath())
+                        : getString(R.string.request_trace_export_failed);
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Display.makeToast(RequestTraceActivity.this, message, Toast.LENGTH_LONG);
+                    }
+                });
+            }
+        }, tag).start();
+    }
+}
@@ -0,0 +1,180 @@
+package com.lukaswillsie.onlinechess.activities;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import com.lukaswillsie.onlinechess.R;
+import com.lukaswillsie.onlinechess.network.NetworkTrace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Draws traced requests as a timeline, one row per request, newest at the top. Each row is a bar
+ * split into the request's spans, coloured by stage, under a label giving the request's name, how
+ * long it took and which span took longest. Every bar is drawn to the same scale, the longest
+ * request filling the width, so rows can be compared at a glance. A legend of the colours sits
+ * above the rows.
+ */
+public class TraceTimelineView extends View {
+    /**
+     * The colour each stage's span is drawn in, indexed by the stage's ordinal. ACTION starts
+     * requests rather than ending a span, so it has no colour.
+     */
+    private static final int[] SPAN_COLOURS = {
+            0,
+            R.color.trace_screen,
+            R.color.trace_helper,
+            R.color.trace_thread_start,
+            R.color.trace_socket_write,
+            R.color.trace_server,
+            R.color.trace_read,
+            R.color.trace_handler_hop,
+            R.color.trace_ui_callback
+    };
+
+    private static final NetworkTrace.Stage[] STAGES = NetworkTrace.Stage.values();
+
+    /**
+     * How many stages the legend shows on each of its lines
+     */
+    private static final int LEGEND_COLUMNS = 4;
+
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint[] spanPaints = new Paint[SPAN_COLOURS.length];
+
+    /*
+     * Sizes, in pixels
+     */
+    private float lineHeight;
+    private float barHeight;
+    private float gap;
+
+    /**
+     * The requests we draw, newest first
+     */
+    private final List<NetworkTrace.Trace> traces = new ArrayList<>();
+    /**
+     * The label of each request we draw, in the same order, worked out ahead of time so that we
+     * don't allocate while drawing
+     */
+    private final List<String> labels = new ArrayList<>();
+
+    public TraceTimelineView(Context context) {
+        super(context);
+        init(context);
+    }
+
+    public TraceTimelineView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        init(context);
+    }
+
+    public TraceTimelineView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(context);
+    }
+
+    /**
+     * Set up the Paints we draw with, and work out our sizes for this screen
+     */
+    private void init(Context context) {
+        float textSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 11,
+                context.getResources().getDisplayMetrics());
+        textPaint.setTextSize(textSize);
+        textPaint.setColor(context.getResources().getColor(R.color.black));
+
+        for (int i = 1; i < SPAN_COLOURS.length; i++) {
+            spanPaints[i] = new Paint();
+            spanPaints[i].setColor(context.getResources().getColor(SPAN_COLOURS[i]));
+        }
+
+        lineHeight = textSize * 1.3f;
+        barHeight = textSize;
+        gap = textSize * 0.6f;
+    }
+
+    /**
+     * Show the given requests
+     *
+     * @param traces - the requests to show, oldest first, as given by NetworkTrace.traces()
+     */
+    public void setTraces(List<NetworkTrace.Trace> traces) {
+        this.traces.clear();
+        labels.clear();
+        for (int i = traces.size() - 1; i >= 0; i--) {
+            this.traces.add(traces.get(i));
+            labels.add(label(traces.get(i)));
+        }
+        requestLayout();
+        invalidate();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int legendLines = (SPAN_COLOURS.length - 2) / LEGEND_COLUMNS + 1;
+        float height = legendLines * lineHeight + gap + traces.size() * (lineHeight + barHeight + gap);
+        setMeasuredDimension(MeasureSpec.getSize(widthMeasureSpec),
+                resolveSize((int) Math.ceil(height), heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        float width = getWidth();
+        float y = 0;
+
+        // The legend
+        float column = width / LEGEND_COLUMNS;
+        for (int i = 1; i < STAGES.length; i++) {
+            float x = ((i - 1) % LEGEND_COLUMNS) * column;
+            float top = y + ((i - 1) / LEGEND_COLUMNS) * lineHeight;
+            canvas.drawRect(x, top + (lineHeight - barHeight) / 2, x + barHeight, top + (lineHeight + barHeight) / 2, spanPaints[i]);
+            canvas.drawText(STAGES[i].span, x + barHeight * 1.4f, top + barHeight, textPaint);
+        }
+        y += ((STAGES.length - 2) / LEGEND_COLUMNS + 1) * lineHeight + gap;
+
+        long longest = 1;
+        for (NetworkTrace.Trace trace : traces) {
+            longest = Math.max(longest, trace.getEnd() - trace.getStart());
+        }
+        float scale = width / longest;
+
+        for (int row = 0; row < traces.size(); row++) {
+            NetworkTrace.Trace trace = traces.get(row);
+            canvas.drawText(labels.get(row), 0, y + barHeight, textPaint);
+            y += lineHeight;
+
+            float x = 0;
+            for (int i = 1; i < STAGES.length; i++) {
+                float length = trace.getSpan(STAGES[i]) * scale;
+                canvas.drawRect(x, y, x + length, y + barHeight, spanPaints[i]);
+                x += length;
+            }
+            y += barHeight + gap;
+        }
+    }
+
+    /**
+     * Describe the given request in a line: its name, how long it took, and its longest span
+     */
+    private static String label(NetworkTrace.Trace trace) {
+        NetworkTrace.Stage slowest = null;
+        for (NetworkTrace.Stage stage : STAGES) {
+            if (stage.span != null && (slowest == null || trace.getSpan(stage) > trace.getSpan(slowest))) {
+                slowest = stage;
+            }
+        }
+
+        return String.format(Locale.US, "%s  %.1fms, most in %s (%.1fms)", trace.getName(),
+                (trace.getEnd() - trace.getStart()) / 1e6, slowest.span, trace.getSpan(slowest) / 1e6);
+    }
+}
@@ -0,0 +1,181 @@
+package com.lukaswillsie.onlinechess.activities.board;
+
+import android.os.Handler;
+import android.os.Message;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.lukaswillsie.onlinechess.engine.AnalysisEngine;
+import com.lukaswillsie.onlinechess.engine.AnalysisInfo;
+import com.lukaswillsie.onlinechess.engine.AnalysisListener;
+import com.lukaswillsie.onlinechess.engine.Notation;
+import com.lukaswillsie.onlinechess.engine.Position;
+
+/**
+ * This class runs the on-device analysis engine on behalf of BoardActivity. It works much like the
+ * SubHelpers in the network package: work is done on background threads, and results are handed
+ * back to the UI thread through Messages so that our requester can safely update the UI.
+ * <p>
+ * All instances of this class share a single AnalysisEngine, and therefore a single set of search
+ * threads. Only one analysis runs at a time, so starting an analysis from one AnalysisHelper
+ * cancels any analysis started by another.
+ */
+class AnalysisHelper extends Handler {
+    /**
+     * Tag used for logging to the console
+     */
+    private static final String tag = "AnalysisHelper";
+
+    /*
+     * Constants used by this object to send Messages to itself
+     */
+    private static final int ANALYSIS_UPDATED = 0;
+
+    /**
+     * The depth at which analyses stop. Deep enough to be useful, shallow enough that we don't
+     * run the battery down searching forever.
+     */
+    private static final int MAX_DEPTH = 30;
+
+    /**
+     * The longest we let a single analysis run for, in milliseconds
+     */
+    private static final long MAX_MILLIS = 30000;
+
+    /**
+     * The size of the engine's transposition table, in megabytes
+     */
+    private static final int TABLE_MEGABYTES = 16;
+
+    /**
+     * The engine shared by every AnalysisHelper. Created the first time it's needed, since most
+     * users never look at a finished game.
+     */
+    private static AnalysisEngine engine;
+
+    /**
+     * The object that receives the results of our analyses
+     */
+    private AnalysisRequester requester;
+
+    /**
+     * Identifies the most recent analysis started by this object. Results from any other analysis
+     * are stale and are thrown away.
+     */
+    private int session;
+
+    /**
+     * Create a new AnalysisHelper
+     *
+     * @param requester - the object that will receive the results of analyses started through
+     *                  this object
+     */
+    AnalysisHelper(AnalysisRequester requester) {
+        this.requester = requester;
+    }
+
+    /**
+     * Get the engine shared by all AnalysisHelpers, creating it if necessary
+     */
+    private static synchronized AnalysisEngine getEngine() {
+        if (engine == null) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            Log.i(tag, "Creating analysis engine with " + cores + " threads");
+            engine = new AnalysisEngine(cores, TABLE_MEGABYTES);
+        }
+        return engine;
+    }
+
+    /**
+     * Start analysing the given position, cancelling any analysis that is already running. Our
+     * requester will receive a callback every time the analysis finds a better result.
+     *
+     * @param position - the position to analyse; must not be modified afterwards
+     */
+    void analyse(Position position) {
+        session++;
+        getEngine().analyse(position, MAX_DEPTH, MAX_MILLIS, new SessionListener(session, position));
+    }
+
+    /**
+     * Cancel any analysis started by this object. Once this method returns, our requester will not
+     * receive any more callbacks until analyse() is called again.
+     */
+    void cancel() {
+        session++;
+        removeMessages(ANALYSIS_UPDATED);
+        if (engine != null) {
+            getEngine().cancel();
+        }
+    }
+
+    /**
+     * We use this method to give callbacks to our requester, so that they run on the UI thread.
+     *
+     * @param msg - contains information about what callback should be called
+     */
+    @Override
+    public void handleMessage(@NonNull Message msg) {
+        if (msg.what == ANALYSIS_UPDATED && msg.arg1 == session) {
+            Result result = (Result) msg.obj;
+            requester.analysisUpdated(result.info, result.line);
+        }
+    }
+
+    /**
+     * Implemented by objects that want to be told about the results of an analysis
+     */
+    interface AnalysisRequester {
+        /**
+         * Called on the UI thread every time the analysis finds a better result, and one final time
+         * when it ends
+         *
+         * @param info - the best result found so far
+         * @param line - the best line found so far, in standard algebraic notation
+         */
+        void analysisUpdated(AnalysisInfo info, String line);
+    }
+
+    /**
+     * Bundles together an AnalysisInfo and the String form of its line, so that both can be sent
+     * in a single Message
+     */
+    private static class Result {
+        private final AnalysisInfo info;
+        private final String line;
+
+        private Result(AnalysisInfo info, String line) {
+            this.info = info;
+            this.line = line;
+        }
+    }
+
+    /**
+     * Receives results from the engine for a single analysis. This runs on the engine's main
+     * search thread, so we take the chance to convert the best line into algebraic notation
+     * before hopping over to the UI thread.
+     */
+    private class SessionListener implements AnalysisListener {
+        /**
+         * The session this listener belongs to
+         */
+        private final int session;
+
+        /**
+         * The analysed position, used to put the best line into algebraic notation
+         */
+        private final Position root;
+
+        private SessionListener(int session, Position root) {
+            this.session = session;
+            this.root = root;
+        }
+
+        @Override
+        public void analysisUpdated(AnalysisInfo info) {
+            String line = Notation.toSan(root, info.getLine());
+            obtainMessage(ANALYSIS_UPDATED, session, 0, new Result(info, line)).sendToTarget();
+        }
+    }
+}
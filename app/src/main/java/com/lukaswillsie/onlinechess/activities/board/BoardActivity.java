@@ -1,14 +1,20 @@
 package com.lukaswillsie.onlinechess.activities.board;
 
 import android.content.DialogInterface;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
+import android.widget.SeekBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.constraintlayout.widget.ConstraintLayout;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.ViewModelProviders;
 
 import com.lukaswillsie.onlinechess.R;
 import com.lukaswillsie.onlinechess.activities.Display;
@@ -17,7 +23,12 @@ import com.lukaswillsie.onlinechess.activities.ErrorDialogFragment;
 import com.lukaswillsie.onlinechess.activities.ReconnectListener;
 import com.lukaswillsie.onlinechess.activities.Reconnector;
 import com.lukaswillsie.onlinechess.data.GameData;
+import com.lukaswillsie.onlinechess.data.GameHistory;
 import com.lukaswillsie.onlinechess.data.UserGame;
+import com.lukaswillsie.onlinechess.engine.AnalysisInfo;
+import com.lukaswillsie.onlinechess.engine.Notation;
+import com.lukaswillsie.onlinechess.engine.OpeningBook;
+import com.lukaswillsie.onlinechess.engine.Position;
 import com.lukaswillsie.onlinechess.network.Server;
 import com.lukaswillsie.onlinechess.network.helper.MultipleRequestException;
 import com.lukaswillsie.onlinechess.network.helper.ServerHelper;
@@ -28,6 +39,7 @@ import com.lukaswillsie.onlinechess.network.helper.requesters.RejectRequester;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 import Chess.com.lukaswillsie.chess.Board;
 
@@ -35,7 +47,7 @@ import Chess.com.lukaswillsie.chess.Board;
  * BoardActivity is the most important Activity in the app; it allows users to actually view
  * their game boards and make moves.
  */
-public class BoardActivity extends ErrorDialogActivity implements ReconnectListener, LoadGameRequester, GameDialogCreator, GameListener {
+public class BoardActivity extends ErrorDialogActivity implements ReconnectListener, LoadGameRequester, GameDialogCreator, GameListener, AnalysisHelper.AnalysisRequester {
     /**
      * Activities that start this Activity MUST use this tag to pass, as an extra in the intent,
      * the ID of the game that this Activity is supposed to load.
@@ -45,6 +57,15 @@ public class BoardActivity extends ErrorDialogActivity implements ReconnectListe
      * Tag used for logging to the console
      */
     private static final String tag = "BoardActivity";
+    /**
+     * The most book moves we list for a position
+     */
+    private static final int MAX_BOOK_MOVES = 5;
+    /**
+     * The name of the file, in the app's external files directory, that we write frame timing
+     * reports to in debuggable builds
+     */
+    private static final String FRAME_REPORT_FILE = "frame_metrics.txt";
     /**
      * The ID of the game being displayed by this Activity
      */
@@ -62,12 +83,35 @@ public class BoardActivity extends ErrorDialogActivity implements ReconnectListe
      * The object managing the game being displayed by this Activity
      */
     private ChessManager manager;
+    /**
+     * The GamePresenter for the game currently being displayed, or null if none has been loaded
+     */
+    private GamePresenter presenter;
+    /**
+     * Runs the analysis engine on games that are over, so the user can see how the game stands
+     * and what the best continuation would have been
+     */
+    private AnalysisHelper analysisHelper;
+    /**
+     * Lets the user step through the moves of a finished game. null if the game isn't over, or the
+     * server didn't send us its moves.
+     */
+    private GameReplay replay;
     /**
      * If true, means we are currently submitting a draw/resign request to the server, and shouldn't
      * submit any more requests. Otherwise, we are free to submit a request after the user clicks
      * one of the "Draw" or "Resign" buttons.
      */
     private boolean activeRequest;
+    /**
+     * Records how smoothly the board is drawn. Only non-null in debuggable builds.
+     */
+    private FrameMonitor frameMonitor;
+    /**
+     * Holds the game we're showing, and anything waiting on the server for it, across
+     * configuration changes
+     */
+    private GameViewModel model;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -76,20 +120,104 @@ public class BoardActivity extends ErrorDialogActivity implements ReconnectListe
 
         String gameID = getIntent().getStringExtra(GAMEID_TAG);
 
+        // Holds our game across configuration changes, and any load game request made for it
+        model = ViewModelProviders.of(this).get(GameViewModel.class);
+        model.attach(this);
+
         // Will create an empty chessboard on the screen
         display = new BoardDisplay();
         display.build((ConstraintLayout) findViewById(R.id.board_layout));
 
-        // Reconnect if necessary. Otherwise, try and fetch the data for the game we're supposed to
-        // be loading
+        // In debuggable builds, keep track of dropped frames and show how we're doing over the top
+        // of the screen
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            frameMonitor = display.getFrameMonitor();
+            TextView overlay = (TextView) findViewById(R.id.frame_monitor_overlay);
+            overlay.setVisibility(View.VISIBLE);
+            frameMonitor.setOverlay(overlay);
+        }
+
+        analysisHelper = new AnalysisHelper(this);
+        ((SeekBar) findViewById(R.id.replay_seek_bar)).setOnSeekBarChangeListener(new ReplaySeekListener());
+
+        // If we've only been recreated for a configuration change, our game is still loaded, and
+        // we can pick up right where we left off. If our process was killed, we can at least show
+        // the board as it was straight away, from the snapshot we saved.
+        if (model.getPresenter() != null) {
+            this.gameID = (String) model.getGame().getData(GameData.GAMEID);
+            this.manager = model.getManager();
+            manager.attach(display, this, this, this);
+            showGame(model.getGame(), model.getPresenter(), model.getHistory());
+        } else if (savedInstanceState != null) {
+            GameSnapshot snapshot = GameSnapshot.restore(savedInstanceState);
+            if (snapshot != null) {
+                Log.i(tag, "Restored game from saved snapshot");
+                this.gameID = (String) snapshot.game.getData(GameData.GAMEID);
+                model.setGame(snapshot.game, snapshot.presenter, snapshot.history);
+                this.manager = new ChessManager(gameID, snapshot.presenter, display, this, this, this);
+                model.setManager(manager);
+                showGame(snapshot.game, snapshot.presenter, snapshot.history);
+            }
+        }
+
+        // Reconnect if necessary; once we have, the game will be loaded fresh from the server.
+        // Otherwise, if we don't have the game yet and aren't already waiting on it, try and fetch
+        // the data for the game we're supposed to be loading.
         ServerHelper serverHelper = Server.getServerHelper();
         if (serverHelper == null) {
+            if (this.gameID == null) {
+                this.gameID = gameID;
+            }
             new Reconnector(this, this).reconnect();
-        } else {
+        } else if (model.getPresenter() == null && !model.isLoading()) {
             start(gameID);
         }
     }
 
+    /**
+     * Save a snapshot of the game we're showing, so that if our process is killed, the board can be
+     * shown again without a trip to the server when the user returns
+     */
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        if (game != null && presenter != null) {
+            GameSnapshot.save(outState, game, presenter, model.getHistory());
+        }
+    }
+
+    /**
+     * Analysis keeps several cores busy, so we stop it whenever the user can't see the board, and
+     * pick it back up when they return
+     */
+    @Override
+    protected void onStart() {
+        super.onStart();
+        startAnalysis();
+        if (frameMonitor != null) {
+            frameMonitor.start(getWindowManager().getDefaultDisplay().getRefreshRate());
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        analysisHelper.cancel();
+        if (frameMonitor != null) {
+            frameMonitor.stop();
+            // Write the frame timing report so far to FRAME_REPORT_FILE, where it can be pulled
+            // off the device with adb
+            frameMonitor.export(this, FRAME_REPORT_FILE);
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        analysisHelper.cancel();
+        model.detach();
+    }
+
     /**
      * Called if the user clicks the "Draw" button
      *
@@ -149,6 +277,12 @@ public class BoardActivity extends ErrorDialogActivity implements ReconnectListe
     @Override
     public void userMoved() {
         setUI();
+        showOpening();
+
+        // The user's move may have just ended the game, in which case it's now open to analysis
+        if (game != null && game.isOver()) {
+            startAnalysis();
+        }
     }
 
     /**
@@ -181,13 +315,15 @@ public class BoardActivity extends ErrorDialogActivity implements ReconnectListe
         }
         this.gameID = gameID;
 
-        ServerHelper serverHelper = Server.getServerHelper();
-        try {
-            serverHelper.loadGame(this, gameID, Server.getUsername());
-        } catch (MultipleRequestException e) {
-            Log.e(tag, "Tried to make multiple load game requests of serverHelper");
-            this.showSystemErrorDialog();
-        }
+        // Whatever we were analysing no longer matches what's on the screen
+        presenter = null;
+        replay = null;
+        analysisHelper.cancel();
+        findViewById(R.id.analysis_layout).setVisibility(View.GONE);
+        findViewById(R.id.opening_name).setVisibility(View.GONE);
+        findViewById(R.id.replay_layout).setVisibility(View.GONE);
+
+        model.load(gameID);
     }
 
     /**
@@ -195,17 +331,26 @@ public class BoardActivity extends ErrorDialogActivity implements ReconnectListe
      * the requested game, and will have been initialized successfully from the data sent over by
      * the server.
      *
-     * @param board - a Board object successfully initialized to hold all data associated with the
-     *              requested game
+     * @param board   - a Board object successfully initialized to hold all data associated with the
+     *                requested game
+     * @param game    - the UserGame object holding the game's high-level data
+     * @param history - the moves played in the game, or null if the server couldn't send them
      */
     @Override
-    public void success(Board board, UserGame game) {
+    public void success(Board board, UserGame game, GameHistory history) {
+        // The request may have been made by an Activity that was destroyed for a configuration
+        // change before the game arrived, so we take the game's ID from the game itself
+        this.gameID = (String) game.getData(GameData.GAMEID);
+
         // Create a GamePresenter and GameManager for this game, now that we have all the data we
         // need
         GamePresenter presenter = new GamePresenter(game, board);
+        this.presenter = presenter;
         this.game = game;
+        model.setGame(game, presenter, history);
         if (manager == null) {
             manager = new ChessManager(gameID, presenter, display, this, this, this);
+            model.setManager(manager);
         } else {
             manager.setGame(gameID, presenter);
         }
@@ -222,7 +367,196 @@ public class BoardActivity extends ErrorDialogActivity implements ReconnectListe
             }
         }
 
+        showGame(game, presenter, history);
+    }
+
+    /**
+     * Fill the screen with everything about the given game, which our ChessManager must already be
+     * managing
+     *
+     * @param game      - the game to show
+     * @param presenter - the GamePresenter holding the game's board
+     * @param history   - the moves played in the game, or null if we don't have them
+     */
+    private void showGame(UserGame game, GamePresenter presenter, GameHistory history) {
+        this.game = game;
+        this.presenter = presenter;
+
         setUI();
+        setUpReplay(history);
+        showOpening();
+        startAnalysis();
+    }
+
+    /**
+     * If the game being displayed is over or archived and we have its moves, build a replay of it
+     * and show the controls that let the user step through it. Like analysis, replays aren't
+     * offered for games still being played.
+     *
+     * @param history - the moves played in the game, or null if we don't have them
+     */
+    private void setUpReplay(GameHistory history) {
+        replay = null;
+        boolean finished = game.isOver() || (Integer) game.getData(GameData.ARCHIVED) == 1;
+        if (finished && history != null && history.size() > 0) {
+            replay = GameReplay.create(history, presenter.toPosition());
+        }
+
+        if (replay == null) {
+            findViewById(R.id.replay_layout).setVisibility(View.GONE);
+        } else {
+            SeekBar seekBar = findViewById(R.id.replay_seek_bar);
+            seekBar.setMax(replay.size());
+            seekBar.setProgress(replay.size());
+            showReplayLabel();
+            findViewById(R.id.replay_layout).setVisibility(View.VISIBLE);
+        }
+    }
+
+    /**
+     * Update the label describing which move of the replay is being shown
+     */
+    private void showReplayLabel() {
+        TextView label = findViewById(R.id.replay_label);
+        String move = replay.getLastMove();
+        if (move == null) {
+            label.setText(R.string.replay_start_label);
+        } else {
+            label.setText(getString(R.string.replay_move_label, move, replay.getPly(), replay.size()));
+        }
+    }
+
+    /**
+     * Get the position currently on the screen: the position the user has stepped to if they're
+     * looking through a replay, or otherwise the game's current position
+     */
+    private Position getDisplayedPosition() {
+        if (replay != null && !replay.atEnd()) {
+            return replay.getPosition();
+        }
+        return presenter.toPosition();
+    }
+
+    /**
+     * Show the name of the opening the game is in, if the opening book knows the position on the
+     * board. Once the book has been paged in, lookups take microseconds, so this is safe to do
+     * whenever the board changes; until then, OpeningBookHelper gives us no book and we show no
+     * name.
+     */
+    private void showOpening() {
+        TextView openingName = findViewById(R.id.opening_name);
+        OpeningBook book = OpeningBookHelper.getBook(this);
+
+        String name = null;
+        if (presenter != null && book != null) {
+            name = book.getOpeningName(getDisplayedPosition());
+        }
+
+        if (name == null) {
+            openingName.setVisibility(View.GONE);
+        } else {
+            openingName.setText(name);
+            openingName.setVisibility(View.VISIBLE);
+        }
+    }
+
+    /**
+     * Look the given position up in the opening book, and list its book moves, most popular first,
+     * with the share of book games that play each one, for example "Nc6 (84%), Nf6 (8%)"
+     *
+     * @param position - the position to look up
+     * @return The position's book moves, or null if it has none or the book isn't ready yet
+     */
+    private String getBookMoves(Position position) {
+        OpeningBook book = OpeningBookHelper.getBook(this);
+        if (book == null) {
+            return null;
+        }
+
+        int[] moves = new int[MAX_BOOK_MOVES];
+        int[] weights = new int[MAX_BOOK_MOVES];
+        int count = book.getMoves(position, moves, weights);
+        if (count == 0) {
+            return null;
+        }
+
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            total += weights[i];
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(Notation.toSan(position, moves[i]))
+                    .append(" (").append(Math.round(100f * weights[i] / total)).append("%)");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * If the game being displayed is over or archived, start analysing the position on the screen
+     * (or list its book moves, if it's still in the opening book) and reveal the analysis section of
+     * the screen. Analysis is only offered for such games so that
+     * it can't be used to help the user in games that are still being played.
+     */
+    private void startAnalysis() {
+        if (presenter == null || game == null) {
+            return;
+        }
+
+        if (game.isOver() || (Integer) game.getData(GameData.ARCHIVED) == 1) {
+            ((EvaluationBar) findViewById(R.id.evaluation_bar)).reset();
+            ((TextView) findViewById(R.id.analysis_evaluation)).setText("");
+            ((TextView) findViewById(R.id.best_line)).setText("");
+            findViewById(R.id.analysis_layout).setVisibility(View.VISIBLE);
+
+            // There's no point searching a position the opening book already has answers for
+            Position position = getDisplayedPosition();
+            String bookMoves = getBookMoves(position);
+            if (bookMoves != null) {
+                analysisHelper.cancel();
+                ((TextView) findViewById(R.id.analysis_evaluation)).setText(R.string.analysis_book_label);
+                ((TextView) findViewById(R.id.best_line)).setText(getString(R.string.analysis_book_moves_label, bookMoves));
+            } else {
+                analysisHelper.analyse(position);
+            }
+        } else {
+            findViewById(R.id.analysis_layout).setVisibility(View.GONE);
+        }
+    }
+
+    /**
+     * Called by our AnalysisHelper every time the analysis of the current game finds a better
+     * result. Here we update the evaluation bar and best line on the screen.
+     *
+     * @param info - the best result found so far
+     * @param line - the best line found so far, in algebraic notation
+     */
+    @Override
+    public void analysisUpdated(AnalysisInfo info, String line) {
+        ((EvaluationBar) findViewById(R.id.evaluation_bar)).setEvaluation(info);
+
+        TextView evaluation = findViewById(R.id.analysis_evaluation);
+        if (info.getLine().length == 0) {
+            // The position has no legal moves, so there's nothing to search
+            evaluation.setText(info.isMate() ? R.string.analysis_checkmate_label : R.string.analysis_no_moves_label);
+        } else if (info.isMate()) {
+            String winner = getString(info.getScore() > 0 ? R.string.white_label : R.string.black_label);
+            evaluation.setText(getString(R.string.analysis_mate_label, info.getMateIn(), winner, info.getDepth()));
+        } else {
+            String score = String.format(Locale.US, "%+.2f", info.getScore() / 100.0);
+            evaluation.setText(getString(R.string.analysis_score_label, score, info.getDepth()));
+        }
+
+        TextView bestLine = findViewById(R.id.best_line);
+        bestLine.setText(line.length() == 0 ? "" : getString(R.string.analysis_best_line_label, line));
+
+        if (info.isFinal()) {
+            Log.i(tag, "Analysis finished at depth " + info.getDepth() + ", " + info.getNodesPerSecond() + " nodes/s");
+        }
     }
 
     /**
@@ -651,7 +985,17 @@ public class BoardActivity extends ErrorDialogActivity implements ReconnectListe
      * BoardActivity implemented both interfaces, to those methods we'd have to add a way to
      * differentiate between draw request callbacks and forfeit request callbacks. This is cleaner.
      */
-    private class OfferDrawRequestListener implements DrawRequester {
+    private class OfferDrawRequestListener implements DrawRequester, LifecycleOwner {
+        /**
+         * Our request only matters while BoardActivity is alive, so we share its Lifecycle. This lets
+         * ServerHelper let go of us, and the Activity, if it's destroyed before the server answers.
+         */
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return BoardActivity.this.getLifecycle();
+        }
+
         /**
          * Called if our draw request succeeds
          */
@@ -748,7 +1092,7 @@ public class BoardActivity extends ErrorDialogActivity implements ReconnectListe
      * We use this class to receive callbacks whenever we send a request to either accept or reject
      * a draw offer.
      */
-    private class AcceptRejectListener implements DrawRequester, RejectRequester {
+    private class AcceptRejectListener implements DrawRequester, RejectRequester, LifecycleOwner {
         /**
          * Whether the request that this object is listening to is a request to ACCEPT a draw offer,
          * or REJECT one.
@@ -766,6 +1110,15 @@ public class BoardActivity extends ErrorDialogActivity implements ReconnectListe
             this.isAccept = isAccept;
         }
 
+        /**
+         * Shares BoardActivity's Lifecycle, for the reason given in OfferDrawRequestListener
+         */
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return BoardActivity.this.getLifecycle();
+        }
+
         @Override
         public void drawSuccess() {
             // Update the model
@@ -913,7 +1266,16 @@ public class BoardActivity extends ErrorDialogActivity implements ReconnectListe
      * BoardActivity implemented both interfaces, to those methods we'd have to add a way to
      * differentiate between draw request callbacks and forfeit request callbacks. This is cleaner.
      */
-    private class ForfeitRequestListener implements ForfeitRequester {
+    private class ForfeitRequestListener implements ForfeitRequester, LifecycleOwner {
+        /**
+         * Shares BoardActivity's Lifecycle, for the reason given in OfferDrawRequestListener
+         */
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return BoardActivity.this.getLifecycle();
+        }
+
         /**
          * Called if our forfeit request succeeds
          */
@@ -1005,6 +1367,37 @@ public class BoardActivity extends ErrorDialogActivity implements ReconnectListe
         }
     }
 
+    /**
+     * Receives callbacks when the user moves through a replay of the game using the scrubber
+     */
+    private class ReplaySeekListener implements SeekBar.OnSeekBarChangeListener {
+        /**
+         * Called whenever the user drags the replay scrubber. Moves the replay to the chosen ply
+         * and redraws only the squares that changed, then refreshes the opening name and the
+         * analysis for the new position.
+         */
+        @Override
+        public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
+            if (!fromUser || replay == null || progress == replay.getPly()) {
+                return;
+            }
+
+            replay.seek(progress);
+            display.showReplay(replay);
+            showReplayLabel();
+            showOpening();
+            startAnalysis();
+        }
+
+        @Override
+        public void onStartTrackingTouch(SeekBar seekBar) {
+        }
+
+        @Override
+        public void onStopTrackingTouch(SeekBar seekBar) {
+        }
+    }
+
     /**
      * A very simple listener class that listens to a dialog that we put up to notify the user of
      * a critical error. In the context of this Activity, this means an error we can't remedy. So
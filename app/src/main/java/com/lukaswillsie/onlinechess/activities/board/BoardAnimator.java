@@ -0,0 +1,226 @@
+package com.lukaswillsie.onlinechess.activities.board;
+
+import android.animation.TimeAnimator;
+import android.graphics.Canvas;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.AnimationUtils;
+import android.view.animation.Interpolator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Animates pieces sliding across and fading off a BoardView. Every running animation is driven by
+ * a single TimeAnimator, and every animation started while handling the same event gets the same
+ * start time, so a castle's king and rook, or a capture's slide and fade, move in lockstep on the
+ * same frames. The animations are drawn straight onto the board by BoardView.onDraw(), so running
+ * one involves no extra Views and no layout passes.
+ * <p>
+ * Finished animations go back into a pool, so once a few moves have been animated, animating
+ * another allocates nothing.
+ */
+class BoardAnimator implements TimeAnimator.TimeListener {
+    /*
+     * The kinds of animation we can run
+     */
+    private static final int SLIDE = 0;
+    private static final int FADE = 1;
+
+    /**
+     * Shapes every animation's progress, starting and ending slowly
+     */
+    private static final Interpolator interpolator = new AccelerateDecelerateInterpolator();
+
+    /**
+     * The board we're animating pieces on
+     */
+    private final BoardView board;
+
+    /**
+     * Fires once per frame while any animation is running
+     */
+    private final TimeAnimator animator = new TimeAnimator();
+
+    /**
+     * The animations currently running, in the order they were started
+     */
+    private final List<Sprite> running = new ArrayList<>();
+
+    /**
+     * Finished animations, ready to be reused
+     */
+    private final List<Sprite> pool = new ArrayList<>();
+
+    /**
+     * Animations that finished on the current frame, whose end actions still need to be run
+     */
+    private final List<Sprite> finished = new ArrayList<>();
+
+    BoardAnimator(BoardView board) {
+        this.board = board;
+        animator.setTimeListener(this);
+    }
+
+    /**
+     * Slide the given piece from one square to another
+     *
+     * @param fromRow    - the row on the screen the piece starts on
+     * @param fromColumn - the column on the screen the piece starts on
+     * @param toRow      - the row on the screen the piece ends on
+     * @param toColumn   - the column on the screen the piece ends on
+     * @param code       - the engine code of the piece
+     * @param duration   - how long the slide should take, in milliseconds
+     * @param endAction  - run once the piece arrives; may be null
+     */
+    void slide(int fromRow, int fromColumn, int toRow, int toColumn, int code, long duration, Runnable endAction) {
+        start(SLIDE, fromRow, fromColumn, toRow, toColumn, code, duration, endAction);
+    }
+
+    /**
+     * Fade the given piece out where it stands
+     *
+     * @param row      - the row on the screen of the piece
+     * @param column   - the column on the screen of the piece
+     * @param code     - the engine code of the piece
+     * @param duration - how long the fade should take, in milliseconds
+     */
+    void fade(int row, int column, int code, long duration) {
+        start(FADE, row, column, row, column, code, duration, null);
+    }
+
+    /**
+     * Set up an animation, taking one from the pool if we can, and make sure we're running
+     */
+    private void start(int kind, int fromRow, int fromColumn, int toRow, int toColumn, int code, long duration, Runnable endAction) {
+        Sprite sprite = pool.isEmpty() ? new Sprite() : pool.remove(pool.size() - 1);
+        sprite.kind = kind;
+        sprite.fromRow = fromRow;
+        sprite.fromColumn = fromColumn;
+        sprite.toRow = toRow;
+        sprite.toColumn = toColumn;
+        sprite.code = code;
+        sprite.duration = Math.max(1, duration);
+        sprite.endAction = endAction;
+        // Everything started while handling the same event gets the same start time
+        sprite.startTime = AnimationUtils.currentAnimationTimeMillis();
+        sprite.progress = 0;
+
+        running.add(sprite);
+        board.invalidate();
+        if (!animator.isStarted()) {
+            animator.start();
+            board.getFrameMonitor().begin(FrameMonitor.ANIMATE);
+        }
+    }
+
+    @Override
+    public void onTimeUpdate(TimeAnimator animation, long totalTime, long deltaTime) {
+        long now = AnimationUtils.currentAnimationTimeMillis();
+        for (int i = running.size() - 1; i >= 0; i--) {
+            Sprite sprite = running.get(i);
+            float fraction = Math.min(1f, (now - sprite.startTime) / (float) sprite.duration);
+            sprite.progress = interpolator.getInterpolation(fraction);
+            if (fraction >= 1f) {
+                running.remove(i);
+                finished.add(sprite);
+            }
+        }
+        board.invalidate();
+
+        if (running.isEmpty()) {
+            stop();
+        }
+        runEndActions();
+    }
+
+    /**
+     * Bring every running animation to its end immediately, running the end actions as usual
+     */
+    void finishAll() {
+        if (!running.isEmpty()) {
+            board.invalidate();
+        }
+        for (int i = running.size() - 1; i >= 0; i--) {
+            finished.add(running.remove(i));
+        }
+        stop();
+        runEndActions();
+    }
+
+    /**
+     * Stop the frame loop, if it's running
+     */
+    private void stop() {
+        if (animator.isStarted()) {
+            animator.end();
+            board.getFrameMonitor().end(FrameMonitor.ANIMATE);
+        }
+    }
+
+    /**
+     * Run the end actions of the animations that have just finished and put them back in the
+     * pool. An end action may well start another animation, which is why we don't run them while
+     * looping through the running animations.
+     */
+    private void runEndActions() {
+        // End actions run in the order their animations were started
+        for (int i = finished.size() - 1; i >= 0; i--) {
+            Sprite sprite = finished.get(i);
+            Runnable endAction = sprite.endAction;
+            sprite.endAction = null;
+            pool.add(sprite);
+            if (endAction != null) {
+                endAction.run();
+            }
+        }
+        finished.clear();
+    }
+
+    /**
+     * Draw every running animation onto the given Canvas
+     *
+     * @param canvas  - the Canvas to draw on
+     * @param sprites - the piece images to draw with
+     * @param padding - the padding between the edge of a square and the piece drawn on it
+     */
+    void draw(Canvas canvas, PieceSprites sprites, int padding) {
+        for (int i = 0; i < running.size(); i++) {
+            Sprite sprite = running.get(i);
+            int left = Math.round(sprite.getLeft()) + padding;
+            int top = Math.round(sprite.getTop()) + padding;
+            if (sprite.kind == FADE) {
+                sprites.draw(canvas, sprite.code, left, top, Math.round(255 * (1 - sprite.progress)));
+            } else {
+                sprites.draw(canvas, sprite.code, left, top);
+            }
+        }
+    }
+
+    /**
+     * A single piece being animated
+     */
+    private class Sprite {
+        private int kind;
+        private int fromRow;
+        private int fromColumn;
+        private int toRow;
+        private int toColumn;
+        private int code;
+        private long startTime;
+        private long duration;
+        private Runnable endAction;
+
+        /**
+         * How far along the animation is, from 0 to 1, after interpolation
+         */
+        private float progress;
+
+        private float getLeft() {
+            return board.getSquareLeft(fromColumn) + (board.getSquareLeft(toColumn) - board.getSquareLeft(fromColumn)) * progress;
+        }
+
+        private float getTop() {
+            return board.getSquareTop(fromRow) + (board.getSquareTop(toRow) - board.getSquareTop(fromRow)) * progress;
+        }
+    }
+}
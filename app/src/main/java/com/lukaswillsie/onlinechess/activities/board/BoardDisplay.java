@@ -1,19 +1,19 @@
 package com.lukaswillsie.onlinechess.activities.board;
 
 import android.content.Context;
-import android.media.MediaPlayer;
 import android.view.DragEvent;
+import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
-import android.view.animation.Animation;
-import android.view.animation.TranslateAnimation;
 import android.widget.ImageView;
-import android.widget.LinearLayout;
 
 import androidx.constraintlayout.widget.ConstraintLayout;
+import androidx.constraintlayout.widget.ConstraintSet;
 
 import com.lukaswillsie.onlinechess.R;
+import com.lukaswillsie.onlinechess.engine.Pieces;
+import com.lukaswillsie.onlinechess.engine.Position;
 
 import java.util.List;
 
@@ -28,62 +28,71 @@ public class BoardDisplay {
     /**
      * Used for playing sound effects
      */
-    private static MediaPlayer movePlayer;
-    private static MediaPlayer capturePlayer;
+    private MoveSounds sounds;
     /**
-     * Represents the chessboard being displayed on the screen. Each Square object is a wrapper for
-     * a ConstraintLayout representing a square on the screen. This matrix maps onto the screen
-     * as follows: board[0][0] is the bottom-left corner of the screen. board[7][0] is the top-left
-     * corner of the screen.
+     * How long, in milliseconds, pieces take to slide to their destination or fade off the board
      */
-    private Square[][] board = new Square[8][8];
+    private static final long ANIMATION_DURATION = 200;
+    /**
+     * The View that draws the chessboard on the screen. It works in screen coordinates:
+     * (0, 0) is the bottom-left corner of the screen and (7, 0) is the top-left corner.
+     */
+    private BoardView board;
+    /**
+     * The layout holding board, to which we attach promotion banners
+     */
+    private ConstraintLayout layout;
+    /**
+     * A reference to the promotion banner currently attached to the board, if there is one. null
+     * otherwise.
+     */
+    private ConstraintLayout promotionBanner;
+    /*
+     * The square, in SCREEN COORDINATES, that promotionBanner is attached to
+     */
+    private int bannerRow;
+    private int bannerColumn;
     /**
      * The GamePresenter object whose data this object is displaying on the screen.
      */
     private GamePresenter presenter;
     /**
-     * The object receiving touch events from all the Squares being managed by this object
+     * The object receiving touch events from the board being managed by this object
      */
     private DisplayListener listener;
     /**
      * The Context of the board that this object is managing
      */
     private Context context;
+    /**
+     * While a GameReplay is being shown, replayShown[square] is the engine piece code (see Pieces)
+     * currently drawn on each square of the board, indexed by BOARD COORDINATES as
+     * row * 8 + column. Lets us redraw only the squares that change from one ply to the next.
+     * null if we haven't shown a replay since activate() was last called.
+     */
+    private int[] replayShown;
+    /**
+     * replayDummy[square] is true if the given square is displaying a dummy piece for a replay,
+     * rather than the piece from our GamePresenter
+     */
+    private boolean[] replayDummy;
+    /**
+     * Dummy pieces used to draw replays, indexed by engine piece code
+     */
+    private Piece[] replayPieces;
 
     /**
-     * Takes the given TableLayout and builds a chessboard on it. The given TableLayout should be
-     * a TableLayout formatted exactly as in empty_chessboard_layout.xml, with 8 equally-weighted
-     * LinearLayouts as children. Does nothing if the given TableLayout does not have the proper
-     * format
+     * Takes the given layout and prepares the chessboard inside it for use. The given layout
+     * should be formatted exactly as in empty_chessboard_layout.xml, with a BoardView as its
+     * child.
      *
-     * @param layout - the TableLayout that will be turned into a chessboard
+     * @param layout - the layout containing the chessboard
      */
     public void build(ConstraintLayout layout) {
-        context = layout.getContext();
-
-        if (movePlayer == null) {
-            movePlayer = MediaPlayer.create(context, R.raw.move_sound);
-        }
-
-        if (capturePlayer == null) {
-            capturePlayer = MediaPlayer.create(context, R.raw.capture_sound);
-        }
-
-        for (int i = 0; i < 8; i++) {
-            View child = layout.getChildAt(i);
-            if (child instanceof LinearLayout) {
-                LinearLayout row = (LinearLayout) child;
-                for (int j = 0; j < 8; j++) {
-                    ImageView squareIm = new ImageView(context);
-                    LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(0, LinearLayout.LayoutParams.MATCH_PARENT, 1f);
-                    squareIm.setLayoutParams(params);
-
-                    Square square = new Square(7 - i, j, squareIm);
-                    board[7 - i][j] = square;
-                    row.addView(squareIm);
-                }
-            }
-        }
+        this.context = layout.getContext();
+        this.layout = layout;
+        this.board = (BoardView) layout.findViewById(R.id.board_view);
+        this.sounds = MoveSounds.get(context);
     }
 
     /**
@@ -98,6 +107,9 @@ public class BoardDisplay {
     public void activate(GamePresenter presenter, DisplayListener listener) {
         this.presenter = presenter;
         this.listener = listener;
+        this.replayShown = null;
+        this.replayDummy = null;
+        this.replayPieces = null;
 
         resetSquares();
         Piece piece;
@@ -109,12 +121,11 @@ public class BoardDisplay {
                     piece = presenter.getPiece(7 - row, 7 - column);
                 }
 
-                board[row][column].setPiece(piece);
-
-                board[row][column].setSquareOnTouchListener(new SquareTouchListener());
-                board[row][column].setSquareDragListener(new SquareDragListener());
+                board.setPiece(row, column, piece);
             }
         }
+
+        board.setDisplayListener(listener);
     }
 
     /**
@@ -143,7 +154,7 @@ public class BoardDisplay {
     public void highlightSquares(List<Pair> squares, boolean capture) {
         for (Pair pair : squares) {
             if (0 <= pair.first() && pair.first() <= 7 && 0 <= pair.second() && pair.second() <= 7) {
-                board[pair.first()][pair.second()].highlight(capture);
+                board.highlight(pair.first(), pair.second(), capture);
             }
         }
     }
@@ -162,7 +173,7 @@ public class BoardDisplay {
      */
     public void selectSquare(int row, int column) {
         if (0 <= row && row <= 7 && 0 <= column && column <= 7) {
-            board[row][column].select();
+            board.select(row, column);
         }
     }
 
@@ -172,11 +183,15 @@ public class BoardDisplay {
      * displaying.
      */
     public void resetSquares() {
-        for (int row = 0; row < 8; row++) {
-            for (int column = 0; column < 8; column++) {
-                board[row][column].reset();
-            }
-        }
+        board.clearHighlights();
+    }
+
+    /**
+     * Get the FrameMonitor keeping track of how smoothly the board is drawn. Drags, animations,
+     * highlights and promotion banners shown on the board are all tagged in it.
+     */
+    FrameMonitor getFrameMonitor() {
+        return board.getFrameMonitor();
     }
 
     /**
@@ -191,7 +206,7 @@ public class BoardDisplay {
      */
     public void startDrag(int row, int column) {
         if (0 <= row && row <= 7 && 0 <= column && column <= 7) {
-            board[row][column].startDrag();
+            board.startDrag(row, column);
         }
     }
 
@@ -207,16 +222,108 @@ public class BoardDisplay {
      * @param column   - the column on the board occupied by the square to attach the banner to
      * @param listener - will receive a callback when the user selects a piece from the banner
      */
-    public void attachPromotionBanner(int row, int column, Square.BannerListener listener) {
+    public void attachPromotionBanner(int row, int column, BannerListener listener) {
         if (0 <= row && row <= 7 && 0 <= column && column <= 7) {
             if (presenter.getUserColour() == Colour.WHITE) {
-                board[row][column].attachPromotionBanner(presenter.getUserColour(), listener);
+                attachPromotionBannerOnScreen(row, column, listener);
             } else {
-                board[7 - row][7 - column].attachPromotionBanner(presenter.getUserColour(), listener);
+                attachPromotionBannerOnScreen(7 - row, 7 - column, listener);
             }
         }
     }
 
+    /**
+     * Attach a promotion banner, displaying pieces of the user's colour, to the given square. If a
+     * promotion banner is already attached to the board when this method is called, that promotion
+     * banner is removed.
+     * <p>
+     * IMPORTANT NOTE: Row and column should be given as SCREEN COORDINATES.
+     *
+     * @param row      - the row on the screen occupied by the square to attach the banner to
+     * @param column   - the column on the screen occupied by the square to attach the banner to
+     * @param listener - will receive a callback when the user selects a piece
+     */
+    private void attachPromotionBannerOnScreen(int row, int column, final BannerListener listener) {
+        board.getFrameMonitor().mark(FrameMonitor.BANNER);
+
+        // If a promotion banner is already attached, we remove it from the screen
+        if (promotionBanner != null) {
+            ((ViewGroup) promotionBanner.getParent()).removeView(promotionBanner);
+        }
+
+        // Inflate our banner from an XML file
+        if (presenter.getUserColour() == Colour.WHITE) {
+            promotionBanner = (ConstraintLayout) LayoutInflater.from(context).inflate(R.layout.white_promote_menu_layout, layout, false);
+        } else {
+            promotionBanner = (ConstraintLayout) LayoutInflater.from(context).inflate(R.layout.black_promote_menu_layout, layout, false);
+        }
+        bannerRow = row;
+        bannerColumn = column;
+
+        // The banner's images come from the same sprites the board draws with, rather than being
+        // decoded again from resources every time a banner appears
+        PieceSprites sprites = board.getSprites();
+        if (sprites != null) {
+            int colour = presenter.getUserColour() == Colour.WHITE ? Pieces.WHITE : Pieces.BLACK;
+            ((ImageView) promotionBanner.findViewById(R.id.queen)).setImageDrawable(sprites.getDrawable(Pieces.make(colour, Pieces.QUEEN)));
+            ((ImageView) promotionBanner.findViewById(R.id.rook)).setImageDrawable(sprites.getDrawable(Pieces.make(colour, Pieces.ROOK)));
+            ((ImageView) promotionBanner.findViewById(R.id.bishop)).setImageDrawable(sprites.getDrawable(Pieces.make(colour, Pieces.BISHOP)));
+            ((ImageView) promotionBanner.findViewById(R.id.knight)).setImageDrawable(sprites.getDrawable(Pieces.make(colour, Pieces.KNIGHT)));
+        }
+
+        // Wire onClicks from the Views in the banner to the appropriate methods in BannerListener
+        promotionBanner.findViewById(R.id.queen).setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                listener.queenPromotion();
+            }
+        });
+
+        promotionBanner.findViewById(R.id.rook).setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                listener.rookPromotion();
+            }
+        });
+
+        promotionBanner.findViewById(R.id.bishop).setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                listener.bishopPromotion();
+            }
+        });
+
+        promotionBanner.findViewById(R.id.knight).setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                listener.knightPromotion();
+            }
+        });
+
+        layout.addView(promotionBanner);
+        ConstraintSet constraints = new ConstraintSet();
+        constraints.clone(layout);
+
+        // The banner is already constrained laterally to the sides of the board, in XML. Here we
+        // constrain the banner so that it sits directly below the given row. There's no View for
+        // each row anymore, so we offset it from the top of the board instead.
+        float squareSize = board.getSquareSize();
+        constraints.connect(promotionBanner.getId(), ConstraintSet.TOP, board.getId(), ConstraintSet.TOP,
+                Math.round(board.getSquareTop(row) + squareSize));
+        constraints.applyTo(layout);
+
+        // The banner contains icons for four pieces: a queen, rook, bishop, and knight. Given a
+        // height, the banner and its contents automatically size themselves so that the banner
+        // contains a vertical column of 4 squares, each containing a different piece. We set the
+        // height so that each square in the banner is exactly the size of a square on the board,
+        // and give the banner a horizontal bias that lines it up perfectly directly beneath the
+        // given square.
+        ConstraintLayout.LayoutParams params = (ConstraintLayout.LayoutParams) promotionBanner.getLayoutParams();
+        params.height = Math.round(squareSize * 4);
+        params.horizontalBias = column * (1f / 7);
+        promotionBanner.setLayoutParams(params);
+    }
+
     /**
      * Detach a promotion banner from the given square on the board. If no promotion banner is
      * attached to the specified square, nothing happens.
@@ -229,11 +336,14 @@ public class BoardDisplay {
      * @param column - the column on the board occupied by the square to attach the banner to
      */
     public void detachPromotionBanner(int row, int column) {
-        if (0 <= row && row <= 7 && 0 <= column && column <= 7) {
-            if (presenter.getUserColour() == Colour.WHITE) {
-                board[row][column].detachPromotionBanner();
-            } else {
-                board[7 - row][7 - column].detachPromotionBanner();
+        if (0 <= row && row <= 7 && 0 <= column && column <= 7 && promotionBanner != null) {
+            Pair square = convertCoords(Coordinates.of(row, column));
+            if (square.first() == bannerRow && square.second() == bannerColumn) {
+                // Remove the promotionBanner form the screen and nullify our reference to it so
+                // that it can be garbage-collected
+                ((ViewGroup) promotionBanner.getParent()).removeView(promotionBanner);
+                promotionBanner = null;
+                board.getFrameMonitor().mark(FrameMonitor.BANNER);
             }
         }
     }
@@ -253,9 +363,9 @@ public class BoardDisplay {
     public void reset(int row, int column) {
         if (0 <= row && row <= 7 && 0 <= column && column <= 7) {
             if (presenter.getUserColour() == Colour.WHITE) {
-                board[row][column].setPiece(presenter.getPiece(row, column));
+                board.setPiece(row, column, presenter.getPiece(row, column));
             } else {
-                board[7 - row][7 - column].setPiece(presenter.getPiece(row, column));
+                board.setPiece(7 - row, 7 - column, presenter.getPiece(row, column));
             }
         }
     }
@@ -267,11 +377,66 @@ public class BoardDisplay {
     public void reset() {
         for (int row = 0; row < 8; row++) {
             for (int column = 0; column < 8; column++) {
-                board[row][column].setPiece(presenter.getPiece(convertCoords(new Pair(row, column))));
+                board.setPiece(row, column, presenter.getPiece(convertCoords(Coordinates.of(row, column))));
             }
         }
     }
 
+    /**
+     * Display the position that the given GameReplay is at, instead of the position in our
+     * GamePresenter. Only squares whose contents differ from what's already on the screen are
+     * redrawn, so stepping through a game one move at a time redraws two to four squares per step.
+     * Once the replay is back at the end of the game, every square goes back to displaying the
+     * piece from our GamePresenter.
+     *
+     * @param replay - a replay of the game in our GamePresenter
+     */
+    public void showReplay(GameReplay replay) {
+        if (replayShown == null) {
+            // The screen is currently showing the game's current position
+            Position current = presenter.toPosition();
+            replayShown = new int[64];
+            replayDummy = new boolean[64];
+            for (int square = 0; square < 64; square++) {
+                replayShown[square] = current.getPiece(square);
+            }
+            replayPieces = createReplayPieces();
+        }
+
+        boolean atEnd = replay.atEnd();
+        for (int row = 0; row < 8; row++) {
+            for (int column = 0; column < 8; column++) {
+                int square = row * 8 + column;
+                int piece = replay.getPiece(row, column);
+
+                if (atEnd) {
+                    if (replayDummy[square]) {
+                        reset(row, column);
+                        replayDummy[square] = false;
+                    }
+                } else if (piece != replayShown[square]) {
+                    set(row, column, piece == Pieces.EMPTY ? null : replayPieces[piece], false, false);
+                    replayDummy[square] = true;
+                }
+                replayShown[square] = piece;
+            }
+        }
+    }
+
+    /**
+     * Create one dummy piece for each engine piece code, for use in displaying replays
+     */
+    private Piece[] createReplayPieces() {
+        // Engine piece types, in the order of their codes in Pieces
+        PieceType[] types = {PieceType.PAWN, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN, PieceType.KING};
+        Piece[] pieces = new Piece[12];
+        for (int type = 0; type < 6; type++) {
+            pieces[Pieces.make(Pieces.WHITE, type)] = presenter.createDummyPiece(types[type], Colour.WHITE);
+            pieces[Pieces.make(Pieces.BLACK, type)] = presenter.createDummyPiece(types[type], Colour.BLACK);
+        }
+        return pieces;
+    }
+
     /**
      * Sets the square specified by row and column to display the given piece. If piece is null, the
      * specified square will be emptied.
@@ -292,18 +457,14 @@ public class BoardDisplay {
     public void set(int row, int column, Piece piece, boolean playSoundEffect, boolean capture) {
         if (0 <= row && row <= 7 && 0 <= column && column <= 7) {
             if (presenter.getUserColour() == Colour.WHITE) {
-                board[row][column].setPiece(piece);
+                board.setPiece(row, column, piece);
             } else {
-                board[7 - row][7 - column].setPiece(piece);
+                board.setPiece(7 - row, 7 - column, piece);
             }
 
             // Play a sound effect, if we've been instructed to
             if (playSoundEffect) {
-                if (capture) {
-                    capturePlayer.start();
-                } else {
-                    movePlayer.start();
-                }
+                sounds.play(capture ? MoveSounds.CAPTURE : MoveSounds.MOVE, 0);
             }
         }
     }
@@ -322,7 +483,7 @@ public class BoardDisplay {
      */
     private void setOnScreen(int row, int column, Piece piece) {
         if (0 <= row && row <= 7 && 0 <= column && column <= 7) {
-            board[row][column].setPiece(piece);
+            board.setPiece(row, column, piece);
         }
     }
 
@@ -336,13 +497,13 @@ public class BoardDisplay {
      * invalid (either one has row or column outside of {0,1,...,7}).
      *
      * @param move            - the Move to be executed
-     * @param playSoundEffect - whether or not to play a sound effect when the move animation is
-     *                        finished
+     * @param playSoundEffect - whether or not to play a sound effect timed to when the piece
+     *                        reaches its destination
      * @param capture         - whether or not this move is a capture move. If it is, and playSoundEffect is
      *                        true, a different sound effect will be played than if it is a normal move, say
      *                        to an empty square.
      */
-    public void move(final Move move, final boolean playSoundEffect, final boolean capture) {
+    public void move(final Move move, boolean playSoundEffect, boolean capture) {
         Pair src = convertCoords(move.src);
         Pair dest = convertCoords(move.dest);
 
@@ -354,46 +515,44 @@ public class BoardDisplay {
 
         final Piece piece = presenter.getPiece(move.src.first(), move.src.second());
         if (piece != null) {
-            // This creates an ImageView, floating on top of the Square at src_row and src_column,
-            // that we can animate as part of the move
-            final ImageView animate = board[src_row][src_column].getAnimatableView();
-            float[] srcCoords = {board[src_row][src_column].getAbsoluteX(), board[src_row][src_column].getAbsoluteY()};
-            float[] destCoords = {board[dest_row][dest_column].getAbsoluteX(), board[dest_row][dest_column].getAbsoluteY()};
-
-
             // Put an empty square where the piece used to be
             setOnScreen(src_row, src_column, null);
 
-            // Will animate the ImageView we created from the source square to the destination
-            // square
-            final TranslateAnimation anim = new TranslateAnimation(0, destCoords[0] - srcCoords[0], 0, destCoords[1] - srcCoords[1]);
-            anim.setAnimationListener(new Animation.AnimationListener() {
-                @Override
-                public void onAnimationStart(Animation animation) {
-                }
-
-                @Override
-                public void onAnimationEnd(Animation animation) {
-                    if (playSoundEffect) {
-                        if (capture) {
-                            capturePlayer.start();
-                        } else {
-                            movePlayer.start();
-                        }
-                    }
+            // If there's a piece being captured, fade it out while the capturing piece slides in
+            board.fadeOut(dest_row, dest_column, ANIMATION_DURATION);
 
-                    // Now that the animation is done, place the piece from the source square on the
-                    // destination square and destroy the ImageView we used for the animation.
-                    setOnScreen(dest_row, dest_column, piece);
-                    ((ViewGroup) animate.getParent()).removeView(animate);
-                }
+            // Schedule the sound effect now, timed to land with the piece, rather than waiting for
+            // the animation to tell us it's done
+            if (playSoundEffect) {
+                sounds.play(capture ? MoveSounds.CAPTURE : MoveSounds.MOVE, ANIMATION_DURATION);
+            }
 
+            // Slide the piece across the board, and then place it on the destination square
+            board.animateMove(src_row, src_column, dest_row, dest_column, piece, ANIMATION_DURATION, new Runnable() {
                 @Override
-                public void onAnimationRepeat(Animation animation) {
+                public void run() {
+                    setOnScreen(dest_row, dest_column, piece);
                 }
             });
-            anim.setDuration(200);
-            animate.startAnimation(anim);
+        }
+    }
+
+    /**
+     * Fade out the piece on the given square, leaving it empty. Used for pieces that are captured
+     * without the capturing piece landing on their square, like pawns taken en passant; the fade
+     * runs alongside any move started at the same time.
+     * <p>
+     * IMPORTANT NOTE: Row and column should be given as BOARD COORDINATES, independent of what
+     * colour the user is playing. Does nothing if row and column are not both between 0 and 7,
+     * inclusive.
+     *
+     * @param row    - the row on the board of the square to empty
+     * @param column - the column on the board of the square to empty
+     */
+    public void fadeOut(int row, int column) {
+        if (0 <= row && row <= 7 && 0 <= column && column <= 7) {
+            Pair square = convertCoords(Coordinates.of(row, column));
+            board.fadeOut(square.first(), square.second(), ANIMATION_DURATION);
         }
     }
 
@@ -405,14 +564,14 @@ public class BoardDisplay {
      * needs to get reflected across the same axis to become the other.
      *
      * @param pair - the Pair of board coordinates to be converted
-     * @return A new Pair, containing coordinates in either board or screen form, converted to the
+     * @return A shared Pair, from Coordinates, containing coordinates in either board or screen form, converted to the
      * other form.
      */
     private Pair convertCoords(Pair pair) {
         if (presenter.getUserColour() == Colour.WHITE) {
-            return new Pair(pair.first(), pair.second());
+            return Coordinates.of(pair.first(), pair.second());
         } else {
-            return new Pair(7 - pair.first(), 7 - pair.second());
+            return Coordinates.flipped(pair.first(), pair.second());
         }
     }
 
@@ -450,24 +609,28 @@ public class BoardDisplay {
     }
 
     /**
-     * This class is responsible for listening to the Squares being managed by this BoardDisplay and
-     * passing touch events on to the object listening to this BoardDisplay.
+     * A BannerListener is an object that can be attached to a promotion banner. When the user
+     * selects the piece they want to promote their pawn into, the listener will receive a callback.
      */
-    private class SquareTouchListener implements Square.SquareOnTouchListener {
-        @Override
-        public boolean onTouch(int x, int y, MotionEvent event) {
-            return listener.onTouch(x, y, event);
-        }
-    }
+    public interface BannerListener {
+        /**
+         * Called if the user selects the Queen
+         */
+        void queenPromotion();
 
-    /**
-     * This class is responsible for passing drag events on to the object listening to this
-     * BoardDisplay
-     */
-    private class SquareDragListener implements Square.SquareDragListener {
-        @Override
-        public boolean onDrag(int row, int column, DragEvent event) {
-            return listener.onDrag(row, column, event);
-        }
+        /**
+         * Called if the user selects the Rook
+         */
+        void rookPromotion();
+
+        /**
+         * Called if the user selects the Bishop
+         */
+        void bishopPromotion();
+
+        /**
+         * Called if the user selects the Knight
+         */
+        void knightPromotion();
     }
 }
@@ -0,0 +1,571 @@
+package com.lukaswillsie.onlinechess.activities.board;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Point;
+import android.graphics.Rect;
+import android.os.Build;
+import android.util.AttributeSet;
+import android.util.DisplayMetrics;
+import android.view.DragEvent;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import com.lukaswillsie.onlinechess.R;
+import com.lukaswillsie.onlinechess.engine.Pieces;
+
+import Chess.com.lukaswillsie.chess.Piece;
+
+/**
+ * Draws the whole chessboard, squares, highlights and pieces, in a single View. This replaces the
+ * grid of 64 ImageViews we used to build the board out of: changing a highlight or a piece just
+ * updates an entry in the arrays below and invalidates the view, rather than swapping the
+ * background of an ImageView and triggering a layout pass.
+ * <p>
+ * Everything here works in SCREEN coordinates, where (row, column) = (0, 0) is the bottom-left
+ * square on the screen. BoardDisplay does the translation to and from board coordinates.
+ */
+public class BoardView extends View {
+    /*
+     * The states a square's background can be in
+     */
+    private static final int NORMAL = 0;
+    private static final int SELECTED = 1;
+    private static final int MOVE = 2;
+    private static final int CAPTURE = 3;
+
+    /**
+     * The padding, in pixels, between the edge of a square and the piece drawn on it
+     */
+    private static final int PIECE_PADDING = 5;
+
+    /**
+     * pieces[row * 8 + column] is the piece drawn on the given square, or null if it's empty
+     */
+    private final Piece[] pieces = new Piece[64];
+
+    /**
+     * codes[row * 8 + column] is the engine code (see Pieces) of the piece drawn on the given
+     * square, or Pieces.EMPTY, worked out once when the piece is set so that drawing it is just a
+     * lookup in sprites
+     */
+    private final int[] codes = new int[64];
+
+    /**
+     * states[row * 8 + column] is the state of the given square's background, one of the constants
+     * above
+     */
+    private final int[] states = new int[64];
+
+    /**
+     * Runs the pieces currently sliding across or fading off the board, which are drawn on top of
+     * everything else
+     */
+    private final BoardAnimator animator = new BoardAnimator(this);
+
+    /**
+     * Keeps track of how smoothly this board is drawn, and what the user was doing at the time
+     */
+    private final FrameMonitor frameMonitor = new FrameMonitor();
+
+    /*
+     * Used to paint square backgrounds
+     */
+    private final Paint lightPaint = new Paint();
+    private final Paint darkPaint = new Paint();
+    private final Paint selectedPaint = new Paint();
+    private final Paint lightMovePaint = new Paint();
+    private final Paint darkMovePaint = new Paint();
+    private final Paint capturePaint = new Paint();
+
+    /**
+     * The piece images, at the size pieces are drawn on this board. null until we know our size.
+     */
+    private PieceSprites sprites;
+
+    /**
+     * Scratch Rect, so that drawing doesn't allocate
+     */
+    private final Rect bounds = new Rect();
+
+    /**
+     * The object that receives touch and drag events from this board
+     */
+    private BoardDisplay.DisplayListener listener;
+
+    /**
+     * The width and height of a single square, in pixels
+     */
+    private float squareSize;
+
+    /*
+     * The square, in screen coordinates, that the current touch gesture started on, and whether
+     * the listener wanted to hear about the rest of the gesture
+     */
+    private int touchRow;
+    private int touchColumn;
+    private boolean tracking;
+
+    /**
+     * dragTargets[row * 8 + column] is true if the listener said it wants drag events for the given
+     * square when the current drag started
+     */
+    private final boolean[] dragTargets = new boolean[64];
+
+    /**
+     * Whether or not a drag accepted by at least one square is in progress
+     */
+    private boolean dragging;
+
+    public BoardView(Context context) {
+        super(context);
+        init(context);
+    }
+
+    public BoardView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        init(context);
+    }
+
+    public BoardView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(context);
+    }
+
+    /**
+     * Set up the Paints we draw with
+     */
+    private void init(Context context) {
+        lightPaint.setColor(context.getResources().getColor(R.color.board_light_square));
+        darkPaint.setColor(context.getResources().getColor(R.color.board_dark_square));
+        selectedPaint.setColor(context.getResources().getColor(R.color.board_selected_square));
+        lightMovePaint.setColor(context.getResources().getColor(R.color.board_light_move_square));
+        darkMovePaint.setColor(context.getResources().getColor(R.color.board_dark_move_square));
+        capturePaint.setColor(context.getResources().getColor(R.color.board_capture_square));
+
+        for (int square = 0; square < 64; square++) {
+            codes[square] = Pieces.EMPTY;
+        }
+
+        setOnDragListener(new BoardDragListener());
+    }
+
+    /**
+     * Set the object that will receive touch and drag events from this board. Events are reported
+     * for individual squares, exactly as though each square were its own View.
+     *
+     * @param listener - the object that will receive events from this board
+     */
+    public void setDisplayListener(BoardDisplay.DisplayListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Get the width and height of a single square on the board, in pixels
+     */
+    public float getSquareSize() {
+        return squareSize;
+    }
+
+    /**
+     * Get the piece images this board draws with, sized to fit its squares
+     *
+     * @return The sprites this board draws with, or null if this board hasn't been laid out yet
+     */
+    PieceSprites getSprites() {
+        return sprites;
+    }
+
+    /**
+     * Get the FrameMonitor that keeps track of how smoothly this board is drawn. The board tags
+     * frames with the drags, animations and highlights that happen on it; it's up to the owner of
+     * the board to start and stop the monitor.
+     */
+    FrameMonitor getFrameMonitor() {
+        return frameMonitor;
+    }
+
+    /**
+     * Get the piece drawn on the given square
+     *
+     * @param row    - the row on the screen of the square
+     * @param column - the column on the screen of the square
+     * @return The piece drawn on the given square, or null if it is empty
+     */
+    public Piece getPiece(int row, int column) {
+        return pieces[row * 8 + column];
+    }
+
+    /**
+     * Draw the given piece on the given square, or empty the square if piece is null
+     *
+     * @param row    - the row on the screen of the square
+     * @param column - the column on the screen of the square
+     * @param piece  - the piece to draw, or null
+     */
+    public void setPiece(int row, int column, Piece piece) {
+        int square = row * 8 + column;
+        if (pieces[square] != piece) {
+            pieces[square] = piece;
+            codes[square] = piece == null ? Pieces.EMPTY : PieceSprites.codeOf(piece);
+            invalidate();
+        }
+    }
+
+    /**
+     * Highlight the given square as one the selected piece can move to
+     *
+     * @param row     - the row on the screen of the square
+     * @param column  - the column on the screen of the square
+     * @param capture - whether moving to the square would capture a piece, in which case it is
+     *                highlighted red rather than green
+     */
+    public void highlight(int row, int column, boolean capture) {
+        setState(row, column, capture ? CAPTURE : MOVE);
+    }
+
+    /**
+     * Mark the given square as the one holding the selected piece
+     *
+     * @param row    - the row on the screen of the square
+     * @param column - the column on the screen of the square
+     */
+    public void select(int row, int column) {
+        setState(row, column, SELECTED);
+    }
+
+    /**
+     * Remove every highlight and selection from the board. Doesn't change any pieces.
+     */
+    public void clearHighlights() {
+        for (int row = 0; row < 8; row++) {
+            for (int column = 0; column < 8; column++) {
+                setState(row, column, NORMAL);
+            }
+        }
+    }
+
+    /**
+     * Change the background state of the given square, redrawing the board if anything changed
+     */
+    private void setState(int row, int column, int state) {
+        int square = row * 8 + column;
+        if (states[square] != state) {
+            states[square] = state;
+            invalidate();
+            frameMonitor.mark(FrameMonitor.HIGHLIGHT);
+        }
+    }
+
+    /**
+     * Start dragging the piece on the given square. Does nothing if the square is empty.
+     *
+     * @param row    - the row on the screen of the square
+     * @param column - the column on the screen of the square
+     */
+    public void startDrag(int row, int column) {
+        int code = codes[row * 8 + column];
+        if (code != Pieces.EMPTY && sprites != null) {
+            PieceDragShadowBuilder shadow = new PieceDragShadowBuilder(code);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                startDragAndDrop(null, shadow, null, View.DRAG_FLAG_OPAQUE);
+            } else {
+                startDrag(null, shadow, null, 0);
+            }
+        }
+    }
+
+    /**
+     * Slide the given piece from one square to another. The piece is drawn on top of the board
+     * while it moves; neither square's contents are changed, so callers should empty the source
+     * square before starting and fill the destination square in endAction.
+     *
+     * @param fromRow    - the row on the screen the piece starts on
+     * @param fromColumn - the column on the screen the piece starts on
+     * @param toRow      - the row on the screen the piece ends on
+     * @param toColumn   - the column on the screen the piece ends on
+     * @param piece      - the piece to draw
+     * @param duration   - how long the slide should take, in milliseconds
+     * @param endAction  - run on the UI thread once the piece arrives
+     */
+    public void animateMove(int fromRow, int fromColumn, int toRow, int toColumn, Piece piece, long duration,
+                            Runnable endAction) {
+        animator.slide(fromRow, fromColumn, toRow, toColumn, PieceSprites.codeOf(piece), duration, endAction);
+    }
+
+    /**
+     * Fade out the piece on the given square. The square is emptied immediately and the piece is
+     * drawn on top of the board, fading, until it disappears. Fades and slides started together
+     * run on the same frames, so a capturing piece arrives just as the captured one vanishes.
+     *
+     * @param row      - the row on the screen of the square
+     * @param column   - the column on the screen of the square
+     * @param duration - how long the fade should take, in milliseconds
+     */
+    public void fadeOut(int row, int column, long duration) {
+        int code = codes[row * 8 + column];
+        if (code == Pieces.EMPTY) {
+            return;
+        }
+        setPiece(row, column, null);
+        animator.fade(row, column, code, duration);
+    }
+
+    /**
+     * Get the pixel x coordinate of the left edge of the given column, within this View
+     */
+    public float getSquareLeft(int column) {
+        return column * squareSize;
+    }
+
+    /**
+     * Get the pixel y coordinate of the top edge of the given row, within this View. Row 0 is at
+     * the bottom of the board.
+     */
+    public float getSquareTop(int row) {
+        return (7 - row) * squareSize;
+    }
+
+    /**
+     * Build, ahead of time, the piece images for a board as wide as the screen is in portrait,
+     * which is how BoardActivity shows it. The first board shown then doesn't have to decode them
+     * itself. Can be called from any thread.
+     *
+     * @param context - any Context belonging to the app
+     */
+    public static void prepareSprites(Context context) {
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        PieceSprites.get(context, spriteSize(Math.min(metrics.widthPixels, metrics.heightPixels) / 8f));
+    }
+
+    /**
+     * Get the size to draw pieces at on squares of the given size
+     */
+    private static int spriteSize(float squareSize) {
+        return Math.round(squareSize) - 2 * PIECE_PADDING;
+    }
+
+    @Override
+    protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight) {
+        super.onSizeChanged(width, height, oldWidth, oldHeight);
+        squareSize = Math.min(width, height) / 8f;
+        sprites = PieceSprites.get(getContext(), spriteSize(squareSize));
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        // Don't leave pieces stranded mid-animation, or the frame loop running, once we're gone
+        animator.finishAll();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (sprites == null) {
+            return;
+        }
+
+        for (int row = 0; row < 8; row++) {
+            for (int column = 0; column < 8; column++) {
+                setSquareBounds(row, column);
+                canvas.drawRect(bounds, getPaint(row, column));
+                int code = codes[row * 8 + column];
+                if (code != Pieces.EMPTY) {
+                    sprites.draw(canvas, code, bounds.left + PIECE_PADDING, bounds.top + PIECE_PADDING);
+                }
+            }
+        }
+
+        animator.draw(canvas, sprites, PIECE_PADDING);
+    }
+
+    /**
+     * Get the Paint for the background of the given square, according to its state
+     */
+    private Paint getPaint(int row, int column) {
+        boolean light = isLightSquare(row, column);
+        switch (states[row * 8 + column]) {
+            case SELECTED:
+                return selectedPaint;
+            case MOVE:
+                return light ? lightMovePaint : darkMovePaint;
+            case CAPTURE:
+                return capturePaint;
+            default:
+                return light ? lightPaint : darkPaint;
+        }
+    }
+
+    /**
+     * Determine whether or not the given square is a light square on the chessboard
+     */
+    private static boolean isLightSquare(int row, int column) {
+        // If you look at a chess board using the row,column system that we're using, you'll
+        // notice the following pattern determines which squares are light and which dark
+        return (row + column) % 2 == 1;
+    }
+
+    /**
+     * Set bounds to the pixel bounds of the given square
+     */
+    private void setSquareBounds(int row, int column) {
+        bounds.set(Math.round(getSquareLeft(column)), Math.round(getSquareTop(row)),
+                Math.round(getSquareLeft(column + 1)), Math.round(getSquareTop(row - 1)));
+    }
+
+    /**
+     * Work out which row of the board the given y coordinate falls in
+     *
+     * @return The row, or -1 if y is off the board
+     */
+    private int rowAt(float y) {
+        if (squareSize <= 0 || y < 0 || y >= 8 * squareSize) {
+            return -1;
+        }
+        return 7 - (int) (y / squareSize);
+    }
+
+    /**
+     * Work out which column of the board the given x coordinate falls in
+     *
+     * @return The column, or -1 if x is off the board
+     */
+    private int columnAt(float x) {
+        if (squareSize <= 0 || x < 0 || x >= 8 * squareSize) {
+            return -1;
+        }
+        return (int) (x / squareSize);
+    }
+
+    @SuppressLint("ClickableViewAccessibility")
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (listener == null) {
+            return false;
+        }
+
+        int row = rowAt(event.getY());
+        int column = columnAt(event.getX());
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            if (row == -1 || column == -1) {
+                return false;
+            }
+            touchRow = row;
+            touchColumn = column;
+            tracking = listener.onTouch(row, column, event);
+            return tracking;
+        }
+
+        // Like a separate View for each square, we send every event in a gesture to the square it
+        // started on. If the user moves their finger off that square, though, we stop passing the
+        // events on, so that pressing down on one square and letting go on another doesn't count
+        // as a tap on either.
+        if (tracking && row == touchRow && column == touchColumn) {
+            if (event.getActionMasked() == MotionEvent.ACTION_UP) {
+                performClick();
+            }
+            listener.onTouch(row, column, event);
+        }
+        if (event.getActionMasked() == MotionEvent.ACTION_UP || event.getActionMasked() == MotionEvent.ACTION_CANCEL) {
+            tracking = false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    /**
+     * Hands drag events over this board to the listener, one square at a time. When a drag
+     * starts, every square is offered the chance to take part, and from then on only the squares
+     * that accepted hear about the drag. A DragEvent can't be created or changed by an app, so
+     * the listener gets the event we were given, whose coordinates are relative to the whole
+     * board, and doesn't get a separate ENTERED and EXITED event for each square.
+     */
+    private class BoardDragListener implements View.OnDragListener {
+        @Override
+        public boolean onDrag(View view, DragEvent event) {
+            if (listener == null) {
+                return false;
+            }
+
+            switch (event.getAction()) {
+                case DragEvent.ACTION_DRAG_STARTED:
+                    boolean accepted = false;
+                    for (int row = 0; row < 8; row++) {
+                        for (int column = 0; column < 8; column++) {
+                            dragTargets[row * 8 + column] = listener.onDrag(row, column, event);
+                            accepted |= dragTargets[row * 8 + column];
+                        }
+                    }
+                    if (accepted && !dragging) {
+                        dragging = true;
+                        frameMonitor.begin(FrameMonitor.DRAG);
+                    }
+                    return accepted;
+                case DragEvent.ACTION_DRAG_LOCATION:
+                case DragEvent.ACTION_DROP:
+                    int row = rowAt(event.getY());
+                    int column = columnAt(event.getX());
+                    if (row == -1 || column == -1 || !dragTargets[row * 8 + column]) {
+                        return false;
+                    }
+                    return listener.onDrag(row, column, event);
+                case DragEvent.ACTION_DRAG_ENDED:
+                    if (dragging) {
+                        dragging = false;
+                        frameMonitor.end(FrameMonitor.DRAG);
+                    }
+
+                    // The listener only needs to hear that the drag ended once
+                    int first = -1;
+                    for (int square = 0; square < 64; square++) {
+                        if (dragTargets[square] && first == -1) {
+                            first = square;
+                        }
+                        dragTargets[square] = false;
+                    }
+                    if (first != -1) {
+                        listener.onDrag(first / 8, first % 8, event);
+                    }
+                    return true;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * Builds the drag shadow for a piece being dragged: an image of the piece, the size of a
+     * square, centred under the user's finger
+     */
+    private class PieceDragShadowBuilder extends View.DragShadowBuilder {
+        /**
+         * The engine code of the piece being dragged
+         */
+        private final int code;
+
+        private PieceDragShadowBuilder(int code) {
+            this.code = code;
+        }
+
+        @Override
+        public void onProvideShadowMetrics(Point outShadowSize, Point outShadowTouchPoint) {
+            int size = Math.max(1, Math.round(squareSize));
+            outShadowSize.set(size, size);
+            outShadowTouchPoint.set(size / 2, size / 2);
+        }
+
+        @Override
+        public void onDrawShadow(Canvas canvas) {
+            sprites.draw(canvas, code, PIECE_PADDING, PIECE_PADDING);
+        }
+    }
+}
@@ -13,6 +13,7 @@ import com.lukaswillsie.onlinechess.activities.ErrorDialogFragment;
 import com.lukaswillsie.onlinechess.activities.ReconnectListener;
 import com.lukaswillsie.onlinechess.activities.Reconnector;
 import com.lukaswillsie.onlinechess.data.GameData;
+import com.lukaswillsie.onlinechess.network.NetworkTrace;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -27,7 +28,7 @@ import Chess.com.lukaswillsie.chess.Piece;
  * to actions made by the user. It interacts with the UI at a high-level by using a BoardDisplay
  * object. It accesses data about the game it is managing by using a GamePresenter object.
  */
-public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestListener, ReconnectListener, Square.BannerListener, PromoteRequestListener {
+public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestListener, ReconnectListener, BoardDisplay.BannerListener, PromoteRequestListener {
     /**
      * Tag used for logging to the console
      */
@@ -90,6 +91,11 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
      * The object that will process and send move requests to the server for us
      */
     private MoveRequestHandler moveHandler;
+    /**
+     * When we started handling the touch or drag event in progress, from System.nanoTime(), so
+     * that a move it makes can be traced from there (see NetworkTrace)
+     */
+    private long eventStarted;
     /**
      * The object that will process and send promote requests to the server for us
      */
@@ -99,6 +105,24 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
      * accept any new UI events from the user, even if it's the user's turn to make a move.
      */
     private boolean paused = false;
+    /**
+     * Whether release() has been called, in which case the game isn't being shown anywhere and
+     * we ignore the results of any requests still waiting on the server
+     */
+    private boolean released = false;
+    /**
+     * The squares the selected piece can move to, in board coordinates. Filled in once when the
+     * piece is selected, so that drag and tap events don't have to ask the piece to generate its
+     * moves again.
+     */
+    private final List<Pair> selectedMoves = new ArrayList<>();
+    /*
+     * Buffers reused every time the user selects a piece, so that highlighting the selected
+     * piece's moves doesn't allocate new lists
+     */
+    private final List<Pair> normalMoves = new ArrayList<>();
+    private final List<Pair> captureMoves = new ArrayList<>();
+    private final List<Pair> screenSquares = new ArrayList<>();
 
     /**
      * Create a new ChessManager that will manage the game represented by the given GamePresenter
@@ -133,6 +157,71 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
         showDialogIfNecessary();
     }
 
+    /**
+     * Hand this object over to a new Activity, after the one it was created for has been destroyed
+     * and recreated for a configuration change. The game and any move or promotion waiting on the
+     * server carry on as they were; the new BoardDisplay is set up to show them just as the old one
+     * did, except that any piece the user had selected is forgotten.
+     *
+     * @param display       - the new Activity's BoardDisplay, which must already have been built
+     * @param listener      - the object that will receive game-event callbacks from this object
+     * @param dialogCreator - the object that this ChessManager will use to create error dialogs
+     * @param activity      - the new Activity displaying the game
+     */
+    void attach(BoardDisplay display, GameListener listener, GameDialogCreator dialogCreator, AppCompatActivity activity) {
+        this.display = display;
+        this.listener = listener;
+        this.dialogCreator = dialogCreator;
+        this.activity = activity;
+
+        selected = null;
+        dragEnded = false;
+        display.activate(presenter, this);
+
+        // Our model doesn't change until the server confirms a move or promotion, so the board has
+        // to be shown with any that are still waiting on top of it
+        if (activeMove != null) {
+            showActiveMove();
+        } else if (activePromotion != null) {
+            display.set(toPromote.first(), toPromote.second(), presenter.createDummyPiece(PieceType.valueOf(activePromotion.name()), presenter.getUserColour()), false, false);
+        } else {
+            createPromotionBannerIfNeeded();
+        }
+    }
+
+    /**
+     * Let go of the Activity this object was last attached to, and everything belonging to it,
+     * because the game is no longer being shown anywhere. A move or promotion still waiting on the
+     * server when this is called has its result ignored. This object can't be used afterwards.
+     */
+    void release() {
+        released = true;
+        display = null;
+        listener = null;
+        dialogCreator = null;
+        activity = null;
+    }
+
+    /**
+     * Show activeMove on the board, as if it had been made, without animating it or playing any
+     * sounds
+     */
+    private void showActiveMove() {
+        Pair src = activeMove.src;
+        Pair dest = activeMove.dest;
+        Move rookMove = presenter.isCastle(activeMove);
+        Pair enPassantCapture = presenter.isEnPassant(activeMove);
+
+        display.set(dest.first(), dest.second(), presenter.getPiece(src.first(), src.second()), false, false);
+        display.set(src.first(), src.second(), null, false, false);
+        if (rookMove != null) {
+            display.set(rookMove.dest.first(), rookMove.dest.second(), presenter.getPiece(rookMove.src.first(), rookMove.src.second()), false, false);
+            display.set(rookMove.src.first(), rookMove.src.second(), null, false, false);
+        } else if (enPassantCapture != null) {
+            display.set(enPassantCapture.first(), enPassantCapture.second(), null, false, false);
+        }
+    }
+
     /**
      * Pauses this object, stopping it from accepting any new UI events from the user until resume()
      * or setGame() is called.
@@ -258,9 +347,27 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
         if (paused) {
             return false;
         }
+        eventStarted = System.nanoTime();
+
+        // Touch events arrive many times a second during a drag, so we only build this message if
+        // someone has asked for verbose logging from this class
+        if (Log.isLoggable(tag, Log.VERBOSE)) {
+            Log.v(tag, "(" + row + ", " + column + ")\n" + event.toString());
+        }
+        return onTouch(row, column, event.getAction());
+    }
 
-        Log.i(tag, "(" + row + ", " + column + ")\n" + event.toString());
-        int action = event.getAction();
+    /**
+     * Handle a touch event of the given kind on the given square of the screen. Kept apart from
+     * onTouch(int, int, MotionEvent) so that it can be exercised without a MotionEvent, as
+     * ChessManagerAllocationTest does.
+     *
+     * @param row    - the row of the square touched, in screen coordinates
+     * @param column - the column of the square touched, in screen coordinates
+     * @param action - the event's action, like MotionEvent.ACTION_DOWN
+     * @return Whether we want to keep receiving the rest of the gesture's events
+     */
+    boolean onTouch(int row, int column, int action) {
         Piece piece;
         switch (action) {
             case MotionEvent.ACTION_DOWN:
@@ -280,16 +387,18 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
 
                         display.selectSquare(row, column);
 
-                        List<Pair> moves = selected.getMoves();
+                        selectedMoves.clear();
+                        selectedMoves.addAll(selected.getMoves());
 
                         // We parse the list of moves into capture moves and normal moves
-                        List<Pair> normalMoves = new ArrayList<>();
-                        List<Pair> captureMoves = new ArrayList<>();
-                        for (Pair move : moves) {
+                        normalMoves.clear();
+                        captureMoves.clear();
+                        Pair src = Coordinates.of(selected.getRow(), selected.getColumn());
+                        for (Pair move : selectedMoves) {
                             if (presenter.getPiece(move.first(), move.second()) == null) {
                                 // If the move ends on an empty square, it can still be a capture
-                                // move if it's an en passant capture
-                                if (presenter.isEnPassant(new Move(new Pair(selected.getRow(), selected.getColumn()), move)) != null) {
+                                // move if it's an en passant capture, which only a pawn can make
+                                if (selected instanceof Pawn && presenter.isEnPassant(new Move(src, move)) != null) {
                                     captureMoves.add(move);
                                 } else {
                                     normalMoves.add(move);
@@ -299,8 +408,8 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
                             }
                         }
 
-                        display.highlightSquares(convertToScreenCoords(captureMoves), true);
-                        display.highlightSquares(convertToScreenCoords(normalMoves), false);
+                        display.highlightSquares(convertToScreenCoords(captureMoves, screenSquares), true);
+                        display.highlightSquares(convertToScreenCoords(normalMoves, screenSquares), false);
                     }
                     return true;
                 } else {
@@ -316,8 +425,8 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
                         // If the user has a piece selected and the empty square they are clicking
                         // is a square that that piece can move to, we execute a move
                         if (this.selected != null) {
-                            if (selected.getMoves().contains(tapped)) {
-                                Pair src = new Pair(selected.getRow(), selected.getColumn());
+                            if (selectedMoves.contains(tapped)) {
+                                Pair src = Coordinates.of(selected.getRow(), selected.getColumn());
                                 Move move = new Move(src, tapped);
 
                                 // If the user is trying to castle, we handle things slightly
@@ -335,15 +444,15 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
                                 // pawn that they are capturing from the board
                                 else if (enPassantCapture != null) {
                                     display.move(move, true, true);
-                                    display.set(enPassantCapture.first(), enPassantCapture.second(), null, false, false);
+                                    display.fadeOut(enPassantCapture.first(), enPassantCapture.second());
                                 }
                                 // Otherwise, just move the piece to the empty square
                                 else {
-                                    display.move(new Move(src, tapped), true, false);
+                                    display.move(move, true, false);
                                 }
 
-                                activeMove = new Move(src, tapped);
-                                moveHandler.submitMove(activeMove, gameID);
+                                activeMove = move;
+                                submitActiveMove("tap", eventStarted);
                                 this.userCanMove = false;
                                 this.selected = null;
 
@@ -368,16 +477,16 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
                     else if (piece.getColour() != presenter.getUserColour()) {
                         // If the user has a piece selected and they are tapping an opponent piece
                         // that they can capture
-                        Pair tapped = new Pair(piece.getRow(), piece.getColumn());
+                        Pair tapped = Coordinates.of(piece.getRow(), piece.getColumn());
                         if (this.selected != null) {
-                            if (selected.getMoves().contains(tapped)) {
-                                Pair src = new Pair(selected.getRow(), selected.getColumn());
+                            if (selectedMoves.contains(tapped)) {
+                                Pair src = Coordinates.of(selected.getRow(), selected.getColumn());
                                 // Move the piece to the square tapped by the user and play a
                                 // capture sound effect
-                                display.move(new Move(src, tapped), true, true);
-
                                 activeMove = new Move(src, tapped);
-                                moveHandler.submitMove(activeMove, gameID);
+                                display.move(activeMove, true, true);
+
+                                submitActiveMove("tap", eventStarted);
                                 this.userCanMove = false;
                                 this.selected = null;
 
@@ -405,6 +514,7 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
             case MotionEvent.ACTION_MOVE:
                 Piece dragged = getPiece(row, column);
                 if (userCanMove && dragged != null && dragged.getColour() == presenter.getUserColour()) {
+                    // This runs for every ACTION_MOVE event, so it mustn't allocate anything
                     Pair src = convertCoords(row, column);
                     dragEnded = false;
                     display.startDrag(row, column);
@@ -422,14 +532,16 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
         if (paused) {
             return false;
         }
+        eventStarted = System.nanoTime();
 
         switch (event.getAction()) {
             case DragEvent.ACTION_DRAG_STARTED:
                 // When a drag starts, the only squares on the board that care about the drag are
                 // the squares that the piece being dragged can move to, or the square that the
                 // piece being dragged currently occupies. So we only return true for these squares.
-                return (selected.getMoves().contains(convertCoords(row, column))
-                        || new Pair(selected.getRow(), selected.getColumn()).equals(convertCoords(row, column)));
+                Pair square = convertCoords(row, column);
+                return selectedMoves.contains(square)
+                        || (selected.getRow() == square.first() && selected.getColumn() == square.second());
             case DragEvent.ACTION_DRAG_ENTERED:
                 // Return true because we don't do anything special here but want to keep getting
                 // callbacks
@@ -447,7 +559,7 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
                 // can receive an ACTION_DROP event are ones that the piece being dragged can move
                 // to, or the square that the piece being dragged current occupies. So all we have
                 // to do is either move the piece being dragged, or return it to its square.
-                Pair src = new Pair(selected.getRow(), selected.getColumn());
+                Pair src = Coordinates.of(selected.getRow(), selected.getColumn());
                 Pair dest = convertCoords(row, column);
 
                 // If the user started the drag and then let go on the same square, we simply return
@@ -457,14 +569,16 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
                     return true;
                 }
 
+                Move move = new Move(src, dest);
+
                 // If the move is a normal capture
                 if (presenter.getPiece(dest) != null && presenter.getPiece(dest).getColour() != selected.getColour()) {
                     display.set(dest.first(), dest.second(), selected, true, true);
                 }
                 // If the move is onto an empty square
                 else {
-                    Move rookMove = presenter.isCastle(new Move(src, dest));
-                    Pair enPassantCapture = presenter.isEnPassant(new Move(src, dest));
+                    Move rookMove = presenter.isCastle(move);
+                    Pair enPassantCapture = presenter.isEnPassant(move);
 
                     // If the user is castling, we need to move the Rook being castled with, as well
                     // as place the King being moved on the destination square
@@ -476,17 +590,17 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
                     // If the user is doing an en passant capture, we need to remove the pawn that they
                     // are capturing from the board
                     else if (enPassantCapture != null) {
-                        // Set the pawn performing the capture and erase the pawn being captured,
+                        // Set the pawn performing the capture and fade out the pawn being captured,
                         // playing a single capture sound effect
                         display.set(dest.first(), dest.second(), selected, true, true);
-                        display.set(enPassantCapture.first(), enPassantCapture.second(), null, false, false);
+                        display.fadeOut(enPassantCapture.first(), enPassantCapture.second());
                     } else {
                         display.set(dest.first(), dest.second(), selected, true, false);
                     }
                 }
 
-                activeMove = new Move(src, dest);
-                moveHandler.submitMove(activeMove, gameID);
+                activeMove = move;
+                submitActiveMove("drag", eventStarted);
 
                 display.resetSquares();
                 this.selected = null;
@@ -530,18 +644,21 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
      * depending on if the user is black or white).
      *
      * @param squares - the list of board squares to convert
-     * @return The given list of board squares converted into screen squares
+     * @param buffer  - a list to fill with the converted squares, if they need converting; its
+     *                contents are replaced
+     * @return The given list of board squares converted into screen squares, which is either
+     * squares itself or buffer
      */
-    private List<Pair> convertToScreenCoords(List<Pair> squares) {
+    private List<Pair> convertToScreenCoords(List<Pair> squares, List<Pair> buffer) {
         if (presenter.getUserColour() == Colour.WHITE) {
             return squares;
         } else {
-            List<Pair> converted = new ArrayList<>();
+            buffer.clear();
             for (Pair pair : squares) {
-                converted.add(new Pair(7 - pair.first(), 7 - pair.second()));
+                buffer.add(Coordinates.flipped(pair.first(), pair.second()));
             }
 
-            return converted;
+            return buffer;
         }
     }
 
@@ -552,16 +669,29 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
      *
      * @param row    - the row component of the coordinates to convert
      * @param column - the column component of the coordinates to convert
-     * @return A Pair, containing the given set of coordinates converted into its opposite type
+     * @return A shared Pair, from Coordinates, containing the given set of coordinates converted
+     * into its opposite type
      */
     private Pair convertCoords(int row, int column) {
         if (presenter.getUserColour() == Colour.WHITE) {
-            return new Pair(row, column);
+            return Coordinates.of(row, column);
         } else {
-            return new Pair(7 - row, 7 - column);
+            return Coordinates.flipped(row, column);
         }
     }
 
+    /**
+     * Send activeMove to the server, tracing the request from when the user's action started to be
+     * handled
+     *
+     * @param action  - what the user did to make the move, as it should appear in the trace
+     * @param started - when we started handling the user's action, from System.nanoTime()
+     */
+    private void submitActiveMove(String action, long started) {
+        NetworkTrace.begin(action, started);
+        moveHandler.submitMove(activeMove, gameID);
+    }
+
     /**
      * Called if a move we submitted to the server is accepted by the server. We use this method to
      * update our model, all the data we have for the game, now that the move has been confirmed.
@@ -570,6 +700,11 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
      */
     @Override
     public void moveSuccess(boolean promotionNeeded) {
+        // Nobody is showing the game any more, so there is nothing to update
+        if (released) {
+            return;
+        }
+
         /*
          * Need to check here for:
          * 1. Checkmate
@@ -664,6 +799,9 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
      */
     @Override
     public void moveFailed() {
+        if (released) {
+            return;
+        }
         dialogCreator.showErrorDialog(R.string.move_failed_error_text, new ErrorDialogFragment.CancellableErrorDialogListener() {
             @Override
             public void cancel() {
@@ -674,7 +812,7 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
 
             @Override
             public void retry() {
-                moveHandler.submitMove(activeMove, gameID);
+                submitActiveMove("retry", System.nanoTime());
             }
         });
     }
@@ -684,6 +822,9 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
      */
     @Override
     public void moveFailedConnectionLost() {
+        if (released) {
+            return;
+        }
         dialogCreator.showConnectionLostDialog(R.string.connection_lost_alert, new ErrorDialogFragment.ErrorDialogListener() {
             @Override
             public void retry() {
@@ -774,6 +915,9 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
 
     @Override
     public void promotionSuccess() {
+        if (released) {
+            return;
+        }
         int code = presenter.promote(activePromotion);
 
         if (code == 1) {
@@ -811,6 +955,9 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
 
     @Override
     public void promotionFailed() {
+        if (released) {
+            return;
+        }
         dialogCreator.showErrorDialog(R.string.move_failed_error_text, new ErrorDialogFragment.CancellableErrorDialogListener() {
             @Override
             public void cancel() {
@@ -835,6 +982,9 @@ public class ChessManager implements BoardDisplay.DisplayListener, MoveRequestLi
 
     @Override
     public void promotionFailedConnectionLost() {
+        if (released) {
+            return;
+        }
         dialogCreator.showConnectionLostDialog(R.string.connection_lost_alert, new ErrorDialogFragment.ErrorDialogListener() {
             @Override
             public void retry() {
@@ -0,0 +1,52 @@
+package com.lukaswillsie.onlinechess.activities.board;
+
+import Chess.com.lukaswillsie.chess.Pair;
+
+/**
+ * Holds one Pair for each of the 64 squares on a chessboard. Touch and drag events can arrive
+ * at 60-120 Hz while the user is dragging a piece, so code that handles them looks coordinates up
+ * here instead of allocating a new Pair every time. Pairs can't be changed once created, so the
+ * same instances can safely be shared by everyone.
+ */
+final class Coordinates {
+    /**
+     * PAIRS[row][column] is the Pair (row, column)
+     */
+    private static final Pair[][] PAIRS = new Pair[8][8];
+
+    static {
+        for (int row = 0; row < 8; row++) {
+            for (int column = 0; column < 8; column++) {
+                PAIRS[row][column] = new Pair(row, column);
+            }
+        }
+    }
+
+    private Coordinates() {
+    }
+
+    /**
+     * Get the shared Pair representing the given square. row and column must both be between 0
+     * and 7, inclusive.
+     *
+     * @param row    - the row of the square
+     * @param column - the column of the square
+     * @return The Pair (row, column)
+     */
+    static Pair of(int row, int column) {
+        return PAIRS[row][column];
+    }
+
+    /**
+     * Get the shared Pair for the square on the opposite side of the board from the given one, as
+     * seen by the other player. Converts between board and screen coordinates for a user playing
+     * black.
+     *
+     * @param row    - the row of the square
+     * @param column - the column of the square
+     * @return The Pair (7 - row, 7 - column)
+     */
+    static Pair flipped(int row, int column) {
+        return PAIRS[7 - row][7 - column];
+    }
+}
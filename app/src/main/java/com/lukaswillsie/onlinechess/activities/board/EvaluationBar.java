@@ -0,0 +1,91 @@
+package com.lukaswillsie.onlinechess.activities.board;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import com.lukaswillsie.onlinechess.R;
+import com.lukaswillsie.onlinechess.engine.AnalysisInfo;
+
+/**
+ * A horizontal bar showing who the analysis engine thinks is winning. The white part of the bar,
+ * starting from the left, grows as white's advantage grows; the rest of the bar is black.
+ */
+public class EvaluationBar extends View {
+    /**
+     * Controls how quickly the bar fills up as the advantage grows. An advantage of this many
+     * centipawns fills roughly 73% of the bar for the side that has it.
+     */
+    private static final float SCALE = 400f;
+
+    /**
+     * Used to draw the white and black parts of the bar
+     */
+    private final Paint whitePaint = new Paint();
+    private final Paint blackPaint = new Paint();
+
+    /**
+     * The fraction of the bar, between 0 and 1, that is white
+     */
+    private float whiteShare = 0.5f;
+
+    public EvaluationBar(Context context) {
+        super(context);
+        init(context);
+    }
+
+    public EvaluationBar(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        init(context);
+    }
+
+    public EvaluationBar(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(context);
+    }
+
+    /**
+     * Set up the Paints we draw with
+     */
+    private void init(Context context) {
+        whitePaint.setColor(context.getResources().getColor(R.color.evaluation_white));
+        blackPaint.setColor(context.getResources().getColor(R.color.evaluation_black));
+    }
+
+    /**
+     * Update the bar to reflect the given analysis result
+     *
+     * @param info - the analysis result to display
+     */
+    public void setEvaluation(AnalysisInfo info) {
+        if (info.isMate()) {
+            whiteShare = info.getScore() > 0 ? 1f : 0f;
+        } else {
+            // A logistic curve, so that the bar moves a lot for small advantages and only creeps
+            // towards the ends for large ones
+            whiteShare = (float) (1 / (1 + Math.exp(-info.getScore() / SCALE)));
+        }
+        invalidate();
+    }
+
+    /**
+     * Put the bar back in its neutral, half-and-half state
+     */
+    public void reset() {
+        whiteShare = 0.5f;
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        float split = getWidth() * whiteShare;
+        canvas.drawRect(0, 0, split, getHeight(), whitePaint);
+        canvas.drawRect(split, 0, getWidth(), getHeight(), blackPaint);
+    }
+}
@@ -0,0 +1,327 @@
+package com.lukaswillsie.onlinechess.activities.board;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Choreographer;
+import android.widget.TextView;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Measures how smoothly the board is drawn. While running, we get a Choreographer callback on
+ * every frame and record the time since the previous one. Each frame is tagged with whatever the
+ * user was doing at the time: dragging a piece, watching a piece animate, seeing squares
+ * highlighted or the promotion banner come and go, or nothing at all. From this we can report,
+ * for each kind of interaction, how long frames take at various percentiles and how many were
+ * janky, meaning they took noticeably longer than one refresh of the display.
+ * <p>
+ * The report can be shown live in a TextView laid over the screen, and written out to a file.
+ * Recording a frame allocates nothing, so the measurements aren't skewed by garbage collection
+ * caused by the measuring itself.
+ * <p>
+ * Only use this class from the UI thread.
+ */
+class FrameMonitor implements Choreographer.FrameCallback {
+    /**
+     * Tag used for logging to the console
+     */
+    private static final String tag = "FrameMonitor";
+
+    /*
+     * The interactions we tag frames with
+     */
+    static final int IDLE = 0;
+    static final int DRAG = 1;
+    static final int ANIMATE = 2;
+    static final int HIGHLIGHT = 3;
+    static final int BANNER = 4;
+
+    /**
+     * The name of each interaction in reports, indexed by the constants above
+     */
+    private static final String[] NAMES = {"idle", "drag", "animate", "highlight", "banner"};
+
+    /**
+     * Index of the histogram that every frame is counted in, regardless of interaction
+     */
+    private static final int ALL = NAMES.length;
+
+    /**
+     * Frame times are recorded in 1ms buckets; anything this long or longer goes in the last one
+     */
+    private static final int MAX_BUCKET_MS = 250;
+
+    /**
+     * A frame counts as janky if it takes this many refresh periods or longer
+     */
+    private static final float JANK_THRESHOLD = 1.5f;
+
+    /**
+     * How often, in milliseconds, we refresh the overlay
+     */
+    private static final long OVERLAY_INTERVAL = 1000;
+
+    /**
+     * histograms[interaction][ms] is the number of frames tagged with the given interaction that
+     * took ms milliseconds, rounded down
+     */
+    private final long[][] histograms = new long[NAMES.length + 1][MAX_BUCKET_MS + 1];
+
+    /*
+     * Totals for each interaction, indexed like histograms
+     */
+    private final long[] frames = new long[NAMES.length + 1];
+    private final long[] janky = new long[NAMES.length + 1];
+    private final long[] longest = new long[NAMES.length + 1];
+
+    /**
+     * active[interaction] is the number of times begin() has been called for the given
+     * interaction without a matching end()
+     */
+    private final int[] active = new int[NAMES.length];
+
+    /**
+     * marked[interaction] is true if the given interaction has been marked since the last frame
+     */
+    private final boolean[] marked = new boolean[NAMES.length];
+
+    /**
+     * If not null, a TextView we keep updated with our report
+     */
+    private TextView overlay;
+
+    private boolean running;
+
+    /**
+     * The time of the previous frame, in nanoseconds, or 0 if we haven't seen one since we started
+     */
+    private long lastFrameNanos;
+
+    /**
+     * Frames taking at least this many nanoseconds are janky
+     */
+    private long jankNanos;
+
+    private long lastOverlayUpdate;
+
+    /**
+     * Start recording frames
+     *
+     * @param refreshRate - the refresh rate of the display the board is on, in frames per second
+     */
+    void start(float refreshRate) {
+        if (running) {
+            return;
+        }
+        running = true;
+        lastFrameNanos = 0;
+        jankNanos = (long) (JANK_THRESHOLD * 1000000000L / (refreshRate > 0 ? refreshRate : 60f));
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Stop recording frames. Everything recorded so far is kept, and recording picks back up where
+     * it left off if start() is called again.
+     */
+    void stop() {
+        if (running) {
+            running = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    /**
+     * Show our report in the given TextView, refreshed every second while we're running
+     *
+     * @param overlay - the TextView to show our report in, or null to stop showing it
+     */
+    void setOverlay(TextView overlay) {
+        this.overlay = overlay;
+    }
+
+    /**
+     * Note that the given interaction has started. Every frame until the matching call to end()
+     * will be tagged with it.
+     *
+     * @param interaction - one of the interaction constants in this class
+     */
+    void begin(int interaction) {
+        active[interaction]++;
+    }
+
+    /**
+     * Note that the given interaction, previously passed to begin(), has finished
+     *
+     * @param interaction - one of the interaction constants in this class
+     */
+    void end(int interaction) {
+        if (active[interaction] > 0) {
+            active[interaction]--;
+        }
+        // Make sure the frame the interaction ends on still counts
+        marked[interaction] = true;
+    }
+
+    /**
+     * Note that the given interaction has just happened. It's over as soon as it's happened, like
+     * highlighting some squares, so only the next frame, which shows the result, is tagged with it.
+     *
+     * @param interaction - one of the interaction constants in this class
+     */
+    void mark(int interaction) {
+        marked[interaction] = true;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) {
+            return;
+        }
+
+        if (lastFrameNanos != 0) {
+            long duration = frameTimeNanos - lastFrameNanos;
+            boolean tagged = false;
+            for (int interaction = 0; interaction < NAMES.length; interaction++) {
+                if (active[interaction] > 0 || marked[interaction]) {
+                    record(interaction, duration);
+                    tagged = true;
+                }
+                marked[interaction] = false;
+            }
+            if (!tagged) {
+                record(IDLE, duration);
+            }
+            record(ALL, duration);
+        }
+        lastFrameNanos = frameTimeNanos;
+
+        long now = SystemClock.uptimeMillis();
+        if (overlay != null && now - lastOverlayUpdate >= OVERLAY_INTERVAL) {
+            lastOverlayUpdate = now;
+            overlay.setText(report());
+        }
+
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Record a frame of the given duration against the given interaction
+     */
+    private void record(int interaction, long duration) {
+        int bucket = (int) Math.min(MAX_BUCKET_MS, duration / 1000000L);
+        histograms[interaction][bucket]++;
+        frames[interaction]++;
+        if (duration >= jankNanos) {
+            janky[interaction]++;
+        }
+        longest[interaction] = Math.max(longest[interaction], duration);
+    }
+
+    /**
+     * Forget every frame recorded so far
+     */
+    void reset() {
+        for (int interaction = 0; interaction <= NAMES.length; interaction++) {
+            for (int bucket = 0; bucket <= MAX_BUCKET_MS; bucket++) {
+                histograms[interaction][bucket] = 0;
+            }
+            frames[interaction] = 0;
+            janky[interaction] = 0;
+            longest[interaction] = 0;
+        }
+        lastFrameNanos = 0;
+    }
+
+    /**
+     * Summarize every frame recorded so far, one line per interaction that has had any frames.
+     * Each line gives the number of frames and how many were janky, the 50th, 90th, 95th and 99th
+     * percentile frame times, and the longest frame.
+     *
+     * @return A human-readable report on the frames recorded so far
+     */
+    String report() {
+        StringBuilder report = new StringBuilder();
+        for (int interaction = 0; interaction <= NAMES.length; interaction++) {
+            if (frames[interaction] == 0) {
+                continue;
+            }
+            if (report.length() > 0) {
+                report.append('\n');
+            }
+            report.append(String.format(Locale.US, "%-9s %6d frames %5d janky (%4.1f%%) p50 %3d p90 %3d p95 %3d p99 %3d max %4dms",
+                    interaction == ALL ? "all" : NAMES[interaction],
+                    frames[interaction],
+                    janky[interaction],
+                    100.0 * janky[interaction] / frames[interaction],
+                    percentile(interaction, 0.5),
+                    percentile(interaction, 0.9),
+                    percentile(interaction, 0.95),
+                    percentile(interaction, 0.99),
+                    longest[interaction] / 1000000L));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Get the frame time, in whole milliseconds, that the given fraction of frames tagged with the
+     * given interaction took no longer than
+     */
+    private int percentile(int interaction, double fraction) {
+        long target = (long) Math.ceil(fraction * frames[interaction]);
+        long seen = 0;
+        for (int bucket = 0; bucket <= MAX_BUCKET_MS; bucket++) {
+            seen += histograms[interaction][bucket];
+            if (seen >= target) {
+                return bucket;
+            }
+        }
+        return MAX_BUCKET_MS;
+    }
+
+    /**
+     * Write our report to the file with the given name in the app's external files directory, or
+     * its internal one if there is no external storage, replacing anything already in it. The
+     * report is taken now, but the directory is found and the report written on a background
+     * thread, so this can be called from the UI thread without blocking it on disk.
+     *
+     * @param context - any Context belonging to the app
+     * @param name    - the name of the file to write our report to
+     */
+    void export(Context context, final String name) {
+        final Context appContext = context.getApplicationContext();
+        final String report = new Date() + "\n" + report() + "\n";
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                File directory = appContext.getExternalFilesDir(null);
+                if (directory == null) {
+                    directory = appContext.getFilesDir();
+                }
+                File file = new File(directory, name);
+
+                Writer writer = null;
+                try {
+                    writer = new FileWriter(file);
+                    writer.write(report);
+                    Log.i(tag, "Wrote frame report to " + file);
+                } catch (IOException e) {
+                    Log.e(tag, "Couldn't write frame report to " + file, e);
+                } finally {
+                    if (writer != null) {
+                        try {
+                            writer.close();
+                        } catch (IOException e) {
+                            Log.e(tag, "Couldn't close " + file, e);
+                        }
+                    }
+                }
+            }
+        }, tag).start();
+    }
+}
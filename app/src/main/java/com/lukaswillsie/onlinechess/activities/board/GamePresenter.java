@@ -5,7 +5,16 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 
 import com.lukaswillsie.onlinechess.data.GameData;
+import com.lukaswillsie.onlinechess.data.GameHistory;
 import com.lukaswillsie.onlinechess.data.UserGame;
+import com.lukaswillsie.onlinechess.engine.Moves;
+import com.lukaswillsie.onlinechess.engine.Pieces;
+import com.lukaswillsie.onlinechess.engine.Position;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
 
 import Chess.com.lukaswillsie.chess.Bishop;
 import Chess.com.lukaswillsie.chess.Board;
@@ -29,12 +38,145 @@ public class GamePresenter {
      */
     private static final String tag = "GamePresenter";
 
+    /**
+     * The piece each of GameHistory's PROMOTION_ constants stands for, indexed by constant
+     */
+    private static final PieceType.PromotePiece[] PROMOTIONS = {
+            null,
+            PieceType.PromotePiece.QUEEN,
+            PieceType.PromotePiece.ROOK,
+            PieceType.PromotePiece.BISHOP,
+            PieceType.PromotePiece.KNIGHT
+    };
+
+    /**
+     * The engine piece type each of GameHistory's PROMOTION_ constants stands for, indexed by
+     * constant
+     */
+    private static final int[] ENGINE_PROMOTIONS = {
+            Pieces.PAWN,
+            Pieces.QUEEN,
+            Pieces.ROOK,
+            Pieces.BISHOP,
+            Pieces.KNIGHT
+    };
+
+    /**
+     * For each castling right, in the order the server sends them (white kingside, white
+     * queenside, black kingside, black queenside), the squares of the king and rook it needs,
+     * as (row, column) pairs. A move from or onto either square loses the right.
+     */
+    private static final int[][] CASTLING_SQUARES = {
+            {0, 4, 0, 7},
+            {0, 4, 0, 0},
+            {7, 4, 7, 7},
+            {7, 4, 7, 0}
+    };
+
     private UserGame game;
     private Board board;
 
+    /**
+     * Every move and promotion made on the board since it was loaded, packed as described in
+     * GameHistory. A promotion is recorded as a move from the promoted pawn's square to itself.
+     */
+    private final List<Integer> played = new ArrayList<>();
+
+    /**
+     * The board as an engine Position, which answers questions like isCheckmate() from its attack
+     * maps. Building one means formatting and parsing a FEN string, so we only do it when we're
+     * created; after that every move and promotion made on the board is made on it too, with
+     * make(), which keeps the maps up to date as it goes.
+     */
+    private Position position;
+
+    /**
+     * The engine move that took one of the user's pawns to the back rank, if the promotion it
+     * needs hasn't been made yet, or Moves.NONE. The pawn sits on the back rank in position until
+     * then, as it does on the board.
+     */
+    private int awaitingPromotion = Moves.NONE;
+
     GamePresenter(UserGame game, Board board) {
         this.game = game;
         this.board = board;
+        this.position = toPosition(getColourToMove());
+    }
+
+    /**
+     * Rebuild a GamePresenter from a game's board as the server last sent it, and the moves and
+     * promotions made on it since, as returned by getPlayed(). No requests are made of the server.
+     *
+     * @param game   - the game to present, which must have board data (see UserGame.getBoardData())
+     * @param played - the moves and promotions to make on the board, packed as in getPlayed()
+     * @return A GamePresenter for the given game, or null if the board couldn't be rebuilt
+     */
+    static GamePresenter restore(UserGame game, int[] played) {
+        if (game.getBoardData() == null) {
+            return null;
+        }
+
+        Board board = new Board();
+        if (board.initialize(new Scanner(game.getBoardData())) == 1) {
+            Log.e(tag, "Couldn't rebuild board from saved data");
+            return null;
+        }
+
+        GamePresenter presenter = new GamePresenter(game, board);
+        if (played.length > 0) {
+            // The game's data says whose turn it is now, not whose turn it was when the board was
+            // loaded, so we rebuild our Position with whoever made the first of the moves to move
+            Piece first = board.getPiece(GameHistory.fromRow(played[0]), GameHistory.fromColumn(played[0]));
+            if (first == null) {
+                Log.e(tag, "Saved move " + played[0] + " starts from an empty square");
+                return null;
+            }
+            presenter.position = presenter.toPosition(first.getColour());
+        }
+
+        for (int move : played) {
+            int fromRow = GameHistory.fromRow(move);
+            int fromColumn = GameHistory.fromColumn(move);
+            int toRow = GameHistory.toRow(move);
+            int toColumn = GameHistory.toColumn(move);
+            int code;
+            if (fromRow == toRow && fromColumn == toColumn) {
+                // We go straight to the board, since the game's data already says whose turn it
+                // is now, not whose turn it was when the promotion was made
+                code = board.promote(PROMOTIONS[GameHistory.promotion(move)].charRep);
+                if (code == 0) {
+                    presenter.played.add(move);
+                    presenter.followPromotion(fromRow, fromColumn, GameHistory.promotion(move));
+                }
+            } else {
+                code = board.move(new Pair(fromRow, fromColumn), new Pair(toRow, toColumn));
+                if (code == 0 || code == -1) {
+                    presenter.played.add(move);
+                    presenter.followMove(fromRow, fromColumn, toRow, toColumn, code == -1);
+                    code = 0;
+                }
+            }
+
+            if (code != 0) {
+                Log.e(tag, "Couldn't replay saved move " + move + " on rebuilt board");
+                return null;
+            }
+        }
+        return presenter;
+    }
+
+    /**
+     * Get every move and promotion made on the board since it was loaded, so that it can be rebuilt
+     * later with restore()
+     *
+     * @return The moves and promotions made so far, in order, packed as described in GameHistory
+     */
+    int[] getPlayed() {
+        int[] moves = new int[played.size()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = played.get(i);
+        }
+        return moves;
     }
 
     /**
@@ -139,21 +281,33 @@ public class GamePresenter {
 
     /**
      * Check if the user has checkmated their opponent in this game.
+     * <p>
+     * Rather than have the Board recompute every move for every piece, we ask our Position, which
+     * answers using the attack maps it has kept up to date with every move.
      *
      * @return - true if and only if the colour being played by the user has checkmated the other
      * colour in the game represented by this object
      */
     public boolean isCheckmate() {
-        return board.isCheckmate(getUserColour() == Colour.WHITE ? Colour.BLACK : Colour.WHITE);
+        return isOpponentToMove() && position.isCheckmate();
     }
 
     /**
-     * Check if the game is currently in stalemate.
+     * Check if the user has stalemated their opponent in this game. Like isCheckmate(), this is
+     * meant to be called once the user has made their move.
      *
      * @return true if and only if this game is in stalemate
      */
     public boolean isStalemate() {
-        return board.isStalemate();
+        return isOpponentToMove() && position.isStalemate();
+    }
+
+    /**
+     * Check whether it's the user's opponent's turn on our Position, which it is once the user has
+     * moved. A pawn waiting on the back rank for its promotion counts as a move made.
+     */
+    private boolean isOpponentToMove() {
+        return position.getSideToMove() == (getUserColour() == Colour.WHITE ? Pieces.BLACK : Pieces.WHITE);
     }
 
     /**
@@ -257,7 +411,7 @@ public class GamePresenter {
                 // XX
                 // As you can see, the pawn capturing and the pawn getting captured share the same
                 // row initially, and the same column after the capture.
-                return new Pair(src.first(), dest.second());
+                return Coordinates.of(src.first(), dest.second());
             } else {
                 return null;
             }
@@ -278,7 +432,12 @@ public class GamePresenter {
      * 3 if a promotion needs to be handled before any moves can be made
      */
     public int makeMove(Move move) {
-        return board.move(move.src, move.dest);
+        int code = board.move(move.src, move.dest);
+        if (code == 0 || code == -1) {
+            played.add(GameHistory.pack(move.src.first(), move.src.second(), move.dest.first(), move.dest.second(), GameHistory.PROMOTION_NONE));
+            followMove(move.src.first(), move.src.second(), move.dest.first(), move.dest.second(), code == -1);
+        }
+        return code;
     }
 
     /**
@@ -295,13 +454,93 @@ public class GamePresenter {
             return 1;
         }
 
+        Pawn pawn = board.toPromote();
         int code = board.promote(piece.charRep);
         if (code == 2) {
             Log.e(tag, "PromotePiece " + piece + " has invalid charRep: '" + piece.charRep + "' that was rejected by Board");
         }
+        if (code == 0 && pawn != null) {
+            int promotion = Arrays.asList(PROMOTIONS).indexOf(piece);
+            played.add(GameHistory.pack(pawn.getRow(), pawn.getColumn(), pawn.getRow(), pawn.getColumn(), promotion));
+            followPromotion(pawn.getRow(), pawn.getColumn(), promotion);
+        }
         return (code == 0) ? 0 : 1;
     }
 
+    /**
+     * Make a move that has just been made on the board on our Position too. The Board has already
+     * checked that the move is legal, so all we need to work out is what kind of move it is.
+     * <p>
+     * A pawn that reaches the back rank is moved there as it is, without being promoted, since we
+     * don't know yet what it will become. followPromotion() takes the move back and makes it again
+     * as a promotion once we do.
+     *
+     * @param promotionNeeded - whether the move took a pawn to the back rank
+     */
+    private void followMove(int fromRow, int fromColumn, int toRow, int toColumn, boolean promotionNeeded) {
+        int from = Pieces.square(fromRow, fromColumn);
+        int to = Pieces.square(toRow, toColumn);
+        int piece = position.getPiece(from);
+
+        int flag = Moves.NORMAL;
+        if (piece != Pieces.EMPTY && Pieces.type(piece) == Pieces.KING && Math.abs(toColumn - fromColumn) == 2) {
+            flag = Moves.CASTLE;
+        } else if (piece != Pieces.EMPTY && Pieces.type(piece) == Pieces.PAWN) {
+            if (Math.abs(toRow - fromRow) == 2) {
+                flag = Moves.DOUBLE_PUSH;
+            } else if (fromColumn != toColumn && position.getPiece(to) == Pieces.EMPTY) {
+                flag = Moves.EN_PASSANT;
+            }
+        }
+
+        int move = Moves.make(from, to, Pieces.PAWN, flag);
+        if (piece == Pieces.EMPTY || !position.make(move)) {
+            // Our Position has fallen out of step with the board, so we start again from the board
+            Log.e(tag, "Position couldn't follow move " + Moves.toString(move) + " made on the board");
+            resync(piece == Pieces.EMPTY ? null : Pieces.colour(piece) == Pieces.WHITE ? Colour.BLACK : Colour.WHITE);
+            return;
+        }
+        awaitingPromotion = promotionNeeded ? move : Moves.NONE;
+    }
+
+    /**
+     * Make a promotion that has just been made on the board on our Position too, by taking back
+     * the move that brought the pawn to the back rank and making it again as a promotion
+     *
+     * @param row       - the row of the promoted pawn
+     * @param column    - the column of the promoted pawn
+     * @param promotion - what the pawn was promoted to, as one of GameHistory's PROMOTION_
+     *                  constants
+     */
+    private void followPromotion(int row, int column, int promotion) {
+        int move = awaitingPromotion;
+        awaitingPromotion = Moves.NONE;
+
+        // The board may have come from the server with the pawn already waiting on the back rank,
+        // in which case there's no move of ours to take back
+        if (move == Moves.NONE || Moves.to(move) != Pieces.square(row, column)) {
+            resync(row == 7 ? Colour.BLACK : Colour.WHITE);
+            return;
+        }
+
+        position.unmake();
+        if (!position.make(Moves.make(Moves.from(move), Moves.to(move), ENGINE_PROMOTIONS[promotion], Moves.NORMAL))) {
+            Log.e(tag, "Position couldn't follow promotion on " + Pieces.squareName(Moves.to(move)));
+            resync(row == 7 ? Colour.BLACK : Colour.WHITE);
+        }
+    }
+
+    /**
+     * Rebuild our Position from the board, for when we can't follow what was done to the board
+     * move by move
+     *
+     * @param toMove - the colour whose turn it now is, or null to work it out from the game's data
+     */
+    private void resync(Colour toMove) {
+        awaitingPromotion = Moves.NONE;
+        position = toPosition(toMove == null ? getColourToMove() : toMove);
+    }
+
     /**
      * Query the colour (black or white) being played by the user
      *
@@ -310,4 +549,189 @@ public class GamePresenter {
     public Colour getUserColour() {
         return game.getUserColour();
     }
+
+    /**
+     * Get an engine Position representing the current state of this game's board, for use by
+     * things like the analysis engine. The Position is the caller's own, so it can be changed
+     * freely.
+     *
+     * @return A Position representing this game's board
+     */
+    public Position toPosition() {
+        return position.copy();
+    }
+
+    /**
+     * Build an engine Position representing the current state of this game's board, with the given
+     * colour to move.
+     * <p>
+     * The Board doesn't let us ask it everything a Position needs, so we fill in the gaps
+     * ourselves: castling rights come from the board data the server sent (see
+     * findCastlingRights()), and the move counters are estimated from the game's turn number.
+     *
+     * @param toMove - the colour whose turn it is
+     * @return A Position representing this game's board
+     */
+    private Position toPosition(Colour toMove) {
+        StringBuilder fen = new StringBuilder();
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int column = 0; column < 8; column++) {
+                Piece piece = board.getPiece(row, column);
+                if (piece == null) {
+                    empty++;
+                } else {
+                    if (empty > 0) {
+                        fen.append(empty);
+                        empty = 0;
+                    }
+                    fen.append(toFenChar(piece));
+                }
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row > 0) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(toMove == Colour.WHITE ? " w " : " b ");
+        fen.append(findCastlingRights()).append(' ');
+        fen.append(findEnPassantSquare(toMove));
+
+        int turn = (Integer) game.getData(GameData.TURN);
+        fen.append(" 0 ").append(Math.max(1, turn));
+
+        return Position.fromFen(fen.toString());
+    }
+
+    /**
+     * Query the colour being played by the user's opponent
+     */
+    private Colour getOpponentColour() {
+        return getUserColour() == Colour.WHITE ? Colour.BLACK : Colour.WHITE;
+    }
+
+    /**
+     * Figure out whose turn it is on the board. Usually this is just a matter of checking whether
+     * it's the user's turn, but if the game ended in checkmate, the side to move is the side that
+     * was checkmated.
+     *
+     * @return The Colour whose turn it is on the board
+     */
+    private Colour getColourToMove() {
+        Colour user = getUserColour();
+        Colour opponent = getOpponentColour();
+        boolean forfeit = (Integer) game.getData(GameData.FORFEIT) == 1;
+
+        if ((Integer) game.getData(GameData.USER_WON) == 1 && !forfeit) {
+            return opponent;
+        } else if ((Integer) game.getData(GameData.USER_LOST) == 1 && !forfeit) {
+            return user;
+        } else {
+            return (Integer) game.getData(GameData.STATE) == 1 ? user : opponent;
+        }
+    }
+
+    /**
+     * Work out which castling rights each side still has, in the FEN format ("KQkq", or "-" if
+     * neither side can castle).
+     * <p>
+     * A king or rook that has moved and come back home looks no different on the board, so we
+     * can't tell from the pieces alone. Instead we start from the rights the server sent with the
+     * board, and take away any that a move made since then has cost: moving a king loses both of
+     * its side's rights, and moving a rook, or capturing one on its starting square, loses the
+     * right to castle with it. A game without board data is given no rights at all, rather than
+     * ones it may not have.
+     *
+     * @return The castling rights in FEN format
+     */
+    private String findCastlingRights() {
+        String data = game.getBoardData();
+        if (data == null) {
+            return "-";
+        }
+
+        // The board data starts with whether white can castle kingside and queenside, then black,
+        // as 1 or 0
+        Scanner scanner = new Scanner(data);
+        boolean[] rights = new boolean[CASTLING_SQUARES.length];
+        for (int i = 0; i < rights.length; i++) {
+            rights[i] = scanner.nextInt() == 1;
+        }
+
+        for (int move : played) {
+            for (int i = 0; i < rights.length; i++) {
+                for (int square = 0; square < CASTLING_SQUARES[i].length; square += 2) {
+                    int row = CASTLING_SQUARES[i][square];
+                    int column = CASTLING_SQUARES[i][square + 1];
+                    if ((GameHistory.fromRow(move) == row && GameHistory.fromColumn(move) == column)
+                            || (GameHistory.toRow(move) == row && GameHistory.toColumn(move) == column)) {
+                        rights[i] = false;
+                    }
+                }
+            }
+        }
+
+        StringBuilder castling = new StringBuilder();
+        for (int i = 0; i < rights.length; i++) {
+            if (rights[i]) {
+                castling.append("KQkq".charAt(i));
+            }
+        }
+        return castling.length() == 0 ? "-" : castling.toString();
+    }
+
+    /**
+     * Find the square, if any, to which a pawn of the given colour could move to capture en
+     * passant, in the FEN format ("e3", or "-" if there is no such square)
+     *
+     * @param toMove - the colour whose turn it is
+     * @return The en passant square in FEN format
+     */
+    private String findEnPassantSquare(Colour toMove) {
+        // Pawns can only capture en passant from their fifth rank
+        int row = (toMove == Colour.WHITE) ? 4 : 3;
+        int direction = (toMove == Colour.WHITE) ? 1 : -1;
+
+        for (int column = 0; column < 8; column++) {
+            Piece piece = board.getPiece(row, column);
+            if (piece instanceof Pawn && piece.getColour() == toMove) {
+                for (int side = -1; side <= 1; side += 2) {
+                    Pair dest = new Pair(row + direction, column + side);
+                    if (board.validSquare(dest.first(), dest.second()) && board.isEnPassant(dest, (Pawn) piece)) {
+                        return "" + (char) ('a' + dest.second()) + (char) ('1' + dest.first());
+                    }
+                }
+            }
+        }
+
+        return "-";
+    }
+
+    /**
+     * Get the character representing the given piece in FEN: uppercase for white, lowercase for
+     * black
+     *
+     * @param piece - the piece to represent
+     * @return The FEN character for the given piece
+     */
+    private static char toFenChar(Piece piece) {
+        char c;
+        if (piece instanceof Pawn) {
+            c = 'p';
+        } else if (piece instanceof Rook) {
+            c = 'r';
+        } else if (piece instanceof Knight) {
+            c = 'n';
+        } else if (piece instanceof Bishop) {
+            c = 'b';
+        } else if (piece instanceof Queen) {
+            c = 'q';
+        } else {
+            c = 'k';
+        }
+        return piece.getColour() == Colour.WHITE ? Character.toUpperCase(c) : c;
+    }
 }
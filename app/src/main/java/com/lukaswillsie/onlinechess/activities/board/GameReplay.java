@@ -0,0 +1,195 @@
+package com.lukaswillsie.onlinechess.activities.board;
+
+import android.util.Log;
+
+import com.lukaswillsie.onlinechess.data.GameHistory;
+import com.lukaswillsie.onlinechess.engine.MoveGenerator;
+import com.lukaswillsie.onlinechess.engine.Moves;
+import com.lukaswillsie.onlinechess.engine.Notation;
+import com.lukaswillsie.onlinechess.engine.Pieces;
+import com.lukaswillsie.onlinechess.engine.Position;
+
+/**
+ * Lets the user step through the moves of a finished game. The moves are decoded once, when this
+ * object is created, into engine moves; after that, moving to a different ply just makes or
+ * unmakes the moves in between on a single Position, so stepping one move costs one make() or
+ * unmake() no matter how long the game is.
+ */
+class GameReplay {
+    /**
+     * Tag used for logging to the console
+     */
+    private static final String tag = "GameReplay";
+
+    /**
+     * The position at the current ply. Every move up to the current ply has been made on it.
+     */
+    private final Position position;
+
+    /**
+     * Every move in the game, as engine moves
+     */
+    private final int[] moves;
+
+    /**
+     * Every move in the game, in standard algebraic notation with move numbers, for example
+     * "12... Nc6"
+     */
+    private final String[] labels;
+
+    /**
+     * The number of moves currently made on position
+     */
+    private int ply;
+
+    private GameReplay(Position position, int[] moves, String[] labels) {
+        this.position = position;
+        this.moves = moves;
+        this.labels = labels;
+        this.ply = moves.length;
+    }
+
+    /**
+     * Build a replay of the given game history. The replay starts at the end of the game, on the
+     * final position.
+     *
+     * @param history - the moves played in the game
+     * @param board   - the final position of the game, according to the server; the replay is
+     *                only built if the history leads to this position
+     * @return A replay of the given game, or null if the history contains an illegal move, is
+     * too long, or doesn't lead to the given final position
+     */
+    static GameReplay create(GameHistory history, Position board) {
+        if (history.size() >= Position.MAX_HISTORY) {
+            Log.e(tag, "Game is too long to replay: " + history.size() + " plies");
+            return null;
+        }
+
+        Position position = Position.fromFen(Position.START_FEN);
+        int[] moves = new int[history.size()];
+        String[] labels = new String[history.size()];
+
+        for (int ply = 0; ply < history.size(); ply++) {
+            int move = decode(position, history.get(ply));
+            if (move == Moves.NONE) {
+                Log.e(tag, "Move " + ply + " in game history is illegal");
+                return null;
+            }
+
+            String number = position.getFullmoveNumber() + (position.getSideToMove() == Pieces.WHITE ? ". " : "... ");
+            labels[ply] = number + Notation.toSan(position, move);
+            moves[ply] = move;
+            position.make(move);
+        }
+
+        for (int square = 0; square < 64; square++) {
+            if (position.getPiece(square) != board.getPiece(square)) {
+                Log.e(tag, "Game history doesn't lead to the position on the board");
+                return null;
+            }
+        }
+
+        return new GameReplay(position, moves, labels);
+    }
+
+    /**
+     * Find the legal move in the given position that matches the given move from a GameHistory
+     *
+     * @return The matching engine move, or Moves.NONE if there isn't one
+     */
+    private static int decode(Position position, int packed) {
+        int from = Pieces.square(GameHistory.fromRow(packed), GameHistory.fromColumn(packed));
+        int to = Pieces.square(GameHistory.toRow(packed), GameHistory.toColumn(packed));
+        int promotion;
+        switch (GameHistory.promotion(packed)) {
+            case GameHistory.PROMOTION_QUEEN:
+                promotion = Pieces.QUEEN;
+                break;
+            case GameHistory.PROMOTION_ROOK:
+                promotion = Pieces.ROOK;
+                break;
+            case GameHistory.PROMOTION_BISHOP:
+                promotion = Pieces.BISHOP;
+                break;
+            case GameHistory.PROMOTION_KNIGHT:
+                promotion = Pieces.KNIGHT;
+                break;
+            default:
+                promotion = Pieces.PAWN;
+        }
+
+        for (int move : MoveGenerator.legalMoves(position)) {
+            if (Moves.from(move) == from && Moves.to(move) == to && Moves.promotion(move) == promotion) {
+                return move;
+            }
+        }
+        return Moves.NONE;
+    }
+
+    /**
+     * Get the number of plies in the game
+     */
+    int size() {
+        return moves.length;
+    }
+
+    /**
+     * Get the ply this replay is currently showing. 0 is the starting position, and size() is the
+     * final position.
+     */
+    int getPly() {
+        return ply;
+    }
+
+    /**
+     * Check whether this replay is showing the final position of the game
+     */
+    boolean atEnd() {
+        return ply == moves.length;
+    }
+
+    /**
+     * Move this replay to the given ply, making or unmaking only the moves in between
+     *
+     * @param target - the ply to move to, between 0 and size(), inclusive
+     */
+    void seek(int target) {
+        target = Math.max(0, Math.min(moves.length, target));
+        while (ply < target) {
+            position.make(moves[ply]);
+            ply++;
+        }
+        while (ply > target) {
+            position.unmake();
+            ply--;
+        }
+    }
+
+    /**
+     * Get the piece on the given square at the current ply
+     *
+     * @param row    - the row of the square, where row 0 is white's back rank
+     * @param column - the column of the square, where column 0 is the a-file
+     * @return The piece on the given square, as in Pieces, or Pieces.EMPTY
+     */
+    int getPiece(int row, int column) {
+        return position.getPiece(Pieces.square(row, column));
+    }
+
+    /**
+     * Get a copy of the position at the current ply
+     */
+    Position getPosition() {
+        return position.copy();
+    }
+
+    /**
+     * Get the move that led to the current ply, in standard algebraic notation with its move
+     * number, for example "12... Nc6"
+     *
+     * @return The last move made, or null if the replay is at the starting position
+     */
+    String getLastMove() {
+        return ply == 0 ? null : labels[ply - 1];
+    }
+}
@@ -0,0 +1,136 @@
+package com.lukaswillsie.onlinechess.activities.board;
+
+import android.os.Bundle;
+
+import com.lukaswillsie.onlinechess.data.GameData;
+import com.lukaswillsie.onlinechess.data.GameHistory;
+import com.lukaswillsie.onlinechess.data.UserGame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import Chess.com.lukaswillsie.chess.Colour;
+
+/**
+ * Saves a loaded game into a Bundle, and rebuilds it from one, so that if our process is killed
+ * while the user is looking at a game, the board can be shown again the moment they come back,
+ * without waiting on the server.
+ * <p>
+ * The snapshot is kept small, since it goes into the Activity's saved state. Rather than the whole
+ * Board, we save the few lines of text the server sent the board as, and the handful of moves
+ * made on it since (see GamePresenter.getPlayed()); the Board is rebuilt by replaying them. The
+ * game's data goes in as one array of ints and one of Strings, and its history, if we have it, as
+ * the packed ints the server sent.
+ */
+final class GameSnapshot {
+    /**
+     * The key the snapshot is stored under in the Activity's saved state
+     */
+    private static final String SNAPSHOT_KEY = "game_snapshot";
+
+    /*
+     * Keys for each part of the snapshot
+     */
+    private static final String USERNAME_KEY = "username";
+    private static final String WHITE_KEY = "white";
+    private static final String INTS_KEY = "ints";
+    private static final String STRINGS_KEY = "strings";
+    private static final String BOARD_KEY = "board";
+    private static final String PLAYED_KEY = "played";
+    private static final String HISTORY_KEY = "history";
+
+    /*
+     * The game, as rebuilt from a snapshot
+     */
+    final UserGame game;
+    final GamePresenter presenter;
+    final GameHistory history;
+
+    private GameSnapshot(UserGame game, GamePresenter presenter, GameHistory history) {
+        this.game = game;
+        this.presenter = presenter;
+        this.history = history;
+    }
+
+    /**
+     * Save a snapshot of the given game into the given Bundle
+     *
+     * @param state     - the Bundle to save the snapshot in
+     * @param game      - the game to save, which must have been loaded from the server
+     * @param presenter - the GamePresenter holding the game's board
+     * @param history   - the moves played in the game, or null if we don't have them
+     */
+    static void save(Bundle state, UserGame game, GamePresenter presenter, GameHistory history) {
+        if (game.getBoardData() == null) {
+            return;
+        }
+
+        GameData[] fields = GameData.values();
+        int[] ints = new int[fields.length];
+        String[] strings = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            Object value = game.getData(fields[i]);
+            if (value instanceof Integer) {
+                ints[i] = (Integer) value;
+            } else if (value != null) {
+                strings[i] = value.toString();
+            }
+        }
+
+        Bundle snapshot = new Bundle();
+        snapshot.putString(USERNAME_KEY, game.getUsername());
+        snapshot.putBoolean(WHITE_KEY, game.getUserColour() == Colour.WHITE);
+        snapshot.putIntArray(INTS_KEY, ints);
+        snapshot.putStringArray(STRINGS_KEY, strings);
+        snapshot.putString(BOARD_KEY, game.getBoardData());
+        snapshot.putIntArray(PLAYED_KEY, presenter.getPlayed());
+        if (history != null) {
+            int[] moves = new int[history.size()];
+            for (int ply = 0; ply < moves.length; ply++) {
+                moves[ply] = history.get(ply);
+            }
+            snapshot.putIntArray(HISTORY_KEY, moves);
+        }
+        state.putBundle(SNAPSHOT_KEY, snapshot);
+    }
+
+    /**
+     * Rebuild the game saved in the given Bundle by save()
+     *
+     * @param state - the Bundle a snapshot may have been saved in
+     * @return The rebuilt game, or null if there's no snapshot in the Bundle, or the game couldn't
+     * be rebuilt from it
+     */
+    static GameSnapshot restore(Bundle state) {
+        Bundle snapshot = state.getBundle(SNAPSHOT_KEY);
+        if (snapshot == null) {
+            return null;
+        }
+
+        GameData[] fields = GameData.values();
+        int[] ints = snapshot.getIntArray(INTS_KEY);
+        String[] strings = snapshot.getStringArray(STRINGS_KEY);
+        int[] played = snapshot.getIntArray(PLAYED_KEY);
+        // A snapshot saved by a version of the app with different GameData can't be trusted
+        if (ints == null || strings == null || played == null || ints.length != fields.length || strings.length != fields.length) {
+            return null;
+        }
+
+        Map<GameData, Object> data = new HashMap<>();
+        for (int i = 0; i < fields.length; i++) {
+            data.put(fields[i], fields[i].getType() == 'i' ? (Object) ints[i] : strings[i]);
+        }
+
+        UserGame game = new UserGame(snapshot.getString(USERNAME_KEY));
+        game.initialize(snapshot.getBoolean(WHITE_KEY) ? Colour.WHITE : Colour.BLACK, data);
+        game.setBoardData(snapshot.getString(BOARD_KEY));
+
+        GamePresenter presenter = GamePresenter.restore(game, played);
+        if (presenter == null) {
+            return null;
+        }
+
+        int[] history = snapshot.getIntArray(HISTORY_KEY);
+        return new GameSnapshot(game, presenter, history == null ? null : new GameHistory(history));
+    }
+}
@@ -0,0 +1,241 @@
+package com.lukaswillsie.onlinechess.activities.board;
+
+import android.util.Log;
+
+import androidx.lifecycle.ViewModel;
+
+import com.lukaswillsie.onlinechess.data.GameHistory;
+import com.lukaswillsie.onlinechess.data.UserGame;
+import com.lukaswillsie.onlinechess.network.Server;
+import com.lukaswillsie.onlinechess.network.helper.requesters.LoadGameRequester;
+
+import Chess.com.lukaswillsie.chess.Board;
+
+/**
+ * Holds the game BoardActivity is showing, so that it survives the Activity being destroyed and
+ * recreated for a configuration change, like the screen rotating. Without it, every rotation would
+ * throw away the game and load it from the server all over again.
+ * <p>
+ * Along with the game itself, we keep the ChessManager managing it, so that a move or promotion
+ * the user has sent to the server is still waiting for its answer in the new Activity. Load game
+ * requests are made through us, too, and their results passed on to whichever Activity is attached
+ * when they arrive, so that a game being loaded when the screen rotates still turns up. Only the
+ * last game asked for is passed on; if the user switches games again before a load is answered,
+ * the answer to the older load is dropped, however late it arrives.
+ * <p>
+ * Only use this class from the UI thread.
+ */
+class GameViewModel extends ViewModel {
+    /**
+     * Tag used for logging to the console
+     */
+    private static final String tag = "GameViewModel";
+
+    /**
+     * The Activity currently showing our game, which load game results are passed on to. null
+     * while no Activity is attached.
+     */
+    private LoadGameRequester requester;
+
+    /**
+     * The last load game request we made, or null if it has been answered. Answers to any other
+     * request are dropped.
+     */
+    private Load load;
+
+    /*
+     * The game being shown, and the objects built around it. All null until a game is loaded.
+     */
+    private UserGame game;
+    private GamePresenter presenter;
+    private GameHistory history;
+    private ChessManager manager;
+
+    /**
+     * Attach the given Activity, which will be given the results of any load game request,
+     * including one made before it was created
+     *
+     * @param requester - the Activity now showing our game
+     */
+    void attach(LoadGameRequester requester) {
+        this.requester = requester;
+    }
+
+    /**
+     * Detach the Activity attached with attach(), when it's destroyed
+     */
+    void detach() {
+        this.requester = null;
+    }
+
+    /**
+     * Ask the server for the game with the given ID, for the attached Activity
+     *
+     * @param gameID - the ID of the game to load
+     */
+    void load(String gameID) {
+        if (load != null) {
+            load.release();
+        }
+        load = new Load(this, gameID);
+        Server.getServerHelper().loadGame(load, gameID, Server.getUsername());
+    }
+
+    /**
+     * Check whether we're waiting on the server for a game
+     *
+     * @return true if and only if a load game request is in progress
+     */
+    boolean isLoading() {
+        return load != null;
+    }
+
+    /**
+     * Hold on to the given game, replacing any we had before
+     *
+     * @param game      - the game being shown
+     * @param presenter - the GamePresenter holding the game's board
+     * @param history   - the moves played in the game, or null if we don't have them
+     */
+    void setGame(UserGame game, GamePresenter presenter, GameHistory history) {
+        this.game = game;
+        this.presenter = presenter;
+        this.history = history;
+    }
+
+    void setManager(ChessManager manager) {
+        this.manager = manager;
+    }
+
+    UserGame getGame() {
+        return game;
+    }
+
+    GamePresenter getPresenter() {
+        return presenter;
+    }
+
+    GameHistory getHistory() {
+        return history;
+    }
+
+    ChessManager getManager() {
+        return manager;
+    }
+
+    /**
+     * Called when the Activity we were kept for has finished for good. We let go of the game, and
+     * have the ChessManager let go of the last Activity it was attached to, so that a move or
+     * promotion request still waiting on the server doesn't keep that Activity in memory.
+     */
+    @Override
+    protected void onCleared() {
+        if (manager != null) {
+            manager.release();
+        }
+        if (load != null) {
+            load.release();
+        }
+        requester = null;
+        load = null;
+        manager = null;
+        game = null;
+        presenter = null;
+        history = null;
+    }
+
+    /**
+     * Receives the answer to one load game request, and passes it on to the attached Activity if
+     * the request is still the last one we made. The request can outlive the model, since the
+     * server may take its time answering, so it lets go of the model as soon as it's superseded or
+     * the model is cleared.
+     */
+    private static class Load implements LoadGameRequester {
+        /**
+         * The ID of the game this request is for
+         */
+        private final String gameID;
+
+        /**
+         * The model that made this request, or null once the request has been answered, another
+         * has been made in its place, or the model has been cleared
+         */
+        private GameViewModel model;
+
+        private Load(GameViewModel model, String gameID) {
+            this.model = model;
+            this.gameID = gameID;
+        }
+
+        /**
+         * Let go of our model, so that our answer is dropped whenever it arrives
+         */
+        private void release() {
+            model = null;
+        }
+
+        /**
+         * Check whether this request's answer should be passed on, and if so, mark it as answered
+         *
+         * @return The Activity to pass the answer on to, or null if there's nobody to give it to
+         */
+        private LoadGameRequester answered() {
+            GameViewModel model = this.model;
+            if (model == null) {
+                Log.i(tag, "Dropping answer to stale load of game \"" + gameID + "\"");
+                return null;
+            }
+            this.model = null;
+            model.load = null;
+            return model.requester;
+        }
+
+        @Override
+        public void success(Board board, UserGame game, GameHistory history) {
+            LoadGameRequester requester = answered();
+            if (requester != null) {
+                requester.success(board, game, history);
+            }
+        }
+
+        @Override
+        public void gameDoesNotExist() {
+            LoadGameRequester requester = answered();
+            if (requester != null) {
+                requester.gameDoesNotExist();
+            }
+        }
+
+        @Override
+        public void userNotInGame() {
+            LoadGameRequester requester = answered();
+            if (requester != null) {
+                requester.userNotInGame();
+            }
+        }
+
+        @Override
+        public void connectionLost() {
+            LoadGameRequester requester = answered();
+            if (requester != null) {
+                requester.connectionLost();
+            }
+        }
+
+        @Override
+        public void serverError() {
+            LoadGameRequester requester = answered();
+            if (requester != null) {
+                requester.serverError();
+            }
+        }
+
+        @Override
+        public void systemError() {
+            LoadGameRequester requester = answered();
+            if (requester != null) {
+                requester.systemError();
+            }
+        }
+    }
+}
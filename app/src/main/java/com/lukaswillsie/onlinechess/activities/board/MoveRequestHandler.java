@@ -2,6 +2,7 @@ package com.lukaswillsie.onlinechess.activities.board;
 
 import android.util.Log;
 
+import com.lukaswillsie.onlinechess.network.NetworkTrace;
 import com.lukaswillsie.onlinechess.network.Server;
 import com.lukaswillsie.onlinechess.network.helper.MultipleRequestException;
 import com.lukaswillsie.onlinechess.network.helper.requesters.MoveRequester;
@@ -42,9 +43,12 @@ class MoveRequestHandler implements MoveRequester {
      * @param gameID - the game to try and make the given move in
      */
     void submitMove(Move move, String gameID) {
+        NetworkTrace.mark(NetworkTrace.Stage.REQUESTED);
         try {
             Server.getServerHelper().move(this, gameID, move);
         } catch (MultipleRequestException e) {
+            // No request was made, so there's nothing to trace
+            NetworkTrace.abandon();
             Log.i(tag, "Submitted multiple move requests to ServerHelper");
             listener.moveFailed();
         }
@@ -0,0 +1,192 @@
+package com.lukaswillsie.onlinechess.activities.board;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.AudioManager;
+import android.media.SoundPool;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Message;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.lukaswillsie.onlinechess.R;
+
+/**
+ * Plays the sound effects that accompany moves on the board. Both sounds are decoded once, up
+ * front, into a SoundPool with a fixed number of voices, so quick successions of moves, like
+ * castling or stepping through a replay, overlap instead of cutting each other off. Everything
+ * to do with the SoundPool happens on a dedicated audio thread; the UI thread just drops a
+ * message in its queue.
+ * <p>
+ * Sounds are requested when a move is made, not when its animation finishes, and scheduled
+ * against the time of the request. We keep track of how long it takes from the time a sound is
+ * due to the time it has been handed to the audio system, and log it, so that slow audio
+ * dispatch shows up in the logs.
+ * <p>
+ * Like the MediaPlayers this replaces, there's one instance for the whole app, which lives as
+ * long as the app does.
+ */
+final class MoveSounds implements Handler.Callback {
+    /**
+     * Tag used for logging to the console
+     */
+    private static final String tag = "MoveSounds";
+
+    /*
+     * The sounds we can play
+     */
+    static final int MOVE = 0;
+    static final int CAPTURE = 1;
+
+    /**
+     * The raw resource for each sound, indexed by the constants above
+     */
+    private static final int[] RESOURCES = {R.raw.move_sound, R.raw.capture_sound};
+
+    /**
+     * The number of sounds that can be playing at once. A castle plays one sound and a capture
+     * one, so four leaves plenty of room for moves made in quick succession.
+     */
+    private static final int MAX_VOICES = 4;
+
+    /*
+     * What the messages sent to our audio thread mean
+     */
+    private static final int LOAD = 0;
+    private static final int PLAY = 1;
+
+    private static MoveSounds instance;
+
+    /**
+     * Used to post work to the audio thread
+     */
+    private final Handler handler;
+
+    /**
+     * Used to load sounds; only used on the audio thread
+     */
+    private final Context context;
+
+    /*
+     * Only touched on the audio thread
+     */
+    private final int[] soundIds = new int[RESOURCES.length];
+    private final boolean[] loaded = new boolean[RESOURCES.length];
+    private SoundPool pool;
+    private long played;
+    private long totalLatency;
+    private long maxLatency;
+
+    private MoveSounds(Context context) {
+        this.context = context;
+
+        HandlerThread thread = new HandlerThread(tag, Process.THREAD_PRIORITY_AUDIO);
+        thread.start();
+        this.handler = new Handler(thread.getLooper(), this);
+        handler.sendEmptyMessage(LOAD);
+    }
+
+    /**
+     * Get the app's MoveSounds, creating it, and starting to load its sounds, if it doesn't
+     * exist yet
+     *
+     * @param context - any Context belonging to the app
+     * @return The app's MoveSounds
+     */
+    static synchronized MoveSounds get(Context context) {
+        if (instance == null) {
+            instance = new MoveSounds(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Play the given sound after the given delay. Doesn't allocate, so can be called freely from
+     * the UI thread.
+     *
+     * @param sound - the sound to play, one of MOVE or CAPTURE
+     * @param delay - how long, in milliseconds, to wait before playing the sound; lets a sound be
+     *              requested at the start of a move but land as the piece does
+     */
+    void play(int sound, long delay) {
+        handler.sendMessageAtTime(handler.obtainMessage(PLAY, sound, 0), SystemClock.uptimeMillis() + delay);
+    }
+
+    @Override
+    public boolean handleMessage(Message message) {
+        switch (message.what) {
+            case LOAD:
+                load();
+                return true;
+            case PLAY:
+                start(message.arg1, message.getWhen());
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Create our SoundPool and start decoding every sound into it. Must be called on the audio
+     * thread, so that load callbacks are delivered there too.
+     */
+    @SuppressWarnings("deprecation")
+    private void load() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            AudioAttributes attributes = new AudioAttributes.Builder()
+                    .setUsage(AudioAttributes.USAGE_GAME)
+                    .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                    .build();
+            pool = new SoundPool.Builder().setMaxStreams(MAX_VOICES).setAudioAttributes(attributes).build();
+        } else {
+            pool = new SoundPool(MAX_VOICES, AudioManager.STREAM_MUSIC, 0);
+        }
+
+        pool.setOnLoadCompleteListener(new SoundPool.OnLoadCompleteListener() {
+            @Override
+            public void onLoadComplete(SoundPool soundPool, int sampleId, int status) {
+                for (int sound = 0; sound < soundIds.length; sound++) {
+                    if (soundIds[sound] == sampleId) {
+                        loaded[sound] = status == 0;
+                        if (status != 0) {
+                            Log.e(tag, "Couldn't load sound " + sound + ", status " + status);
+                        }
+                    }
+                }
+            }
+        });
+
+        for (int sound = 0; sound < RESOURCES.length; sound++) {
+            soundIds[sound] = pool.load(context, RESOURCES[sound], 1);
+        }
+    }
+
+    /**
+     * Hand the given sound to the audio system and record how late it was
+     *
+     * @param sound - the sound to play
+     * @param due   - the time, in SystemClock.uptimeMillis(), the sound was supposed to start
+     */
+    private void start(int sound, long due) {
+        if (!loaded[sound]) {
+            Log.w(tag, "Dropped sound " + sound + " because it hasn't finished loading");
+            return;
+        }
+
+        int stream = pool.play(soundIds[sound], 1f, 1f, 1, 0, 1f);
+        long latency = SystemClock.uptimeMillis() - due;
+        if (stream == 0) {
+            Log.w(tag, "Couldn't play sound " + sound);
+            return;
+        }
+
+        played++;
+        totalLatency += latency;
+        maxLatency = Math.max(maxLatency, latency);
+        Log.d(tag, "Started sound " + sound + " " + latency + "ms after it was due (average "
+                + (totalLatency / played) + "ms, worst " + maxLatency + "ms over " + played + " sounds)");
+    }
+}
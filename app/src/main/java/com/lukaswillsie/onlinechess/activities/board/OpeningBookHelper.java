@@ -0,0 +1,120 @@
+package com.lukaswillsie.onlinechess.activities.board;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.os.Process;
+import android.util.Log;
+
+import com.lukaswillsie.onlinechess.engine.OpeningBook;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Gives the app access to the opening book that ships in its assets. The book is memory-mapped
+ * straight out of the APK rather than read into memory, which is why app/build.gradle stores it
+ * uncompressed; a compressed asset has no file descriptor to map.
+ * <p>
+ * Opening the asset touches the disk, and so does the first lookup into each page of the mapping,
+ * as the page is faulted in. StrictMode can't see page faults, so nothing would warn us if that
+ * happened on the UI thread. Instead, prepare() does all of it on a background thread while the
+ * app starts up (see StartupPipeline), and getBook() returns null until it's done.
+ */
+public class OpeningBookHelper {
+    /**
+     * Tag used for logging to the console
+     */
+    private static final String tag = "OpeningBookHelper";
+
+    /**
+     * The name of the book within the app's assets
+     */
+    private static final String BOOK_ASSET = "opening_book.bin";
+
+    /**
+     * The book, once it has been mapped and paged in
+     */
+    private static volatile OpeningBook book;
+
+    /**
+     * Set once the book has started being prepared, so that it's only ever done once, whether it
+     * works or not
+     */
+    private static boolean started;
+
+    /**
+     * Map the opening book into memory and page all of it in, so that later lookups don't have to
+     * wait on the disk. Does nothing if the book has already been prepared, or is being prepared
+     * on another thread. Must not be called on the UI thread.
+     *
+     * @param context - any Context belonging to the app
+     */
+    public static void prepare(Context context) {
+        if (claim()) {
+            load(context);
+        }
+    }
+
+    /**
+     * Get the app's opening book, if it's ready. This never touches the disk, so it's safe to call
+     * on the UI thread. If nothing has started preparing the book yet, for example because the app
+     * was restored straight onto the board after its process was killed, we start preparing it in
+     * the background.
+     *
+     * @param context - any Context belonging to the app
+     * @return The opening book, or null if it isn't ready yet or couldn't be opened
+     */
+    static OpeningBook getBook(Context context) {
+        if (book == null && claim()) {
+            final Context application = context.getApplicationContext();
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    load(application);
+                }
+            }, tag).start();
+        }
+        return book;
+    }
+
+    /**
+     * Note that the book is being prepared
+     *
+     * @return true if the caller should prepare it, or false if that has already been done
+     */
+    private static synchronized boolean claim() {
+        if (started) {
+            return false;
+        }
+        started = true;
+        return true;
+    }
+
+    /**
+     * Map and page in the book. Only called once, off the UI thread.
+     */
+    private static void load(Context context) {
+        try {
+            AssetFileDescriptor descriptor = context.getAssets().openFd(BOOK_ASSET);
+            FileInputStream stream = descriptor.createInputStream();
+            try {
+                MappedByteBuffer buffer = stream.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                        descriptor.getStartOffset(), descriptor.getLength());
+
+                // The book is only a few pages, so we bring them all in now rather than one fault
+                // at a time during the binary searches
+                buffer.load();
+                book = new OpeningBook(buffer);
+            } finally {
+                // The mapping stays valid once the file is closed
+                stream.close();
+            }
+            Log.i(tag, "Mapped opening book with " + book.getEntryCount() + " entries");
+        } catch (IOException e) {
+            Log.e(tag, "Couldn't open opening book", e);
+        }
+    }
+}
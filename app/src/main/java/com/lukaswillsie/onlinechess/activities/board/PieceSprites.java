@@ -0,0 +1,271 @@
+package com.lukaswillsie.onlinechess.activities.board;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.lukaswillsie.onlinechess.R;
+import com.lukaswillsie.onlinechess.engine.Pieces;
+
+import Chess.com.lukaswillsie.chess.Bishop;
+import Chess.com.lukaswillsie.chess.Colour;
+import Chess.com.lukaswillsie.chess.Knight;
+import Chess.com.lukaswillsie.chess.Pawn;
+import Chess.com.lukaswillsie.chess.Piece;
+import Chess.com.lukaswillsie.chess.Queen;
+import Chess.com.lukaswillsie.chess.Rook;
+
+/**
+ * Holds the twelve piece images, decoded once and scaled to the size they're drawn at, side by
+ * side in a single bitmap. Everything that draws pieces, from the board itself to drag shadows
+ * and promotion banners, draws from here, so drawing a piece is just a copy out of the atlas: no
+ * resource lookups, no decoding and no scaling.
+ * <p>
+ * Pieces are identified by their engine piece codes (see Pieces), which already combine type and
+ * colour into a single number from 0 to 11.
+ * <p>
+ * Sprites can be fetched with get() from any thread, so they can be built ahead of time in the
+ * background; drawing them should only be done from the UI thread.
+ */
+final class PieceSprites {
+    /**
+     * Tag used for logging to the console
+     */
+    private static final String tag = "PieceSprites";
+
+    /**
+     * The number of sizes of atlas we keep around. The board is drawn at one size in portrait and
+     * another in landscape; there's no reason to keep more than that.
+     */
+    private static final int CACHE_SIZE = 2;
+
+    /**
+     * The atlases we've built, keyed by size
+     */
+    private static final LruCache<Integer, PieceSprites> cache = new LruCache<>(CACHE_SIZE);
+
+    /**
+     * The image for each piece, indexed by engine piece code
+     */
+    private static final int[] DRAWABLES = {
+            R.drawable.white_pawn, R.drawable.white_knight, R.drawable.white_bishop,
+            R.drawable.white_rook, R.drawable.white_queen, R.drawable.white_king,
+            R.drawable.black_pawn, R.drawable.black_knight, R.drawable.black_bishop,
+            R.drawable.black_rook, R.drawable.black_queen, R.drawable.black_king
+    };
+
+    /**
+     * The atlas. The piece with code c occupies the size x size cell starting at x = c * size.
+     */
+    private final Bitmap atlas;
+
+    /**
+     * The width and height of each piece in the atlas, in pixels
+     */
+    private final int size;
+
+    /*
+     * Used for drawing out of the atlas without allocating
+     */
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect source = new Rect();
+    private final Rect destination = new Rect();
+
+    private PieceSprites(Bitmap atlas, int size) {
+        this.atlas = atlas;
+        this.size = size;
+    }
+
+    /**
+     * Get the sprites for pieces of the given size, building them if they haven't been built
+     * already
+     *
+     * @param context - any Context belonging to the app
+     * @param size    - the width and height, in pixels, that pieces will be drawn at
+     * @return The sprites for pieces of the given size
+     */
+    static synchronized PieceSprites get(Context context, int size) {
+        size = Math.max(1, size);
+        PieceSprites sprites = cache.get(size);
+        if (sprites == null) {
+            sprites = build(context.getResources(), size);
+            cache.put(size, sprites);
+        }
+        return sprites;
+    }
+
+    /**
+     * Decode every piece image and pack them, scaled to the given size, into a new atlas
+     */
+    private static PieceSprites build(Resources resources, int size) {
+        long start = SystemClock.uptimeMillis();
+
+        Bitmap atlas = Bitmap.createBitmap(size * DRAWABLES.length, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(atlas);
+        Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        Rect destination = new Rect();
+
+        // We scale the images ourselves, so there's no point having them scaled for the screen's
+        // density while they're decoded
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inScaled = false;
+        for (int code = 0; code < DRAWABLES.length; code++) {
+            Bitmap image = BitmapFactory.decodeResource(resources, DRAWABLES[code], options);
+            if (image == null) {
+                Log.e(tag, "Couldn't decode image for piece " + code);
+                continue;
+            }
+
+            // Fit the image in its cell without changing its proportions
+            int width = size;
+            int height = size;
+            if (image.getWidth() > image.getHeight()) {
+                height = size * image.getHeight() / image.getWidth();
+            } else {
+                width = size * image.getWidth() / image.getHeight();
+            }
+            int left = code * size + (size - width) / 2;
+            int top = (size - height) / 2;
+            destination.set(left, top, left + width, top + height);
+
+            canvas.drawBitmap(image, null, destination, paint);
+            image.recycle();
+        }
+
+        Log.i(tag, "Built " + size + "px piece atlas in " + (SystemClock.uptimeMillis() - start) + "ms");
+        return new PieceSprites(atlas, size);
+    }
+
+    /**
+     * Get the engine piece code (see Pieces) for the given piece
+     *
+     * @param piece - the piece to identify
+     * @return The piece's engine code, which can be given to draw()
+     */
+    static int codeOf(Piece piece) {
+        int type;
+        if (piece instanceof Pawn) {
+            type = Pieces.PAWN;
+        } else if (piece instanceof Rook) {
+            type = Pieces.ROOK;
+        } else if (piece instanceof Knight) {
+            type = Pieces.KNIGHT;
+        } else if (piece instanceof Bishop) {
+            type = Pieces.BISHOP;
+        } else if (piece instanceof Queen) {
+            type = Pieces.QUEEN;
+        }
+        // Otherwise, piece is a King
+        else {
+            type = Pieces.KING;
+        }
+        return Pieces.make(piece.getColour() == Colour.WHITE ? Pieces.WHITE : Pieces.BLACK, type);
+    }
+
+    /**
+     * Draw the given piece, at the size of this atlas, with its top-left corner at (left, top)
+     *
+     * @param canvas - the Canvas to draw on
+     * @param code   - the engine code of the piece to draw
+     * @param left   - the x coordinate of the left edge of the piece
+     * @param top    - the y coordinate of the top edge of the piece
+     */
+    void draw(Canvas canvas, int code, int left, int top) {
+        destination.set(left, top, left + size, top + size);
+        draw(canvas, code, destination, paint);
+    }
+
+    /**
+     * Draw the given piece, at the size of this atlas, with its top-left corner at (left, top),
+     * partly transparent
+     *
+     * @param canvas - the Canvas to draw on
+     * @param code   - the engine code of the piece to draw
+     * @param left   - the x coordinate of the left edge of the piece
+     * @param top    - the y coordinate of the top edge of the piece
+     * @param alpha  - how opaque to draw the piece, from 0 (invisible) to 255 (opaque)
+     */
+    void draw(Canvas canvas, int code, int left, int top, int alpha) {
+        paint.setAlpha(alpha);
+        draw(canvas, code, left, top);
+        paint.setAlpha(255);
+    }
+
+    /**
+     * Draw the given piece with the given Paint, scaled to fill the given bounds
+     */
+    private void draw(Canvas canvas, int code, Rect bounds, Paint paint) {
+        source.set(code * size, 0, (code + 1) * size, size);
+        canvas.drawBitmap(atlas, source, bounds, paint);
+    }
+
+    /**
+     * Get a Drawable showing the given piece, for use in things like ImageViews. The Drawable
+     * draws straight out of this atlas.
+     *
+     * @param code - the engine code of the piece to show
+     * @return A Drawable showing the given piece
+     */
+    Drawable getDrawable(int code) {
+        return new SpriteDrawable(code);
+    }
+
+    /**
+     * A Drawable that shows a single piece from the atlas
+     */
+    private class SpriteDrawable extends Drawable {
+        private final int code;
+
+        /**
+         * Each Drawable gets its own Paint, so that changing one's alpha doesn't affect the rest
+         */
+        private final Paint drawablePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+        private SpriteDrawable(int code) {
+            this.code = code;
+        }
+
+        @Override
+        public void draw(@NonNull Canvas canvas) {
+            PieceSprites.this.draw(canvas, code, getBounds(), drawablePaint);
+        }
+
+        @Override
+        public int getIntrinsicWidth() {
+            return size;
+        }
+
+        @Override
+        public int getIntrinsicHeight() {
+            return size;
+        }
+
+        @Override
+        public void setAlpha(int alpha) {
+            drawablePaint.setAlpha(alpha);
+        }
+
+        @Override
+        public void setColorFilter(@Nullable ColorFilter colorFilter) {
+            drawablePaint.setColorFilter(colorFilter);
+        }
+
+        @Override
+        public int getOpacity() {
+            return PixelFormat.TRANSLUCENT;
+        }
+    }
+}
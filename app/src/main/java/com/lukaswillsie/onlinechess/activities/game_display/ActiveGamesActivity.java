@@ -1,10 +1,8 @@
 package com.lukaswillsie.onlinechess.activities.game_display;
 
 import android.os.Bundle;
-import android.util.Log;
 
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
@@ -15,7 +13,6 @@ import com.lukaswillsie.onlinechess.activities.Reconnector;
 import com.lukaswillsie.onlinechess.data.GameData;
 import com.lukaswillsie.onlinechess.data.UserGame;
 import com.lukaswillsie.onlinechess.network.Server;
-import com.lukaswillsie.onlinechess.network.helper.MultipleRequestException;
 import com.lukaswillsie.onlinechess.network.helper.requesters.LoadGamesRequester;
 
 import java.util.ArrayList;
@@ -42,29 +39,29 @@ public class ActiveGamesActivity extends AppCompatActivity implements ReconnectL
         } else {
             // Set up our RecyclerView to display a list of the user's archived games
             RecyclerView recyclerView = findViewById(R.id.games_recycler);
-            recyclerView.setLayoutManager(new LinearLayoutManager(this));
-            recyclerView.setAdapter(new ActiveUserGamesAdapter(this, getGames(), this));
+            GameCards.attach(recyclerView, new ActiveUserGamesAdapter(this, getGames(), this));
 
             // Set up our SwipeRefreshLayout so that it submits a load games request on refresh
             final SwipeRefreshLayout refreshLayout = findViewById(R.id.games_refresh);
             refreshLayout.setOnRefreshListener(new SwipeRefreshLayout.OnRefreshListener() {
                 @Override
                 public void onRefresh() {
-                    try {
-                        Server.getServerHelper().loadGames(Server.getUsername(), ActiveGamesActivity.this);
-                    } catch (MultipleRequestException e) {
-                        // This should never happen, but if it does we stop the refresh animation
-                        // and show an error dialog. The user can try again if they want to, at
-                        // which point, hopefully, the request will have been handled.
-                        Log.e(tag, "Submitted multiple load games requests to ServerHelper");
-                        Display.showSimpleDialog(R.string.games_refresh_failed, ActiveGamesActivity.this);
-                        refreshLayout.setRefreshing(false);
-                    }
+                    Server.getServerHelper().loadGames(Server.getUsername(), ActiveGamesActivity.this);
                 }
             });
         }
     }
 
+    /**
+     * Give our game cards back to the pool shared by every list of games, so the next list the
+     * user opens doesn't have to inflate its own
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        GameCards.release((RecyclerView) findViewById(R.id.games_recycler));
+    }
+
     /**
      * We ensure that if any of the user's games have changed in any way since this activity was
      * paused, this activity displays the update. For example, suppose the user clicks on one of
@@ -5,6 +5,8 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
 
 import com.lukaswillsie.onlinechess.R;
 import com.lukaswillsie.onlinechess.activities.Display;
@@ -54,11 +56,11 @@ public class ActiveUserGamesAdapter extends UserGamesAdapter {
      * Called when the RecyclerView wants us to bind a particular game to a View, which is wrapped
      * up by holder
      *
-     * @param holder   - the GameViewHolder wrapping the View that we will place the Game's data into
+     * @param holder   - the GameCardHolder wrapping the View that we will place the Game's data into
      * @param position - tells us which Game object to fetch and bind to the given View
      */
     @Override
-    public void onBindViewHolder(@NonNull GameViewHolder holder, int position) {
+    public void onBindViewHolder(@NonNull GameCardHolder holder, int position) {
         super.onBindViewHolder(holder, position);
 
         UserGame game = getGames().get(position);
@@ -91,7 +93,7 @@ public class ActiveUserGamesAdapter extends UserGamesAdapter {
      * Listens to an archive icon associated with a particular game, and tries to archive that game
      * via a network request when the button is clicked.
      */
-    private class ArchiveListener implements View.OnClickListener, ArchiveRequester {
+    private class ArchiveListener implements View.OnClickListener, ArchiveRequester, LifecycleOwner {
         /*
          * The Game that this listener will archive when the View it is listening to is pressed
          */
@@ -108,6 +110,17 @@ public class ActiveUserGamesAdapter extends UserGamesAdapter {
             this.game = game;
         }
 
+        /**
+         * An archive request's outcome only matters while the Activity showing our games is alive, so
+         * we share its Lifecycle. This lets ServerHelper let go of us, and the Activity, if it's
+         * destroyed before the server answers.
+         */
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return ((AppCompatActivity) context).getLifecycle();
+        }
+
         @Override
         public void onClick(View view) {
             // Send the server an archive request
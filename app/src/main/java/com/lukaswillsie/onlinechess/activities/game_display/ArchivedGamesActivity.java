@@ -4,7 +4,6 @@ import android.os.Bundle;
 import android.util.Log;
 
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
@@ -15,7 +14,6 @@ import com.lukaswillsie.onlinechess.activities.Reconnector;
 import com.lukaswillsie.onlinechess.data.GameData;
 import com.lukaswillsie.onlinechess.data.UserGame;
 import com.lukaswillsie.onlinechess.network.Server;
-import com.lukaswillsie.onlinechess.network.helper.MultipleRequestException;
 import com.lukaswillsie.onlinechess.network.helper.requesters.LoadGamesRequester;
 
 import java.util.ArrayList;
@@ -42,8 +40,7 @@ public class ArchivedGamesActivity extends AppCompatActivity implements Reconnec
         } else {
             // Set up our RecyclerView to display a list of the user's archived games
             RecyclerView recyclerView = findViewById(R.id.games_recycler);
-            recyclerView.setLayoutManager(new LinearLayoutManager(this));
-            recyclerView.setAdapter(new ArchivedUserGamesAdapter(this, getGames(), this));
+            GameCards.attach(recyclerView, new ArchivedUserGamesAdapter(this, getGames(), this));
 
             // Set up our SwipeRefreshLayout to submit a load games request to the server when the
             // RecyclerView is refreshed by the user
@@ -51,22 +48,22 @@ public class ArchivedGamesActivity extends AppCompatActivity implements Reconnec
             refreshLayout.setOnRefreshListener(new SwipeRefreshLayout.OnRefreshListener() {
                 @Override
                 public void onRefresh() {
-                    try {
-                        Server.getServerHelper().loadGames(Server.getUsername(), ArchivedGamesActivity.this);
-                    } catch (MultipleRequestException e) {
-                        // This shouldn't happen (we only submit load games requests to ServerHelper
-                        // one at a time, and never submit another before receiving a callback about
-                        // the first). If it does, we display an error dialog and end the refresh
-                        // animation
-                        Log.e(tag, "Submitted multiple load games requests to ServerHelper");
-                        Display.showSimpleDialog(R.string.games_refresh_failed, ArchivedGamesActivity.this);
-                        refreshLayout.setRefreshing(false);
-                    }
+                    Server.getServerHelper().loadGames(Server.getUsername(), ArchivedGamesActivity.this);
                 }
             });
         }
     }
 
+    /**
+     * Give our game cards back to the pool shared by every list of games, so the next list the
+     * user opens doesn't have to inflate its own
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        GameCards.release((RecyclerView) findViewById(R.id.games_recycler));
+    }
+
     /**
      * We ensure that if any of the user's games have changed in any way since this activity was
      * paused, this activity displays the update. For example, suppose the user clicks on one of
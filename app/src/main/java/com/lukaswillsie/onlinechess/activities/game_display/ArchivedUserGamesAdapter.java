@@ -5,6 +5,8 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
 
 import com.lukaswillsie.onlinechess.R;
 import com.lukaswillsie.onlinechess.activities.Display;
@@ -47,11 +49,11 @@ public class ArchivedUserGamesAdapter extends UserGamesAdapter {
     /**
      * Called when our RecyclerView wants to bind a Game object to a View, wrapped up in holder
      *
-     * @param holder   - the GameViewHolder wrapping the View that we will place the Game's data into
+     * @param holder   - the GameCardHolder wrapping the View that we will place the Game's data into
      * @param position - tells us which Game object to fetch and bind to the given View
      */
     @Override
-    public void onBindViewHolder(@NonNull GameViewHolder holder, int position) {
+    public void onBindViewHolder(@NonNull GameCardHolder holder, int position) {
         super.onBindViewHolder(holder, position);
 
         UserGame game = getGames().get(position);
@@ -84,7 +86,7 @@ public class ArchivedUserGamesAdapter extends UserGamesAdapter {
      * Listens to a restore button associated with a particular game, and attempts to restore that
      * game via a network request when the button is clicked.
      */
-    private class RestoreListener implements View.OnClickListener, RestoreRequester {
+    private class RestoreListener implements View.OnClickListener, RestoreRequester, LifecycleOwner {
         /*
          * The Game that this listener will restore when it registers a click event
          */
@@ -100,6 +102,16 @@ public class ArchivedUserGamesAdapter extends UserGamesAdapter {
             this.game = game;
         }
 
+        /**
+         * We're tied to the Activity showing our games; if it's destroyed while our restore request
+         * is in progress, ServerHelper lets go of both of us and the result is dropped.
+         */
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return ((AppCompatActivity) context).getLifecycle();
+        }
+
         @Override
         public void onClick(View view) {
             // Send the server a restore request
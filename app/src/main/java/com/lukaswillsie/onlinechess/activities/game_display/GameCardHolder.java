@@ -0,0 +1,65 @@
+package com.lukaswillsie.onlinechess.activities.game_display;
+
+import android.view.View;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.lukaswillsie.onlinechess.R;
+
+/**
+ * Provides a wrapper for easy access to the UI elements contained in a game card, which should
+ * have been inflated from game_card_layout.xml and passed to the constructor for this class.
+ * <p>
+ * Every list of games in the app uses this same holder, so that cards can be shared between the
+ * lists through GameCards' pool. Because a card may be bound by a different adapter next time,
+ * adapters must call recycle() on cards they give up, so that nothing one adapter did to a card
+ * shows up in another list, and so the card doesn't keep the adapter's Activity alive.
+ */
+class GameCardHolder extends RecyclerView.ViewHolder {
+    /*
+     * Contains a reference to the View that is the root of the game card being wrapped by this
+     * object
+     */
+    final View card;
+
+    /*
+     * A reference to each of the Views that are a part of the game card.
+     */
+    final TextView gameID;
+    final TextView opponent;
+    final TextView status;
+    final TextView turn;
+    final ImageView archive;
+
+    /**
+     * Create a new GameCardHolder as a wrapper for the given View. This View should be the
+     * result of an inflation of game_card_layout.xml.
+     *
+     * @param itemView - the View that this GameCardHolder object will act as a wrapper for
+     */
+    GameCardHolder(@NonNull View itemView) {
+        super(itemView);
+
+        this.gameID = itemView.findViewById(R.id.gameID);
+        this.opponent = itemView.findViewById(R.id.opponent);
+        this.status = itemView.findViewById(R.id.status);
+        this.turn = itemView.findViewById(R.id.turn);
+        this.archive = itemView.findViewById(R.id.archive);
+        this.card = itemView;
+    }
+
+    /**
+     * Undo everything an adapter might have done to this card that the next adapter to bind it
+     * might not overwrite, and drop the listeners, which hold references to the adapter and its
+     * Activity
+     */
+    void recycle() {
+        card.setOnClickListener(null);
+        archive.setOnClickListener(null);
+        archive.setBackground(null);
+        status.setAlpha(1f);
+    }
+}
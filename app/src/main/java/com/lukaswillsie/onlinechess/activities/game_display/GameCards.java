@@ -0,0 +1,208 @@
+package com.lukaswillsie.onlinechess.activities.game_display;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.lukaswillsie.onlinechess.R;
+
+/**
+ * Keeps game cards around for every list of games in the app to share. The active, archived and
+ * open games screens all show the same cards, so rather than each screen inflating its own cards
+ * from scratch when it opens, they all draw on one process-wide RecycledViewPool, and give their
+ * cards back to it when they close. Before any list has been opened, the pool is filled up by
+ * inflating cards on a background thread while LoadActivity has nothing better to do.
+ * <p>
+ * Since cards outlive the screens that show them, they're all inflated against the application,
+ * wearing the app's theme, never against an Activity, which they would otherwise keep alive.
+ * <p>
+ * Only use this class from the UI thread.
+ */
+public final class GameCards {
+    /**
+     * Tag used for logging to the console
+     */
+    private static final String tag = "GameCards";
+
+    /**
+     * The view type of game cards. None of our adapters use view types, so every card has the
+     * default one.
+     */
+    private static final int VIEW_TYPE = 0;
+
+    /**
+     * The pool shared by every list of games. null until first needed.
+     */
+    private static CardPool pool;
+
+    /**
+     * The themed application Context we inflate cards against
+     */
+    private static Context cardContext;
+
+    /**
+     * Creates GameCardHolders for cards we inflated ourselves, so they can go in the pool
+     */
+    private static final CardFactory factory = new CardFactory();
+
+    /**
+     * The number of cards waiting to be inflated in the background
+     */
+    private static int pending;
+
+    private GameCards() {
+    }
+
+    /**
+     * Once the UI thread is next idle, start inflating cards in the background until the pool
+     * holds as many as R.integer.preinflated_game_cards says. Cards are put in the pool as they're
+     * finished, so any list opened in the meantime makes use of whatever is ready.
+     *
+     * @param context - any Context belonging to the app
+     */
+    public static void preinflate(Context context) {
+        final Context cardContext = getCardContext(context);
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                final CardPool pool = getPool(cardContext);
+                final int target = pool.size - pending - pool.getRecycledViewCount(VIEW_TYPE);
+                if (target <= 0) {
+                    return false;
+                }
+
+                // AsyncLayoutInflater needs a parent to generate LayoutParams for the cards; it
+                // doesn't add them to it
+                final RecyclerView parent = new RecyclerView(cardContext);
+                final long start = SystemClock.uptimeMillis();
+                AsyncLayoutInflater inflater = new AsyncLayoutInflater(cardContext);
+                for (int i = 0; i < target; i++) {
+                    pending++;
+                    inflater.inflate(R.layout.game_card_layout, parent, new AsyncLayoutInflater.OnInflateFinishedListener() {
+                        @Override
+                        public void onInflateFinished(@NonNull View view, int resid, ViewGroup parent) {
+                            pending--;
+                            factory.next = view;
+                            pool.putRecycledView(factory.createViewHolder(parent, VIEW_TYPE));
+                            factory.next = null;
+                            if (pending == 0) {
+                                Log.i(tag, "Pre-inflated " + target + " game cards in "
+                                        + (SystemClock.uptimeMillis() - start) + "ms");
+                            }
+                        }
+                    });
+                }
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Give the given RecyclerView a vertical LinearLayoutManager and the given adapter, and have it
+     * draw its cards from, and return them to, the shared pool. Call release() on the RecyclerView
+     * when its Activity is destroyed.
+     *
+     * @param recyclerView - the RecyclerView to set up
+     * @param adapter      - an adapter that creates its cards with inflate() and GameCardHolder
+     */
+    static void attach(RecyclerView recyclerView, RecyclerView.Adapter<GameCardHolder> adapter) {
+        LinearLayoutManager layoutManager = new LinearLayoutManager(recyclerView.getContext());
+        // Hand cards back to the pool when the list goes away, instead of dropping them
+        layoutManager.setRecycleChildrenOnDetach(true);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setRecycledViewPool(getPool(recyclerView.getContext()));
+
+        // setAdapter() would tell the pool that the new adapter's cards aren't compatible with
+        // those of the adapter before it, and the pool would throw away all its cards if no other
+        // list is using it at the moment. Our cards are all compatible.
+        recyclerView.swapAdapter(adapter, false);
+    }
+
+    /**
+     * Return all of the given RecyclerView's cards to the shared pool and disconnect it from its
+     * adapter
+     *
+     * @param recyclerView - a RecyclerView previously passed to attach()
+     */
+    static void release(RecyclerView recyclerView) {
+        recyclerView.swapAdapter(null, true);
+    }
+
+    /**
+     * Inflate a new game card, for when the pool has none to spare
+     *
+     * @param parent - the RecyclerView the card is going to be shown in
+     * @return A new card, inflated from game_card_layout.xml
+     */
+    static View inflate(ViewGroup parent) {
+        return LayoutInflater.from(getCardContext(parent.getContext())).inflate(R.layout.game_card_layout, parent, false);
+    }
+
+    private static CardPool getPool(Context context) {
+        if (pool == null) {
+            pool = new CardPool(context.getResources().getInteger(R.integer.preinflated_game_cards));
+        }
+        return pool;
+    }
+
+    private static Context getCardContext(Context context) {
+        if (cardContext == null) {
+            cardContext = new ContextThemeWrapper(context.getApplicationContext(), R.style.AppTheme);
+        }
+        return cardContext;
+    }
+
+    /**
+     * A RecycledViewPool that holds up to a fixed number of game cards. By default, a pool only
+     * holds five cards of each type, which isn't enough to fill a screen.
+     */
+    private static class CardPool extends RecyclerView.RecycledViewPool {
+        /**
+         * The most cards this pool will hold
+         */
+        private final int size;
+
+        private CardPool(int size) {
+            this.size = size;
+            setMaxRecycledViews(VIEW_TYPE, size);
+        }
+    }
+
+    /**
+     * An adapter that never shows anything. We use it to wrap the cards we inflate ourselves in
+     * GameCardHolders, because only an adapter can create a ViewHolder that a RecycledViewPool
+     * will accept.
+     */
+    private static class CardFactory extends RecyclerView.Adapter<GameCardHolder> {
+        /**
+         * The card to wrap in the next GameCardHolder created
+         */
+        private View next;
+
+        @NonNull
+        @Override
+        public GameCardHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            return new GameCardHolder(next);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull GameCardHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return 0;
+        }
+    }
+}
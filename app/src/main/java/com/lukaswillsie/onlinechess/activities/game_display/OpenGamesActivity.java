@@ -2,14 +2,11 @@ package com.lukaswillsie.onlinechess.activities.game_display;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.util.Log;
 
-import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.lukaswillsie.onlinechess.R;
-import com.lukaswillsie.onlinechess.activities.Display;
 import com.lukaswillsie.onlinechess.activities.ErrorDialogActivity;
 import com.lukaswillsie.onlinechess.activities.JoinGameActivity;
 import com.lukaswillsie.onlinechess.activities.ReconnectListener;
@@ -17,7 +14,6 @@ import com.lukaswillsie.onlinechess.activities.Reconnector;
 import com.lukaswillsie.onlinechess.data.Game;
 import com.lukaswillsie.onlinechess.data.ServerData;
 import com.lukaswillsie.onlinechess.network.Server;
-import com.lukaswillsie.onlinechess.network.helper.MultipleRequestException;
 import com.lukaswillsie.onlinechess.network.helper.requesters.OpenGamesRequester;
 
 import java.util.ArrayList;
@@ -42,8 +38,7 @@ public class OpenGamesActivity extends ErrorDialogActivity implements OpenGamesR
         // This Adapter will be given a list of games to display once we have received them from the
         // server
         RecyclerView recycler = findViewById(R.id.games_recycler);
-        recycler.setLayoutManager(new LinearLayoutManager(this));
-        recycler.setAdapter(new OpenGamesAdapter(this, new ArrayList<Game>(), this));
+        GameCards.attach(recycler, new OpenGamesAdapter(this, new ArrayList<Game>(), this));
 
         // Set up the SwipeRefreshLayout containing our RecyclerView so that we submit an open games
         // request to the server on attempted refresh
@@ -51,17 +46,7 @@ public class OpenGamesActivity extends ErrorDialogActivity implements OpenGamesR
         swipeRefreshLayout.setOnRefreshListener(new SwipeRefreshLayout.OnRefreshListener() {
             @Override
             public void onRefresh() {
-                try {
-                    Server.getServerHelper().getOpenGames(OpenGamesActivity.this);
-                }
-                // This shouldn't happen. We won't be submitting requests to ServerHelper until the
-                // last request has terminated. However, if it does, we simply notify the user of the
-                // problem and end the refresh animation.
-                catch (MultipleRequestException e) {
-                    Log.e(tag, "MultipleRequestException thrown in response to getOpenGames() request");
-                    Display.showSimpleDialog(R.string.open_games_refresh_failed, OpenGamesActivity.this);
-                    swipeRefreshLayout.setRefreshing(false);
-                }
+                Server.getServerHelper().getOpenGames(OpenGamesActivity.this);
             }
         });
 
@@ -70,21 +55,22 @@ public class OpenGamesActivity extends ErrorDialogActivity implements OpenGamesR
         // field serverHelper in Server has been nullified. If it hasn't we proceed as
         // usual and grab a list of open games from the server. If it IS null, we try to reconnect.
         if (Server.getServerHelper() != null) {
-            try {
-                Server.getServerHelper().getOpenGames(this);
-            }
-            // This shouldn't happen. We won't be submitting requests to ServerHelper until the last
-            // request has terminated. However, if it does, we display a dialog to the user and
-            // present the option to try again.
-            catch (MultipleRequestException e) {
-                Log.e(tag, "MultipleRequestException thrown in response to getOpenGames() request");
-                showSystemErrorDialog();
-            }
+            Server.getServerHelper().getOpenGames(this);
         } else {
             new Reconnector(this, this).reconnect();
         }
     }
 
+    /**
+     * Give our game cards back to the pool shared by every list of games, so the next list the
+     * user opens doesn't have to inflate its own
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        GameCards.release((RecyclerView) findViewById(R.id.games_recycler));
+    }
+
     /**
      * Called upon successful completion of an open games request
      *
@@ -170,16 +156,7 @@ public class OpenGamesActivity extends ErrorDialogActivity implements OpenGamesR
         // To retry, we attempt to load the list of openGames again, just like in onCreate. We still
         // have to check that our app hasn;t been terminated while in the background.
         if (Server.getServerHelper() != null) {
-            try {
-                Server.getServerHelper().getOpenGames(this);
-            }
-            // This shouldn't happen. We won't be submitting requests to ServerHelper until the last
-            // request has terminated. However, if it does, we display a dialog to the user and
-            // present the option to try again.
-            catch (MultipleRequestException e) {
-                Log.e(tag, "MultipleRequestException thrown in response to getOpenGames() request");
-                showSystemErrorDialog();
-            }
+            Server.getServerHelper().getOpenGames(this);
         } else {
             new Reconnector(this, this).reconnect();
         }
@@ -203,16 +180,7 @@ public class OpenGamesActivity extends ErrorDialogActivity implements OpenGamesR
         // To retry, we attempt to load the list of openGames again, just like in onCreate. We still
         // have to check that our app hasn't been terminated while in the background.
         if (Server.getServerHelper() != null) {
-            try {
-                Server.getServerHelper().getOpenGames(this);
-            }
-            // This shouldn't happen. We won't be submitting requests to ServerHelper until the last
-            // request has terminated. However, if it does, we display a dialog to the user and
-            // present the option to try again.
-            catch (MultipleRequestException e) {
-                Log.e(tag, "MultipleRequestException thrown in response to getOpenGames() request");
-                showSystemErrorDialog();
-            }
+            Server.getServerHelper().getOpenGames(this);
         } else {
             new Reconnector(this, this).reconnect();
         }
@@ -243,15 +211,6 @@ public class OpenGamesActivity extends ErrorDialogActivity implements OpenGamesR
     @Override
     public void reconnectionComplete() {
         // Attempt to get a list of all the open games in the system so that we can display them
-        try {
-            Server.getServerHelper().getOpenGames(this);
-        }
-        // This shouldn't happen. We won't be submitting requests to ServerHelper until the last
-        // request has terminated. However, if it does, we display a dialog to the user and
-        // present the option to try again.
-        catch (MultipleRequestException e) {
-            Log.e(tag, "MultipleRequestException thrown in response to getOpenGames() request");
-            showSystemErrorDialog();
-        }
+        Server.getServerHelper().getOpenGames(this);
     }
 }
\ No newline at end of file
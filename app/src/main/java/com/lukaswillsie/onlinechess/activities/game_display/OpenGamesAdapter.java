@@ -1,14 +1,13 @@
 package com.lukaswillsie.onlinechess.activities.game_display;
 
-import android.content.Context;
 import android.util.Log;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.lukaswillsie.onlinechess.R;
@@ -33,7 +32,7 @@ import static android.widget.Toast.LENGTH_LONG;
  * for display by a RecyclerView. It also provides an OnClickListener that implements the behaviour
  * we want to see for open games: the user need simply click an open game's card to join it.
  */
-public class OpenGamesAdapter extends RecyclerView.Adapter<OpenGamesAdapter.OpenGamesViewHolder> {
+public class OpenGamesAdapter extends RecyclerView.Adapter<GameCardHolder> {
     /**
      * Tag used for logging to the console
      */
@@ -83,34 +82,31 @@ public class OpenGamesAdapter extends RecyclerView.Adapter<OpenGamesAdapter.Open
 
 
     /**
-     * Create a new View, inflated from game_card_layout.xml as a child of the given parent
-     * ViewGroup.
+     * Create a new View, inflated from game_card_layout.xml for the given parent ViewGroup. Cards
+     * are usually taken from the pool shared by every list of games, so this is only called when
+     * the pool has run out.
      *
-     * @param parent   - the ViewGroup which should be a parent of the new OpenGamesViewHolder
+     * @param parent   - the ViewGroup which should be a parent of the new GameCardHolder
      * @param viewType - specifies the type of View to create and place in the ViewHolder (we don't
      *                 make use of this feature)
-     * @return An OpenGamesViewHolder containing a View, newly-inflated from game_card_layout.xml,
-     * as a child of parent.
+     * @return A GameCardHolder containing a View, newly-inflated from game_card_layout.xml, for
+     * parent.
      */
     @NonNull
     @Override
-    public OpenGamesViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        Context context = parent.getContext();
-        LayoutInflater inflater = LayoutInflater.from(context);
-        View card = inflater.inflate(R.layout.game_card_layout, parent, false);
-
-        return new OpenGamesViewHolder(card);
+    public GameCardHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        return new GameCardHolder(GameCards.inflate(parent));
     }
 
     /**
-     * Binds the Game specified by position to the given OpenGamesViewHolder by putting the
+     * Binds the Game specified by position to the given GameCardHolder by putting the
      * information from the specified Game into the View wrapped by the ViewHolder.
      *
      * @param holder   - the ViewHolder wrapping the View that we're binding to
      * @param position - specifies which Game in our collection to bind to the given View
      */
     @Override
-    public void onBindViewHolder(@NonNull OpenGamesViewHolder holder, int position) {
+    public void onBindViewHolder(@NonNull GameCardHolder holder, int position) {
         Game game = games.get(position);
 
         String gameID = (String) game.getData(ServerData.GAMEID);
@@ -137,6 +133,17 @@ public class OpenGamesAdapter extends RecyclerView.Adapter<OpenGamesAdapter.Open
         holder.card.setOnClickListener(new OpenGameListener(game));
     }
 
+    /**
+     * Called when the RecyclerView is done with the card wrapped by the given holder. The card may
+     * go on to be shown in a different list, so we clean it up.
+     *
+     * @param holder - the GameCardHolder wrapping the card being recycled
+     */
+    @Override
+    public void onViewRecycled(@NonNull GameCardHolder holder) {
+        holder.recycle();
+    }
+
     /**
      * Return the size of the collection of objects that this object is adapting for its
      * RecyclerView
@@ -149,42 +156,12 @@ public class OpenGamesAdapter extends RecyclerView.Adapter<OpenGamesAdapter.Open
         return games.size();
     }
 
-    /**
-     * Wraps up a game card to be used for displaying an open game's information
-     */
-    static class OpenGamesViewHolder extends RecyclerView.ViewHolder {
-        /**
-         * References to the important Views in the card
-         */
-        private View card;
-        private TextView gameID;
-        private TextView opponent;
-        private TextView status;
-        private TextView turn;
-
-        /**
-         * Create a new OpenGamesViewHolder to wrap the given View. The given View must have been
-         * inflated from game_card_layout.xml.
-         *
-         * @param itemView - the game card that this object is going to wrap
-         */
-        public OpenGamesViewHolder(@NonNull View itemView) {
-            super(itemView);
-
-            this.gameID = itemView.findViewById(R.id.gameID);
-            this.opponent = itemView.findViewById(R.id.opponent);
-            this.status = itemView.findViewById(R.id.status);
-            this.turn = itemView.findViewById(R.id.turn);
-            this.card = itemView;
-        }
-    }
-
     /**
      * A class that will allow us to listen to the game cards we display on the screen. Will submit
      * a join game request to the server when a game card is clicked, and process the server's
      * response.
      */
-    private class OpenGameListener implements View.OnClickListener, JoinGameRequester {
+    private class OpenGameListener implements View.OnClickListener, JoinGameRequester, LifecycleOwner {
         /**
          * The Game object that this OnClickListener is listening to
          */
@@ -202,6 +179,17 @@ public class OpenGamesAdapter extends RecyclerView.Adapter<OpenGamesAdapter.Open
             this.game = game;
         }
 
+        /**
+         * Joining a game only needs to be reported while our Activity is alive, so we share its
+         * Lifecycle. This lets ServerHelper let go of us, and the Activity, if it's destroyed before
+         * the server answers.
+         */
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return activity.getLifecycle();
+        }
+
         /**
          * Called when the View this object is listening to is clicked
          *
@@ -3,11 +3,8 @@ package com.lukaswillsie.onlinechess.activities.game_display;
 import android.content.Context;
 import android.content.Intent;
 import android.content.res.Resources;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ImageView;
-import android.widget.TextView;
 
 import androidx.annotation.DrawableRes;
 import androidx.annotation.NonNull;
@@ -27,7 +24,7 @@ import java.util.List;
  * class does not do anything with the ImageView in the top-right corner of game_card_layout. It
  * simply fills in and styles the TextViews and background of the card.
  */
-public class UserGamesAdapter extends RecyclerView.Adapter<UserGamesAdapter.GameViewHolder> {
+public class UserGamesAdapter extends RecyclerView.Adapter<GameCardHolder> {
     /**
      * The Context that this object will use to access app resources.
      */
@@ -51,42 +48,37 @@ public class UserGamesAdapter extends RecyclerView.Adapter<UserGamesAdapter.Game
     }
 
     /**
-     * Create an empty, basic game card as a child of the given parent, and return a GameViewHolder as a
-     * wrapper for it.
+     * Create an empty, basic game card for the given parent, and return a GameCardHolder as a
+     * wrapper for it. Cards are usually taken from the pool shared by every list of games, so
+     * this is only called when the pool has run out.
      *
-     * @param parent   the parent ViewGroup that the View we created and wrap wit a GameViewHolder should
-     *                 be a child of
+     * @param parent   the parent ViewGroup that the View we created and wrap with a GameCardHolder
+     *                 should be a child of
      * @param viewType - the view type of the new view (not used in this implementation)
-     * @return a GameViewHolder wrapping a newly-created game card View created as a child of the
-     * given parent
+     * @return a GameCardHolder wrapping a newly-created game card View created for the given parent
      */
     @NonNull
     @Override
-    public GameViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        Context context = parent.getContext();
-        LayoutInflater inflater = LayoutInflater.from(context);
-
-        View gameCard = inflater.inflate(R.layout.game_card_layout, parent, false);
-
-        return new GameViewHolder(gameCard);
+    public GameCardHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        return new GameCardHolder(GameCards.inflate(parent));
     }
 
     /**
      * Called when the RecyclerView wants to bind a new UserGame object to a View for being
-     * displayed. Fills in and styles all the fields in the given GameViewHolder according to the
+     * displayed. Fills in and styles all the fields in the given GameCardHolder according to the
      * state of the game at position.
      * <p>
-     * Also applies an OnClickListener to the whole card being wrapped by the given GameViewHolder.
+     * Also applies an OnClickListener to the whole card being wrapped by the given GameCardHolder.
      * The OnClickListener makes it so that when the user clicks the card associated with a
      * particular game, that game is launched in BoardActivity so that the user can view the board.
      * Subclasses that want different onClick behaviour should override setCardListener(), since
      * this method calls that method during execution.
      *
-     * @param holder   - the GameViewHolder wrapping the View that we will place the Game's data into
+     * @param holder   - the GameCardHolder wrapping the View that we will place the Game's data into
      * @param position - tells us which Game object to fetch from our and bind to the given View
      */
     @Override
-    public void onBindViewHolder(@NonNull GameViewHolder holder, int position) {
+    public void onBindViewHolder(@NonNull GameCardHolder holder, int position) {
         UserGame game = games.get(position);
         Resources resources = context.getResources();
 
@@ -160,37 +152,48 @@ public class UserGamesAdapter extends RecyclerView.Adapter<UserGamesAdapter.Game
         }
     }
 
+    /**
+     * Called when the RecyclerView is done with the card wrapped by the given holder. The card may
+     * go on to be shown in a different list, so we clean it up.
+     *
+     * @param holder - the GameCardHolder wrapping the card being recycled
+     */
+    @Override
+    public void onViewRecycled(@NonNull GameCardHolder holder) {
+        holder.recycle();
+    }
+
     /**
      * Sets the background of the icon in the top-right corner of the game card to the given
      * drawable.
      *
-     * @param holder - the GameViewHolder object wrapping up the view that this method should edit
+     * @param holder - the GameCardHolder object wrapping up the view that this method should edit
      * @param resID  - the ID of the drawable to place in the background of the icon
      */
-    protected void setIconBackground(GameViewHolder holder, @DrawableRes int resID) {
+    protected void setIconBackground(GameCardHolder holder, @DrawableRes int resID) {
         holder.archive.setBackground(context.getResources().getDrawable(resID));
     }
 
     /**
      * Apply the given listener to the icon in the top-right corner of the game card.
      *
-     * @param holder   - the GameViewHolder object wrapping up the view that this method should edit
+     * @param holder   - the GameCardHolder object wrapping up the view that this method should edit
      * @param listener - the OnClickListener to apply
      */
-    protected void setIconListener(GameViewHolder holder, View.OnClickListener listener) {
+    protected void setIconListener(GameCardHolder holder, View.OnClickListener listener) {
         holder.archive.setOnClickListener(listener);
     }
 
     /**
-     * Applies an OnClickListener to the whole card being wrapped by the given GameViewHolder.
+     * Applies an OnClickListener to the whole card being wrapped by the given GameCardHolder.
      * Subclasses can override this method to apply their own OnClickListeners to game cards. The
      * OnClickListener applied by this method will start BoardActivity and allow the user to view
      * the state of the board in the game at position.
      *
-     * @param holder   - the GameViewHolder wrapping the card that we'll apply the listener to
+     * @param holder   - the GameCardHolder wrapping the card that we'll apply the listener to
      * @param position - specifies which game's data is bound to the specified holder
      */
-    protected void setCardListener(GameViewHolder holder, int position) {
+    protected void setCardListener(GameCardHolder holder, int position) {
         holder.card.setOnClickListener(new GameCardListener((String) games.get(position).getData(GameData.GAMEID)));
     }
 
@@ -218,44 +221,6 @@ public class UserGamesAdapter extends RecyclerView.Adapter<UserGamesAdapter.Game
         notifyDataSetChanged();
     }
 
-    /**
-     * Provides a wrapper for easy access to the UI elements contained in a game card, which should
-     * have been inflated from game_card_layout.xml and passed to the constructor for this class.
-     */
-    static class GameViewHolder extends RecyclerView.ViewHolder {
-        /*
-         * Contains a reference to the View that is the root of the game card being wrapped by this
-         * object
-         */
-        private View card;
-
-        /*
-         * A reference to each of the Views that are a part of the game card.
-         */
-        private TextView gameID;
-        private TextView opponent;
-        private TextView status;
-        private TextView turn;
-        private ImageView archive;
-
-        /**
-         * Create a new GameViewHolder as a wrapper for the given View. This View should be the
-         * result of an inflation of game_card_layout.xml.
-         *
-         * @param itemView - the View that this GameViewHolder object will act as a wrapper for
-         */
-        public GameViewHolder(@NonNull View itemView) {
-            super(itemView);
-
-            this.gameID = itemView.findViewById(R.id.gameID);
-            this.opponent = itemView.findViewById(R.id.opponent);
-            this.status = itemView.findViewById(R.id.status);
-            this.turn = itemView.findViewById(R.id.turn);
-            this.archive = itemView.findViewById(R.id.archive);
-            this.card = itemView;
-        }
-    }
-
     private class GameCardListener implements View.OnClickListener {
         /**
          * The ID of the game that this Listener is listening to
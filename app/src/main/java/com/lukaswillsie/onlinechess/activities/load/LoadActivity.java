@@ -1,5 +1,6 @@
 package com.lukaswillsie.onlinechess.activities.load;
 
+import android.app.Activity;
 import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
@@ -12,6 +13,7 @@ import com.lukaswillsie.onlinechess.R;
 import com.lukaswillsie.onlinechess.activities.Display;
 import com.lukaswillsie.onlinechess.activities.ErrorDialogFragment;
 import com.lukaswillsie.onlinechess.activities.MainActivity;
+import com.lukaswillsie.onlinechess.activities.game_display.GameCards;
 import com.lukaswillsie.onlinechess.activities.login.LoginActivity;
 import com.lukaswillsie.onlinechess.data.RememberMeHelper;
 import com.lukaswillsie.onlinechess.data.UserGame;
@@ -21,7 +23,6 @@ import com.lukaswillsie.onlinechess.network.helper.ServerHelper;
 import com.lukaswillsie.onlinechess.network.helper.requesters.Connector;
 import com.lukaswillsie.onlinechess.network.helper.requesters.LoginRequester;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 
@@ -29,7 +30,7 @@ import java.util.List;
  * Code behind a simple loading screen that is displayed when the app first starts, covering up the
  * process of establishing a connection with the server.
  */
-public class LoadActivity extends AppCompatActivity implements Connector, LoginRequester, ErrorDialogFragment.ErrorDialogListener {
+public class LoadActivity extends AppCompatActivity implements Connector, LoginRequester, ErrorDialogFragment.ErrorDialogListener, StartupPipeline.Listener {
     /**
      * Tag for logging information to the console
      */
@@ -43,6 +44,11 @@ public class LoadActivity extends AppCompatActivity implements Connector, LoginR
      * Tracks where we are in our loading process
      */
     private Request activeRequest = Request.NONE;
+    /**
+     * Connects to the server while reading saved user data and preparing resources in the
+     * background, and times how long it all takes
+     */
+    private StartupPipeline pipeline;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -50,8 +56,12 @@ public class LoadActivity extends AppCompatActivity implements Connector, LoginR
         setContentView(R.layout.activity_load);
 
 
-        Server.build(this);
+        pipeline = new StartupPipeline(this, this);
+        pipeline.start(this);
         this.activeRequest = Request.CONNECT;
+
+        // While we wait on the server, get some game cards ready for the lists of games
+        GameCards.preinflate(this);
     }
 
     /**
@@ -59,45 +69,49 @@ public class LoadActivity extends AppCompatActivity implements Connector, LoginR
      * the success, and pass a reference to themselves so they can be used for future network
      * operations.
      * <p>
-     * This implementation puts the ServerHelper as a Serializable extra into an Intent and then
-     * starts LoginActivity
+     * This implementation lets our StartupPipeline know, which will call startupReady() once it
+     * has also finished reading any saved user data.
      *
      * @param helper - the ServerHelper object that has successfully established a connection with
      *               the server
      */
     @Override
     public void connectionEstablished(ServerHelper helper) {
-        // We try to check if we have any saved user data, that is, if a user has recently
-        // clicked "Remember Me" when logging in.
-        try {
-            HashMap<String, String> savedData = new RememberMeHelper(this).savedUserData();
-
-            // If there was an error querying saved data or there is no saved user data, we simply
-            // start the LoginActivity
-            if (savedData.get(RememberMeHelper.ERROR_KEY).equals("1") || savedData.get(RememberMeHelper.USERNAME_KEY) == null) {
-                startActivity(new Intent(this, LoginActivity.class));
-            }
-            // Otherwise, we have saved user data that we can use to log in, and we attempt to do
-            // just that
-            else {
-                try {
-                    helper.login(this, savedData.get(RememberMeHelper.USERNAME_KEY), savedData.get(RememberMeHelper.PASSWORD_KEY));
-                    this.username = savedData.get(RememberMeHelper.USERNAME_KEY);
-                    this.activeRequest = Request.LOGIN;
-                } catch (MultipleRequestException e) {
-                    // This shouldn't happen. If it does, we log the problem and then move the user
-                    // to the login page, after creating an apologetic Toast
-                    Log.e(tag, "Submitted multiple requests to ServerHelper");
-                    Display.makeToast(this, R.string.automatic_login_failure, Toast.LENGTH_LONG);
-
-                    startActivity(new Intent(this, LoginActivity.class));
-                }
-            }
+        pipeline.connected(helper);
+    }
+
+    /**
+     * Called by our StartupPipeline once we're connected to the server and have read any saved
+     * user data. If a user has recently clicked "Remember Me" when logging in, we log them in
+     * automatically; otherwise, we start LoginActivity.
+     *
+     * @param helper    - the ServerHelper object that has successfully established a connection
+     *                  with the server
+     * @param savedData - the saved user data, as returned by RememberMeHelper.savedUserData()
+     */
+    @Override
+    public void startupReady(ServerHelper helper, HashMap<String, String> savedData) {
+        // If there was an error querying saved data or there is no saved user data, we simply
+        // start the LoginActivity
+        if (savedData.get(RememberMeHelper.ERROR_KEY).equals("1") || savedData.get(RememberMeHelper.USERNAME_KEY) == null) {
+            moveTo(LoginActivity.class);
         }
-        // If an error is thrown, we simply move to LoginActivity, because we can't automatically
-        // log anyone in
-        catch (IOException e) {
-            startActivity(new Intent(this, LoginActivity.class));
+        // Otherwise, we have saved user data that we can use to log in, and we attempt to do
+        // just that
+        else {
+            try {
+                helper.login(this, savedData.get(RememberMeHelper.USERNAME_KEY), savedData.get(RememberMeHelper.PASSWORD_KEY));
+                this.username = savedData.get(RememberMeHelper.USERNAME_KEY);
+                this.activeRequest = Request.LOGIN;
+                pipeline.loginStarted();
+            } catch (MultipleRequestException e) {
+                // This shouldn't happen. If it does, we log the problem and then move the user
+                // to the login page, after creating an apologetic Toast
+                Log.e(tag, "Submitted multiple requests to ServerHelper");
+                Display.makeToast(this, R.string.automatic_login_failure, Toast.LENGTH_LONG);
+
+                moveTo(LoginActivity.class);
+            }
         }
     }
 
@@ -111,6 +125,7 @@ public class LoadActivity extends AppCompatActivity implements Connector, LoginR
      */
     @Override
     public void connectionFailed() {
+        pipeline.connectionFailed();
         DialogFragment failedDialog = new ErrorDialogFragment(this, getResources().getString(R.string.connection_failed_alert));
         failedDialog.show(getSupportFragmentManager(), "connection_failed_dialog");
 
@@ -121,7 +136,7 @@ public class LoadActivity extends AppCompatActivity implements Connector, LoginR
      * Called when the user clicks "Try Again" on a connection failed dialog
      */
     public void retry() {
-        Server.build(this);
+        pipeline.retry(this);
         this.activeRequest = Request.CONNECT;
     }
 
@@ -141,7 +156,7 @@ public class LoadActivity extends AppCompatActivity implements Connector, LoginR
             // Display an apologetic Toast and move the user to the login screen
             Display.makeToast(this, R.string.automatic_login_failure, Toast.LENGTH_LONG);
 
-            startActivity(new Intent(this, LoginActivity.class));
+            moveTo(LoginActivity.class);
         }
     }
 
@@ -166,7 +181,7 @@ public class LoadActivity extends AppCompatActivity implements Connector, LoginR
     @Override
     public void usernameInvalid() {
         Display.makeToast(this, R.string.automatic_login_failure, Toast.LENGTH_LONG);
-        startActivity(new Intent(this, LoginActivity.class));
+        moveTo(LoginActivity.class);
     }
 
     /**
@@ -176,7 +191,7 @@ public class LoadActivity extends AppCompatActivity implements Connector, LoginR
     @Override
     public void passwordInvalid() {
         Display.makeToast(this, R.string.automatic_login_failure, Toast.LENGTH_LONG);
-        startActivity(new Intent(this, LoginActivity.class));
+        moveTo(LoginActivity.class);
     }
 
     /**
@@ -190,7 +205,7 @@ public class LoadActivity extends AppCompatActivity implements Connector, LoginR
         Server.loggedIn(username, games);
 
         Display.makeToast(this, R.string.automatic_login_success, Toast.LENGTH_LONG);
-        startActivity(new Intent(this, MainActivity.class));
+        moveTo(MainActivity.class);
     }
 
     /**
@@ -210,7 +225,18 @@ public class LoadActivity extends AppCompatActivity implements Connector, LoginR
         // Tell the user we couldn't log them in automatically and move to the manual login screen
         Display.makeToast(this, R.string.automatic_login_failure, Toast.LENGTH_LONG);
 
-        startActivity(new Intent(this, LoginActivity.class));
+        moveTo(LoginActivity.class);
+    }
+
+    /**
+     * Hand the user over to the given Activity, noting in our StartupPipeline that the app is now
+     * interactive
+     *
+     * @param activity - the Activity to start
+     */
+    private void moveTo(Class<? extends Activity> activity) {
+        pipeline.finish(activity.getSimpleName());
+        startActivity(new Intent(this, activity));
     }
 
     private enum Request {
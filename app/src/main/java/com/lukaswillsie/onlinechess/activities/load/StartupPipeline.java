@@ -0,0 +1,269 @@
+package com.lukaswillsie.onlinechess.activities.load;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.os.TraceCompat;
+
+import com.lukaswillsie.onlinechess.activities.board.BoardView;
+import com.lukaswillsie.onlinechess.activities.board.OpeningBookHelper;
+import com.lukaswillsie.onlinechess.data.RememberMeHelper;
+import com.lukaswillsie.onlinechess.network.Server;
+import com.lukaswillsie.onlinechess.network.helper.ServerHelper;
+import com.lukaswillsie.onlinechess.network.helper.requesters.Connector;
+
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * Runs the work LoadActivity has to do before the user can do anything, as much of it at once as
+ * possible. Connecting to the server takes the longest, so it's started first; while it's in
+ * progress, a background thread reads any saved "Remember Me" credentials off disk, builds the
+ * piece images the board will need and pages in the opening book. Only once both the connection
+ * and the credentials are ready is the Listener told to carry on, by logging in or sending the
+ * user to the login screen.
+ * <p>
+ * Each stage is timed, and the stages that run on our own threads, reading credentials, building
+ * piece images, paging in the book and connecting (see ConnectThread), are also recorded as trace
+ * sections, so the start-up can be inspected with systrace. When LoadActivity hands over to the
+ * next screen it calls finish(), which logs how long every stage took, and the total time to
+ * interactive, as a single line tagged "StartupPipeline". Launching the app repeatedly with
+ * "adb shell am start -S -W" and collecting that line gives a repeatable cold-start benchmark.
+ * <p>
+ * All methods must be called from the UI thread.
+ */
+class StartupPipeline {
+    /**
+     * Tag used for logging to the console
+     */
+    private static final String tag = "StartupPipeline";
+
+    /*
+     * The stages we time
+     */
+    private static final int CONNECT = 0;
+    private static final int CREDENTIALS = 1;
+    private static final int SPRITES = 2;
+    private static final int LOGIN = 3;
+    private static final int BOOK = 4;
+
+    /**
+     * The name of each stage, in logs and traces, indexed by the constants above
+     */
+    private static final String[] STAGES = {"connect", "credentials", "sprites", "login", "book"};
+
+    /**
+     * Classes implementing this interface are told when start-up work is done and the app is
+     * ready to log in
+     */
+    interface Listener {
+        /**
+         * Called once we've connected to the server and read any saved credentials
+         *
+         * @param helper    - the ServerHelper connected to the server
+         * @param savedUser - the saved user data, as returned by RememberMeHelper.savedUserData()
+         */
+        void startupReady(ServerHelper helper, HashMap<String, String> savedUser);
+    }
+
+    private final Context context;
+    private final Listener listener;
+
+    /**
+     * Used to bring the results of background work back to the UI thread
+     */
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    /*
+     * When each stage started and finished, in SystemClock.uptimeMillis(), indexed by the stage
+     * constants above. 0 if the stage hasn't started or finished.
+     */
+    private final long[] starts = new long[STAGES.length];
+    private final long[] ends = new long[STAGES.length];
+
+    /**
+     * When this pipeline was started, in SystemClock.uptimeMillis()
+     */
+    private long startTime;
+
+    /*
+     * The results of the connect and credentials stages, once they've come in
+     */
+    private ServerHelper helper;
+    private boolean credentialsRead;
+    private HashMap<String, String> savedUser;
+
+    /**
+     * Create a new StartupPipeline
+     *
+     * @param context  - the Context to read credentials and resources with
+     * @param listener - will be told when the app is ready to log in
+     */
+    StartupPipeline(Context context, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.listener = listener;
+    }
+
+    /**
+     * Start connecting to the server and, at the same time, reading saved credentials and
+     * preparing the board's piece images and opening book in the background
+     *
+     * @param connector - will receive callbacks about the connection attempt, and should pass them
+     *                  on to connected() or connectionFailed()
+     */
+    void start(Connector connector) {
+        startTime = SystemClock.uptimeMillis();
+        connect(connector);
+
+        begin(CREDENTIALS);
+        begin(SPRITES);
+        begin(BOOK);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+
+                TraceCompat.beginSection(STAGES[CREDENTIALS]);
+                final HashMap<String, String> savedUser = new RememberMeHelper(context).savedUserData();
+                TraceCompat.endSection();
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        credentialsRead(savedUser);
+                    }
+                });
+
+                // The board isn't needed until the user has logged in, so this goes last
+                TraceCompat.beginSection(STAGES[SPRITES]);
+                BoardView.prepareSprites(context);
+                TraceCompat.endSection();
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        end(SPRITES);
+                    }
+                });
+
+                TraceCompat.beginSection(STAGES[BOOK]);
+                OpeningBookHelper.prepare(context);
+                TraceCompat.endSection();
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        end(BOOK);
+                    }
+                });
+            }
+        }, tag).start();
+    }
+
+    /**
+     * Try connecting to the server again, after connectionFailed(). Credentials aren't read again.
+     *
+     * @param connector - will receive callbacks about the connection attempt
+     */
+    void retry(Connector connector) {
+        connect(connector);
+    }
+
+    private void connect(Connector connector) {
+        helper = null;
+        begin(CONNECT);
+        Server.build(connector);
+    }
+
+    /**
+     * Must be called when the connection to the server is established
+     *
+     * @param helper - the ServerHelper that established the connection
+     */
+    void connected(ServerHelper helper) {
+        end(CONNECT);
+        this.helper = helper;
+        proceedIfReady();
+    }
+
+    /**
+     * Must be called if the connection to the server couldn't be established
+     */
+    void connectionFailed() {
+        end(CONNECT);
+        helper = null;
+    }
+
+    /**
+     * Called on the UI thread once saved credentials have been read
+     */
+    private void credentialsRead(HashMap<String, String> savedUser) {
+        end(CREDENTIALS);
+        this.savedUser = savedUser;
+        this.credentialsRead = true;
+        proceedIfReady();
+    }
+
+    /**
+     * If both the connection and the credentials are ready, tell our listener
+     */
+    private void proceedIfReady() {
+        if (helper != null && credentialsRead) {
+            ServerHelper helper = this.helper;
+            this.helper = null;
+            listener.startupReady(helper, savedUser);
+        }
+    }
+
+    /**
+     * Must be called when a login request, made with saved credentials, is sent
+     */
+    void loginStarted() {
+        begin(LOGIN);
+    }
+
+    /**
+     * Must be called when the user is handed over to the first interactive screen. Logs how long
+     * each stage of start-up took, and the time from the start of the process, where we know it,
+     * or else from the start of this pipeline, to now.
+     *
+     * @param screen - the name of the screen the user is being handed over to
+     */
+    void finish(String screen) {
+        if (starts[LOGIN] != 0) {
+            end(LOGIN);
+        }
+
+        long now = SystemClock.uptimeMillis();
+        StringBuilder summary = new StringBuilder("Interactive (" + screen + ")");
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            summary.append(" ").append(now - Process.getStartUptimeMillis()).append("ms after process start,");
+        }
+        summary.append(" ").append(now - startTime).append("ms after load started");
+        for (int stage = 0; stage < STAGES.length; stage++) {
+            if (ends[stage] != 0) {
+                summary.append(String.format(Locale.US, "; %s %dms", STAGES[stage], ends[stage] - starts[stage]));
+            }
+        }
+        Log.i(tag, summary.toString());
+    }
+
+    /**
+     * Note that the given stage has started
+     */
+    private void begin(int stage) {
+        starts[stage] = SystemClock.uptimeMillis();
+        ends[stage] = 0;
+    }
+
+    /**
+     * Note that the given stage has finished
+     */
+    private void end(int stage) {
+        if (ends[stage] == 0) {
+            ends[stage] = SystemClock.uptimeMillis();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.lukaswillsie.onlinechess.activities.login;
 
+import android.content.Context;
 import android.content.Intent;
 import android.graphics.Color;
 import android.os.Bundle;
@@ -19,6 +20,7 @@ import com.lukaswillsie.onlinechess.activities.ErrorDialogActivity;
 import com.lukaswillsie.onlinechess.activities.MainActivity;
 import com.lukaswillsie.onlinechess.activities.load.LoadActivity;
 import com.lukaswillsie.onlinechess.data.Format;
+import com.lukaswillsie.onlinechess.data.KeyValueStore;
 import com.lukaswillsie.onlinechess.data.RememberMeHelper;
 import com.lukaswillsie.onlinechess.data.UserGame;
 import com.lukaswillsie.onlinechess.network.Server;
@@ -26,7 +28,6 @@ import com.lukaswillsie.onlinechess.network.helper.MultipleRequestException;
 import com.lukaswillsie.onlinechess.network.helper.ServerHelper;
 import com.lukaswillsie.onlinechess.network.helper.requesters.LoginRequester;
 
-import java.io.IOException;
 import java.util.List;
 
 public class LoginActivity extends ErrorDialogActivity implements LoginRequester {
@@ -157,29 +158,24 @@ public class LoginActivity extends ErrorDialogActivity implements LoginRequester
             // Change login button text to indicate change in login request status to user
             ((TextView) findViewById(R.id.login_button_text)).setText(R.string.loading_text);
 
-            // Now we check if the user clicked 'Remember Me', and save their login info if they did
-            try {
-                if (((CheckBox) findViewById(R.id.remember_me_checkbox)).isChecked()) {
-                    String username = ((EditText) findViewById(R.id.username)).getText().toString();
-                    String password = ((EditText) findViewById(R.id.password)).getText().toString();
-
-                    int code = new RememberMeHelper(this).saveUser(username, password);
-
-                    // Return code of 0 means we successfully saved the data
-                    if (code == 0) {
-                        Log.i(tag, "User's login information was saved for reuse in future login attempts");
+            // Now we check if the user clicked 'Remember Me', and save their login info if they did.
+            // It's saved in the background, and we only hear back if something goes wrong.
+            if (((CheckBox) findViewById(R.id.remember_me_checkbox)).isChecked()) {
+                String username = ((EditText) findViewById(R.id.username)).getText().toString();
+                String password = ((EditText) findViewById(R.id.password)).getText().toString();
+
+                // We might have moved on from this screen by the time the data is saved, so we use
+                // the application Context for any Toast
+                final Context appContext = getApplicationContext();
+                new RememberMeHelper(this).saveUser(username, password, new KeyValueStore.Callback<Boolean>() {
+                    @Override
+                    public void done(Boolean saved) {
+                        if (!saved) {
+                            // We have no choice but to display an apologetic Toast
+                            Display.makeToast(appContext, R.string.remember_me_failure, Toast.LENGTH_LONG);
+                        }
                     }
-                    // Only other return code, 1, means there was an error
-                    else {
-                        Log.e(tag, "There was an error in RememberMeHelper.saveUser(). Login data couldn't be saved.");
-                        Display.makeToast(this, R.string.remember_me_failure, Toast.LENGTH_LONG);
-                    }
-                }
-            } catch (IOException e) {
-                // In the event of an exception, we have no choice but to log the error and
-                // display an apologetic Toast
-                Log.e(tag, "IOException occurred. Couldn't save user data as part of 'Remember Me' feature");
-                Display.makeToast(this, R.string.remember_me_failure, Toast.LENGTH_LONG);
+                });
             }
 
             this.state = State.LOADING;
@@ -0,0 +1,105 @@
+package com.lukaswillsie.onlinechess.data;
+
+/**
+ * Holds the list of moves that have been played in a game, as sent by the server in response to a
+ * load game request that asks for history (see LoadGameThread).
+ * <p>
+ * The server sends one int per ply, in the order the moves were played. Each int packs a move as
+ * follows, using the same coordinates as the rest of the app, where row 0 is white's back rank
+ * and column 0 is the a-file: <br>
+ * bits 0-2: the row of the square the piece moved from <br>
+ * bits 3-5: the column of the square the piece moved from <br>
+ * bits 6-8: the row of the square the piece moved to <br>
+ * bits 9-11: the column of the square the piece moved to <br>
+ * bits 12-14: the piece a pawn was promoted into, if this move was a promotion; one of the
+ * PROMOTION_ constants below
+ * <p>
+ * Castling is sent as the king's move, and en passant as the capturing pawn's move.
+ */
+public class GameHistory {
+    /*
+     * The possible values of a move's promotion field
+     */
+    public static final int PROMOTION_NONE = 0;
+    public static final int PROMOTION_QUEEN = 1;
+    public static final int PROMOTION_ROOK = 2;
+    public static final int PROMOTION_BISHOP = 3;
+    public static final int PROMOTION_KNIGHT = 4;
+
+    /**
+     * The moves played in the game, packed as described above
+     */
+    private final int[] moves;
+
+    /**
+     * Create a new GameHistory containing the given moves
+     *
+     * @param moves - every move played in the game, in order, packed as described above
+     */
+    public GameHistory(int[] moves) {
+        this.moves = moves;
+    }
+
+    /**
+     * Get the number of plies played in the game
+     */
+    public int size() {
+        return moves.length;
+    }
+
+    /**
+     * Get the packed move played at the given ply. Ply 0 is white's first move.
+     */
+    public int get(int ply) {
+        return moves[ply];
+    }
+
+    /**
+     * Pack a move as described above
+     *
+     * @param fromRow    - the row of the square the piece moved from
+     * @param fromColumn - the column of the square the piece moved from
+     * @param toRow      - the row of the square the piece moved to
+     * @param toColumn   - the column of the square the piece moved to
+     * @param promotion  - one of the PROMOTION_ constants above
+     * @return The move, packed into a single int
+     */
+    public static int pack(int fromRow, int fromColumn, int toRow, int toColumn, int promotion) {
+        return fromRow | fromColumn << 3 | toRow << 6 | toColumn << 9 | promotion << 12;
+    }
+
+    /**
+     * Extract the row of the square a piece moved from
+     */
+    public static int fromRow(int move) {
+        return move & 7;
+    }
+
+    /**
+     * Extract the column of the square a piece moved from
+     */
+    public static int fromColumn(int move) {
+        return (move >>> 3) & 7;
+    }
+
+    /**
+     * Extract the row of the square a piece moved to
+     */
+    public static int toRow(int move) {
+        return (move >>> 6) & 7;
+    }
+
+    /**
+     * Extract the column of the square a piece moved to
+     */
+    public static int toColumn(int move) {
+        return (move >>> 9) & 7;
+    }
+
+    /**
+     * Extract the piece a pawn was promoted into, as one of the PROMOTION_ constants
+     */
+    public static int promotion(int move) {
+        return (move >>> 12) & 7;
+    }
+}
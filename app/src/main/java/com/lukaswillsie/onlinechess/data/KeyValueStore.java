@@ -0,0 +1,443 @@
+package com.lukaswillsie.onlinechess.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * A small store of string keys and values, kept in a file in the app's internal storage. Every
+ * read and write of the file happens on a single background thread shared by all stores, so the
+ * UI thread never has to wait on the disk.
+ * <p>
+ * The file is read the first time it's needed and its contents kept in memory, so after that,
+ * reads never touch the disk at all. Changes are made to the copy in memory straight away, and
+ * then written through to disk in the order they were made. Each write replaces the whole file
+ * atomically: the new contents are written to a temporary file, synced, and renamed over the old
+ * one, so the file is never left half-written if the app dies part way through.
+ * <p>
+ * Methods that take a Callback can be called from any thread, and deliver their result on the UI
+ * thread. get() and getAll(), which return their result directly, might have to read the file,
+ * so they must only be called from a background thread.
+ * <p>
+ * A store whose file may have been written in some older format can be given a Migration, which
+ * gets a chance to convert the file the first time it's read.
+ */
+public class KeyValueStore {
+    /**
+     * Tag used for logging to the console
+     */
+    private static final String tag = "KeyValueStore";
+
+    /**
+     * Added to the name of a store's file to get the name of the file new contents are written to
+     * before they replace the old ones
+     */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Every store that has been opened, keyed by name
+     */
+    private static final Map<String, KeyValueStore> stores = new HashMap<>();
+
+    /*
+     * The thread all stores do their disk work on, and a Handler for posting work to it. Both are
+     * null until the first store is opened.
+     */
+    private static HandlerThread thread;
+    private static Handler worker;
+
+    /**
+     * Used to deliver results on the UI thread
+     */
+    private static final Handler main = new Handler(Looper.getMainLooper());
+
+    /**
+     * Classes implementing this interface can receive the result of an operation on a store
+     *
+     * @param <T> - the type of the result
+     */
+    public interface Callback<T> {
+        /**
+         * Called on the UI thread when the operation is complete
+         *
+         * @param result - the result of the operation
+         */
+        void done(T result);
+    }
+
+    /**
+     * Classes implementing this interface can convert a store's file from an older format
+     */
+    public interface Migration {
+        /**
+         * Called on a background thread the first time a store is read, if its file exists, to
+         * convert the file's contents if they're in an older format. Any contents returned are
+         * written back to the file, so once a file has been converted, this should return null for
+         * it.
+         *
+         * @param file     - the contents of the store's file, as text
+         * @param contents - the keys and values read from the file in the store's own format
+         * @return The keys and values the store should hold in place of those read from the file,
+         * or null if the file doesn't need converting
+         */
+        Map<String, String> migrate(String file, Map<String, String> contents);
+    }
+
+    private final Context context;
+    private final String name;
+
+    /**
+     * Converts our file from an older format, or null if it never needs converting
+     */
+    private final Migration migration;
+
+    /**
+     * Guards values, and makes sure changes are queued to be written in the order they were made
+     */
+    private final Object lock = new Object();
+
+    /**
+     * The contents of the store, or null if they haven't been read from disk yet
+     */
+    private Map<String, String> values;
+
+    /**
+     * Changes made before our contents were read from disk, in the order they were made. They're
+     * made as soon as the contents have been read.
+     */
+    private final List<Edit> pending = new ArrayList<>();
+
+    private KeyValueStore(Context context, String name, Migration migration) {
+        this.context = context;
+        this.name = name;
+        this.migration = migration;
+    }
+
+    /**
+     * Get the store with the given name, which is also the name of the file it's kept in. Opening
+     * a store doesn't touch the disk, so this can be called from any thread.
+     *
+     * @param context - any Context belonging to the app
+     * @param name    - the name of the store
+     * @return The store with the given name
+     */
+    public static KeyValueStore get(Context context, String name) {
+        return get(context, name, null);
+    }
+
+    /**
+     * Get the store with the given name, as get(Context, String) does. If the store hasn't been
+     * opened yet, it will use the given Migration the first time it reads its file.
+     *
+     * @param context   - any Context belonging to the app
+     * @param name      - the name of the store
+     * @param migration - converts the store's file from an older format, or null if it never needs
+     *                  converting
+     * @return The store with the given name
+     */
+    public static KeyValueStore get(Context context, String name, Migration migration) {
+        synchronized (stores) {
+            if (thread == null) {
+                thread = new HandlerThread(tag, Process.THREAD_PRIORITY_BACKGROUND);
+                thread.start();
+                worker = new Handler(thread.getLooper());
+            }
+
+            KeyValueStore store = stores.get(name);
+            if (store == null) {
+                store = new KeyValueStore(context.getApplicationContext(), name, migration);
+                stores.put(name, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Get the value of the given key. Must not be called from the UI thread.
+     *
+     * @param key - the key to look up
+     * @return The value of the given key, or null if it has none
+     * @throws IOException - if the store couldn't be read from disk
+     */
+    public String get(String key) throws IOException {
+        synchronized (lock) {
+            return load().get(key);
+        }
+    }
+
+    /**
+     * Get a copy of everything in this store. Must not be called from the UI thread.
+     *
+     * @return A copy of every key and value in this store
+     * @throws IOException - if the store couldn't be read from disk
+     */
+    public Map<String, String> getAll() throws IOException {
+        synchronized (lock) {
+            return new HashMap<>(load());
+        }
+    }
+
+    /**
+     * Get a copy of everything in this store, delivered on the UI thread
+     *
+     * @param callback - will be given a copy of every key and value in this store, or null if the
+     *                 store couldn't be read from disk
+     */
+    public void getAll(final Callback<Map<String, String>> callback) {
+        worker.post(new Runnable() {
+            @Override
+            public void run() {
+                Map<String, String> result;
+                try {
+                    result = getAll();
+                } catch (IOException e) {
+                    Log.e(tag, "Couldn't read store \"" + name + "\"", e);
+                    result = null;
+                }
+                deliver(callback, result);
+            }
+        });
+    }
+
+    /**
+     * Replace the value of each of the given keys with the given value, or remove the key if the
+     * given value is null, then write the store to disk
+     *
+     * @param changes  - the keys to change, and their new values
+     * @param callback - if not null, will be told on the UI thread whether the store was written
+     *                 to disk successfully
+     */
+    public void putAll(Map<String, String> changes, Callback<Boolean> callback) {
+        edit(new HashMap<>(changes), false, callback);
+    }
+
+    /**
+     * Remove everything from this store, then write it to disk
+     *
+     * @param callback - if not null, will be told on the UI thread whether the store was written
+     *                 to disk successfully
+     */
+    public void clear(Callback<Boolean> callback) {
+        edit(new HashMap<String, String>(), true, callback);
+    }
+
+    /**
+     * Make the given changes in memory, if our contents have been read, and queue them to be
+     * written to disk
+     */
+    private void edit(Map<String, String> changes, boolean clear, final Callback<Boolean> callback) {
+        synchronized (lock) {
+            // If we haven't read the file yet, the changes will be made once we have, before
+            // anything else can see our contents
+            if (values != null) {
+                apply(values, changes, clear);
+            } else {
+                pending.add(new Edit(changes, clear));
+            }
+
+            writeLater(callback);
+        }
+    }
+
+    /**
+     * Queue our contents to be written to disk on the worker thread. Must be called while holding
+     * lock, which means changes are written in the order they're made.
+     *
+     * @param callback - if not null, will be told on the UI thread whether the store was written
+     *                 to disk successfully
+     */
+    private void writeLater(final Callback<Boolean> callback) {
+        worker.post(new Runnable() {
+            @Override
+            public void run() {
+                boolean success;
+                try {
+                    // Only the copy is made under the lock, so edits made on the UI thread never
+                    // wait for the disk. Writes are still made in order, since they're all made on
+                    // this one thread.
+                    Properties contents;
+                    synchronized (lock) {
+                        contents = copy(load());
+                    }
+                    write(contents);
+                    success = true;
+                } catch (IOException e) {
+                    Log.e(tag, "Couldn't write store \"" + name + "\"", e);
+                    success = false;
+                }
+                deliver(callback, success);
+            }
+        });
+    }
+
+    /**
+     * Make the given changes to the given map
+     */
+    private static void apply(Map<String, String> values, Map<String, String> changes, boolean clear) {
+        if (clear) {
+            values.clear();
+        }
+        for (Map.Entry<String, String> change : changes.entrySet()) {
+            if (change.getValue() == null) {
+                values.remove(change.getKey());
+            } else {
+                values.put(change.getKey(), change.getValue());
+            }
+        }
+    }
+
+    /**
+     * Get our contents, reading them from disk if we haven't already. Must be called while
+     * holding lock.
+     */
+    private Map<String, String> load() throws IOException {
+        if (values != null) {
+            return values;
+        }
+
+        // We read the whole file first, so that a Migration can see it as it was written
+        byte[] file = null;
+        InputStream stream = null;
+        try {
+            stream = new FileInputStream(getFile());
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            file = bytes.toByteArray();
+        } catch (FileNotFoundException e) {
+            // Nothing has ever been saved in this store
+        } finally {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+
+        Map<String, String> loaded = new HashMap<>();
+        boolean migrated = false;
+        if (file != null) {
+            Properties properties = new Properties();
+            try {
+                properties.load(new ByteArrayInputStream(file));
+            } catch (IllegalArgumentException e) {
+                // A file in some older format can hold a backslash that Properties reads as the
+                // start of a malformed unicode escape; we let the Migration make what it can of it
+                Log.e(tag, "Store \"" + name + "\" isn't in our format", e);
+                properties.clear();
+            }
+            for (String key : properties.stringPropertyNames()) {
+                loaded.put(key, properties.getProperty(key));
+            }
+
+            Map<String, String> converted = null;
+            if (migration != null) {
+                converted = migration.migrate(new String(file, "UTF-8"), loaded);
+            }
+            if (converted != null) {
+                Log.i(tag, "Converted store \"" + name + "\" from an older format");
+                loaded = new HashMap<>(converted);
+                migrated = true;
+            }
+        }
+
+        for (Edit edit : pending) {
+            apply(loaded, edit.changes, edit.clear);
+        }
+        pending.clear();
+        values = loaded;
+
+        // Changes made before we read the file have already queued a write of their own, but
+        // otherwise nothing would write the converted contents back
+        if (migrated) {
+            writeLater(null);
+        }
+        return values;
+    }
+
+    /**
+     * Copy the given contents into a Properties object that can be written to disk
+     */
+    private static Properties copy(Map<String, String> contents) {
+        Properties properties = new Properties();
+        properties.putAll(contents);
+        return properties;
+    }
+
+    /**
+     * Atomically replace our file with one holding the given contents. Must only be called on
+     * the worker thread, so that writes reach the disk in the order they were made, and never
+     * while holding lock, so that nobody waits on the disk for it.
+     */
+    private void write(Properties properties) throws IOException {
+        File file = getFile();
+        File temp = new File(file.getPath() + TEMP_SUFFIX);
+        FileOutputStream stream = new FileOutputStream(temp);
+        try {
+            properties.store(stream, null);
+            stream.flush();
+            // Make sure the new contents are really on disk before they replace the old ones
+            stream.getFD().sync();
+        } finally {
+            stream.close();
+        }
+
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Couldn't replace " + file);
+        }
+    }
+
+    /**
+     * Get the file this store is kept in. Finding the app's files directory can touch the disk, so
+     * this mustn't be called from the UI thread.
+     */
+    private File getFile() {
+        return new File(context.getFilesDir(), name);
+    }
+
+    /**
+     * Give the given result to the given callback on the UI thread, if the callback isn't null
+     */
+    private static <T> void deliver(final Callback<T> callback, final T result) {
+        if (callback != null) {
+            main.post(new Runnable() {
+                @Override
+                public void run() {
+                    callback.done(result);
+                }
+            });
+        }
+    }
+
+    /**
+     * A change made to a store before its contents were read
+     */
+    private static class Edit {
+        private final Map<String, String> changes;
+        private final boolean clear;
+
+        private Edit(Map<String, String> changes, boolean clear) {
+            this.changes = changes;
+            this.clear = clear;
+        }
+    }
+}
@@ -3,61 +3,110 @@ package com.lukaswillsie.onlinechess.data;
 import android.content.Context;
 import android.util.Log;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Scanner;
 import java.util.concurrent.TimeUnit;
 
 /**
- * This app provides a "Remember Me" automatic login feature by keeping a file in internal storage
- * that records a username and password saved using the "Remember Me" feature, as well as a
- * timestamp for allowing saved data to expire after a set amount of time.
+ * This app provides a "Remember Me" automatic login feature by keeping a username and password
+ * saved using the "Remember Me" feature in a KeyValueStore, along with the time they were saved,
+ * for allowing saved data to expire after a set amount of time.
  * <p>
- * To be precise, the file has this simple format:
- * Timestamp
- * Username
- * Password
- * <p>
- * and is located directly in this app's root directory on the device (the directory returned by
- * getFilesDir()).
+ * The store is kept directly in this app's root directory on the device (the directory returned by
+ * getFilesDir()), in the file the saved user data has always been kept in. Older versions of the
+ * app wrote that file as three lines: the date the data was saved (in the form OLD_DATE_PATTERN),
+ * the username, and the password. The first time the store is read, MIGRATION converts a file in
+ * that format to our keys, so that users saved by an older version stay logged in.
  * <p>
  * This data is erased and forgotten about once DAYS_TO_ELAPSE days have passed.
+ * <p>
+ * Every method here that reads or writes the store does so on the store's background thread, and
+ * delivers any result on the UI thread, except savedUserData() with no arguments, which reads the
+ * store directly and so must only be called from a background thread.
  */
 public class RememberMeHelper {
     public static final String USERNAME_KEY = "username";
     public static final String PASSWORD_KEY = "password";
     public static final String ERROR_KEY = "error";
 
-    private static final String TIMESTAMP_PATTERN = "yyyy-MM-dd";
+    /**
+     * The key under which we store the time the user's data was saved, in milliseconds since the
+     * epoch
+     */
+    private static final String SAVED_AT_KEY = "saved_at";
+
+    /**
+     * The format older versions of the app wrote the date the user's data was saved in
+     */
+    private static final String OLD_DATE_PATTERN = "yyyy-MM-dd";
 
     private static final String tag = "RememberMeHelper";
     private static final String SAVED_USER_DATA_FILE = "saved_user";
     private static final int DAYS_TO_ELAPSE = 5;
-    private File savedUserFile;
 
     /**
-     * Create a new RememberMeHelper from the given context. This constructor checks if the file to
-     * be used for saving user data exists, and creates it if it doesn't.
+     * Converts saved user data written by older versions of the app to our keys. A file that holds
+     * any of our keys, or doesn't start with a date in the old format (which includes an empty
+     * file, and one the store has cleared), is left alone.
+     */
+    private static final KeyValueStore.Migration MIGRATION = new KeyValueStore.Migration() {
+        @Override
+        public Map<String, String> migrate(String file, Map<String, String> contents) {
+            if (contents.containsKey(USERNAME_KEY) || contents.containsKey(PASSWORD_KEY)
+                    || contents.containsKey(SAVED_AT_KEY)) {
+                return null;
+            }
+
+            Scanner scanner = new Scanner(file);
+            if (!scanner.hasNextLine()) {
+                return null;
+            }
+
+            Date date;
+            try {
+                SimpleDateFormat format = new SimpleDateFormat(OLD_DATE_PATTERN, Locale.CANADA);
+                date = format.parse(scanner.nextLine());
+            } catch (ParseException e) {
+                return null;
+            }
+
+            // The file is in the old format, so whatever happens we replace it with one in ours
+            Map<String, String> converted = new HashMap<>();
+            if (!scanner.hasNextLine()) {
+                Log.e(tag, "Not enough lines in old saved user data file");
+                return converted;
+            }
+            String username = scanner.nextLine();
+            if (!scanner.hasNextLine()) {
+                Log.e(tag, "Not enough lines in old saved user data file");
+                return converted;
+            }
+            String password = scanner.nextLine();
+
+            converted.put(SAVED_AT_KEY, Long.toString(date.getTime()));
+            converted.put(USERNAME_KEY, username);
+            converted.put(PASSWORD_KEY, password);
+            return converted;
+        }
+    };
+
+    private final KeyValueStore store;
+
+    /**
+     * Create a new RememberMeHelper from the given context. This doesn't touch the disk, so it can
+     * be done on any thread.
      *
      * @param context - the context creating this RememberMeHelper (used to gain access to the
      *                appropriate folder)
-     * @throws IOException - if the file to be used for saving user data cannot be created
      */
-    public RememberMeHelper(Context context) throws IOException {
-        this.savedUserFile = new File(context.getFilesDir(), SAVED_USER_DATA_FILE);
-
-        if (savedUserFile.createNewFile()) {
-            Log.i(tag, "File for saving user data created");
-        } else {
-            Log.i(tag, "File for saving user data already exists");
-        }
+    public RememberMeHelper(Context context) {
+        this.store = KeyValueStore.get(context, SAVED_USER_DATA_FILE, MIGRATION);
     }
 
     /**
@@ -66,153 +115,118 @@ public class RememberMeHelper {
      * STRING), and username and password are null. Otherwise, "error" is "0" (THE STRING), and
      * "username" and "password" are either set to the username and password of the saved user, if
      * there is one, or each null if there isn't.
+     * <p>
+     * This reads the store directly, so it must not be called from the UI thread.
      *
      * @return A HashMap containing information about a saved user
      */
     public HashMap<String, String> savedUserData() {
+        try {
+            return interpret(store.getAll());
+        } catch (IOException e) {
+            Log.e(tag, "Couldn't read saved user data", e);
+            return interpret(null);
+        }
+    }
+
+    /**
+     * Fetch the saved user's data in the background, and give it to the given callback on the UI
+     * thread in the form described by savedUserData()
+     *
+     * @param callback - will be given information about a saved user
+     */
+    public void savedUserData(final KeyValueStore.Callback<HashMap<String, String>> callback) {
+        store.getAll(new KeyValueStore.Callback<Map<String, String>>() {
+            @Override
+            public void done(Map<String, String> result) {
+                callback.done(interpret(result));
+            }
+        });
+    }
+
+    /**
+     * Turn the contents of our store into the HashMap described by savedUserData(), erasing the
+     * saved data if it has expired
+     *
+     * @param contents - the contents of our store, or null if they couldn't be read
+     */
+    private HashMap<String, String> interpret(Map<String, String> contents) {
         HashMap<String, String> map = new HashMap<>();
+        map.put(USERNAME_KEY, null);
+        map.put(PASSWORD_KEY, null);
 
-        Scanner scanner;
-        try {
-            scanner = new Scanner(savedUserFile);
-        } catch (FileNotFoundException e) {
-            Log.e(tag, "Couldn't open saved user data file for scanning");
-            e.printStackTrace();
-            map.put(USERNAME_KEY, null);
-            map.put(PASSWORD_KEY, null);
+        if (contents == null) {
             map.put(ERROR_KEY, "1");
-
             return map;
         }
+        map.put(ERROR_KEY, "0");
 
-        // If the file is empty, we have no saved user
-        if (!scanner.hasNextLine()) {
-            map.put(USERNAME_KEY, null);
-            map.put(PASSWORD_KEY, null);
-            map.put(ERROR_KEY, "0");
-
+        String username = contents.get(USERNAME_KEY);
+        String password = contents.get(PASSWORD_KEY);
+        String savedAt = contents.get(SAVED_AT_KEY);
+        // If any of our data is missing, we have no saved user
+        if (username == null || password == null || savedAt == null) {
             return map;
         }
 
-        String line = scanner.nextLine();
-        SimpleDateFormat dateFormat = new SimpleDateFormat(TIMESTAMP_PATTERN, Locale.CANADA);
-
-        Date date;
+        long saved;
         try {
-            date = dateFormat.parse(line);
-            if (date == null) {
-                Log.e(tag, "Couldn't parse line \"" + line + "\" from saved user data file into date");
-
-                map.put(USERNAME_KEY, null);
-                map.put(PASSWORD_KEY, null);
-                map.put(ERROR_KEY, "1");
-                return map;
-            }
-        } catch (ParseException e) {
-            Log.e(tag, "Couldn't parse line \"" + line + "\" from saved user data file into date");
-
-            map.put(USERNAME_KEY, null);
-            map.put(PASSWORD_KEY, null);
+            saved = Long.parseLong(savedAt);
+        } catch (NumberFormatException e) {
+            Log.e(tag, "Couldn't parse \"" + savedAt + "\" from saved user data into a time");
             map.put(ERROR_KEY, "1");
             return map;
         }
 
-        Date now = new Date();
-        Log.i(tag, "Time diff: " + TimeUnit.DAYS.convert(date.getTime() - now.getTime(), TimeUnit.MILLISECONDS));
-        // If the user's data was saved more than DAYS_TO_ELAPSE days ago, we erase it and return no data
-        if (TimeUnit.DAYS.convert(now.getTime() - date.getTime(), TimeUnit.MILLISECONDS) > DAYS_TO_ELAPSE) {
-            try {
-                // Opening the file with a FileOutputStream erases it
-                FileOutputStream stream = new FileOutputStream(this.savedUserFile);
-            } catch (FileNotFoundException e) {
-                Log.e(tag, "Couldn't open saved user data file for erasing");
-
-                map.put(USERNAME_KEY, null);
-                map.put(PASSWORD_KEY, null);
-                map.put(ERROR_KEY, "1");
-                return map;
-            }
-
-            map.put(USERNAME_KEY, null);
-            map.put(PASSWORD_KEY, null);
-            map.put(ERROR_KEY, "0");
+        // If the user's data was saved more than DAYS_TO_ELAPSE days ago, we erase it and return
+        // no data
+        if (TimeUnit.MILLISECONDS.toDays(System.currentTimeMillis() - saved) > DAYS_TO_ELAPSE) {
+            logout();
             return map;
         }
-        // Otherwise, the login information is new enough to be valid, and we return it
-        else {
-            if (!scanner.hasNextLine()) {
-                Log.e(tag, "Not enough lines in saved user data file");
 
-                map.put(USERNAME_KEY, null);
-                map.put(PASSWORD_KEY, null);
-                map.put(ERROR_KEY, "1");
-                return map;
-            }
-            String username = scanner.nextLine();
-
-            if (!scanner.hasNextLine()) {
-                Log.e(tag, "Not enough lines in saved user data file");
-
-                map.put(USERNAME_KEY, null);
-                map.put(PASSWORD_KEY, null);
-                map.put(ERROR_KEY, "1");
-                return map;
-            }
-            String password = scanner.nextLine();
-
-            map.put(USERNAME_KEY, username);
-            map.put(PASSWORD_KEY, password);
-            map.put(ERROR_KEY, "0");
-            return map;
-        }
+        // Otherwise, the login information is new enough to be valid, and we return it
+        map.put(USERNAME_KEY, username);
+        map.put(PASSWORD_KEY, password);
+        return map;
     }
 
     /**
      * Takes the given username and password and saves them, so that the user will be automatically
      * logged in the next time they launch the app.
-     * <p>
-     * Returns an integer detailing the success of the operation
      *
      * @param username - the username to save
      * @param password - the password to save
-     * @return 0 if data is successfully saved, 1 if an error occurs
+     * @param callback - if not null, will be told on the UI thread whether the data was saved
+     *                 successfully
      */
-    public int saveUser(String username, String password) {
-        FileOutputStream stream;
-        try {
-            stream = new FileOutputStream(this.savedUserFile);
-        } catch (FileNotFoundException e) {
-            Log.e(tag, "Couldn't open saved user data file for saving");
-            return 1;
-        }
-
-        Date now = new Date();
-        SimpleDateFormat format = new SimpleDateFormat(TIMESTAMP_PATTERN, Locale.CANADA);
-
-        try {
-            stream.write((format.format(now) + "\n").getBytes());
-            stream.write((username + "\n").getBytes());
-            stream.write((password + "\n").getBytes());
-        } catch (IOException e) {
-            Log.e(tag, "Couldn't save user data: (" + username + "," + password + ")");
-            return 1;
-        }
-
-        Log.i(tag, "User data: (" + username + "," + password + ") successfully saved");
-        return 0;
+    public void saveUser(final String username, String password, final KeyValueStore.Callback<Boolean> callback) {
+        Map<String, String> data = new HashMap<>();
+        data.put(SAVED_AT_KEY, Long.toString(System.currentTimeMillis()));
+        data.put(USERNAME_KEY, username);
+        data.put(PASSWORD_KEY, password);
+
+        store.putAll(data, new KeyValueStore.Callback<Boolean>() {
+            @Override
+            public void done(Boolean result) {
+                if (result) {
+                    Log.i(tag, "User data for " + username + " successfully saved");
+                } else {
+                    Log.e(tag, "Couldn't save user data for " + username);
+                }
+
+                if (callback != null) {
+                    callback.done(result);
+                }
+            }
+        });
     }
 
     /**
-     * Erase any saved user login data as part of a logout attempt by the user.
+     * Erase any saved user login data as part of a logout attempt by the user. The data is
+     * forgotten straight away, and erased from disk in the background.
      */
     public void logout() {
-        try {
-            // By opening a FileOutputStream on the savedUserFile, we erase it
-            new FileOutputStream(savedUserFile);
-        } catch (FileNotFoundException e) {
-            // If the savedUserFile can't be found, that's not a problem for our method because
-            // it means that no user data was saved in the first place, so we had nobody to log out.
-            Log.i(tag, "Could not erase saved user file for logout because file doesn't exist.");
-        }
+        store.clear(null);
     }
 }
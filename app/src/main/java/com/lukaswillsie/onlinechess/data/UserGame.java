@@ -2,8 +2,10 @@ package com.lukaswillsie.onlinechess.data;
 
 import android.util.Log;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import Chess.com.lukaswillsie.chess.Colour;
 
@@ -36,6 +38,12 @@ public class UserGame {
      */
     private Colour colour;
 
+    /**
+     * The board, in the format the server sends it in (see LoadGameThread), as it was the last
+     * time this game was loaded. null if this game has never been loaded.
+     */
+    private String boardData;
+
     /**
      * Create an empty new UserGame object. This object should not be used until initialize() is
      * called.
@@ -46,6 +54,31 @@ public class UserGame {
         this.username = username;
     }
 
+    /**
+     * Create a UserGame for a game the given user has just created, which the server doesn't send
+     * us the data of. Every data point but the game's ID and its white player, the user who
+     * created it, starts at its initial value.
+     *
+     * @param gameID   - the ID of the newly created game
+     * @param username - the name of the user who created the game, currently logged into the app
+     * @return The new game, or null if it couldn't be initialized
+     */
+    public static UserGame created(String gameID, String username) {
+        List<Object> initialData = new ArrayList<>();
+        for (ServerData data : ServerData.order) {
+            if (data == ServerData.WHITE) {
+                initialData.add(username);
+            } else if (data == ServerData.GAMEID) {
+                initialData.add(gameID);
+            } else {
+                initialData.add(data.initial);
+            }
+        }
+
+        UserGame game = new UserGame(username);
+        return game.initialize(initialData) == 1 ? null : game;
+    }
+
     /**
      * Initialize this UserGame object from the given source data. data is assumed to be a list of
      * Objects, all either Integers or Strings.
@@ -157,6 +190,18 @@ public class UserGame {
         }
     }
 
+    /**
+     * Initialize this UserGame object with data previously taken from another UserGame, for example
+     * one saved before our process was killed.
+     *
+     * @param colour - the colour the user is playing in this game
+     * @param data   - every piece of data about this game, as returned by getData()
+     */
+    public void initialize(Colour colour, Map<GameData, Object> data) {
+        this.colour = colour;
+        this.data = new HashMap<>(data);
+    }
+
     /**
      * Access the specified piece of data about this game
      *
@@ -177,6 +222,34 @@ public class UserGame {
         this.data.put(data, val);
     }
 
+    /**
+     * Returns the name of the user this game belongs to
+     *
+     * @return The name of the user currently logged into the app, as given at creation
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Get the board as the server sent it the last time this game was loaded
+     *
+     * @return The board, in the format the server sends it in, or null if this game has never
+     * been loaded
+     */
+    public String getBoardData() {
+        return boardData;
+    }
+
+    /**
+     * Record the board as the server sent it when this game was loaded
+     *
+     * @param boardData - the board, in the format the server sends it in (see LoadGameThread)
+     */
+    public void setBoardData(String boardData) {
+        this.boardData = boardData;
+    }
+
     /**
      * Returns the colour being played by the user in this game
      *
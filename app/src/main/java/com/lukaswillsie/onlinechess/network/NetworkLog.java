@@ -0,0 +1,276 @@
+package com.lukaswillsie.onlinechess.network;
+
+import android.util.Log;
+
+import com.lukaswillsie.onlinechess.BuildConfig;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The log our network threads write to. Unlike android.util.Log, writing to it doesn't build a
+ * String: a message is a constant format, with "{}" wherever an argument goes, plus up to two
+ * arguments, all of which are copied into a slot of an in-memory ring buffer as they are. Nothing
+ * is formatted until the buffer is dumped, which happens when a request ends in a server or system
+ * error (see SubHelper), so that the requests leading up to a failure can be read in logcat after
+ * the fact. Messages at WARN and above are also written to logcat straight away, as before.
+ * <p>
+ * Messages below the current level (see setLevel()) are dropped before anything is written. On top
+ * of that, verbose messages, which our threads write for every field they read off the socket, are
+ * only compiled into debuggable builds: every call to v() is behind VERBOSE_ENABLED, a compile-time
+ * constant, so that javac and R8 remove the calls altogether from release builds.
+ * <p>
+ * Arguments that are numbers are passed as longs, so that logging them doesn't box them. Objects
+ * are held on to until their slot is overwritten, so only pass things that are cheap to keep, like
+ * Strings, never something like an Activity.
+ * <p>
+ * This class is thread-safe. Each slot is locked only while it's being written or read, and the
+ * network threads write to different slots, so they almost never wait on each other.
+ */
+public final class NetworkLog {
+    private static final String tag = "NetworkLog";
+
+    /**
+     * Whether verbose messages are compiled in. Every call to v() should be made inside an
+     * "if (NetworkLog.VERBOSE_ENABLED)" so that it disappears from release builds.
+     */
+    public static final boolean VERBOSE_ENABLED = BuildConfig.DEBUG;
+
+    /**
+     * A level above every other, which turns the log off when passed to setLevel()
+     */
+    public static final int OFF = Log.ASSERT + 1;
+
+    /**
+     * The number of messages the ring buffer holds; a power of two, so that a sequence number can
+     * be turned into an index with a mask
+     */
+    private static final int CAPACITY = 512;
+    private static final int MASK = CAPACITY - 1;
+
+    /*
+     * Which arguments an entry has
+     */
+    private static final int NO_ARGS = 0;
+    private static final int NUMBER = 1;
+    private static final int OBJECT = 2;
+    private static final int NUMBER_THEN_OBJECT = 3;
+
+    private static final Entry[] entries = new Entry[CAPACITY];
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            entries[i] = new Entry();
+        }
+    }
+
+    /**
+     * The sequence number the next message will be given. A message's slot is its sequence number
+     * modulo CAPACITY.
+     */
+    private static final AtomicLong next = new AtomicLong();
+
+    /**
+     * The sequence number of the first message that hasn't been dumped yet, so that each dump
+     * picks up where the last one left off
+     */
+    private static final AtomicLong undumped = new AtomicLong();
+
+    private static volatile int level = VERBOSE_ENABLED ? Log.VERBOSE : Log.INFO;
+
+    private NetworkLog() {
+    }
+
+    /**
+     * Set the lowest level of message that will be kept; anything below it is dropped as soon as
+     * it's written. Pass OFF to drop everything.
+     *
+     * @param level - one of android.util.Log's levels, like Log.INFO, or OFF
+     */
+    public static void setLevel(int level) {
+        NetworkLog.level = level;
+    }
+
+    public static int getLevel() {
+        return level;
+    }
+
+    /**
+     * Check whether messages of the given level are being kept, so that callers can skip work done
+     * only to log something
+     *
+     * @param level - one of android.util.Log's levels
+     */
+    public static boolean isLoggable(int level) {
+        return level >= NetworkLog.level;
+    }
+
+    public static void v(String tag, String message) {
+        write(Log.VERBOSE, tag, message, NO_ARGS, 0, null);
+    }
+
+    public static void v(String tag, String format, long arg) {
+        write(Log.VERBOSE, tag, format, NUMBER, arg, null);
+    }
+
+    public static void v(String tag, String format, Object arg) {
+        write(Log.VERBOSE, tag, format, OBJECT, 0, arg);
+    }
+
+    public static void i(String tag, String message) {
+        write(Log.INFO, tag, message, NO_ARGS, 0, null);
+    }
+
+    public static void i(String tag, String format, long arg) {
+        write(Log.INFO, tag, format, NUMBER, arg, null);
+    }
+
+    public static void i(String tag, String format, Object arg) {
+        write(Log.INFO, tag, format, OBJECT, 0, arg);
+    }
+
+    public static void i(String tag, String format, long arg1, Object arg2) {
+        write(Log.INFO, tag, format, NUMBER_THEN_OBJECT, arg1, arg2);
+    }
+
+    public static void w(String tag, String message) {
+        write(Log.WARN, tag, message, NO_ARGS, 0, null);
+    }
+
+    public static void w(String tag, String format, long arg) {
+        write(Log.WARN, tag, format, NUMBER, arg, null);
+    }
+
+    public static void w(String tag, String format, Object arg) {
+        write(Log.WARN, tag, format, OBJECT, 0, arg);
+    }
+
+    public static void e(String tag, String message) {
+        write(Log.ERROR, tag, message, NO_ARGS, 0, null);
+    }
+
+    public static void e(String tag, String format, long arg) {
+        write(Log.ERROR, tag, format, NUMBER, arg, null);
+    }
+
+    public static void e(String tag, String format, Object arg) {
+        write(Log.ERROR, tag, format, OBJECT, 0, arg);
+    }
+
+    public static void e(String tag, String format, long arg1, Object arg2) {
+        write(Log.ERROR, tag, format, NUMBER_THEN_OBJECT, arg1, arg2);
+    }
+
+    private static void write(int level, String tag, String format, int args, long number, Object object) {
+        if (level < NetworkLog.level) {
+            return;
+        }
+
+        long sequence = next.getAndIncrement();
+        Entry entry = entries[(int) sequence & MASK];
+        synchronized (entry) {
+            entry.sequence = sequence;
+            entry.time = System.currentTimeMillis();
+            entry.thread = Thread.currentThread().getId();
+            entry.level = level;
+            entry.tag = tag;
+            entry.format = format;
+            entry.args = args;
+            entry.number = number;
+            entry.object = object;
+        }
+
+        // Warnings and errors are rare, and worth seeing as they happen
+        if (level >= Log.WARN) {
+            Log.println(level, tag, format(format, args, number, object));
+        }
+    }
+
+    /**
+     * Write every message in the ring buffer that hasn't been dumped already to logcat, oldest
+     * first, on a thread of its own so that the caller doesn't wait on the formatting. Messages
+     * that have been overwritten since the last dump are lost, and a line says how many.
+     *
+     * @param reason - why the buffer is being dumped, written to logcat ahead of the messages
+     */
+    public static void dump(final String reason) {
+        final long end = next.get();
+        final long start = undumped.getAndSet(end);
+        if (start >= end) {
+            return;
+        }
+
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Log.w(tag, "Dumping network log: " + reason);
+                long first = Math.max(start, end - CAPACITY);
+                if (first > start) {
+                    Log.w(tag, (first - start) + " message(s) overwritten before they could be dumped");
+                }
+
+                for (long sequence = first; sequence < end; sequence++) {
+                    String line;
+                    int level;
+                    Entry entry = entries[(int) sequence & MASK];
+                    synchronized (entry) {
+                        // The slot has been reused since we started, or hasn't been filled yet
+                        if (entry.sequence != sequence) {
+                            continue;
+                        }
+                        level = entry.level;
+                        line = entry.time + " [" + entry.thread + "] " + entry.tag + ": "
+                                + format(entry.format, entry.args, entry.number, entry.object);
+                    }
+                    Log.println(level, tag, line);
+                }
+                Log.w(tag, "End of network log");
+            }
+        }, "NetworkLog dump").start();
+    }
+
+    /**
+     * Fill in the "{}"s in the given format with the given arguments, in order. Any "{}"s left over
+     * are left as they are.
+     */
+    private static String format(String format, int args, long number, Object object) {
+        if (args == NO_ARGS) {
+            return format;
+        }
+
+        StringBuilder builder = new StringBuilder(format.length() + 16);
+        int from = 0;
+        int filled = 0;
+        int needed = args == NUMBER_THEN_OBJECT ? 2 : 1;
+        while (filled < needed) {
+            int at = format.indexOf("{}", from);
+            if (at == -1) {
+                break;
+            }
+            builder.append(format, from, at);
+            if (args == OBJECT || (args == NUMBER_THEN_OBJECT && filled == 1)) {
+                builder.append(object);
+            } else {
+                builder.append(number);
+            }
+            from = at + 2;
+            filled++;
+        }
+        builder.append(format, from, format.length());
+        return builder.toString();
+    }
+
+    /**
+     * A slot in the ring buffer. Fields are only read or written while holding the slot's lock.
+     */
+    private static final class Entry {
+        private long sequence = -1;
+        private long time;
+        private long thread;
+        private int level;
+        private String tag;
+        private String format;
+        private int args;
+        private long number;
+        private Object object;
+    }
+}
@@ -0,0 +1,562 @@
+package com.lukaswillsie.onlinechess.network;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records how our requests to the server are doing, for each command we send: how long each one
+ * takes, how many bytes it sends and receives, and how it turns out. For the commands ServerApi
+ * shares between identical requests, we also count how many requests were answered that way, so
+ * their hit rate can be seen.
+ * <p>
+ * A request's latency is measured from the moment it's handed to OutboundScheduler to be written
+ * to the server, to the moment its final callback runs on the UI thread, so it covers everything
+ * the user waits through: waiting behind other requests, the round trip, reading and decoding the
+ * response, and the hop back to the UI thread. The wait to be sent is also recorded on its own,
+ * for each priority class, to show whether the scheduler is keeping urgent requests moving. Latencies are counted in a histogram of power-of-two
+ * millisecond buckets, which is enough to tell a 30ms request from a 300ms one, and from which
+ * percentiles can be estimated without keeping every measurement.
+ * <p>
+ * Everything is off by default, and while off each of the methods that record something returns
+ * straight away, so the hooks in the network code cost next to nothing in release builds. The
+ * app turns recording on in debuggable builds (see OnlineChessApplication). A copy of everything
+ * recorded so far can be taken at any time with snapshot(), and shown or written out as text.
+ * <p>
+ * This class is thread-safe. Bytes are counted on the threads doing the reading and writing, and
+ * everything else on the UI thread, or on OutboundScheduler's sending thread.
+ */
+public final class NetworkMetrics {
+    /**
+     * The commands we record metrics for, one for each kind of request we make of the server
+     */
+    public enum Command {
+        CONNECT("connect", 5000, Priority.INTERACTIVE),
+        LOGIN("login", 15000, Priority.INTERACTIVE),
+        CREATE_ACCOUNT("create", 5000, Priority.INTERACTIVE),
+        CREATE_GAME("creategame", 5000, Priority.INTERACTIVE),
+        JOIN_GAME("joingame", 10000, Priority.INTERACTIVE),
+        GET_GAME_DATA("getgamedata", 10000, Priority.BOARD),
+        LOAD_GAME("loadgame", 15000, Priority.BOARD),
+        LOAD_GAMES("loadgames", 15000, Priority.BACKGROUND),
+        OPEN_GAMES("opengames", 15000, Priority.BACKGROUND),
+        MOVE("move", 5000, Priority.INTERACTIVE),
+        PROMOTE("promote", 5000, Priority.INTERACTIVE),
+        DRAW("draw", 5000, Priority.INTERACTIVE),
+        REJECT("reject", 5000, Priority.INTERACTIVE),
+        FORFEIT("forfeit", 5000, Priority.INTERACTIVE),
+        ARCHIVE("archive", 5000, Priority.BACKGROUND),
+        RESTORE("restore", 5000, Priority.BACKGROUND);
+
+        /**
+         * The word the command starts with when sent to the server
+         */
+        public final String word;
+
+        /**
+         * How long, in milliseconds, the server has to answer a request of this command in full,
+         * once it's been sent. Commands answered with a single code get a few seconds; those that
+         * can be answered with a list of games, or a game's whole history, get longer. See
+         * NetworkThread for what happens when a request runs past it.
+         */
+        public final int deadline;
+
+        /**
+         * Which of the connection's queues the command's requests wait in (see OutboundScheduler).
+         * Connect requests don't wait in one, since there's no connection for them to wait on.
+         */
+        public final Priority priority;
+
+        Command(String word, int deadline, Priority priority) {
+            this.word = word;
+            this.deadline = deadline;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * The classes of request OutboundScheduler sends in order of, highest first. Time spent waiting
+     * to be sent is recorded for each.
+     */
+    public enum Priority {
+        /**
+         * Requests the user is watching a spinner for, like making a move or logging in
+         */
+        INTERACTIVE("interactive"),
+        /**
+         * Loading a game to show on the board
+         */
+        BOARD("board"),
+        /**
+         * Lists of games, and archiving or restoring them, which can take their time
+         */
+        BACKGROUND("background");
+
+        /**
+         * The name of the class, as shown in reports
+         */
+        public final String label;
+
+        Priority(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * The ways a request can turn out
+     */
+    public enum Outcome {
+        /**
+         * The server carried out the request
+         */
+        SUCCESS,
+        /**
+         * The server answered, but refused the request, for example because a game doesn't exist
+         * or it isn't the user's turn
+         */
+        REJECTED,
+        /**
+         * The server reported an error, or answered outside of protocol
+         */
+        SERVER_ERROR,
+        /**
+         * The connection to the server was lost before the request could be completed
+         */
+        CONNECTION_LOST,
+        /**
+         * Something went wrong on our end, like an IOException while reading
+         */
+        SYSTEM_ERROR,
+        /**
+         * The server didn't answer within the command's deadline, so we dropped the connection
+         */
+        TIMED_OUT,
+        /**
+         * Whoever made the request went away before it was sent, so it never was
+         */
+        CANCELLED
+    }
+
+    private static final int COMMANDS = Command.values().length;
+    private static final int OUTCOMES = Outcome.values().length;
+    private static final int PRIORITIES = Priority.values().length;
+
+    /**
+     * The number of latency buckets. Bucket 0 counts requests that took less than 1ms, and bucket
+     * i, for i > 0, those that took from 2^(i - 1) up to 2^i ms. The last bucket also counts
+     * everything longer, which at 2^18ms is over four minutes.
+     */
+    private static final int BUCKETS = 20;
+
+    /**
+     * Whether we're recording anything at all
+     */
+    private static volatile boolean enabled;
+
+    /*
+     * What we've recorded, each indexed by command ordinal (times BUCKETS or OUTCOMES, where
+     * there's more than one number per command)
+     */
+    private static final AtomicLongArray latencies = new AtomicLongArray(COMMANDS * BUCKETS);
+    private static final AtomicLongArray maxNanos = new AtomicLongArray(COMMANDS);
+    private static final AtomicLongArray totalNanos = new AtomicLongArray(COMMANDS);
+    private static final AtomicLongArray outcomes = new AtomicLongArray(COMMANDS * OUTCOMES);
+    private static final AtomicLongArray bytesSent = new AtomicLongArray(COMMANDS);
+    private static final AtomicLongArray bytesReceived = new AtomicLongArray(COMMANDS);
+    private static final AtomicLongArray shared = new AtomicLongArray(COMMANDS);
+
+    /*
+     * How long requests have waited to be sent, indexed by priority ordinal (times BUCKETS for the
+     * histogram), kept like the latencies above
+     */
+    private static final AtomicLongArray waits = new AtomicLongArray(PRIORITIES * BUCKETS);
+    private static final AtomicLongArray maxWaitNanos = new AtomicLongArray(PRIORITIES);
+    private static final AtomicLongArray totalWaitNanos = new AtomicLongArray(PRIORITIES);
+
+    private NetworkMetrics() {
+    }
+
+    /**
+     * Turn recording on or off. Turning it off keeps everything recorded so far.
+     *
+     * @param enabled - whether to record metrics
+     */
+    public static void setEnabled(boolean enabled) {
+        NetworkMetrics.enabled = enabled;
+    }
+
+    /**
+     * Check whether we're recording metrics
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Called when a request is handed to a thread to be sent to the server
+     *
+     * @return The time the request started, to be given to finish() once it's over, or 0 if we
+     * aren't recording
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Called when the final callback for a request is given, on the UI thread
+     *
+     * @param command - the request's command
+     * @param started - the value returned by start() when the request started
+     * @param outcome - how the request turned out
+     */
+    public static void finish(Command command, long started, Outcome outcome) {
+        // A request started while we weren't recording can't be timed
+        if (!enabled || started == 0) {
+            return;
+        }
+
+        int index = command.ordinal();
+        long nanos = System.nanoTime() - started;
+        time(latencies, totalNanos, maxNanos, index, nanos);
+        outcomes.incrementAndGet(index * OUTCOMES + outcome.ordinal());
+    }
+
+    /**
+     * Called when a request is taken off its queue to be sent
+     *
+     * @param priority - the request's priority class
+     * @param queued   - when the request was queued, as returned by start()
+     */
+    public static void waited(Priority priority, long queued) {
+        if (!enabled || queued == 0) {
+            return;
+        }
+
+        time(waits, totalWaitNanos, maxWaitNanos, priority.ordinal(), System.nanoTime() - queued);
+    }
+
+    /**
+     * Count the given time in the histogram, total and maximum at the given index
+     */
+    private static void time(AtomicLongArray histogram, AtomicLongArray total, AtomicLongArray max,
+                             int index, long nanos) {
+        long millis = nanos / 1000000;
+        int bucket = millis == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+
+        histogram.incrementAndGet(index * BUCKETS + bucket);
+        total.addAndGet(index, nanos);
+
+        long longest;
+        do {
+            longest = max.get(index);
+        } while (nanos > longest && !max.compareAndSet(index, longest, nanos));
+    }
+
+    /**
+     * Called when bytes are written to the server as part of a request
+     *
+     * @param command - the request's command
+     * @param bytes   - how many bytes were written
+     */
+    public static void sent(Command command, int bytes) {
+        if (enabled) {
+            bytesSent.addAndGet(command.ordinal(), bytes);
+        }
+    }
+
+    /**
+     * Called when bytes are read from the server as part of a request
+     *
+     * @param command - the request's command
+     * @param bytes   - how many bytes were read
+     */
+    public static void received(Command command, int bytes) {
+        if (enabled) {
+            bytesReceived.addAndGet(command.ordinal(), bytes);
+        }
+    }
+
+    /**
+     * Called when a request isn't sent because an identical one is already waiting on the server,
+     * whose result it will share (see ServerApi). Shared requests aren't counted as requests of
+     * their own, or timed.
+     *
+     * @param command - the request's command
+     */
+    public static void shared(Command command) {
+        if (enabled) {
+            shared.incrementAndGet(command.ordinal());
+        }
+    }
+
+    /**
+     * Forget everything recorded so far
+     */
+    public static void reset() {
+        for (int i = 0; i < latencies.length(); i++) {
+            latencies.set(i, 0);
+        }
+        for (int i = 0; i < outcomes.length(); i++) {
+            outcomes.set(i, 0);
+        }
+        for (int i = 0; i < waits.length(); i++) {
+            waits.set(i, 0);
+        }
+        for (int i = 0; i < PRIORITIES; i++) {
+            maxWaitNanos.set(i, 0);
+            totalWaitNanos.set(i, 0);
+        }
+        for (int i = 0; i < COMMANDS; i++) {
+            maxNanos.set(i, 0);
+            totalNanos.set(i, 0);
+            bytesSent.set(i, 0);
+            bytesReceived.set(i, 0);
+            shared.set(i, 0);
+        }
+    }
+
+    /**
+     * Take a copy of everything recorded so far. Requests finishing while the copy is made may be
+     * only partly included.
+     */
+    public static Snapshot snapshot() {
+        return new Snapshot();
+    }
+
+    /**
+     * A copy of the metrics recorded up to a point in time
+     */
+    public static final class Snapshot {
+        private final long[] latencies = new long[COMMANDS * BUCKETS];
+        private final long[] maxNanos = new long[COMMANDS];
+        private final long[] totalNanos = new long[COMMANDS];
+        private final long[] outcomes = new long[COMMANDS * OUTCOMES];
+        private final long[] bytesSent = new long[COMMANDS];
+        private final long[] bytesReceived = new long[COMMANDS];
+        private final long[] shared = new long[COMMANDS];
+        private final long[] waits = new long[PRIORITIES * BUCKETS];
+        private final long[] maxWaitNanos = new long[PRIORITIES];
+        private final long[] totalWaitNanos = new long[PRIORITIES];
+
+        private Snapshot() {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = NetworkMetrics.latencies.get(i);
+            }
+            for (int i = 0; i < waits.length; i++) {
+                waits[i] = NetworkMetrics.waits.get(i);
+            }
+            for (int i = 0; i < PRIORITIES; i++) {
+                maxWaitNanos[i] = NetworkMetrics.maxWaitNanos.get(i);
+                totalWaitNanos[i] = NetworkMetrics.totalWaitNanos.get(i);
+            }
+            for (int i = 0; i < outcomes.length; i++) {
+                outcomes[i] = NetworkMetrics.outcomes.get(i);
+            }
+            for (int i = 0; i < COMMANDS; i++) {
+                maxNanos[i] = NetworkMetrics.maxNanos.get(i);
+                totalNanos[i] = NetworkMetrics.totalNanos.get(i);
+                bytesSent[i] = NetworkMetrics.bytesSent.get(i);
+                bytesReceived[i] = NetworkMetrics.bytesReceived.get(i);
+                shared[i] = NetworkMetrics.shared.get(i);
+            }
+        }
+
+        /**
+         * Get the number of requests made with the given command that have finished
+         */
+        public long count(Command command) {
+            return sum(latencies, command.ordinal());
+        }
+
+        /**
+         * Get the number of requests made with the given command that turned out as given
+         */
+        public long count(Command command, Outcome outcome) {
+            return outcomes[command.ordinal() * OUTCOMES + outcome.ordinal()];
+        }
+
+        /**
+         * Get the number of bytes sent to the server for the given command
+         */
+        public long bytesSent(Command command) {
+            return bytesSent[command.ordinal()];
+        }
+
+        /**
+         * Get the number of bytes received from the server for the given command
+         */
+        public long bytesReceived(Command command) {
+            return bytesReceived[command.ordinal()];
+        }
+
+        /**
+         * Get the number of requests made with the given command that shared the result of an
+         * identical one already in flight, rather than being sent
+         */
+        public long shared(Command command) {
+            return shared[command.ordinal()];
+        }
+
+        /**
+         * Get the share of the given command's requests that were answered by one already in
+         * flight, as a percentage of every request asked for, sent or not
+         *
+         * @return The hit rate, from 0 to 100, or 0 if no requests have been asked for
+         */
+        public double hitRate(Command command) {
+            long asked = count(command) + shared(command);
+            return asked == 0 ? 0 : 100.0 * shared(command) / asked;
+        }
+
+        /**
+         * Estimate a percentile of the given command's latency. Since latencies are only kept in
+         * buckets, this is the upper end of the bucket the percentile falls in, or the longest
+         * latency seen if that's less, so the real value is no more than this, and more than half
+         * of it.
+         *
+         * @param command    - the command to look at
+         * @param percentile - the percentile to estimate, from 0 to 100
+         * @return The estimated latency, in milliseconds, or 0 if no requests have finished
+         */
+        public long percentileMillis(Command command, double percentile) {
+            return percentile(latencies, command.ordinal(), percentile, maxMillis(command));
+        }
+
+        /**
+         * Get the longest the given command has taken, in milliseconds
+         */
+        public long maxMillis(Command command) {
+            return maxNanos[command.ordinal()] / 1000000;
+        }
+
+        /**
+         * Get the average time the given command has taken, in milliseconds
+         */
+        public long meanMillis(Command command) {
+            long count = count(command);
+            return count == 0 ? 0 : totalNanos[command.ordinal()] / count / 1000000;
+        }
+
+        /**
+         * Get the number of requests of the given priority class that have been taken off their
+         * queue to be sent
+         */
+        public long waitCount(Priority priority) {
+            return sum(waits, priority.ordinal());
+        }
+
+        /**
+         * Estimate a percentile of how long requests of the given priority class waited to be sent,
+         * the same way percentileMillis() estimates latencies
+         *
+         * @param priority   - the class to look at
+         * @param percentile - the percentile to estimate, from 0 to 100
+         * @return The estimated wait, in milliseconds, or 0 if no requests have been sent
+         */
+        public long waitPercentileMillis(Priority priority, double percentile) {
+            return percentile(waits, priority.ordinal(), percentile, maxWaitMillis(priority));
+        }
+
+        /**
+         * Get the longest a request of the given priority class has waited to be sent, in
+         * milliseconds
+         */
+        public long maxWaitMillis(Priority priority) {
+            return maxWaitNanos[priority.ordinal()] / 1000000;
+        }
+
+        /**
+         * Get the average time requests of the given priority class have waited to be sent, in
+         * milliseconds
+         */
+        public long meanWaitMillis(Priority priority) {
+            long count = waitCount(priority);
+            return count == 0 ? 0 : totalWaitNanos[priority.ordinal()] / count / 1000000;
+        }
+
+        /**
+         * Add up the buckets of the histogram at the given index
+         */
+        private static long sum(long[] histogram, int index) {
+            long count = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                count += histogram[index * BUCKETS + bucket];
+            }
+            return count;
+        }
+
+        /**
+         * Estimate a percentile of the histogram at the given index: the upper end of the bucket the
+         * percentile falls in, or the longest time seen if that's less
+         */
+        private static long percentile(long[] histogram, int index, double percentile, long maxMillis) {
+            long count = sum(histogram, index);
+            if (count == 0) {
+                return 0;
+            }
+
+            long rank = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS - 1; bucket++) {
+                seen += histogram[index * BUCKETS + bucket];
+                if (seen >= rank) {
+                    return Math.min(1L << bucket, maxMillis);
+                }
+            }
+            return maxMillis;
+        }
+
+        /**
+         * Lay this snapshot out as a table, one row for each command that has been used, for
+         * showing in a monospaced font or writing to a file
+         */
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format(Locale.US, "%-12s %5s %5s %4s %4s %4s %4s %4s %4s %6s %6s %6s %6s %8s %8s %5s %5s%n",
+                    "command", "count", "ok", "rej", "srv", "conn", "sys", "tout", "cncl", "p50", "p90", "p99", "max",
+                    "sent", "recv", "shrd", "hit%"));
+
+            for (Command command : Command.values()) {
+                long count = count(command);
+                if (count == 0 && bytesSent(command) == 0 && shared(command) == 0) {
+                    continue;
+                }
+
+                report.append(String.format(Locale.US, "%-12s %5d %5d %4d %4d %4d %4d %4d %4d %6d %6d %6d %6d %8d %8d %5d %5.1f%n",
+                        command.word, count,
+                        count(command, Outcome.SUCCESS), count(command, Outcome.REJECTED),
+                        count(command, Outcome.SERVER_ERROR), count(command, Outcome.CONNECTION_LOST),
+                        count(command, Outcome.SYSTEM_ERROR), count(command, Outcome.TIMED_OUT),
+                        count(command, Outcome.CANCELLED),
+                        percentileMillis(command, 50), percentileMillis(command, 90),
+                        percentileMillis(command, 99), maxMillis(command),
+                        bytesSent(command), bytesReceived(command), shared(command), hitRate(command)));
+            }
+
+            report.append("Latencies in ms, from request to final callback; sizes in bytes; shrd counts requests\n"
+                    + "answered by an identical one already in flight, and hit% is their share of all asked for");
+
+            boolean waited = false;
+            for (Priority priority : Priority.values()) {
+                long count = waitCount(priority);
+                if (count == 0) {
+                    continue;
+                }
+
+                if (!waited) {
+                    report.append(String.format(Locale.US, "%n%n%-12s %5s %6s %6s %6s %6s %6s%n",
+                            "class", "count", "mean", "p50", "p90", "p99", "max"));
+                    waited = true;
+                }
+                report.append(String.format(Locale.US, "%-12s %5d %6d %6d %6d %6d %6d%n",
+                        priority.label, count, meanWaitMillis(priority),
+                        waitPercentileMillis(priority, 50), waitPercentileMillis(priority, 90),
+                        waitPercentileMillis(priority, 99), maxWaitMillis(priority)));
+            }
+            if (waited) {
+                report.append("Waits in ms, from request to being sent, for each priority class");
+            }
+            return report.toString();
+        }
+    }
+}
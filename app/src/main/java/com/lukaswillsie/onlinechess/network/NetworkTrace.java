@@ -0,0 +1,377 @@
+package com.lukaswillsie.onlinechess.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Follows individual requests from the user action that caused them to the callback that tells
+ * the screen how they turned out, so that a slow request can be pinned on the stage it was slow
+ * in.
+ * <p>
+ * Each request gets a Trace, with an ID of its own, in which each stage of its path stamps the
+ * time it was reached (see Stage). The time between two stages is a span, named after the stage it
+ * ends at, so a move request breaks down into the time ChessManager spent before asking for it,
+ * the time the helpers took to hand it to a thread, its wait in the connection's send queue, the
+ * socket write, the server, the read, the hop back to the UI thread and the UI callback.
+ * <p>
+ * A Trace is handed along the path like this:
+ * <ul>
+ *     <li>A screen calls begin() when the user does something that's about to make a request. The
+ *     Trace is kept aside until the request is made, which happens before the UI thread does
+ *     anything else, so the screen doesn't have to pass it through ServerHelper.</li>
+ *     <li>The SubHelper making the request claims it with claim(), or starts a Trace of its own if
+ *     there isn't one, and gives it to the request's thread before starting it.</li>
+ *     <li>The thread stamps its stages, the SubHelper stamps the hop back, and passes the Trace to
+ *     finish() once its callback has run.</li>
+ * </ul>
+ * Finished traces are kept, up to the last CAPACITY of them, to be looked at on a debug screen
+ * (see RequestTraceActivity) or exported with toChromeJson() to chrome://tracing or Perfetto.
+ * <p>
+ * Like NetworkMetrics, tracing is off by default and on in debuggable builds, and while off
+ * nothing is allocated or recorded. begin(), mark() and claim() must be called from the UI thread;
+ * a Trace's own methods can be called from anywhere.
+ */
+public final class NetworkTrace {
+    /**
+     * The stages of a request's path, in the order it reaches them. Stages that a request doesn't
+     * go through, like the first two for requests that weren't started by the user, are skipped.
+     */
+    public enum Stage {
+        /**
+         * The user did something that's going to make a request, like dropping a piece
+         */
+        ACTION(null),
+        /**
+         * The screen has finished its own work, and asked for the request
+         */
+        REQUESTED("screen"),
+        /**
+         * The request has been built and its thread is about to be started
+         */
+        STARTING("helper"),
+        /**
+         * The request's thread is running, having waited its turn in OutboundScheduler, and is
+         * about to write the request
+         */
+        SENDING("queued"),
+        /**
+         * The request has been written to the socket
+         */
+        SENT("socket write"),
+        /**
+         * The first of the server's answer has been read
+         */
+        RESPONDED("server"),
+        /**
+         * The answer has been read and decoded, and its result posted to the UI thread
+         */
+        POSTED("read"),
+        /**
+         * The UI thread has picked up the result
+         */
+        DELIVERED("handler hop"),
+        /**
+         * The callback that handles the result has returned
+         */
+        DONE("ui callback");
+
+        /**
+         * The name of the span that ends at this stage
+         */
+        public final String span;
+
+        Stage(String span) {
+            this.span = span;
+        }
+    }
+
+    /**
+     * How many finished traces we keep
+     */
+    public static final int CAPACITY = 200;
+
+    private static volatile boolean enabled = false;
+
+    private static final AtomicLong ids = new AtomicLong();
+
+    /**
+     * The trace begun by the last user action, waiting to be claimed by the request it causes.
+     * Only touched on the UI thread.
+     */
+    private static Trace pending;
+
+    /*
+     * Finished traces, in a ring; the oldest is overwritten once there are CAPACITY of them
+     */
+    private static final Trace[] finished = new Trace[CAPACITY];
+    private static int count = 0;
+
+    private NetworkTrace() {
+    }
+
+    public static void setEnabled(boolean enabled) {
+        NetworkTrace.enabled = enabled;
+        if (!enabled) {
+            pending = null;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Note that the user has done something that's about to make a request. The request made next
+     * on the UI thread will be traced from this point.
+     *
+     * @param action  - a short description of what the user did, like "drag"
+     * @param started - when the user's action started to be handled, from System.nanoTime()
+     */
+    public static void begin(String action, long started) {
+        if (!enabled) {
+            return;
+        }
+        Trace trace = new Trace(ids.incrementAndGet(), action);
+        trace.marks[Stage.ACTION.ordinal()] = started;
+        pending = trace;
+    }
+
+    /**
+     * Stamp the given stage on the trace begun by the last user action, if it hasn't been claimed
+     * yet
+     */
+    public static void mark(Stage stage) {
+        Trace trace = pending;
+        if (trace != null) {
+            trace.mark(stage);
+        }
+    }
+
+    /**
+     * Drop the trace begun by the last user action, because it didn't lead to a request after all
+     */
+    public static void abandon() {
+        pending = null;
+    }
+
+    /**
+     * Take the trace begun by the last user action for a request of the given command, or start a
+     * new one if there isn't one, and stamp STARTING on it
+     *
+     * @param command - the command being sent
+     * @return The request's trace, or null if tracing is off
+     */
+    public static Trace claim(NetworkMetrics.Command command) {
+        if (!enabled) {
+            return null;
+        }
+
+        Trace trace = pending;
+        pending = null;
+        if (trace == null) {
+            trace = new Trace(ids.incrementAndGet(), null);
+        }
+        trace.command = command;
+        trace.mark(Stage.STARTING);
+        return trace;
+    }
+
+    /**
+     * Stamp DONE on the given trace and keep it
+     */
+    public static void finish(Trace trace) {
+        trace.mark(Stage.DONE);
+        synchronized (finished) {
+            finished[count % CAPACITY] = trace;
+            count++;
+        }
+    }
+
+    /**
+     * Return the finished traces we've kept, oldest first
+     */
+    public static List<Trace> traces() {
+        synchronized (finished) {
+            int size = Math.min(count, CAPACITY);
+            List<Trace> traces = new ArrayList<>(size);
+            for (int i = count - size; i < count; i++) {
+                traces.add(finished[i % CAPACITY]);
+            }
+            return traces;
+        }
+    }
+
+    /**
+     * Forget every finished trace
+     */
+    public static void clear() {
+        synchronized (finished) {
+            for (int i = 0; i < CAPACITY; i++) {
+                finished[i] = null;
+            }
+            count = 0;
+        }
+    }
+
+    /**
+     * Write the given traces in the Trace Event Format read by chrome://tracing and Perfetto. Each
+     * request gets a row of its own, named after it, holding an event for the whole request with
+     * one nested event for each of its spans. Times are in microseconds from the start of the
+     * first trace.
+     *
+     * @param traces - the traces to write, as returned by traces()
+     * @return The traces as a JSON document
+     */
+    public static String toChromeJson(List<Trace> traces) {
+        long origin = Long.MAX_VALUE;
+        for (Trace trace : traces) {
+            origin = Math.min(origin, trace.getStart());
+        }
+
+        StringBuilder json = new StringBuilder("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        boolean first = true;
+        for (Trace trace : traces) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+
+            json.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":").append(trace.id)
+                    .append(",\"args\":{\"name\":\"").append(trace.getName()).append("\"}}");
+            event(json, trace.getName(), trace, trace.getStart(), trace.getEnd(), origin);
+
+            // A span needs a stage before it to start from
+            long previous = 0;
+            for (Stage stage : Stage.values()) {
+                long mark = trace.getMark(stage);
+                if (mark == 0) {
+                    continue;
+                }
+                if (previous != 0) {
+                    event(json, stage.span, trace, previous, mark, origin);
+                }
+                previous = mark;
+            }
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Append a complete ("X") event to the given JSON
+     */
+    private static void event(StringBuilder json, String name, Trace trace, long start, long end, long origin) {
+        json.append(",{\"name\":\"").append(name)
+                .append("\",\"cat\":\"").append(trace.command == null ? "request" : trace.command.word)
+                .append("\",\"ph\":\"X\",\"pid\":1,\"tid\":").append(trace.id)
+                .append(",\"ts\":").append((start - origin) / 1000)
+                .append(",\"dur\":").append((end - start) / 1000)
+                .append('}');
+    }
+
+    /**
+     * The stages one request has reached, and when
+     */
+    public static final class Trace {
+        private final long id;
+        private final String action;
+        private NetworkMetrics.Command command;
+
+        /**
+         * When each stage was reached, from System.nanoTime(), indexed by ordinal; 0 if it hasn't
+         * been
+         */
+        private final long[] marks = new long[Stage.values().length];
+
+        private Trace(long id, String action) {
+            this.id = id;
+            this.action = action;
+        }
+
+        /**
+         * Stamp the given stage with the current time. A stage stamped twice, like DELIVERED for
+         * a request that gives more than one callback, keeps the later time.
+         */
+        public void mark(Stage stage) {
+            marks[stage.ordinal()] = System.nanoTime();
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * Return a name for this trace's request, like "#12 move (drag)"
+         */
+        public String getName() {
+            String name = "#" + id + " " + (command == null ? "request" : command.word);
+            return action == null ? name : name + " (" + action + ")";
+        }
+
+        /**
+         * Return when the given stage was reached, from System.nanoTime(), or 0 if it wasn't
+         */
+        public long getMark(Stage stage) {
+            return marks[stage.ordinal()];
+        }
+
+        /**
+         * Return when the first stage this request went through was reached
+         */
+        public long getStart() {
+            for (long mark : marks) {
+                if (mark != 0) {
+                    return mark;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Return when the last stage this request went through was reached
+         */
+        public long getEnd() {
+            for (int i = marks.length - 1; i >= 0; i--) {
+                if (marks[i] != 0) {
+                    return marks[i];
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Return the length of the span ending at the given stage, in nanoseconds, or 0 if the
+         * request didn't reach it
+         */
+        public long getSpan(Stage stage) {
+            int end = stage.ordinal();
+            if (marks[end] == 0) {
+                return 0;
+            }
+            for (int i = end - 1; i >= 0; i--) {
+                if (marks[i] != 0) {
+                    return marks[end] - marks[i];
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(getName());
+            builder.append(String.format(Locale.US, ": %.1fms", (getEnd() - getStart()) / 1e6));
+            boolean started = false;
+            for (Stage stage : Stage.values()) {
+                if (marks[stage.ordinal()] == 0) {
+                    continue;
+                }
+                if (started) {
+                    builder.append(String.format(Locale.US, ", %s %.1fms", stage.span, getSpan(stage) / 1e6));
+                }
+                started = true;
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.lukaswillsie.onlinechess.network;
 
+import androidx.annotation.VisibleForTesting;
+
 import com.lukaswillsie.onlinechess.data.UserGame;
 import com.lukaswillsie.onlinechess.network.helper.ServerHelper;
 import com.lukaswillsie.onlinechess.network.helper.requesters.Connector;
@@ -39,6 +41,23 @@ public class Server {
     }
 
     public static void build(Connector requester) {
-        serverHelper = new ServerHelper(requester);
+        replace(new ServerHelper(requester));
+    }
+
+    /**
+     * Build a ServerHelper that connects to the server at the given address instead of ours, for
+     * tests that stand in a server of their own
+     */
+    @VisibleForTesting
+    public static void build(Connector requester, String hostname, int port) {
+        replace(new ServerHelper(requester, hostname, port));
+    }
+
+    private static void replace(ServerHelper helper) {
+        // Every reconnect builds a new ServerHelper, and the old one's sending thread has to go
+        if (serverHelper != null) {
+            serverHelper.shutdown();
+        }
+        serverHelper = helper;
     }
 }
@@ -0,0 +1,73 @@
+package com.lukaswillsie.onlinechess.network.api;
+
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
+import com.lukaswillsie.onlinechess.network.threads.NetworkThread;
+
+import java.io.DataInputStream;
+import java.io.PrintWriter;
+
+/**
+ * A single request, ready to be given to ServerApi: which command it is, how to write it to the
+ * server, and how to turn the server's answer into a value of type T or a RequestException.
+ * Calls are made by the factory methods in Calls, and can be submitted more than once.
+ * <p>
+ * A Call that only reads from the server, and so gets the same answer however many times it's
+ * made at once, has a key naming its command and arguments. ServerApi gives identical keyed
+ * Calls submitted while one is waiting on the server that one's answer, instead of sending them.
+ *
+ * @param <T> - the type of value the request succeeds with
+ */
+public abstract class Call<T> {
+    /**
+     * The command this call makes, which it's recorded under in NetworkMetrics
+     */
+    private final NetworkMetrics.Command command;
+
+    /**
+     * Identifies this call among in-flight requests; null if it mustn't be shared
+     */
+    private final String key;
+
+    /**
+     * Create a Call that is always sent, because it changes something on the server
+     */
+    Call(NetworkMetrics.Command command) {
+        this(command, null);
+    }
+
+    /**
+     * Create a Call whose result can be shared with any other Call with the same key that's in
+     * flight at the same time
+     *
+     * @param key - the command and every argument that affects the server's answer
+     */
+    Call(NetworkMetrics.Command command, String key) {
+        this.command = command;
+        this.key = key;
+    }
+
+    public NetworkMetrics.Command getCommand() {
+        return command;
+    }
+
+    /**
+     * Return the key this call's result can be shared under
+     *
+     * @return The key, or null if this call mustn't be shared
+     */
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * Create a thread that, when run, will send this call's request on the given connection and
+     * complete the given future with the server's answer. The thread is run, rather than started,
+     * by ServerApi, which fails the future itself if the thread returns without completing it.
+     *
+     * @param api    - the ServerApi the call was submitted to
+     * @param future - the future to complete with the server's answer
+     * @param out    - the device to write the request to the server with
+     * @param in     - the device to read the server's answer with
+     */
+    abstract NetworkThread newThread(ServerApi api, RequestFuture<T> future, PrintWriter out, DataInputStream in);
+}
@@ -0,0 +1,486 @@
+package com.lukaswillsie.onlinechess.network.api;
+
+import com.lukaswillsie.onlinechess.activities.board.Move;
+import com.lukaswillsie.onlinechess.activities.board.PieceType;
+import com.lukaswillsie.onlinechess.data.Game;
+import com.lukaswillsie.onlinechess.data.GameHistory;
+import com.lukaswillsie.onlinechess.data.UserGame;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
+import com.lukaswillsie.onlinechess.network.ReturnCodes;
+import com.lukaswillsie.onlinechess.network.threads.GameDataThread;
+import com.lukaswillsie.onlinechess.network.threads.JoinGameThread;
+import com.lukaswillsie.onlinechess.network.threads.LoadGameThread;
+import com.lukaswillsie.onlinechess.network.threads.LoadGamesThread;
+import com.lukaswillsie.onlinechess.network.threads.LoginThread;
+import com.lukaswillsie.onlinechess.network.threads.NetworkThread;
+import com.lukaswillsie.onlinechess.network.threads.OpenGamesThread;
+import com.lukaswillsie.onlinechess.network.threads.ReturnCodeThread;
+import com.lukaswillsie.onlinechess.network.threads.callers.GameDataCaller;
+import com.lukaswillsie.onlinechess.network.threads.callers.JoinGameCaller;
+import com.lukaswillsie.onlinechess.network.threads.callers.LoadGameCaller;
+import com.lukaswillsie.onlinechess.network.threads.callers.LoadGamesCaller;
+import com.lukaswillsie.onlinechess.network.threads.callers.LoginCaller;
+import com.lukaswillsie.onlinechess.network.threads.callers.OpenGamesCaller;
+import com.lukaswillsie.onlinechess.network.threads.callers.ReturnCodeCaller;
+import com.lukaswillsie.onlinechess.network.threads.callers.ThreadCaller;
+
+import java.io.DataInputStream;
+import java.io.PrintWriter;
+import java.util.List;
+
+import Chess.com.lukaswillsie.chess.Board;
+import Chess.com.lukaswillsie.chess.Pair;
+
+/**
+ * The registry of every request ServerApi can make, one factory method per server command. Each
+ * Call knows how to write its request and which of our network threads decodes the answer, and
+ * turns that thread's callbacks into the outcome of a RequestFuture.
+ * <p>
+ * The value a Call succeeds with is the same thing the matching Requester's success callback is
+ * given. Every other callback becomes a RequestException: server errors, system errors and lost
+ * connections with the matching outcome, and everything else, like a game not existing, as a
+ * rejection carrying the server's code from ReturnCodes. Codes outside protocol, and the three
+ * codes any command can get back (NO_USER, FORMAT_INVALID and SERVER_ERROR), are server errors,
+ * as they are to the SubHelpers, since the app never makes a request it expects them for.
+ * <p>
+ * The Calls that only read (gameData(), loadGame(), loadGames() and openGames()) are keyed, so
+ * that identical ones in flight at once share a single request; see Call.
+ */
+public final class Calls {
+    private Calls() {
+    }
+
+    /**
+     * Log in the given user
+     *
+     * @return A Call that succeeds with the user's games, or is rejected with one of the codes in
+     * ReturnCodes.Login
+     */
+    public static Call<List<UserGame>> login(final String username, final String password) {
+        return new Call<List<UserGame>>(NetworkMetrics.Command.LOGIN) {
+            @Override
+            NetworkThread newThread(ServerApi api, RequestFuture<List<UserGame>> future, PrintWriter out, DataInputStream in) {
+                return new LoginThread(username, password, new LoginAdapter(getCommand(), future), out, in);
+            }
+        };
+    }
+
+    /**
+     * Create an account with the given credentials
+     *
+     * @return A Call that succeeds with no value, or is rejected with one of the codes in
+     * ReturnCodes.Create
+     */
+    public static Call<Void> createAccount(String username, String password) {
+        return new ReturnCodeCall<>(NetworkMetrics.Command.CREATE_ACCOUNT, "create " + username + " " + password,
+                ReturnCodes.Create.FORMAT_INVALID);
+    }
+
+    /**
+     * Create a game with the given ID, with the given user playing white
+     *
+     * @param open - whether anybody should be able to see and join the game
+     * @return A Call that succeeds with the new game, or is rejected with one of the codes in
+     * ReturnCodes.CreateGame
+     */
+    public static Call<UserGame> createGame(final String gameID, boolean open, final String username) {
+        return new ReturnCodeCall<UserGame>(NetworkMetrics.Command.CREATE_GAME,
+                "creategame " + gameID + " " + (open ? "1" : "0"), ReturnCodes.CreateGame.FORMAT_INVALID) {
+            @Override
+            void decode(int code, ReturnCodeAdapter<UserGame> adapter) {
+                if (code != ReturnCodes.CreateGame.SUCCESS) {
+                    super.decode(code, adapter);
+                    return;
+                }
+
+                // The server doesn't send the new game's data, because it's all known
+                UserGame game = UserGame.created(gameID, username);
+                if (game == null) {
+                    adapter.serverError();
+                } else {
+                    adapter.future.complete(game);
+                }
+            }
+        };
+    }
+
+    /**
+     * Have the given user join the game with the given ID
+     *
+     * @return A Call that succeeds with the joined game, or is rejected with one of the codes in
+     * ReturnCodes.JoinGame
+     */
+    public static Call<UserGame> joinGame(final String gameID, final String username) {
+        return new Call<UserGame>(NetworkMetrics.Command.JOIN_GAME) {
+            @Override
+            NetworkThread newThread(ServerApi api, RequestFuture<UserGame> future, PrintWriter out, DataInputStream in) {
+                return new JoinGameThread(new JoinGameAdapter(getCommand(), future), gameID, username, out, in);
+            }
+        };
+    }
+
+    /**
+     * Fetch the data of the game with the given ID, without its board
+     *
+     * @param username - the user currently logged in
+     * @return A Call that succeeds with the game, or is rejected with one of the codes in
+     * ReturnCodes.GetGameData
+     */
+    public static Call<UserGame> gameData(final String gameID, final String username) {
+        return new Call<UserGame>(NetworkMetrics.Command.GET_GAME_DATA, "getgamedata " + gameID + " " + username) {
+            @Override
+            NetworkThread newThread(ServerApi api, RequestFuture<UserGame> future, PrintWriter out, DataInputStream in) {
+                return new GameDataThread(gameID, username, new GameDataAdapter(getCommand(), future), out, in);
+            }
+        };
+    }
+
+    /**
+     * Load the game with the given ID: its data, its board and, if the server keeps it, its move
+     * history
+     *
+     * @param username - the user currently logged in
+     * @return A Call that succeeds with the loaded game, or is rejected with one of the codes in
+     * ReturnCodes.LoadGame
+     */
+    public static Call<LoadedGame> loadGame(final String gameID, final String username) {
+        return new Call<LoadedGame>(NetworkMetrics.Command.LOAD_GAME, "loadgame " + gameID + " " + username) {
+            @Override
+            NetworkThread newThread(ServerApi api, RequestFuture<LoadedGame> future, PrintWriter out, DataInputStream in) {
+                return new LoadGameThread(new LoadGameAdapter(getCommand(), future, api), gameID, username,
+                        api.isHistorySupported(), out, in);
+            }
+        };
+    }
+
+    /**
+     * Load every game the user currently logged in is playing
+     *
+     * @return A Call that succeeds with the user's games
+     */
+    public static Call<List<UserGame>> loadGames(final String username) {
+        return new Call<List<UserGame>>(NetworkMetrics.Command.LOAD_GAMES, "loadgames " + username) {
+            @Override
+            NetworkThread newThread(ServerApi api, RequestFuture<List<UserGame>> future, PrintWriter out, DataInputStream in) {
+                return new LoadGamesThread(username, new LoadGamesAdapter(getCommand(), future), out, in);
+            }
+        };
+    }
+
+    /**
+     * List every open game on the server
+     *
+     * @return A Call that succeeds with the open games
+     */
+    public static Call<List<Game>> openGames() {
+        return new Call<List<Game>>(NetworkMetrics.Command.OPEN_GAMES, "opengames") {
+            @Override
+            NetworkThread newThread(ServerApi api, RequestFuture<List<Game>> future, PrintWriter out, DataInputStream in) {
+                return new OpenGamesThread(new OpenGamesAdapter(getCommand(), future), out, in);
+            }
+        };
+    }
+
+    /**
+     * Make the given move in the game with the given ID
+     *
+     * @return A Call that succeeds with whether the move needs a promotion to follow it, or is
+     * rejected with one of the codes in ReturnCodes.Move
+     */
+    public static Call<Boolean> move(String gameID, Move move) {
+        Pair src = move.src;
+        Pair dest = move.dest;
+        String request = "move " + gameID + " " + src.first() + "," + src.second() + "->" + dest.first() + "," + dest.second();
+        return new ReturnCodeCall<Boolean>(NetworkMetrics.Command.MOVE, request, ReturnCodes.Move.MOVE_INVALID) {
+            @Override
+            void decode(int code, ReturnCodeAdapter<Boolean> adapter) {
+                if (code == ReturnCodes.Move.SUCCESS) {
+                    adapter.future.complete(false);
+                } else if (code == ReturnCodes.Move.SUCCESS_PROMOTION_NEEDED) {
+                    adapter.future.complete(true);
+                } else {
+                    super.decode(code, adapter);
+                }
+            }
+        };
+    }
+
+    /**
+     * Promote the pawn waiting to be promoted in the game with the given ID into the given piece
+     *
+     * @return A Call that succeeds with no value, or is rejected with one of the codes in
+     * ReturnCodes.Promote
+     */
+    public static Call<Void> promote(String gameID, PieceType.PromotePiece piece) {
+        return new ReturnCodeCall<>(NetworkMetrics.Command.PROMOTE, "promote " + gameID + " " + piece.charRep,
+                ReturnCodes.Promote.CHAR_REP_INVALID);
+    }
+
+    /**
+     * Offer a draw in the game with the given ID, or accept the opponent's offer if there is one
+     *
+     * @return A Call that succeeds with no value, or is rejected with one of the codes in
+     * ReturnCodes.Draw
+     */
+    public static Call<Void> draw(String gameID) {
+        return new ReturnCodeCall<>(NetworkMetrics.Command.DRAW, "draw " + gameID, ReturnCodes.Draw.NOT_USER_TURN);
+    }
+
+    /**
+     * Reject the opponent's draw offer in the game with the given ID
+     *
+     * @return A Call that succeeds with no value, or is rejected with one of the codes in
+     * ReturnCodes.Reject
+     */
+    public static Call<Void> reject(String gameID) {
+        return new ReturnCodeCall<>(NetworkMetrics.Command.REJECT, "reject " + gameID, ReturnCodes.Reject.NO_DRAW_OFFER);
+    }
+
+    /**
+     * Forfeit the game with the given ID
+     *
+     * @return A Call that succeeds with no value, or is rejected with one of the codes in
+     * ReturnCodes.Forfeit
+     */
+    public static Call<Void> forfeit(String gameID) {
+        return new ReturnCodeCall<>(NetworkMetrics.Command.FORFEIT, "forfeit " + gameID, ReturnCodes.Forfeit.NOT_USER_TURN);
+    }
+
+    /**
+     * Archive the game with the given ID for the user
+     *
+     * @return A Call that succeeds with no value, or is rejected with one of the codes in
+     * ReturnCodes.Archive
+     */
+    public static Call<Void> archive(String gameID) {
+        return new ReturnCodeCall<>(NetworkMetrics.Command.ARCHIVE, "archive " + gameID, ReturnCodes.Archive.USER_NOT_IN_GAME);
+    }
+
+    /**
+     * Restore the archived game with the given ID for the user
+     *
+     * @return A Call that succeeds with no value, or is rejected with one of the codes in
+     * ReturnCodes.Restore
+     */
+    public static Call<Void> restore(String gameID) {
+        return new ReturnCodeCall<>(NetworkMetrics.Command.RESTORE, "restore " + gameID, ReturnCodes.Restore.USER_NOT_IN_GAME);
+    }
+
+    /**
+     * A Call whose answer is a single return code, read by a ReturnCodeThread
+     */
+    private static class ReturnCodeCall<T> extends Call<T> {
+        private final String request;
+
+        /**
+         * The highest code the command can be answered with; anything above it is outside protocol
+         */
+        private final int lastCode;
+
+        ReturnCodeCall(NetworkMetrics.Command command, String request, int lastCode) {
+            super(command);
+            this.request = request;
+            this.lastCode = lastCode;
+        }
+
+        @Override
+        NetworkThread newThread(ServerApi api, RequestFuture<T> future, PrintWriter out, DataInputStream in) {
+            return new ReturnCodeThread(getCommand(), request, new ReturnCodeAdapter<>(this, future), out, in);
+        }
+
+        /**
+         * Turn a code within protocol into the outcome of the given adapter's future. Every
+         * command's SUCCESS code is 0, which by default succeeds with no value; any other code is a
+         * rejection.
+         */
+        void decode(int code, ReturnCodeAdapter<T> adapter) {
+            if (code == 0) {
+                adapter.future.complete(null);
+            } else {
+                adapter.rejected(code);
+            }
+        }
+    }
+
+    /**
+     * Turns the callbacks common to all our threads into failures of a future
+     */
+    private abstract static class FutureCaller<T> implements ThreadCaller {
+        final NetworkMetrics.Command command;
+        final RequestFuture<T> future;
+
+        FutureCaller(NetworkMetrics.Command command, RequestFuture<T> future) {
+            this.command = command;
+            this.future = future;
+        }
+
+        @Override
+        public void systemError() {
+            future.fail(new RequestException(NetworkMetrics.Outcome.SYSTEM_ERROR,
+                    "System error making " + command.word + " request"));
+        }
+
+        @Override
+        public void connectionLost() {
+            future.fail(new RequestException(NetworkMetrics.Outcome.CONNECTION_LOST,
+                    "Connection lost making " + command.word + " request"));
+        }
+
+        public void serverError() {
+            future.fail(new RequestException(NetworkMetrics.Outcome.SERVER_ERROR,
+                    "Server error in response to " + command.word + " request"));
+        }
+
+        void rejected(int code) {
+            future.fail(new RequestException(command, code));
+        }
+    }
+
+    private static class ReturnCodeAdapter<T> extends FutureCaller<T> implements ReturnCodeCaller {
+        private final ReturnCodeCall<T> call;
+
+        ReturnCodeAdapter(ReturnCodeCall<T> call, RequestFuture<T> future) {
+            super(call.getCommand(), future);
+            this.call = call;
+        }
+
+        @Override
+        public void onServerReturn(int code) {
+            if (code < 0 || code > call.lastCode) {
+                // NO_USER, FORMAT_INVALID and SERVER_ERROR are all negative
+                serverError();
+            } else {
+                call.decode(code, this);
+            }
+        }
+    }
+
+    private static class LoginAdapter extends FutureCaller<List<UserGame>> implements LoginCaller {
+        LoginAdapter(NetworkMetrics.Command command, RequestFuture<List<UserGame>> future) {
+            super(command, future);
+        }
+
+        @Override
+        public void loginSuccess() {
+            // The user's games follow, and the login is only over once we have them
+        }
+
+        @Override
+        public void usernameInvalid() {
+            rejected(ReturnCodes.Login.USERNAME_DOES_NOT_EXIST);
+        }
+
+        @Override
+        public void passwordInvalid() {
+            rejected(ReturnCodes.Login.PASSWORD_INVALID);
+        }
+
+        @Override
+        public void loginComplete(List<UserGame> games) {
+            future.complete(games);
+        }
+    }
+
+    private static class JoinGameAdapter extends FutureCaller<UserGame> implements JoinGameCaller {
+        JoinGameAdapter(NetworkMetrics.Command command, RequestFuture<UserGame> future) {
+            super(command, future);
+        }
+
+        @Override
+        public void gameJoined() {
+            // The game's data follows, and the request is only over once we have it
+        }
+
+        @Override
+        public void gameDoesNotExist() {
+            rejected(ReturnCodes.JoinGame.GAME_DOES_NOT_EXIST);
+        }
+
+        @Override
+        public void gameFull() {
+            rejected(ReturnCodes.JoinGame.GAME_FULL);
+        }
+
+        @Override
+        public void userAlreadyInGame() {
+            rejected(ReturnCodes.JoinGame.USER_ALREADY_IN_GAME);
+        }
+
+        @Override
+        public void joinGameComplete(UserGame game) {
+            future.complete(game);
+        }
+    }
+
+    private static class GameDataAdapter extends FutureCaller<UserGame> implements GameDataCaller {
+        GameDataAdapter(NetworkMetrics.Command command, RequestFuture<UserGame> future) {
+            super(command, future);
+        }
+
+        @Override
+        public void success(UserGame game) {
+            future.complete(game);
+        }
+
+        @Override
+        public void gameDoesNotExist() {
+            rejected(ReturnCodes.GetGameData.GAME_DOES_NOT_EXIST);
+        }
+
+        @Override
+        public void userNotInGame() {
+            rejected(ReturnCodes.GetGameData.USER_NOT_IN_GAME);
+        }
+    }
+
+    private static class LoadGameAdapter extends FutureCaller<LoadedGame> implements LoadGameCaller {
+        private final ServerApi api;
+
+        LoadGameAdapter(NetworkMetrics.Command command, RequestFuture<LoadedGame> future, ServerApi api) {
+            super(command, future);
+            this.api = api;
+        }
+
+        @Override
+        public void success(Board board, UserGame game, GameHistory history) {
+            future.complete(new LoadedGame(board, game, history));
+        }
+
+        @Override
+        public void historyNotSupported() {
+            api.historyNotSupported();
+        }
+
+        @Override
+        public void gameDoesNotExist() {
+            rejected(ReturnCodes.LoadGame.GAME_DOES_NOT_EXIST);
+        }
+
+        @Override
+        public void userNotInGame() {
+            rejected(ReturnCodes.LoadGame.USER_NOT_IN_GAME);
+        }
+    }
+
+    private static class LoadGamesAdapter extends FutureCaller<List<UserGame>> implements LoadGamesCaller {
+        LoadGamesAdapter(NetworkMetrics.Command command, RequestFuture<List<UserGame>> future) {
+            super(command, future);
+        }
+
+        @Override
+        public void success(List<UserGame> games) {
+            future.complete(games);
+        }
+    }
+
+    private static class OpenGamesAdapter extends FutureCaller<List<Game>> implements OpenGamesCaller {
+        OpenGamesAdapter(NetworkMetrics.Command command, RequestFuture<List<Game>> future) {
+            super(command, future);
+        }
+
+        @Override
+        public void openGames(List<Game> games) {
+            future.complete(games);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.lukaswillsie.onlinechess.network.api;
+
+import android.util.Log;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.OnLifecycleEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tells ServerApi when whoever made a request no longer wants its result. A token is given to
+ * ServerApi.submit() along with a Call, and once it's cancelled, the future submit() returned
+ * stops running its callbacks. If the request is still waiting its turn, and nobody else is
+ * waiting on it, it isn't sent at all.
+ * <p>
+ * Requests made on behalf of an Activity should use the token of its Lifecycle, from of(), which
+ * is cancelled when the Activity is destroyed. A request that has already been sent can't be taken
+ * back, since its answer has to be read off the connection either way, but its callbacks won't
+ * reach a destroyed Activity, and requests queued up behind a slow one aren't sent for nobody.
+ * <p>
+ * Tokens can also be made with the constructor and cancelled by hand, from any thread.
+ */
+public final class CancellationToken implements LifecycleObserver {
+    /**
+     * Tag used for logging to the console
+     */
+    private static final String tag = "CancellationToken";
+
+    /**
+     * The token of each Lifecycle that has asked for one and hasn't been destroyed yet. A token
+     * holds on to its Lifecycle, and the Lifecycle to the token as an observer, so a weak map would
+     * never let go of either; instead, each entry is removed by its token's onDestroy(). Only
+     * touched on the UI thread.
+     */
+    private static final Map<Lifecycle, CancellationToken> tokens = new HashMap<>();
+
+    private volatile boolean cancelled;
+
+    /**
+     * The Lifecycle we're watching, or null if we're cancelled by hand
+     */
+    private Lifecycle lifecycle;
+
+    /**
+     * Return the token that is cancelled when the given owner is destroyed. Every request made
+     * for the same owner shares one token. Only call this from the UI thread.
+     *
+     * @param owner - the Activity, or other LifecycleOwner, making requests
+     * @return The owner's token, already cancelled if the owner has been destroyed
+     */
+    public static CancellationToken of(LifecycleOwner owner) {
+        Lifecycle lifecycle = owner.getLifecycle();
+        CancellationToken token = tokens.get(lifecycle);
+        if (token != null) {
+            return token;
+        }
+
+        token = new CancellationToken();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            Log.i(tag, "Token asked for by an owner that has already been destroyed");
+            token.cancel();
+        } else {
+            token.lifecycle = lifecycle;
+            tokens.put(lifecycle, token);
+            lifecycle.addObserver(token);
+        }
+        return token;
+    }
+
+    /**
+     * Cancel every request made with this token. Has no effect on a token that's already been
+     * cancelled.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Called when our Lifecycle reaches ON_DESTROY
+     */
+    @OnLifecycleEvent(Lifecycle.Event.ON_DESTROY)
+    void onDestroy() {
+        cancel();
+        if (lifecycle != null) {
+            tokens.remove(lifecycle);
+            lifecycle.removeObserver(this);
+            lifecycle = null;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.lukaswillsie.onlinechess.network.api;
+
+import com.lukaswillsie.onlinechess.data.GameHistory;
+import com.lukaswillsie.onlinechess.data.UserGame;
+
+import Chess.com.lukaswillsie.chess.Board;
+
+/**
+ * Everything a loadgame request gives back: the game's board, its data and, if the server keeps
+ * it, its move history. The same three things LoadGameRequester.success() is given.
+ */
+public class LoadedGame {
+    private final Board board;
+    private final UserGame game;
+    private final GameHistory history;
+
+    LoadedGame(Board board, UserGame game, GameHistory history) {
+        this.board = board;
+        this.game = game;
+        this.history = history;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public UserGame getGame() {
+        return game;
+    }
+
+    /**
+     * Return the game's move history
+     *
+     * @return The history, or null if the server doesn't keep one
+     */
+    public GameHistory getHistory() {
+        return history;
+    }
+}
@@ -0,0 +1,38 @@
+package com.lukaswillsie.onlinechess.network.api;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs everything it's given on the UI thread, by posting it to the main Looper. This is where
+ * ServerApi's futures run their callbacks, so that, like a SubHelper's callbacks, they can update
+ * the UI directly.
+ * <p>
+ * Tasks are always posted, even from the UI thread, so a callback never runs in the middle of
+ * the code that added it.
+ */
+public final class MainThreadExecutor implements Executor {
+    private static MainThreadExecutor instance;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private MainThreadExecutor() {
+    }
+
+    /**
+     * Return the one MainThreadExecutor, creating it if need be
+     */
+    public static synchronized MainThreadExecutor get() {
+        if (instance == null) {
+            instance = new MainThreadExecutor();
+        }
+        return instance;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        handler.post(command);
+    }
+}
@@ -0,0 +1,69 @@
+package com.lukaswillsie.onlinechess.network.api;
+
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
+
+/**
+ * Why a request made through ServerApi didn't succeed. Every failure has an outcome, the same one
+ * it's recorded under in NetworkMetrics. A request the server turned down (REJECTED) also carries
+ * the code the server returned, one of the constants in ReturnCodes for the request's command,
+ * so that callers can tell, say, a game that doesn't exist from a move that isn't legal.
+ */
+public class RequestException extends Exception {
+    /**
+     * How the request turned out; never SUCCESS
+     */
+    private final NetworkMetrics.Outcome outcome;
+
+    /**
+     * The code the server returned, if the request was rejected; otherwise -1
+     */
+    private final int code;
+
+    /**
+     * Create an exception for a request that failed without the server turning it down
+     *
+     * @param outcome - how the request turned out: a server error, a system error or a lost
+     *                connection
+     * @param message - what went wrong, for the logs
+     */
+    public RequestException(NetworkMetrics.Outcome outcome, String message) {
+        super(message);
+        this.outcome = outcome;
+        this.code = -1;
+    }
+
+    /**
+     * Create an exception for a request that the server turned down with the given code
+     *
+     * @param command - the command that was turned down
+     * @param code    - the code the server returned
+     */
+    public RequestException(NetworkMetrics.Command command, int code) {
+        super("Server rejected " + command.word + " with code " + code);
+        this.outcome = NetworkMetrics.Outcome.REJECTED;
+        this.code = code;
+    }
+
+    public NetworkMetrics.Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Return the code the server turned the request down with
+     *
+     * @return one of the constants in ReturnCodes for the request's command, or -1 if the request
+     * wasn't rejected
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Check whether the server turned the request down with the given code
+     *
+     * @param code - one of the constants in ReturnCodes for the request's command
+     */
+    public boolean isRejected(int code) {
+        return outcome == NetworkMetrics.Outcome.REJECTED && this.code == code;
+    }
+}
@@ -0,0 +1,405 @@
+package com.lukaswillsie.onlinechess.network.api;
+
+import com.lukaswillsie.onlinechess.network.NetworkTrace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The result of a request made through ServerApi, which will either succeed with a value or fail
+ * with a RequestException. It's our take on CompletableFuture, which isn't available at our
+ * minimum API level: callbacks are given with whenDone(), and futures are combined with map(),
+ * then(), both() and all() instead of nesting one request's callbacks inside another's.
+ * <p>
+ * Every callback, and every function given to map() or then(), runs on the future's executor,
+ * which for futures made by ServerApi is the UI thread. So callbacks can touch the UI, just like
+ * the callbacks SubHelpers give to their requesters. Callbacks added after the future is done run
+ * straight away, by way of the executor, so there's no window in which a result can be missed.
+ * <p>
+ * A future made with a CancellationToken (see ServerApi.submit()) runs no callbacks once the
+ * token is cancelled, including callbacks that were already waiting to run. Futures made from it
+ * with map() and then(), and futures waiting on it with all() and both(), are never done.
+ * <p>
+ * A future can't be completed from outside this package; ServerApi does that once the server has
+ * answered.
+ *
+ * @param <T> - the type of value the request succeeds with; Void for requests that don't give one
+ */
+public class RequestFuture<T> {
+    /**
+     * Receives the outcome of a request, on the future's executor
+     *
+     * @param <T> - the type of value the request succeeds with
+     */
+    public interface Callback<T> {
+        void onSuccess(T result);
+
+        void onFailure(RequestException e);
+    }
+
+    /**
+     * Turns the value of one request into something else, as given to map()
+     */
+    public interface Transform<A, B> {
+        /**
+         * @throws RequestException - to fail the future returned by map(), for example if the
+         *                          value turns out not to be usable
+         */
+        B apply(A value) throws RequestException;
+    }
+
+    /**
+     * Makes a second request from the value of a first, as given to then()
+     */
+    public interface Continuation<A, B> {
+        RequestFuture<B> apply(A value);
+    }
+
+    /**
+     * Combines the values of two requests, as given to both()
+     */
+    public interface Combiner<A, B, R> {
+        R combine(A first, B second);
+    }
+
+    private final Executor executor;
+
+    /*
+     * The outcome, once there is one. Guarded by this.
+     */
+    private boolean done;
+    private T result;
+    private RequestException failure;
+
+    /**
+     * The callbacks waiting on us; null once we're done. Guarded by this.
+     */
+    private List<Callback<? super T>> callbacks = new ArrayList<>();
+
+    /**
+     * The trace of the request we're the result of, stamped as our result is posted and delivered
+     * and finished once our callbacks have run; null if the request isn't traced
+     */
+    private volatile NetworkTrace.Trace trace;
+
+    /**
+     * Cancels our callbacks; null if they can't be cancelled
+     */
+    private volatile CancellationToken token;
+
+    /**
+     * Create a future whose callbacks will run on the given executor
+     *
+     * @param executor - runs this future's callbacks
+     */
+    RequestFuture(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Return a future that has already succeeded with the given value, for when a result is already
+     * known but has to be combined with the results of requests
+     *
+     * @param value    - the value the future succeeds with
+     * @param executor - runs the future's callbacks
+     */
+    public static <T> RequestFuture<T> completed(T value, Executor executor) {
+        RequestFuture<T> future = new RequestFuture<>(executor);
+        future.complete(value);
+        return future;
+    }
+
+    /**
+     * Return a future that has already failed with the given exception
+     *
+     * @param e        - the exception the future fails with
+     * @param executor - runs the future's callbacks
+     */
+    public static <T> RequestFuture<T> failed(RequestException e, Executor executor) {
+        RequestFuture<T> future = new RequestFuture<>(executor);
+        future.fail(e);
+        return future;
+    }
+
+    /**
+     * Return a future that succeeds once every one of the given futures has, with their values in
+     * the same order, or fails as soon as any one of them does. The requests themselves are already
+     * under way, so this doesn't change when they're sent.
+     *
+     * @param executor - runs the returned future's callbacks
+     * @param futures  - the futures to wait on
+     */
+    public static <T> RequestFuture<List<T>> all(Executor executor, List<RequestFuture<T>> futures) {
+        final RequestFuture<List<T>> all = new RequestFuture<>(executor);
+        final int size = futures.size();
+        if (size == 0) {
+            all.complete(new ArrayList<T>());
+            return all;
+        }
+
+        final Object[] results = new Object[size];
+        final AtomicInteger remaining = new AtomicInteger(size);
+        for (int i = 0; i < size; i++) {
+            final int index = i;
+            futures.get(i).whenDone(new Callback<T>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public void onSuccess(T result) {
+                    results[index] = result;
+
+                    // The decrement publishes every result written before it
+                    if (remaining.decrementAndGet() == 0) {
+                        List<T> values = new ArrayList<>(size);
+                        for (Object value : results) {
+                            values.add((T) value);
+                        }
+                        all.complete(values);
+                    }
+                }
+
+                @Override
+                public void onFailure(RequestException e) {
+                    all.fail(e);
+                }
+            });
+        }
+        return all;
+    }
+
+    /**
+     * Return a future that succeeds once both of the given futures have, with their values
+     * combined by the given Combiner, or fails if either one does. Like all(), it only waits on
+     * requests already under way, so the two requests are still made side by side.
+     *
+     * @param first    - the first future to wait on, whose executor the returned future uses
+     * @param second   - the second future to wait on
+     * @param combiner - combines the two values, on the first future's executor
+     */
+    public static <A, B, R> RequestFuture<R> both(RequestFuture<A> first, final RequestFuture<B> second,
+                                                  final Combiner<A, B, R> combiner) {
+        return first.then(new Continuation<A, R>() {
+            @Override
+            public RequestFuture<R> apply(final A a) {
+                return second.map(new Transform<B, R>() {
+                    @Override
+                    public R apply(B b) {
+                        return combiner.combine(a, b);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Give the given callback the outcome of this future, once there is one
+     *
+     * @param callback - will receive the outcome, on this future's executor
+     * @return This future, so that calls can be chained
+     */
+    public RequestFuture<T> whenDone(Callback<? super T> callback) {
+        synchronized (this) {
+            if (!done) {
+                callbacks.add(callback);
+                return this;
+            }
+        }
+
+        List<Callback<? super T>> single = new ArrayList<>(1);
+        single.add(callback);
+        dispatch(single, result, failure, false);
+        return this;
+    }
+
+    /**
+     * Return a future that succeeds with this future's value put through the given Transform, or
+     * fails if this one does, or if the Transform throws
+     *
+     * @param transform - turns this future's value into the returned future's, on this future's
+     *                  executor
+     */
+    public <B> RequestFuture<B> map(final Transform<? super T, B> transform) {
+        final RequestFuture<B> next = new RequestFuture<>(executor);
+        whenDone(new Callback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                B value;
+                try {
+                    value = transform.apply(result);
+                } catch (RequestException e) {
+                    next.fail(e);
+                    return;
+                }
+                next.complete(value);
+            }
+
+            @Override
+            public void onFailure(RequestException e) {
+                next.fail(e);
+            }
+        });
+        return next;
+    }
+
+    /**
+     * Return a future for a request made from this future's value once it succeeds, like archiving
+     * a game and then reloading the user's games. If this future fails, the second request isn't
+     * made and the returned future fails the same way.
+     *
+     * @param continuation - makes the second request, on this future's executor
+     */
+    public <B> RequestFuture<B> then(final Continuation<? super T, B> continuation) {
+        final RequestFuture<B> next = new RequestFuture<>(executor);
+        whenDone(new Callback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                continuation.apply(result).whenDone(new Callback<B>() {
+                    @Override
+                    public void onSuccess(B result) {
+                        next.complete(result);
+                    }
+
+                    @Override
+                    public void onFailure(RequestException e) {
+                        next.fail(e);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(RequestException e) {
+                next.fail(e);
+            }
+        });
+        return next;
+    }
+
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Return the exception this future failed with
+     *
+     * @return The exception, or null if this future succeeded or isn't done yet
+     */
+    public synchronized RequestException getFailure() {
+        return failure;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Check whether whoever this future is for has gone away, in which case its callbacks won't run
+     */
+    public boolean isCancelled() {
+        CancellationToken token = this.token;
+        return token != null && token.isCancelled();
+    }
+
+    /**
+     * Return the value this future succeeded with
+     *
+     * @return The value, or null if this future failed or isn't done yet
+     */
+    synchronized T getResult() {
+        return result;
+    }
+
+    /**
+     * Give this future the trace of the request it's the result of. Must be called before the
+     * future is done.
+     */
+    void setTrace(NetworkTrace.Trace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Give this future the token that cancels its callbacks
+     *
+     * @param token - the token, or null if the callbacks can't be cancelled
+     */
+    void setToken(CancellationToken token) {
+        this.token = token;
+    }
+
+    /**
+     * Succeed with the given value, unless we're already done
+     *
+     * @return Whether this call was the one that completed us
+     */
+    boolean complete(T value) {
+        return settle(value, null);
+    }
+
+    /**
+     * Fail with the given exception, unless we're already done
+     *
+     * @return Whether this call was the one that completed us
+     */
+    boolean fail(RequestException e) {
+        return settle(null, e);
+    }
+
+    private boolean settle(T value, RequestException e) {
+        List<Callback<? super T>> waiting;
+        synchronized (this) {
+            if (done) {
+                return false;
+            }
+            done = true;
+            result = value;
+            failure = e;
+            waiting = callbacks;
+            callbacks = null;
+        }
+
+        NetworkTrace.Trace trace = this.trace;
+        if (trace != null) {
+            trace.mark(NetworkTrace.Stage.POSTED);
+        }
+        dispatch(waiting, value, e, trace != null);
+        return true;
+    }
+
+    /**
+     * Run the given callbacks with the given outcome on our executor, all in one go, unless we've
+     * been cancelled by the time they're picked up. If we're traced, the trace is stamped as they're
+     * picked up, and finished once they've all returned.
+     */
+    private void dispatch(final List<Callback<? super T>> callbacks, final T value,
+                          final RequestException e, final boolean traced) {
+        if (callbacks.isEmpty() && !traced) {
+            return;
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                NetworkTrace.Trace trace = traced ? RequestFuture.this.trace : null;
+                if (trace != null) {
+                    trace.mark(NetworkTrace.Stage.DELIVERED);
+                }
+
+                // Checked here, on the executor, because that's where our owner is destroyed
+                if (!isCancelled()) {
+                    for (Callback<? super T> callback : callbacks) {
+                        if (e == null) {
+                            callback.onSuccess(value);
+                        } else {
+                            callback.onFailure(e);
+                        }
+                    }
+                }
+
+                if (trace != null) {
+                    RequestFuture.this.trace = null;
+                    NetworkTrace.finish(trace);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,323 @@
+package com.lukaswillsie.onlinechess.network.api;
+
+import com.lukaswillsie.onlinechess.network.NetworkLog;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
+import com.lukaswillsie.onlinechess.network.NetworkTrace;
+import com.lukaswillsie.onlinechess.network.threads.NetworkThread;
+import com.lukaswillsie.onlinechess.network.threads.OutboundScheduler;
+
+import java.io.DataInputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Makes requests of the server and hands back their results as RequestFutures, so that requests
+ * can be combined without writing a Requester, and without each kind of request going through a
+ * SubHelper of its own. For example, a screen that needs a game loaded along with its latest game
+ * data makes both requests one after the other and waits on RequestFuture.both(), instead of
+ * making the second request from the first one's callback. There's no limit of one active request
+ * per kind, either: any number of requests, of any kind, can be in flight at once.
+ * <p>
+ * Requests go to the server one at a time through the connection's OutboundScheduler, which
+ * ServerHelper's SubHelpers send theirs through too, so the two can be used side by side. Requests
+ * of the same priority class go in the order they're submitted. Like a SubHelper, we record every
+ * request in NetworkMetrics and NetworkTrace, and dump NetworkLog when one ends in a server or
+ * system error.
+ * <p>
+ * Requests that only read, like loading a game, are shared: submitting one while an identical one
+ * (see Call.getKey()) is still waiting on the server doesn't send it again, but gives it the
+ * answer to the one in flight, so that, say, a double tap on "Refresh" or two screens loading the
+ * same game cost one round trip between them. Everyone sharing a request is given the same result
+ * objects, so they should be treated as read-only. How often this happens is recorded in
+ * NetworkMetrics.
+ * <p>
+ * A request can be given a CancellationToken, usually that of the Activity making it. Once the
+ * token is cancelled, the request's callbacks don't run, and if it's still waiting its turn when
+ * that happens, and nobody sharing it still wants it, it isn't sent. A request that runs past its
+ * command's deadline fails with TIMED_OUT, and, because its connection is closed to abandon it
+ * (see NetworkThread), everything submitted after it fails with a lost connection until we're
+ * given a new one.
+ * <p>
+ * The instance the app uses belongs to ServerHelper (see ServerHelper.getApi()), which gives it the
+ * connection once one is established. Requests should be submitted from the UI thread, like
+ * requests made through ServerHelper, so that they pick up the trace of the user action that made
+ * them.
+ */
+public class ServerApi {
+    /**
+     * Tag used for logging to the console
+     */
+    private static final String tag = "ServerApi";
+
+    /**
+     * Runs our futures' callbacks
+     */
+    private final Executor callbackExecutor;
+
+    /**
+     * Sends our requests, in turn with everyone else's on the connection
+     */
+    private final OutboundScheduler scheduler;
+
+    /*
+     * The devices we use to talk to the server; null until we're given a connection
+     */
+    private volatile PrintWriter out;
+    private volatile DataInputStream in;
+
+    /**
+     * Whether the server on the other end of our connection has told us it doesn't keep move
+     * history, in which case loadgame requests don't ask for it
+     */
+    private volatile boolean historyNotSupported;
+
+    /**
+     * The shareable requests that have been submitted and not yet answered, by key. Guards the
+     * list of futures of every Pending, shared or not.
+     */
+    private final Map<String, Pending<?>> inFlight = new HashMap<>();
+
+    /**
+     * Create a ServerApi whose futures run their callbacks on the UI thread
+     *
+     * @param scheduler - sends every request on the connection we'll be given
+     */
+    public ServerApi(OutboundScheduler scheduler) {
+        this(MainThreadExecutor.get(), scheduler);
+    }
+
+    /**
+     * Create a ServerApi whose futures run their callbacks on the given executor
+     *
+     * @param callbackExecutor - runs the callbacks of every future we return
+     * @param scheduler        - sends every request on the connection we'll be given
+     */
+    public ServerApi(Executor callbackExecutor, OutboundScheduler scheduler) {
+        this.callbackExecutor = callbackExecutor;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Give us the connection to make requests on, replacing any we had. Requests submitted before
+     * this is called fail with a lost connection.
+     *
+     * @param out - the device to write to the server with
+     * @param in  - the device to read from the server with
+     */
+    public void setConnection(PrintWriter out, DataInputStream in) {
+        this.out = out;
+        this.in = in;
+
+        // We may have connected to a different, newer server
+        historyNotSupported = false;
+    }
+
+    /**
+     * Send the given Call's request to the server, once its turn comes around (see
+     * OutboundScheduler)
+     *
+     * @param call - the request to make, as returned by one of the methods in Calls
+     * @return A future for the request's result, whose callbacks run on our callback executor
+     */
+    public <T> RequestFuture<T> submit(Call<T> call) {
+        return submit(call, null);
+    }
+
+    /**
+     * Send the given Call's request to the server, once its turn comes around, unless the given
+     * token is cancelled first
+     *
+     * @param call  - the request to make, as returned by one of the methods in Calls
+     * @param token - cancels the request, or null if it can't be cancelled
+     * @return A future for the request's result, whose callbacks run on our callback executor
+     */
+    public <T> RequestFuture<T> submit(final Call<T> call, CancellationToken token) {
+        final RequestFuture<T> future = new RequestFuture<>(callbackExecutor);
+        future.setToken(token);
+
+        final PrintWriter out = this.out;
+        final DataInputStream in = this.in;
+        if (out == null || in == null) {
+            NetworkLog.e(tag, "Tried to send {} request before connecting", call.getCommand().word);
+            future.setTrace(NetworkTrace.claim(call.getCommand()));
+            future.fail(new RequestException(NetworkMetrics.Outcome.CONNECTION_LOST, "Not connected to the server"));
+            return future;
+        }
+
+        final String key = call.getKey();
+        final Pending<T> pending = new Pending<>();
+        synchronized (inFlight) {
+            if (key != null) {
+                @SuppressWarnings("unchecked")
+                Pending<T> shared = (Pending<T>) inFlight.get(key);
+                if (shared != null) {
+                    NetworkLog.i(tag, "Sharing the result of the {} request in flight", key);
+                    NetworkMetrics.shared(call.getCommand());
+                    shared.futures.add(future);
+
+                    // The request in flight has a trace of its own already
+                    NetworkTrace.abandon();
+                    return future;
+                }
+                inFlight.put(key, pending);
+            }
+            pending.futures.add(future);
+        }
+
+        final NetworkTrace.Trace trace = NetworkTrace.claim(call.getCommand());
+        future.setTrace(trace);
+
+        final long started = NetworkMetrics.start();
+        scheduler.submit(call.getCommand(), new Runnable() {
+            @Override
+            public void run() {
+                if (cancelled(key, pending)) {
+                    NetworkLog.i(tag, "Not sending {} request, as nobody wants it any more", call.getCommand().word);
+                    NetworkMetrics.finish(call.getCommand(), started, NetworkMetrics.Outcome.CANCELLED);
+                    return;
+                }
+
+                // The thread answers this future, and we pass the answer on to everyone waiting
+                RequestFuture<T> answer = new RequestFuture<>(callbackExecutor);
+                NetworkThread thread = call.newThread(ServerApi.this, answer, out, in);
+                thread.setTrace(trace);
+                try {
+                    thread.run();
+                } finally {
+                    // Even if decoding the answer threw, everyone waiting has to hear something,
+                    // and the request mustn't stay in flight for others to join
+                    answered(call, key, pending, answer, thread, started);
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Return a future that waits on every one of the given futures, as RequestFuture.all() does,
+     * running its callbacks on our callback executor
+     *
+     * @param futures - the futures to wait on, usually returned by submit()
+     */
+    public <T> RequestFuture<List<T>> all(List<RequestFuture<T>> futures) {
+        return RequestFuture.all(callbackExecutor, futures);
+    }
+
+    /**
+     * Return a future that has already succeeded with the given value, running its callbacks on our
+     * callback executor
+     */
+    public <T> RequestFuture<T> completed(T value) {
+        return RequestFuture.completed(value, callbackExecutor);
+    }
+
+    /**
+     * Pass the answer to a request on to everyone waiting on it, and record how it turned out.
+     * Called once the request's thread has returned, or thrown, in which case the request fails
+     * with a system error.
+     *
+     * @param call    - the request
+     * @param key     - the request's key, or null if it isn't shared
+     * @param pending - everyone waiting on the request
+     * @param answer  - the future the request's thread answered, if it got that far
+     * @param thread  - the request's thread
+     * @param started - when the request was submitted, as returned by NetworkMetrics.start()
+     */
+    private <T> void answered(Call<T> call, String key, Pending<T> pending, RequestFuture<T> answer,
+                              NetworkThread thread, long started) {
+        // The answer is in, so anyone asking from here on gets a fresh one
+        List<RequestFuture<T>> futures = finished(key, pending);
+
+        // Every one of our threads reports back before returning, so this means it threw
+        if (!answer.isDone()) {
+            NetworkLog.e(tag, "{} request ended without an answer", call.getCommand().word);
+            answer.fail(new RequestException(NetworkMetrics.Outcome.SYSTEM_ERROR,
+                    "Request ended without an answer"));
+        }
+
+        RequestException failure = answer.getFailure();
+        if (failure != null && thread.hasTimedOut()) {
+            failure = new RequestException(NetworkMetrics.Outcome.TIMED_OUT, "No answer to "
+                    + call.getCommand().word + " request within " + call.getCommand().deadline + "ms");
+        }
+        for (RequestFuture<T> future : futures) {
+            if (failure == null) {
+                future.complete(answer.getResult());
+            } else {
+                future.fail(failure);
+            }
+        }
+
+        NetworkMetrics.Outcome outcome = failure == null ? NetworkMetrics.Outcome.SUCCESS : failure.getOutcome();
+        if (outcome == NetworkMetrics.Outcome.SERVER_ERROR || outcome == NetworkMetrics.Outcome.SYSTEM_ERROR) {
+            NetworkLog.dump((outcome == NetworkMetrics.Outcome.SERVER_ERROR ? "server error" : "system error")
+                    + " in response to " + call.getCommand().word);
+        }
+        NetworkMetrics.finish(call.getCommand(), started, outcome);
+    }
+
+    /**
+     * Check whether everyone waiting on the given request has cancelled it, just before it's sent,
+     * and if so, stop sharing it, so that nobody else joins a request that won't be made
+     *
+     * @param key     - the request's key, or null if it isn't shared
+     * @param pending - the request
+     */
+    private boolean cancelled(String key, Pending<?> pending) {
+        synchronized (inFlight) {
+            for (RequestFuture<?> future : pending.futures) {
+                if (!future.isCancelled()) {
+                    return false;
+                }
+            }
+
+            if (key != null) {
+                inFlight.remove(key);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Stop sharing the given request, because it's been answered, and return everyone waiting on
+     * the answer
+     *
+     * @param key     - the request's key, or null if it isn't shared
+     * @param pending - the request
+     */
+    private <T> List<RequestFuture<T>> finished(String key, Pending<T> pending) {
+        synchronized (inFlight) {
+            if (key != null) {
+                inFlight.remove(key);
+            }
+            return new ArrayList<>(pending.futures);
+        }
+    }
+
+    boolean isHistorySupported() {
+        return !historyNotSupported;
+    }
+
+    /**
+     * Called when the server rejects a request for move history, so that we stop asking for it on
+     * this connection
+     */
+    void historyNotSupported() {
+        historyNotSupported = true;
+    }
+
+    /**
+     * A request that's been submitted and not yet answered
+     */
+    private static class Pending<T> {
+        /**
+         * The future of every submit() waiting on the request: the one that made it, and any that
+         * have shared it since
+         */
+        final List<RequestFuture<T>> futures = new ArrayList<>();
+    }
+}
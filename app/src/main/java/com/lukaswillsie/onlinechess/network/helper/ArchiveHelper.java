@@ -5,6 +5,8 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
+import com.lukaswillsie.onlinechess.network.NetworkTrace;
 import com.lukaswillsie.onlinechess.network.ReturnCodes;
 import com.lukaswillsie.onlinechess.network.helper.requesters.ArchiveRequester;
 import com.lukaswillsie.onlinechess.network.threads.ReturnCodeThread;
@@ -37,7 +39,7 @@ public class ArchiveHelper extends SubHelper implements ReturnCodeCaller {
      * @param container - the ServerHelper that this object is a part of
      */
     ArchiveHelper(ServerHelper container) {
-        super(container);
+        super(container, NetworkMetrics.Command.ARCHIVE);
     }
 
     /**
@@ -55,9 +57,9 @@ public class ArchiveHelper extends SubHelper implements ReturnCodeCaller {
         // If the first request in the queue is not active, that is not being processed, we create a
         // thread to deal with it, and set it as active
         if (head != null && !head.isActive()) {
-            ReturnCodeThread thread = new ReturnCodeThread(getRequestText(head.gameID), this, getOut(), getIn());
+            ReturnCodeThread thread = new ReturnCodeThread(getCommand(), getRequestText(head.gameID), this, getOut(), getIn());
             head.setActive();
-            thread.start();
+            send(head, thread);
         }
     }
 
@@ -68,7 +70,12 @@ public class ArchiveHelper extends SubHelper implements ReturnCodeCaller {
      * @param requester - the object that will receive callbacks as to the outcome of the request
      */
     public synchronized void archive(String gameID, ArchiveRequester requester) {
-        requests.enqueue(new ArchiveRequest(gameID, requester));
+        ArchiveRequest request = new ArchiveRequest(gameID, requester);
+
+        // We're on the UI thread, where the user's action started the trace, and this request may
+        // not be sent until others ahead of it have been answered
+        request.setTrace(NetworkTrace.claim(getCommand()));
+        requests.enqueue(request);
         requestsChanged();
     }
 
@@ -82,20 +89,36 @@ public class ArchiveHelper extends SubHelper implements ReturnCodeCaller {
         return "archive " + gameID;
     }
 
+    /**
+     * Give the callback described by the given message to the requester it's meant for, on the UI
+     * thread. The message carries the request it's about.
+     *
+     * @param msg - contains information about the callback to be given
+     */
     @Override
     public void handleMessage(@NonNull Message msg) {
+        ArchiveRequest request = (ArchiveRequest) msg.obj;
+        requestFinished(request, msg.what, ARCHIVE_SUCCESS, SERVER_ERROR, CONNECTION_LOST, SYSTEM_ERROR);
+
+        // The requester is let go of the moment it's destroyed, in which case there's nobody left
+        // to give this callback to
+        ArchiveRequester requester = request.requester.release();
+        if (requester == null) {
+            return;
+        }
+
         switch (msg.what) {
             case SERVER_ERROR:
-                ((ArchiveRequester) msg.obj).serverError();
+                requester.serverError();
                 break;
             case SYSTEM_ERROR:
-                ((ArchiveRequester) msg.obj).systemError();
+                requester.systemError();
                 break;
             case CONNECTION_LOST:
-                ((ArchiveRequester) msg.obj).connectionLost();
+                requester.connectionLost();
                 break;
             case ARCHIVE_SUCCESS:
-                ((ArchiveRequester) msg.obj).archiveSuccessful();
+                requester.archiveSuccessful();
                 break;
         }
     }
@@ -119,7 +142,7 @@ public class ArchiveHelper extends SubHelper implements ReturnCodeCaller {
                 // We only make requests in our app if we already have a user logged in. So this
                 // shouldn't happen, but if it does we consider it a server error and treat it as
                 // such after logging it
-                msg = obtainMessage(SERVER_ERROR, request.requester);
+                msg = obtainMessage(SERVER_ERROR, request);
                 break;
             // If the server is telling us we formatted our command incorrectly
             case ReturnCodes.FORMAT_INVALID:
@@ -128,19 +151,19 @@ public class ArchiveHelper extends SubHelper implements ReturnCodeCaller {
                 // This shouldn't happen, because we ensure the format of our requests conforms to
                 // protocol. If it does, we've logged the problem for debugging, but at runtime we
                 // call it a server error
-                msg = obtainMessage(SERVER_ERROR, request.requester);
+                msg = obtainMessage(SERVER_ERROR, request);
                 break;
             // If the server is telling us it encountered an error
             case ReturnCodes.SERVER_ERROR:
                 Log.i(tag, "Server says it encountered an error. Can't archive.");
 
-                msg = obtainMessage(SERVER_ERROR, request.requester);
+                msg = obtainMessage(SERVER_ERROR, request);
                 break;
             // If the server is telling us the game was successfully archived
             case ReturnCodes.Archive.SUCCESS:
                 Log.i(tag, "Server says archive successful.");
 
-                msg = obtainMessage(ARCHIVE_SUCCESS, request.requester);
+                msg = obtainMessage(ARCHIVE_SUCCESS, request);
                 break;
             // If the server is telling us the game does not exist
             case ReturnCodes.Archive.GAME_DOES_NOT_EXIST:
@@ -149,7 +172,7 @@ public class ArchiveHelper extends SubHelper implements ReturnCodeCaller {
                 // This shouldn't happen, because we only allow the user to archive games that the
                 // server has TOLD us already exist. If it does, we treat it as a server error at
                 // runtime, after having logged the problem for debugging.
-                msg = obtainMessage(SERVER_ERROR, request.requester);
+                msg = obtainMessage(SERVER_ERROR, request);
                 break;
             // If the server is telling us that our logged in user is not a player in the game we
             // tried to archive
@@ -159,7 +182,7 @@ public class ArchiveHelper extends SubHelper implements ReturnCodeCaller {
                 // This shouldn't happen, because we only allow the user to archive games that the
                 // server has told us the user is a player in. So if it happens, we call it a server
                 // error
-                msg = obtainMessage(SERVER_ERROR, request.requester);
+                msg = obtainMessage(SERVER_ERROR, request);
                 break;
             // The cases we enumerated above are exhaustive, so any other result falls outside of
             // what the server has said it might return, according to protocol, and is treated by
@@ -167,7 +190,7 @@ public class ArchiveHelper extends SubHelper implements ReturnCodeCaller {
             default:
                 Log.i(tag, "Server returned " + code + ", which is outside of archive request protocol");
 
-                msg = obtainMessage(SERVER_ERROR, request.requester);
+                msg = obtainMessage(SERVER_ERROR, request);
                 break;
         }
         requestsChanged();
@@ -181,7 +204,7 @@ public class ArchiveHelper extends SubHelper implements ReturnCodeCaller {
     public synchronized void systemError() {
         ArchiveRequest request = (ArchiveRequest) requests.dequeue();
 
-        obtainMessage(SYSTEM_ERROR, request.requester).sendToTarget();
+        obtainMessage(SYSTEM_ERROR, request).sendToTarget();
         requestsChanged();
     }
 
@@ -193,7 +216,7 @@ public class ArchiveHelper extends SubHelper implements ReturnCodeCaller {
     public synchronized void connectionLost() {
         ArchiveRequest request = (ArchiveRequest) requests.dequeue();
 
-        obtainMessage(CONNECTION_LOST, request.requester).sendToTarget();
+        obtainMessage(CONNECTION_LOST, request).sendToTarget();
         requestsChanged();
     }
 
@@ -212,7 +235,7 @@ public class ArchiveHelper extends SubHelper implements ReturnCodeCaller {
         /**
          * The object initiating the request, and who will receive the relevant callbacks
          */
-        private ArchiveRequester requester;
+        private RequesterBinding<ArchiveRequester> requester;
 
         /**
          * Create a new ArchiveRequest object.
@@ -221,7 +244,7 @@ public class ArchiveHelper extends SubHelper implements ReturnCodeCaller {
          * @param requester - the object making the request, who will receive all relevant callbacks
          */
         ArchiveRequest(String gameID, ArchiveRequester requester) {
-            this.requester = requester;
+            this.requester = RequesterBinding.bind(requester);
             this.gameID = gameID;
         }
     }
@@ -3,6 +3,7 @@ package com.lukaswillsie.onlinechess.network.helper;
 import android.os.Message;
 import android.util.Log;
 
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
 import com.lukaswillsie.onlinechess.network.ReturnCodes;
 import com.lukaswillsie.onlinechess.network.helper.requesters.CreateAccountRequester;
 import com.lukaswillsie.onlinechess.network.threads.ReturnCodeThread;
@@ -23,7 +24,7 @@ class CreateAccountHelper extends SubHelper implements ReturnCodeCaller {
     private static final int SUCCESS = 0;
     private static final int USERNAME_IN_USE = 1;
     private static final int ACCOUNT_FORMAT_INVALID = 2;
-    private CreateAccountRequester requester;
+    private RequesterBinding<CreateAccountRequester> requester;
 
     /**
      * Create a new SubHelper as part of the given ServerHelper
@@ -31,7 +32,7 @@ class CreateAccountHelper extends SubHelper implements ReturnCodeCaller {
      * @param container - the ServerHelper that this object is a part of
      */
     CreateAccountHelper(ServerHelper container) {
-        super(container);
+        super(container, NetworkMetrics.Command.CREATE_ACCOUNT);
     }
 
     /**
@@ -49,10 +50,10 @@ class CreateAccountHelper extends SubHelper implements ReturnCodeCaller {
             throw new MultipleRequestException("Tried to make multiple requests of CreateAccountHelper");
         }
 
-        this.requester = requester;
+        this.requester = RequesterBinding.bind(requester);
 
-        ReturnCodeThread thread = new ReturnCodeThread(this.getRequest(username, password), this, getOut(), getIn());
-        thread.start();
+        ReturnCodeThread thread = new ReturnCodeThread(getCommand(), this.getRequest(username, password), this, getOut(), getIn());
+        send(thread);
     }
 
     /**
@@ -149,6 +150,16 @@ class CreateAccountHelper extends SubHelper implements ReturnCodeCaller {
      */
     @Override
     public void handleMessage(Message msg) {
+        requestFinished(msg.what, SUCCESS, SERVER_ERROR, CONNECTION_LOST, SYSTEM_ERROR);
+
+        // Our requester is let go of the moment it's destroyed, in which case there's nobody left
+        // to give this callback to
+        CreateAccountRequester requester = this.requester.release();
+        if (requester == null) {
+            this.requester = null;
+            return;
+        }
+
         switch (msg.what) {
             case SYSTEM_ERROR:
                 requester.systemError();
@@ -5,16 +5,13 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 
-import com.lukaswillsie.onlinechess.data.ServerData;
 import com.lukaswillsie.onlinechess.data.UserGame;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
 import com.lukaswillsie.onlinechess.network.ReturnCodes;
 import com.lukaswillsie.onlinechess.network.helper.requesters.CreateGameRequester;
 import com.lukaswillsie.onlinechess.network.threads.ReturnCodeThread;
 import com.lukaswillsie.onlinechess.network.threads.callers.ReturnCodeCaller;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Handles requests to create games for the user on behalf of ServerHelper.
  */
@@ -36,7 +33,7 @@ public class CreateGameHelper extends SubHelper implements ReturnCodeCaller {
      * Keeps a reference to the object that will receive callbacks about the currently active
      * request. null if there is no active request.
      */
-    private CreateGameRequester requester;
+    private RequesterBinding<CreateGameRequester> requester;
     /**
      * The ID of the game that we are attempting to join in the currently active request. null
      * if there is no active request.
@@ -54,7 +51,7 @@ public class CreateGameHelper extends SubHelper implements ReturnCodeCaller {
      * @param container - the ServerHelper that this object is a part of
      */
     CreateGameHelper(ServerHelper container) {
-        super(container);
+        super(container, NetworkMetrics.Command.CREATE_GAME);
     }
 
     /**
@@ -72,12 +69,12 @@ public class CreateGameHelper extends SubHelper implements ReturnCodeCaller {
         if (this.requester != null) {
             throw new MultipleRequestException("Tried to make multiple requests of CreateGameHelper");
         }
-        this.requester = requester;
+        this.requester = RequesterBinding.bind(requester);
         this.gameID = gameID;
         this.username = username;
 
-        ReturnCodeThread thread = new ReturnCodeThread(getRequest(gameID, open), this, getOut(), getIn());
-        thread.start();
+        ReturnCodeThread thread = new ReturnCodeThread(getCommand(), getRequest(gameID, open), this, getOut(), getIn());
+        send(thread);
     }
 
     /**
@@ -127,20 +124,8 @@ public class CreateGameHelper extends SubHelper implements ReturnCodeCaller {
             case ReturnCodes.CreateGame.SUCCESS:
                 Log.i(tag, "Server says game \"" + gameID + "\" successfully created");
 
-                UserGame game = new UserGame(username);
-                List<Object> initialData = new ArrayList<>();
-                for (ServerData data : ServerData.order) {
-                    if (data == ServerData.WHITE) {
-                        initialData.add(username);
-                    } else if (data == ServerData.GAMEID) {
-                        initialData.add(gameID);
-                    } else {
-                        initialData.add(data.initial);
-                    }
-                }
-
-                int result = game.initialize(initialData);
-                if (result == 1) {
+                UserGame game = UserGame.created(gameID, username);
+                if (game == null) {
                     Log.e(tag, "Error initializing a UserGame with the data sent by server");
                     msg = this.obtainMessage(SERVER_ERROR);
                 } else {
@@ -200,6 +185,16 @@ public class CreateGameHelper extends SubHelper implements ReturnCodeCaller {
      */
     @Override
     public void handleMessage(@NonNull Message msg) {
+        requestFinished(msg.what, SUCCESS, SERVER_ERROR, CONNECTION_LOST, SYSTEM_ERROR);
+
+        // Our requester is let go of the moment it's destroyed, in which case there's nobody left
+        // to give this callback to
+        CreateGameRequester requester = this.requester.release();
+        if (requester == null) {
+            this.requester = null;
+            return;
+        }
+
         switch (msg.what) {
             case SERVER_ERROR:
                 requester.serverError();
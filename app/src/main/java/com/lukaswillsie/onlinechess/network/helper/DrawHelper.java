@@ -5,6 +5,7 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
 import com.lukaswillsie.onlinechess.network.ReturnCodes;
 import com.lukaswillsie.onlinechess.network.helper.requesters.DrawRequester;
 import com.lukaswillsie.onlinechess.network.threads.ReturnCodeThread;
@@ -33,7 +34,7 @@ public class DrawHelper extends SubHelper implements ReturnCodeCaller {
     /**
      * Set each time a new request is submitted; will receive callbacks relating to that request
      */
-    private DrawRequester requester;
+    private RequesterBinding<DrawRequester> requester;
     /**
      * The ID of the game that we are currently submitting a draw request for
      */
@@ -44,7 +45,7 @@ public class DrawHelper extends SubHelper implements ReturnCodeCaller {
      * @param container - the ServerHelper that this object is a part of
      */
     DrawHelper(ServerHelper container) {
-        super(container);
+        super(container, NetworkMetrics.Command.DRAW);
     }
 
     /**
@@ -64,11 +65,11 @@ public class DrawHelper extends SubHelper implements ReturnCodeCaller {
             throw new MultipleRequestException("Tried to submit multiple draw requests to ServerHelper");
         }
 
-        this.requester = requester;
+        this.requester = RequesterBinding.bind(requester);
         this.gameID = gameID;
 
-        ReturnCodeThread thread = new ReturnCodeThread(getRequest(gameID), this, getOut(), getIn());
-        thread.start();
+        ReturnCodeThread thread = new ReturnCodeThread(getCommand(), getRequest(gameID), this, getOut(), getIn());
+        send(thread);
     }
 
     /**
@@ -173,6 +174,16 @@ public class DrawHelper extends SubHelper implements ReturnCodeCaller {
      */
     @Override
     public void handleMessage(@NonNull Message msg) {
+        requestFinished(msg.what, SUCCESS, SERVER_ERROR, CONNECTION_LOST, SYSTEM_ERROR);
+
+        // Our requester is let go of the moment it's destroyed, in which case there's nobody left
+        // to give this callback to
+        DrawRequester requester = this.requester.release();
+        if (requester == null) {
+            this.requester = null;
+            return;
+        }
+
         switch (msg.what) {
             case SYSTEM_ERROR:
                 requester.systemError();
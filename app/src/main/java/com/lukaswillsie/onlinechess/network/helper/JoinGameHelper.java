@@ -5,6 +5,7 @@ import android.os.Message;
 import androidx.annotation.NonNull;
 
 import com.lukaswillsie.onlinechess.data.UserGame;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
 import com.lukaswillsie.onlinechess.network.helper.requesters.JoinGameRequester;
 import com.lukaswillsie.onlinechess.network.threads.JoinGameThread;
 import com.lukaswillsie.onlinechess.network.threads.callers.JoinGameCaller;
@@ -32,7 +33,7 @@ public class JoinGameHelper extends SubHelper implements JoinGameCaller {
      * Keeps a reference to the object that made the currently active request, so we can give them
      * callbacks
      */
-    private JoinGameRequester requester;
+    private RequesterBinding<JoinGameRequester> requester;
 
     /**
      * Create a new SubHelper as part of the given ServerHelper
@@ -40,7 +41,7 @@ public class JoinGameHelper extends SubHelper implements JoinGameCaller {
      * @param container - the ServerHelper that this object is a part of
      */
     JoinGameHelper(ServerHelper container) {
-        super(container);
+        super(container, NetworkMetrics.Command.JOIN_GAME);
     }
 
     /**
@@ -58,10 +59,10 @@ public class JoinGameHelper extends SubHelper implements JoinGameCaller {
             throw new MultipleRequestException("Tried to make multiple requests of JoinGameHelper");
         }
 
-        this.requester = requester;
+        this.requester = RequesterBinding.bind(requester);
 
         JoinGameThread thread = new JoinGameThread(this, gameID, username, getOut(), getIn());
-        thread.start();
+        send(thread);
     }
 
     /**
@@ -86,6 +87,22 @@ public class JoinGameHelper extends SubHelper implements JoinGameCaller {
      */
     @Override
     public void handleMessage(@NonNull Message msg) {
+        // GAME_JOINED only means the request is under way; anything else ends it
+        if (msg.what != GAME_JOINED) {
+            requestFinished(msg.what, JOIN_GAME_COMPLETE, SERVER_ERROR, CONNECTION_LOST, SYSTEM_ERROR);
+        }
+
+        // Our requester is let go of the moment it's destroyed, in which case there's nobody left
+        // to give this callback to
+        JoinGameRequester requester = this.requester.release();
+        if (requester == null) {
+            // The request isn't over until its last callback, even if there's nobody to give it to
+            if (msg.what != GAME_JOINED) {
+                this.requester = null;
+            }
+            return;
+        }
+
         switch (msg.what) {
             case SERVER_ERROR:
                 requester.serverError();
@@ -108,8 +125,9 @@ public class JoinGameHelper extends SubHelper implements JoinGameCaller {
             case GAME_JOINED:
                 requester.gameJoined();
 
-                // We don't reset requester here because there is another callback to come;
+                // We hold on to requester here because there is another callback to come;
                 // joinGameComplete() will be called once our request is fully over
+                this.requester = RequesterBinding.bind(requester);
                 break;
             case GAME_DOES_NOT_EXIST:
                 requester.gameDoesNotExist();
@@ -5,6 +5,7 @@ import android.os.Message;
 import androidx.annotation.NonNull;
 
 import com.lukaswillsie.onlinechess.data.UserGame;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
 import com.lukaswillsie.onlinechess.network.helper.requesters.LoginRequester;
 import com.lukaswillsie.onlinechess.network.threads.LoginThread;
 import com.lukaswillsie.onlinechess.network.threads.callers.LoginCaller;
@@ -38,7 +39,7 @@ public class LoginHelper extends SubHelper implements LoginCaller {
      * The object that made the current request. This is the object we report back news of the
      * request to.
      */
-    private LoginRequester requester;
+    private RequesterBinding<LoginRequester> requester;
 
     /**
      * Create a LoginHelper object as part of the given ServerHelper façade.
@@ -46,7 +47,7 @@ public class LoginHelper extends SubHelper implements LoginCaller {
      * @param container
      */
     LoginHelper(ServerHelper container) {
-        super(container);
+        super(container, NetworkMetrics.Command.LOGIN);
     }
 
     /**
@@ -62,10 +63,10 @@ public class LoginHelper extends SubHelper implements LoginCaller {
         if (this.requester != null) {
             throw new MultipleRequestException("Tried to make multiple requests of LoginHelper");
         }
-        this.requester = requester;
+        this.requester = RequesterBinding.bind(requester);
 
         LoginThread thread = new LoginThread(username, password, this, getOut(), getIn());
-        thread.start();
+        send(thread);
     }
 
     /**
@@ -156,6 +157,22 @@ public class LoginHelper extends SubHelper implements LoginCaller {
      */
     @Override
     public void handleMessage(@NonNull Message msg) {
+        // LOGIN_SUCCESS only means the request is under way; anything else ends it
+        if (msg.what != LOGIN_SUCCESS) {
+            requestFinished(msg.what, LOGIN_COMPLETE, SERVER_ERROR, CONNECTION_LOST, SYSTEM_ERROR);
+        }
+
+        // Our requester is let go of the moment it's destroyed, in which case there's nobody left
+        // to give this callback to
+        LoginRequester requester = this.requester.release();
+        if (requester == null) {
+            // The request isn't over until its last callback, even if there's nobody to give it to
+            if (msg.what != LOGIN_SUCCESS) {
+                this.requester = null;
+            }
+            return;
+        }
+
         switch (msg.what) {
             case SYSTEM_ERROR:
                 requester.systemError();
@@ -177,7 +194,8 @@ public class LoginHelper extends SubHelper implements LoginCaller {
                 break;
             case LOGIN_SUCCESS:
                 requester.loginSuccess();
-                // We don't nullify requester here because the request isn't over
+                // We hold on to requester here because the request isn't over
+                this.requester = RequesterBinding.bind(requester);
                 break;
             case USERNAME_INVALID:
                 requester.usernameInvalid();
@@ -7,6 +7,7 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 
 import com.lukaswillsie.onlinechess.activities.board.Move;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
 import com.lukaswillsie.onlinechess.network.ReturnCodes;
 import com.lukaswillsie.onlinechess.network.helper.requesters.MoveRequester;
 import com.lukaswillsie.onlinechess.network.threads.ReturnCodeThread;
@@ -42,7 +43,7 @@ public class MoveHelper extends SubHelper implements ReturnCodeCaller {
      * The object that will receive callbacks relevant to the currently active request; null if
      * there is no currently active request
      */
-    private MoveRequester requester;
+    private RequesterBinding<MoveRequester> requester;
 
     /**
      * Create a new SubHelper as part of the given ServerHelper
@@ -50,7 +51,7 @@ public class MoveHelper extends SubHelper implements ReturnCodeCaller {
      * @param container - the ServerHelper that this object is a part of
      */
     MoveHelper(ServerHelper container) {
-        super(container);
+        super(container, NetworkMetrics.Command.MOVE);
     }
 
     /**
@@ -66,10 +67,10 @@ public class MoveHelper extends SubHelper implements ReturnCodeCaller {
         if (this.requester != null) {
             throw new MultipleRequestException("Tried to make multiple move requests of MoveRequester");
         }
-        this.requester = requester;
+        this.requester = RequesterBinding.bind(requester);
 
-        ReturnCodeThread thread = new ReturnCodeThread(getRequest(gameID, move), this, getOut(), getIn());
-        thread.start();
+        ReturnCodeThread thread = new ReturnCodeThread(getCommand(), getRequest(gameID, move), this, getOut(), getIn());
+        send(thread);
     }
 
     /**
@@ -189,6 +190,16 @@ public class MoveHelper extends SubHelper implements ReturnCodeCaller {
      */
     @Override
     public void handleMessage(@NonNull Message msg) {
+        requestFinished(msg.what == SUCCESS_PROMOTION_NEEDED ? SUCCESS : msg.what, SUCCESS, SERVER_ERROR, CONNECTION_LOST, SYSTEM_ERROR);
+
+        // Our requester is let go of the moment it's destroyed, in which case there's nobody left
+        // to give this callback to
+        MoveRequester requester = this.requester.release();
+        if (requester == null) {
+            this.requester = null;
+            return;
+        }
+
         switch (msg.what) {
             case CONNECTION_LOST:
                 requester.connectionLost();
@@ -6,6 +6,7 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 
 import com.lukaswillsie.onlinechess.activities.board.PieceType;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
 import com.lukaswillsie.onlinechess.network.ReturnCodes;
 import com.lukaswillsie.onlinechess.network.helper.requesters.PromotionRequester;
 import com.lukaswillsie.onlinechess.network.threads.ReturnCodeThread;
@@ -37,14 +38,14 @@ public class PromotionHelper extends SubHelper implements ReturnCodeCaller {
      * The object that will receive callbacks from us when the request we submit to ReturnCodeThread
      * terminates. null if we are not currently handling a request.
      */
-    private PromotionRequester requester;
+    private RequesterBinding<PromotionRequester> requester;
     /**
      * Create a new SubHelper as part of the given ServerHelper
      *
      * @param container - the ServerHelper that this object is a part of
      */
     PromotionHelper(ServerHelper container) {
-        super(container);
+        super(container, NetworkMetrics.Command.PROMOTE);
     }
 
     /**
@@ -60,10 +61,10 @@ public class PromotionHelper extends SubHelper implements ReturnCodeCaller {
         if (this.requester != null) {
             throw new MultipleRequestException("Submitted multiple promote requests to PromotionHelper");
         }
-        this.requester = requester;
+        this.requester = RequesterBinding.bind(requester);
 
-        ReturnCodeThread thread = new ReturnCodeThread(getRequest(gameID, piece), this, getOut(), getIn());
-        thread.start();
+        ReturnCodeThread thread = new ReturnCodeThread(getCommand(), getRequest(gameID, piece), this, getOut(), getIn());
+        send(thread);
     }
 
     /**
@@ -175,6 +176,16 @@ public class PromotionHelper extends SubHelper implements ReturnCodeCaller {
      */
     @Override
     public void handleMessage(@NonNull Message msg) {
+        requestFinished(msg.what, SUCCESS, SERVER_ERROR, CONNECTION_LOST, SYSTEM_ERROR);
+
+        // Our requester is let go of the moment it's destroyed, in which case there's nobody left
+        // to give this callback to
+        PromotionRequester requester = this.requester.release();
+        if (requester == null) {
+            this.requester = null;
+            return;
+        }
+
         switch (msg.what) {
             case SYSTEM_ERROR:
                 requester.systemError();
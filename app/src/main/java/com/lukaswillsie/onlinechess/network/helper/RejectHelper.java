@@ -5,6 +5,7 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
 import com.lukaswillsie.onlinechess.network.ReturnCodes;
 import com.lukaswillsie.onlinechess.network.helper.requesters.RejectRequester;
 import com.lukaswillsie.onlinechess.network.threads.ReturnCodeThread;
@@ -34,7 +35,7 @@ public class RejectHelper extends SubHelper implements ReturnCodeCaller {
     /**
      * Set each time a new request is submitted; will receive callbacks relating to that request
      */
-    private RejectRequester requester;
+    private RequesterBinding<RejectRequester> requester;
     /**
      * The ID of the game that we are currently submitting a reject request in
      */
@@ -45,7 +46,7 @@ public class RejectHelper extends SubHelper implements ReturnCodeCaller {
      * @param container - the ServerHelper that this object is a part of
      */
     RejectHelper(ServerHelper container) {
-        super(container);
+        super(container, NetworkMetrics.Command.REJECT);
     }
 
     /**
@@ -61,11 +62,11 @@ public class RejectHelper extends SubHelper implements ReturnCodeCaller {
             throw new MultipleRequestException("Tried to submit multiple reject requests to ServerHelper");
         }
 
-        this.requester = requester;
+        this.requester = RequesterBinding.bind(requester);
         this.gameID = gameID;
 
-        ReturnCodeThread thread = new ReturnCodeThread(getRequest(gameID), this, getOut(), getIn());
-        thread.start();
+        ReturnCodeThread thread = new ReturnCodeThread(getCommand(), getRequest(gameID), this, getOut(), getIn());
+        send(thread);
     }
 
     /**
@@ -175,6 +176,16 @@ public class RejectHelper extends SubHelper implements ReturnCodeCaller {
      */
     @Override
     public void handleMessage(@NonNull Message msg) {
+        requestFinished(msg.what, SUCCESS, SERVER_ERROR, CONNECTION_LOST, SYSTEM_ERROR);
+
+        // Our requester is let go of the moment it's destroyed, in which case there's nobody left
+        // to give this callback to
+        RejectRequester requester = this.requester.release();
+        if (requester == null) {
+            this.requester = null;
+            return;
+        }
+
         switch (msg.what) {
             case SYSTEM_ERROR:
                 requester.systemError();
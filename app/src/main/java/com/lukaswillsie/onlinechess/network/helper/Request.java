@@ -1,5 +1,9 @@
 package com.lukaswillsie.onlinechess.network.helper;
 
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
+import com.lukaswillsie.onlinechess.network.NetworkTrace;
+import com.lukaswillsie.onlinechess.network.threads.NetworkThread;
+
 /**
  * Represents the most basic possible idea of a network request. Captures the state of either being
  * active or non-active. Subclasses should represent concrete examples of a network request, like
@@ -9,11 +13,51 @@ package com.lukaswillsie.onlinechess.network.helper;
 public abstract class Request {
     private boolean active = false;
 
+    /**
+     * When the request was made active, as returned by NetworkMetrics.start(). Requests can wait
+     * in a queue for a while before they're sent, and that wait isn't part of the request's
+     * latency.
+     */
+    private long started;
+
+    /**
+     * The request's trace, claimed on the UI thread when the request was made, or null if it isn't
+     * being traced. Kept here rather than by our SubHelper, because the next request in a queue can
+     * be sent while this one's answer is still on its way to the UI thread.
+     */
+    private NetworkTrace.Trace trace;
+
+    /**
+     * The thread sending the request, once it's been handed one
+     */
+    private volatile NetworkThread thread;
+
     public void setActive() {
         this.active = true;
+        this.started = NetworkMetrics.start();
     }
 
     public boolean isActive() {
         return active;
     }
+
+    public long getStarted() {
+        return started;
+    }
+
+    NetworkTrace.Trace getTrace() {
+        return trace;
+    }
+
+    void setTrace(NetworkTrace.Trace trace) {
+        this.trace = trace;
+    }
+
+    NetworkThread getThread() {
+        return thread;
+    }
+
+    void setThread(NetworkThread thread) {
+        this.thread = thread;
+    }
 }
@@ -0,0 +1,476 @@
+package com.lukaswillsie.onlinechess.network.helper;
+
+import com.lukaswillsie.onlinechess.data.Game;
+import com.lukaswillsie.onlinechess.data.UserGame;
+import com.lukaswillsie.onlinechess.network.ReturnCodes;
+import com.lukaswillsie.onlinechess.network.api.LoadedGame;
+import com.lukaswillsie.onlinechess.network.api.RequestException;
+import com.lukaswillsie.onlinechess.network.api.RequestFuture;
+import com.lukaswillsie.onlinechess.network.helper.requesters.ArchiveRequester;
+import com.lukaswillsie.onlinechess.network.helper.requesters.CreateAccountRequester;
+import com.lukaswillsie.onlinechess.network.helper.requesters.CreateGameRequester;
+import com.lukaswillsie.onlinechess.network.helper.requesters.DrawRequester;
+import com.lukaswillsie.onlinechess.network.helper.requesters.ForfeitRequester;
+import com.lukaswillsie.onlinechess.network.helper.requesters.GameDataRequester;
+import com.lukaswillsie.onlinechess.network.helper.requesters.JoinGameRequester;
+import com.lukaswillsie.onlinechess.network.helper.requesters.LoadGameRequester;
+import com.lukaswillsie.onlinechess.network.helper.requesters.LoadGamesRequester;
+import com.lukaswillsie.onlinechess.network.helper.requesters.LoginRequester;
+import com.lukaswillsie.onlinechess.network.helper.requesters.MoveRequester;
+import com.lukaswillsie.onlinechess.network.helper.requesters.OpenGamesRequester;
+import com.lukaswillsie.onlinechess.network.helper.requesters.PromotionRequester;
+import com.lukaswillsie.onlinechess.network.helper.requesters.RejectRequester;
+import com.lukaswillsie.onlinechess.network.helper.requesters.Requester;
+import com.lukaswillsie.onlinechess.network.helper.requesters.RestoreRequester;
+
+import java.util.List;
+
+/**
+ * Lets code written against our Requester interfaces use ServerApi. Each method here turns a
+ * Requester into a callback for the future of the matching Call, which gives the requester
+ * exactly the callbacks the matching SubHelper would have. For example:
+ * <pre>
+ *     api.submit(Calls.archive(gameID)).whenDone(RequesterAdapters.archive(this));
+ * </pre>
+ * Like a SubHelper, the callback only holds on to its requester until the requester is destroyed
+ * (see RequesterBinding), after which the result is dropped. Must be called from the UI thread,
+ * and only used with futures whose callbacks run on it, like those ServerApi returns.
+ */
+public final class RequesterAdapters {
+    private RequesterAdapters() {
+    }
+
+    public static RequestFuture.Callback<List<UserGame>> login(LoginRequester requester) {
+        return new Adapter<LoginRequester, List<UserGame>>(requester) {
+            @Override
+            void succeeded(LoginRequester requester, List<UserGame> games) {
+                requester.loginSuccess();
+                requester.loginComplete(games);
+            }
+
+            @Override
+            boolean rejected(LoginRequester requester, int code) {
+                switch (code) {
+                    case ReturnCodes.Login.USERNAME_DOES_NOT_EXIST:
+                        requester.usernameInvalid();
+                        return true;
+                    case ReturnCodes.Login.PASSWORD_INVALID:
+                        requester.passwordInvalid();
+                        return true;
+                    default:
+                        return false;
+                }
+            }
+        };
+    }
+
+    public static RequestFuture.Callback<Void> createAccount(CreateAccountRequester requester) {
+        return new Adapter<CreateAccountRequester, Void>(requester) {
+            @Override
+            void succeeded(CreateAccountRequester requester, Void result) {
+                requester.createAccountSuccess();
+            }
+
+            @Override
+            boolean rejected(CreateAccountRequester requester, int code) {
+                switch (code) {
+                    case ReturnCodes.Create.USERNAME_IN_USE:
+                        requester.usernameInUse();
+                        return true;
+                    case ReturnCodes.Create.FORMAT_INVALID:
+                        requester.formatInvalid();
+                        return true;
+                    default:
+                        return false;
+                }
+            }
+        };
+    }
+
+    public static RequestFuture.Callback<UserGame> createGame(CreateGameRequester requester) {
+        return new Adapter<CreateGameRequester, UserGame>(requester) {
+            @Override
+            void succeeded(CreateGameRequester requester, UserGame game) {
+                requester.gameCreated(game);
+            }
+
+            @Override
+            boolean rejected(CreateGameRequester requester, int code) {
+                switch (code) {
+                    case ReturnCodes.CreateGame.GAMEID_IN_USE:
+                        requester.gameIDInUse();
+                        return true;
+                    case ReturnCodes.CreateGame.FORMAT_INVALID:
+                        requester.invalidFormat();
+                        return true;
+                    default:
+                        return false;
+                }
+            }
+        };
+    }
+
+    public static RequestFuture.Callback<UserGame> joinGame(JoinGameRequester requester) {
+        return new Adapter<JoinGameRequester, UserGame>(requester) {
+            @Override
+            void succeeded(JoinGameRequester requester, UserGame game) {
+                requester.gameJoined();
+                requester.joinGameComplete(game);
+            }
+
+            @Override
+            boolean rejected(JoinGameRequester requester, int code) {
+                switch (code) {
+                    case ReturnCodes.JoinGame.GAME_DOES_NOT_EXIST:
+                        requester.gameDoesNotExist();
+                        return true;
+                    case ReturnCodes.JoinGame.GAME_FULL:
+                        requester.gameFull();
+                        return true;
+                    case ReturnCodes.JoinGame.USER_ALREADY_IN_GAME:
+                        requester.userAlreadyInGame();
+                        return true;
+                    default:
+                        return false;
+                }
+            }
+        };
+    }
+
+    public static RequestFuture.Callback<UserGame> gameData(GameDataRequester requester) {
+        return new Adapter<GameDataRequester, UserGame>(requester) {
+            @Override
+            void succeeded(GameDataRequester requester, UserGame game) {
+                requester.success(game);
+            }
+
+            @Override
+            boolean rejected(GameDataRequester requester, int code) {
+                switch (code) {
+                    case ReturnCodes.GetGameData.GAME_DOES_NOT_EXIST:
+                        requester.gameDoesNotExist();
+                        return true;
+                    case ReturnCodes.GetGameData.USER_NOT_IN_GAME:
+                        requester.userNotInGame();
+                        return true;
+                    default:
+                        return false;
+                }
+            }
+        };
+    }
+
+    public static RequestFuture.Callback<LoadedGame> loadGame(LoadGameRequester requester) {
+        return new Adapter<LoadGameRequester, LoadedGame>(requester) {
+            @Override
+            void succeeded(LoadGameRequester requester, LoadedGame loaded) {
+                requester.success(loaded.getBoard(), loaded.getGame(), loaded.getHistory());
+            }
+
+            @Override
+            boolean rejected(LoadGameRequester requester, int code) {
+                switch (code) {
+                    case ReturnCodes.LoadGame.GAME_DOES_NOT_EXIST:
+                        requester.gameDoesNotExist();
+                        return true;
+                    case ReturnCodes.LoadGame.USER_NOT_IN_GAME:
+                        requester.userNotInGame();
+                        return true;
+                    default:
+                        return false;
+                }
+            }
+        };
+    }
+
+    public static RequestFuture.Callback<List<UserGame>> loadGames(LoadGamesRequester requester) {
+        return new Adapter<LoadGamesRequester, List<UserGame>>(requester) {
+            @Override
+            void succeeded(LoadGamesRequester requester, List<UserGame> games) {
+                requester.success(games);
+            }
+        };
+    }
+
+    public static RequestFuture.Callback<List<Game>> openGames(OpenGamesRequester requester) {
+        return new Adapter<OpenGamesRequester, List<Game>>(requester) {
+            @Override
+            void succeeded(OpenGamesRequester requester, List<Game> games) {
+                requester.openGames(games);
+            }
+        };
+    }
+
+    public static RequestFuture.Callback<Boolean> move(MoveRequester requester) {
+        return new Adapter<MoveRequester, Boolean>(requester) {
+            @Override
+            void succeeded(MoveRequester requester, Boolean promotionNeeded) {
+                requester.moveSuccess(promotionNeeded);
+            }
+
+            @Override
+            boolean rejected(MoveRequester requester, int code) {
+                switch (code) {
+                    case ReturnCodes.Move.GAME_DOES_NOT_EXIST:
+                        requester.gameDoesNotExist();
+                        return true;
+                    case ReturnCodes.Move.USER_NOT_IN_GAME:
+                        requester.userNotInGame();
+                        return true;
+                    case ReturnCodes.Move.NO_OPPONENT:
+                        requester.noOpponent();
+                        return true;
+                    case ReturnCodes.Move.GAME_IS_OVER:
+                        requester.gameIsOver();
+                        return true;
+                    case ReturnCodes.Move.NOT_USER_TURN:
+                        requester.notUserTurn();
+                        return true;
+                    case ReturnCodes.Move.HAS_TO_PROMOTE:
+                        requester.needToPromote();
+                        return true;
+                    case ReturnCodes.Move.RESPOND_TO_DRAW:
+                        requester.mustRespondToDraw();
+                        return true;
+                    case ReturnCodes.Move.MOVE_INVALID:
+                        requester.moveInvalid();
+                        return true;
+                    default:
+                        return false;
+                }
+            }
+        };
+    }
+
+    public static RequestFuture.Callback<Void> promote(PromotionRequester requester) {
+        return new Adapter<PromotionRequester, Void>(requester) {
+            @Override
+            void succeeded(PromotionRequester requester, Void result) {
+                requester.promotionSuccess();
+            }
+
+            @Override
+            boolean rejected(PromotionRequester requester, int code) {
+                switch (code) {
+                    case ReturnCodes.Promote.GAME_DOES_NOT_EXIST:
+                        requester.gameDoesNotExist();
+                        return true;
+                    case ReturnCodes.Promote.USER_NOT_IN_GAME:
+                        requester.userNotInGame();
+                        return true;
+                    case ReturnCodes.Promote.NO_OPPONENT:
+                        requester.noOpponent();
+                        return true;
+                    case ReturnCodes.Promote.GAME_IS_OVER:
+                        requester.gameIsOver();
+                        return true;
+                    case ReturnCodes.Promote.NOT_USER_TURN:
+                        requester.notUserTurn();
+                        return true;
+                    case ReturnCodes.Promote.NO_PROMOTION:
+                        requester.noPromotionToMake();
+                        return true;
+                    case ReturnCodes.Promote.CHAR_REP_INVALID:
+                        requester.charRepInvalid();
+                        return true;
+                    default:
+                        return false;
+                }
+            }
+        };
+    }
+
+    public static RequestFuture.Callback<Void> draw(DrawRequester requester) {
+        return new Adapter<DrawRequester, Void>(requester) {
+            @Override
+            void succeeded(DrawRequester requester, Void result) {
+                requester.drawSuccess();
+            }
+
+            @Override
+            boolean rejected(DrawRequester requester, int code) {
+                switch (code) {
+                    case ReturnCodes.Draw.GAME_DOES_NOT_EXIST:
+                        requester.gameDoesNotExist();
+                        return true;
+                    case ReturnCodes.Draw.USER_NOT_IN_GAME:
+                        requester.userNotInGame();
+                        return true;
+                    case ReturnCodes.Draw.NO_OPPONENT:
+                        requester.noOpponent();
+                        return true;
+                    case ReturnCodes.Draw.GAME_IS_OVER:
+                        requester.gameIsOver();
+                        return true;
+                    case ReturnCodes.Draw.NOT_USER_TURN:
+                        requester.notUserTurn();
+                        return true;
+                    default:
+                        return false;
+                }
+            }
+        };
+    }
+
+    public static RequestFuture.Callback<Void> reject(RejectRequester requester) {
+        return new Adapter<RejectRequester, Void>(requester) {
+            @Override
+            void succeeded(RejectRequester requester, Void result) {
+                requester.rejectSuccess();
+            }
+
+            @Override
+            boolean rejected(RejectRequester requester, int code) {
+                switch (code) {
+                    case ReturnCodes.Reject.GAME_DOES_NOT_EXIST:
+                        requester.gameDoesNotExist();
+                        return true;
+                    case ReturnCodes.Reject.USER_NOT_IN_GAME:
+                        requester.userNotInGame();
+                        return true;
+                    case ReturnCodes.Reject.NO_OPPONENT:
+                        requester.noOpponent();
+                        return true;
+                    case ReturnCodes.Reject.GAME_IS_OVER:
+                        requester.gameIsOver();
+                        return true;
+                    case ReturnCodes.Reject.NOT_USER_TURN:
+                        requester.notUserTurn();
+                        return true;
+                    case ReturnCodes.Reject.NO_DRAW_OFFER:
+                        requester.noDrawOffer();
+                        return true;
+                    default:
+                        return false;
+                }
+            }
+        };
+    }
+
+    public static RequestFuture.Callback<Void> forfeit(ForfeitRequester requester) {
+        return new Adapter<ForfeitRequester, Void>(requester) {
+            @Override
+            void succeeded(ForfeitRequester requester, Void result) {
+                requester.forfeitSuccess();
+            }
+
+            @Override
+            boolean rejected(ForfeitRequester requester, int code) {
+                switch (code) {
+                    case ReturnCodes.Forfeit.GAME_DOES_NOT_EXIST:
+                        requester.gameDoesNotExist();
+                        return true;
+                    case ReturnCodes.Forfeit.USER_NOT_IN_GAME:
+                        requester.userNotInGame();
+                        return true;
+                    case ReturnCodes.Forfeit.NO_OPPONENT:
+                        requester.noOpponent();
+                        return true;
+                    case ReturnCodes.Forfeit.GAME_IS_OVER:
+                        requester.gameIsOver();
+                        return true;
+                    case ReturnCodes.Forfeit.NOT_USER_TURN:
+                        requester.notUserTurn();
+                        return true;
+                    default:
+                        return false;
+                }
+            }
+        };
+    }
+
+    /**
+     * ArchiveRequester has no callbacks for the server turning a request down, so, as in
+     * ArchiveHelper, a rejection is reported as a server error
+     */
+    public static RequestFuture.Callback<Void> archive(ArchiveRequester requester) {
+        return new Adapter<ArchiveRequester, Void>(requester) {
+            @Override
+            void succeeded(ArchiveRequester requester, Void result) {
+                requester.archiveSuccessful();
+            }
+        };
+    }
+
+    /**
+     * RestoreRequester has no callbacks for the server turning a request down, so, as in
+     * RestoreHelper, a rejection is reported as a server error
+     */
+    public static RequestFuture.Callback<Void> restore(RestoreRequester requester) {
+        return new Adapter<RestoreRequester, Void>(requester) {
+            @Override
+            void succeeded(RestoreRequester requester, Void result) {
+                requester.restoreSuccessful();
+            }
+        };
+    }
+
+    /**
+     * Gives a Requester the callbacks for a future's outcome. Failures every Requester has a
+     * callback for are handled here; subclasses handle success, and rejections specific to their
+     * command.
+     *
+     * @param <R> - the type of Requester
+     * @param <T> - the type of value the future succeeds with
+     */
+    private abstract static class Adapter<R extends Requester, T> implements RequestFuture.Callback<T> {
+        private final RequesterBinding<R> requester;
+
+        Adapter(R requester) {
+            this.requester = RequesterBinding.bind(requester);
+        }
+
+        /**
+         * Give the requester the callback for the request having succeeded with the given value
+         */
+        abstract void succeeded(R requester, T result);
+
+        /**
+         * Give the requester the callback for the server having turned the request down with the
+         * given code, if it has one
+         *
+         * @return Whether the requester had a callback for the code; if not, it's given a server
+         * error instead
+         */
+        boolean rejected(R requester, int code) {
+            return false;
+        }
+
+        @Override
+        public void onSuccess(T result) {
+            // Our requester is let go of the moment it's destroyed, in which case there's nobody
+            // left to give this callback to
+            R requester = this.requester.release();
+            if (requester != null) {
+                succeeded(requester, result);
+            }
+        }
+
+        @Override
+        public void onFailure(RequestException e) {
+            R requester = this.requester.release();
+            if (requester == null) {
+                return;
+            }
+
+            switch (e.getOutcome()) {
+                case CONNECTION_LOST:
+                case TIMED_OUT:
+                    // A request that times out takes the connection with it
+                    requester.connectionLost();
+                    break;
+                case SYSTEM_ERROR:
+                    requester.systemError();
+                    break;
+                case REJECTED:
+                    if (!rejected(requester, e.getCode())) {
+                        requester.serverError();
+                    }
+                    break;
+                default:
+                    requester.serverError();
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.lukaswillsie.onlinechess.network.helper;
+
+import android.util.Log;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.OnLifecycleEvent;
+
+/**
+ * Holds on to the requester of a request while our helpers wait on the server, but only for as
+ * long as that requester is alive.
+ * <p>
+ * Requesters are almost always Activities, or objects belonging to one, and a request can easily
+ * outlive the Activity that made it; the user might leave the screen, or rotate it, while we wait
+ * on the server. If we kept a plain reference to the requester, we'd keep the whole destroyed
+ * Activity, and all of its views, in memory until the server answered, and then call back into it
+ * anyway. So if the requester is a LifecycleOwner, we watch its Lifecycle and let go of it the
+ * moment it's destroyed. The helper holding us then finds nobody to call back, and drops the
+ * response.
+ * <p>
+ * Requesters that aren't LifecycleOwners are held on to as before, until the request is over. An
+ * object that isn't an Activity but only makes sense while one is alive should implement
+ * LifecycleOwner by returning that Activity's Lifecycle.
+ * <p>
+ * Only use this class from the UI thread.
+ *
+ * @param <R> - the type of requester being held
+ */
+final class RequesterBinding<R> implements LifecycleObserver {
+    /**
+     * Tag used for logging to the console
+     */
+    private static final String tag = "RequesterBinding";
+
+    /**
+     * The requester, or null if it has been destroyed or released
+     */
+    private R requester;
+
+    /**
+     * The Lifecycle we're watching, or null if our requester doesn't have one
+     */
+    private Lifecycle lifecycle;
+
+    private RequesterBinding(R requester) {
+        this.requester = requester;
+    }
+
+    /**
+     * Start holding on to the given requester until it is destroyed or the returned binding is
+     * released. A requester that has already been destroyed is let go of straight away.
+     *
+     * @param requester - the requester of a new request
+     * @param <R>       - the type of the requester
+     * @return A binding holding the given requester
+     */
+    static <R> RequesterBinding<R> bind(R requester) {
+        RequesterBinding<R> binding = new RequesterBinding<>(requester);
+        if (requester instanceof LifecycleOwner) {
+            Lifecycle lifecycle = ((LifecycleOwner) requester).getLifecycle();
+            if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+                Log.i(tag, "Request made by a requester that has already been destroyed");
+                binding.requester = null;
+            } else {
+                binding.lifecycle = lifecycle;
+                lifecycle.addObserver(binding);
+            }
+        }
+
+        return binding;
+    }
+
+    /**
+     * Stop watching our requester's Lifecycle, because the request is over, and return the
+     * requester so that it can be given its callback. After this, the binding holds nothing.
+     *
+     * @return The requester, or null if it was destroyed before the request was over
+     */
+    R release() {
+        if (lifecycle != null) {
+            lifecycle.removeObserver(this);
+            lifecycle = null;
+        }
+
+        R requester = this.requester;
+        this.requester = null;
+        return requester;
+    }
+
+    /**
+     * Called when our requester's Lifecycle reaches ON_DESTROY
+     */
+    @OnLifecycleEvent(Lifecycle.Event.ON_DESTROY)
+    void onDestroy() {
+        Log.i(tag, "Requester destroyed before its request was over");
+        requester = null;
+        if (lifecycle != null) {
+            lifecycle.removeObserver(this);
+            lifecycle = null;
+        }
+    }
+}
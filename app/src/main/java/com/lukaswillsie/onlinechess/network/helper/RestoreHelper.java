@@ -5,6 +5,8 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
+import com.lukaswillsie.onlinechess.network.NetworkTrace;
 import com.lukaswillsie.onlinechess.network.ReturnCodes;
 import com.lukaswillsie.onlinechess.network.helper.requesters.RestoreRequester;
 import com.lukaswillsie.onlinechess.network.threads.ReturnCodeThread;
@@ -33,7 +35,7 @@ public class RestoreHelper extends SubHelper implements ReturnCodeCaller {
      * @param container - the ServerHelper that this object is a part of
      */
     RestoreHelper(ServerHelper container) {
-        super(container);
+        super(container, NetworkMetrics.Command.RESTORE);
     }
 
     /**
@@ -51,9 +53,9 @@ public class RestoreHelper extends SubHelper implements ReturnCodeCaller {
         // If the first request in the queue is not active, that is, not being processed, we create
         // a thread to deal with it, and set it as active
         if (head != null && !head.isActive()) {
-            ReturnCodeThread thread = new ReturnCodeThread(getRequestText(head.gameID), this, getOut(), getIn());
+            ReturnCodeThread thread = new ReturnCodeThread(getCommand(), getRequestText(head.gameID), this, getOut(), getIn());
             head.setActive();
-            thread.start();
+            send(head, thread);
         }
     }
 
@@ -65,7 +67,12 @@ public class RestoreHelper extends SubHelper implements ReturnCodeCaller {
      * @param requester - the object that will receive callbacks as to the outcome of the request.
      */
     synchronized void restore(String gameID, RestoreRequester requester) {
-        this.requests.enqueue(new RestoreRequest(gameID, requester));
+        RestoreRequest request = new RestoreRequest(gameID, requester);
+
+        // Claimed here, on the UI thread, since the request may only be sent later, from the
+        // thread that answers the one ahead of it
+        request.setTrace(NetworkTrace.claim(getCommand()));
+        this.requests.enqueue(request);
         this.requestsChanged();
     }
 
@@ -97,7 +104,7 @@ public class RestoreHelper extends SubHelper implements ReturnCodeCaller {
                 // We only make requests in our app if we already have a user logged in. So this
                 // shouldn't happen, but if it does we consider it a server error and treat it as
                 // such after logging it
-                msg = obtainMessage(SERVER_ERROR, request.requester);
+                msg = obtainMessage(SERVER_ERROR, request);
                 break;
             // If the server is telling us we formatted our command incorrectly
             case ReturnCodes.FORMAT_INVALID:
@@ -106,19 +113,19 @@ public class RestoreHelper extends SubHelper implements ReturnCodeCaller {
                 // This shouldn't happen, because we ensure the format of our requests conforms to
                 // protocol. If it does, we've logged the problem for debugging, but at runtime we
                 // call it a server error
-                msg = obtainMessage(SERVER_ERROR, request.requester);
+                msg = obtainMessage(SERVER_ERROR, request);
                 break;
             // If the server is telling us it encountered an error
             case ReturnCodes.SERVER_ERROR:
                 Log.i(tag, "Server says it encountered an error. Can't restore.");
 
-                msg = obtainMessage(SERVER_ERROR, request.requester);
+                msg = obtainMessage(SERVER_ERROR, request);
                 break;
             // If the server is telling us the game was successfully restored
             case ReturnCodes.Restore.SUCCESS:
                 Log.i(tag, "Server says restore successful.");
 
-                msg = obtainMessage(RESTORE_SUCCESS, request.requester);
+                msg = obtainMessage(RESTORE_SUCCESS, request);
                 break;
             // If the server is telling us the game does not exist
             case ReturnCodes.Restore.GAME_DOES_NOT_EXIST:
@@ -127,7 +134,7 @@ public class RestoreHelper extends SubHelper implements ReturnCodeCaller {
                 // This shouldn't happen, because we only allow the user to restore games that the
                 // server has TOLD us already exist. If it does, we treat it as a server error at
                 // runtime, after having logged the problem for debugging.
-                msg = obtainMessage(SERVER_ERROR, request.requester);
+                msg = obtainMessage(SERVER_ERROR, request);
                 break;
             // If the server is telling us that our logged in user is not a player in the game we
             // tried to restore
@@ -137,7 +144,7 @@ public class RestoreHelper extends SubHelper implements ReturnCodeCaller {
                 // This shouldn't happen, because we only allow the user to restore games that the
                 // server has told us the user is a player in. So if it happens, we call it a server
                 // error
-                msg = obtainMessage(SERVER_ERROR, request.requester);
+                msg = obtainMessage(SERVER_ERROR, request);
                 break;
             // The cases we enumerated above are exhaustive, so any other result falls outside of
             // what the server has said it might return, according to protocol, and is treated by
@@ -145,7 +152,7 @@ public class RestoreHelper extends SubHelper implements ReturnCodeCaller {
             default:
                 Log.i(tag, "Server returned " + code + ", which is outside of restore request protocol");
 
-                msg = obtainMessage(SERVER_ERROR, request.requester);
+                msg = obtainMessage(SERVER_ERROR, request);
                 break;
         }
 
@@ -153,20 +160,36 @@ public class RestoreHelper extends SubHelper implements ReturnCodeCaller {
         msg.sendToTarget();
     }
 
+    /**
+     * Give the callback described by the given message to the requester it's meant for, on the UI
+     * thread. The message carries the request it's about.
+     *
+     * @param msg - contains information about the callback to be given
+     */
     @Override
     public void handleMessage(@NonNull Message msg) {
+        RestoreRequest request = (RestoreRequest) msg.obj;
+        requestFinished(request, msg.what, RESTORE_SUCCESS, SERVER_ERROR, CONNECTION_LOST, SYSTEM_ERROR);
+
+        // The requester is let go of the moment it's destroyed, in which case there's nobody left
+        // to give this callback to
+        RestoreRequester requester = request.requester.release();
+        if (requester == null) {
+            return;
+        }
+
         switch (msg.what) {
             case SERVER_ERROR:
-                ((RestoreRequester) msg.obj).serverError();
+                requester.serverError();
                 break;
             case SYSTEM_ERROR:
-                ((RestoreRequester) msg.obj).systemError();
+                requester.systemError();
                 break;
             case CONNECTION_LOST:
-                ((RestoreRequester) msg.obj).connectionLost();
+                requester.connectionLost();
                 break;
             case RESTORE_SUCCESS:
-                ((RestoreRequester) msg.obj).restoreSuccessful();
+                requester.restoreSuccessful();
                 break;
         }
     }
@@ -178,7 +201,7 @@ public class RestoreHelper extends SubHelper implements ReturnCodeCaller {
     public void systemError() {
         RestoreRequest request = (RestoreRequest) this.requests.dequeue();
 
-        obtainMessage(SYSTEM_ERROR, request.requester).sendToTarget();
+        obtainMessage(SYSTEM_ERROR, request).sendToTarget();
         requestsChanged();
     }
 
@@ -190,7 +213,7 @@ public class RestoreHelper extends SubHelper implements ReturnCodeCaller {
     public void connectionLost() {
         RestoreRequest request = (RestoreRequest) this.requests.dequeue();
 
-        obtainMessage(CONNECTION_LOST, request.requester).sendToTarget();
+        obtainMessage(CONNECTION_LOST, request).sendToTarget();
         requestsChanged();
     }
 
@@ -199,11 +222,11 @@ public class RestoreHelper extends SubHelper implements ReturnCodeCaller {
      */
     static class RestoreRequest extends Request {
         private String gameID;
-        private RestoreRequester requester;
+        private RequesterBinding<RestoreRequester> requester;
 
         RestoreRequest(String gameID, RestoreRequester requester) {
             this.gameID = gameID;
-            this.requester = requester;
+            this.requester = RequesterBinding.bind(requester);
         }
     }
 }
@@ -5,9 +5,15 @@ import android.os.Message;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.lifecycle.LifecycleOwner;
 
 import com.lukaswillsie.onlinechess.activities.board.Move;
 import com.lukaswillsie.onlinechess.activities.board.PieceType;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
+import com.lukaswillsie.onlinechess.network.api.Calls;
+import com.lukaswillsie.onlinechess.network.api.CancellationToken;
+import com.lukaswillsie.onlinechess.network.api.ServerApi;
 import com.lukaswillsie.onlinechess.network.helper.requesters.ArchiveRequester;
 import com.lukaswillsie.onlinechess.network.helper.requesters.Connector;
 import com.lukaswillsie.onlinechess.network.helper.requesters.CreateAccountRequester;
@@ -23,8 +29,10 @@ import com.lukaswillsie.onlinechess.network.helper.requesters.MoveRequester;
 import com.lukaswillsie.onlinechess.network.helper.requesters.OpenGamesRequester;
 import com.lukaswillsie.onlinechess.network.helper.requesters.PromotionRequester;
 import com.lukaswillsie.onlinechess.network.helper.requesters.RejectRequester;
+import com.lukaswillsie.onlinechess.network.helper.requesters.Requester;
 import com.lukaswillsie.onlinechess.network.helper.requesters.RestoreRequester;
 import com.lukaswillsie.onlinechess.network.threads.ConnectThread;
+import com.lukaswillsie.onlinechess.network.threads.OutboundScheduler;
 import com.lukaswillsie.onlinechess.network.threads.callers.ConnectCaller;
 
 import java.io.DataInputStream;
@@ -52,7 +60,11 @@ import java.util.List;
  * <p>
  * The only type of request that this object handles directly is a connect request. All other
  * requests are handled by SubHelper objects, for example LoginHelper, for which this object acts as
- * a façade.
+ * a façade. The exceptions are requests that only read from the server, like loading a game or
+ * the list of open games, which go through our ServerApi instead; more than one of these can be
+ * ongoing at once, and asking for something that's already been asked for shares the answer
+ * rather than sending the request again. These requests are cancelled if their requester is
+ * destroyed before they're sent (see CancellationToken).
  * <p>
  * This class extends Handler because it needs a way to bridge the gap between ConnectThreads that
  * it spawns and the UI thread (the UI isn't thread-safe so we can't just call requester's callbacks
@@ -75,6 +87,13 @@ public class ServerHelper extends Handler implements ConnectCaller {
      */
     private static final int PORT = 46751;
 
+    /*
+     * The longest a single read from the server can block before we give up on the connection. A
+     * backstop for the deadlines of each request (see NetworkThread), so it's longer than any of
+     * them.
+     */
+    private static final int READ_TIMEOUT = 20000;
+
     /*
      * Constants that this object uses to send Messages to itself.
      */
@@ -86,7 +105,12 @@ public class ServerHelper extends Handler implements ConnectCaller {
      * object will receive callbacks regarding the success or failure of that request. If there is
      * no currently active connect request, this reference is null.
      */
-    private Connector requester;
+    private RequesterBinding<Connector> requester;
+
+    /**
+     * When the connect request in progress was started, as returned by NetworkMetrics.start()
+     */
+    private long connectStarted;
 
     /*
      * The socket that represents this object's connection with the server
@@ -110,17 +134,13 @@ public class ServerHelper extends Handler implements ConnectCaller {
     private CreateAccountHelper createAccountHelper;
     private ArchiveHelper archiveHelper;
     private RestoreHelper restoreHelper;
-    private OpenGamesHelper openGamesHelper;
     private JoinGameHelper joinGameHelper;
     private CreateGameHelper createGameHelper;
-    private LoadGameHelper loadGameHelper;
     private MoveHelper moveHelper;
     private PromotionHelper promotionHelper;
     private DrawHelper drawHelper;
     private RejectHelper rejectHelper;
     private ForfeitHelper forfeitHelper;
-    private LoadGamesHelper loadGamesHelper;
-    private GameDataHelper gameDataHelper;
 
     /*
      * A list of all helpers delegated to by this object, so that they can all be notified at once
@@ -128,6 +148,24 @@ public class ServerHelper extends Handler implements ConnectCaller {
      */
     private List<SubHelper> helpers;
 
+    /**
+     * Sends every request made on our connection, by our helpers and our ServerApi alike, in
+     * order of priority
+     */
+    private OutboundScheduler scheduler;
+
+    /**
+     * Makes requests on the same connection as our helpers, handing back futures instead of
+     * giving callbacks to Requesters
+     */
+    private ServerApi api;
+
+    /*
+     * The address of the server we connect to, and reconnect to
+     */
+    private final String hostname;
+    private final int port;
+
     /**
      * Create a new ServerHelper for handling network tasks. As part of the creation process, this
      * object will automatically attempt to create a connection with the server.
@@ -136,21 +174,33 @@ public class ServerHelper extends Handler implements ConnectCaller {
      *                  initiated by this object either succeeds or fails.
      */
     public ServerHelper(Connector requester) {
+        this(requester, HOSTNAME, PORT);
+    }
+
+    /**
+     * Create a new ServerHelper that connects to the server at the given address instead of ours,
+     * so that tests can stand in a server of their own
+     *
+     * @param requester - will receive callbacks from this object when the connection attempt
+     *                  initiated by this object either succeeds or fails.
+     * @param hostname  - the host the server is running on
+     * @param port      - the port the server is listening on
+     */
+    @VisibleForTesting
+    public ServerHelper(Connector requester, String hostname, int port) {
+        this.hostname = hostname;
+        this.port = port;
         this.loginHelper = new LoginHelper(this);
         this.createAccountHelper = new CreateAccountHelper(this);
         this.archiveHelper = new ArchiveHelper(this);
         this.restoreHelper = new RestoreHelper(this);
-        this.openGamesHelper = new OpenGamesHelper(this);
         this.joinGameHelper = new JoinGameHelper(this);
         this.createGameHelper = new CreateGameHelper(this);
-        this.loadGameHelper = new LoadGameHelper(this);
         this.moveHelper = new MoveHelper(this);
         this.promotionHelper = new PromotionHelper(this);
         this.drawHelper = new DrawHelper(this);
         this.rejectHelper = new RejectHelper(this);
         this.forfeitHelper = new ForfeitHelper(this);
-        this.loadGamesHelper = new LoadGamesHelper(this);
-        this.gameDataHelper = new GameDataHelper(this);
 
 
         this.helpers = new ArrayList<>();
@@ -158,23 +208,51 @@ public class ServerHelper extends Handler implements ConnectCaller {
         this.helpers.add(createAccountHelper);
         this.helpers.add(archiveHelper);
         this.helpers.add(restoreHelper);
-        this.helpers.add(openGamesHelper);
         this.helpers.add(joinGameHelper);
         this.helpers.add(createGameHelper);
-        this.helpers.add(loadGameHelper);
         this.helpers.add(moveHelper);
         this.helpers.add(promotionHelper);
         this.helpers.add(drawHelper);
         this.helpers.add(rejectHelper);
         this.helpers.add(forfeitHelper);
-        this.helpers.add(loadGamesHelper);
-        this.helpers.add(gameDataHelper);
 
-        this.requester = requester;
-        ConnectThread thread = new ConnectThread(HOSTNAME, PORT, this);
+        this.scheduler = new OutboundScheduler();
+        this.api = new ServerApi(scheduler);
+
+        this.requester = RequesterBinding.bind(requester);
+        ConnectThread thread = new ConnectThread(hostname, port, this);
+        connectStarted = NetworkMetrics.start();
         thread.start();
     }
 
+    /**
+     * Return the scheduler that every request on our connection is sent through, for our helpers
+     */
+    OutboundScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Stop sending requests on this object's connection once those already made have gone out.
+     * Called by Server when this object is replaced by a new ServerHelper, so that our scheduler's
+     * thread doesn't outlive us.
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Return the ServerApi that makes requests on this object's connection. Unlike the methods
+     * below, it hands back a future for every request, which can be combined with others, and
+     * doesn't limit how many requests of a kind can be made at once. Calls for it are made by
+     * Calls, and RequesterAdapters lets it give callbacks to our Requester interfaces.
+     *
+     * @return The ServerApi using this object's connection
+     */
+    public ServerApi getApi() {
+        return api;
+    }
+
     /**
      * Process a login request using the given credentials on behalf of the given requester.
      *
@@ -222,9 +300,10 @@ public class ServerHelper extends Handler implements ConnectCaller {
         if (this.requester != null) {
             throw new MultipleRequestException("Tried to make multiple requests of ServerHelper");
         }
-        this.requester = requester;
+        this.requester = RequesterBinding.bind(requester);
 
-        ConnectThread thread = new ConnectThread(HOSTNAME, PORT, this);
+        ConnectThread thread = new ConnectThread(hostname, port, this);
+        connectStarted = NetworkMetrics.start();
         thread.start();
     }
 
@@ -256,11 +335,9 @@ public class ServerHelper extends Handler implements ConnectCaller {
      * callbacks relevant to the request.
      *
      * @param requester - the object that will receive callbacks relevant to the request
-     * @throws MultipleRequestException - if this ServerHelper already has an ongoing getOpenGames
-     *                                  request
      */
-    public void getOpenGames(OpenGamesRequester requester) throws MultipleRequestException {
-        openGamesHelper.getOpenGames(requester);
+    public void getOpenGames(OpenGamesRequester requester) {
+        api.submit(Calls.openGames(), cancellationFor(requester)).whenDone(RequesterAdapters.openGames(requester));
     }
 
     /**
@@ -300,11 +377,9 @@ public class ServerHelper extends Handler implements ConnectCaller {
      *                  terminates
      * @param gameID    - the gameID of the game that should be requested
      * @param username  - the username of the user currently logged in to the app
-     * @throws MultipleRequestException - if this object is already handling a load game request
-     *                                  when this method is called
      */
-    public void loadGame(LoadGameRequester requester, String gameID, String username) throws MultipleRequestException {
-        this.loadGameHelper.loadGame(requester, gameID, username);
+    public void loadGame(LoadGameRequester requester, String gameID, String username) {
+        api.submit(Calls.loadGame(gameID, username), cancellationFor(requester)).whenDone(RequesterAdapters.loadGame(requester));
     }
 
     /**
@@ -314,11 +389,9 @@ public class ServerHelper extends Handler implements ConnectCaller {
      *                  successfully or unsuccessfully
      * @param gameID    - the game whose data we are to request
      * @param username  - the username of the user who we currently have logged in to the app
-     * @throws MultipleRequestException - if this object is already handling a game data request at
-     *                                  the time that this method is called
      */
-    void getGameData(GameDataRequester requester, String gameID, String username) throws MultipleRequestException {
-        gameDataHelper.getGameData(requester, gameID, username);
+    void getGameData(GameDataRequester requester, String gameID, String username) {
+        api.submit(Calls.gameData(gameID, username), cancellationFor(requester)).whenDone(RequesterAdapters.gameData(requester));
     }
 
     /**
@@ -328,11 +401,9 @@ public class ServerHelper extends Handler implements ConnectCaller {
      *                  whose games we are loading
      * @param requester - the object that will receive callbacks from us when the request either
      *                  succeeds or fails
-     * @throws MultipleRequestException - if this object is already handling a load games request
-     *                                  when this method is called
      */
-    public void loadGames(String username, LoadGamesRequester requester) throws MultipleRequestException {
-        loadGamesHelper.loadGames(username, requester);
+    public void loadGames(String username, LoadGamesRequester requester) {
+        api.submit(Calls.loadGames(username), cancellationFor(requester)).whenDone(RequesterAdapters.loadGames(requester));
     }
 
     /**
@@ -401,6 +472,16 @@ public class ServerHelper extends Handler implements ConnectCaller {
         forfeitHelper.forfeit(requester, gameID);
     }
 
+    /**
+     * Return the token that cancels a request made for the given requester, if it has a Lifecycle
+     *
+     * @param requester - the object making a request
+     * @return The token of requester's Lifecycle, or null if it doesn't have one
+     */
+    private static CancellationToken cancellationFor(Requester requester) {
+        return requester instanceof LifecycleOwner ? CancellationToken.of((LifecycleOwner) requester) : null;
+    }
+
     /**
      * The ConnectThread created by this object uses this method to communicate that a connection
      * was successfully established using the given Socket.
@@ -413,6 +494,7 @@ public class ServerHelper extends Handler implements ConnectCaller {
         try {
             // Create IO devices for communicating with the server and give them to all SubHelpers
             // for subsequent requests
+            socket.setSoTimeout(READ_TIMEOUT);
             this.out = new PrintWriter(socket.getOutputStream(), true);
             this.in = new DataInputStream(socket.getInputStream());
 
@@ -420,6 +502,7 @@ public class ServerHelper extends Handler implements ConnectCaller {
                 helper.setInputStream(this.in);
                 helper.setOutput(this.out);
             }
+            api.setConnection(this.out, this.in);
 
             Message message = this.obtainMessage(CONNECTION_ESTABLISHED);
             message.sendToTarget();
@@ -445,6 +528,17 @@ public class ServerHelper extends Handler implements ConnectCaller {
      */
     @Override
     public void handleMessage(@NonNull Message msg) {
+        NetworkMetrics.finish(NetworkMetrics.Command.CONNECT, connectStarted, msg.what == CONNECTION_ESTABLISHED
+                ? NetworkMetrics.Outcome.SUCCESS : NetworkMetrics.Outcome.CONNECTION_LOST);
+
+        // Our requester is let go of the moment it's destroyed, in which case there's nobody left
+        // to tell about the connection
+        Connector requester = this.requester.release();
+        if (requester == null) {
+            this.requester = null;
+            return;
+        }
+
         switch (msg.what) {
             case CONNECTION_ESTABLISHED:
                 requester.connectionEstablished(this);
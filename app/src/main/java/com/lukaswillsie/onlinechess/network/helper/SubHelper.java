@@ -1,6 +1,14 @@
 package com.lukaswillsie.onlinechess.network.helper;
 
 import android.os.Handler;
+import android.os.Message;
+
+import androidx.annotation.NonNull;
+
+import com.lukaswillsie.onlinechess.network.NetworkLog;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
+import com.lukaswillsie.onlinechess.network.NetworkTrace;
+import com.lukaswillsie.onlinechess.network.threads.NetworkThread;
 
 import java.io.DataInputStream;
 import java.io.PrintWriter;
@@ -21,6 +29,19 @@ import java.io.PrintWriter;
  * to SubHelpers. It's also therefore responsible for enforcing that only one request be active at
  * a time. So we provide a mechanism for SubHelpers to notify ServerHelper that they've finished
  * with a request.
+ * <p>
+ * Finally, every SubHelper records how its requests turn out in NetworkMetrics, under a single
+ * command. It hands a request's thread to send(), which queues it on the connection's
+ * OutboundScheduler rather than starting it, and calls requestFinished() when the request's final
+ * callback is handled. The same two calls carry the request's NetworkTrace: send() hands it to the
+ * thread, we stamp it as the thread's
+ * results are posted to us and picked up on the UI thread, and it's finished once the callback
+ * that requestFinished() was called from has returned.
+ * <p>
+ * SubHelpers that queue up several requests at once keep each one's start time, trace and thread
+ * on its Request instead, since the next request can be sent before the last one's callback has
+ * been given, and pass the Request to send() and requestFinished(). Their Messages must carry the
+ * Request they're about as their obj.
  */
 abstract class SubHelper extends Handler {
     /**
@@ -35,14 +56,183 @@ abstract class SubHelper extends Handler {
      * The PrintWriter this object is using to write to the server
      */
     private PrintWriter out;
+    /**
+     * The command this object's requests are recorded under in NetworkMetrics
+     */
+    private final NetworkMetrics.Command command;
+    /**
+     * When the request in progress was started, as returned by NetworkMetrics.start()
+     */
+    private long started;
+    /**
+     * The trace of the request in progress, or null if tracing is off. Read by the request's
+     * thread when it posts a result to us.
+     */
+    private volatile NetworkTrace.Trace trace;
+    /**
+     * The trace of the request whose final callback is being handled, to be finished once the
+     * callback returns
+     */
+    private NetworkTrace.Trace finishing;
+    /**
+     * The thread making the request in progress, so that we can tell a lost connection from one
+     * the thread closed itself because the server took too long
+     */
+    private volatile NetworkThread thread;
 
     /**
      * Create a new SubHelper as part of the given ServerHelper
      *
      * @param container - the ServerHelper that this object is a part of
+     * @param command   - the command this object's requests should be recorded under
      */
-    SubHelper(ServerHelper container) {
+    SubHelper(ServerHelper container, NetworkMetrics.Command command) {
         this.container = container;
+        this.command = command;
+    }
+
+    /**
+     * Return the command this object's requests are recorded under in NetworkMetrics
+     *
+     * @return - the command this object's requests are recorded under
+     */
+    NetworkMetrics.Command getCommand() {
+        return command;
+    }
+
+    /**
+     * Queue the given thread's request to be sent, timing and tracing it from now. The thread is
+     * run by our ServerHelper's OutboundScheduler, in turn with every other request on the
+     * connection, and mustn't be started.
+     *
+     * @param thread - the thread that will send the request
+     */
+    void send(NetworkThread thread) {
+        started = NetworkMetrics.start();
+        this.thread = thread;
+        trace = NetworkTrace.claim(command);
+        thread.setTrace(trace);
+        container.getScheduler().submit(command, thread);
+    }
+
+    /**
+     * Queue the given thread's request to be sent, on behalf of the given Request, which keeps its
+     * own start time and trace. The Request should have been given its trace on the UI thread when
+     * it was made, and been made active just before this call.
+     *
+     * @param request - the request being sent
+     * @param thread  - the thread that will send it
+     */
+    void send(Request request, NetworkThread thread) {
+        request.setThread(thread);
+        thread.setTrace(request.getTrace());
+        container.getScheduler().submit(command, thread);
+    }
+
+    /**
+     * Record how the request in progress turned out, given the Message constant of its final
+     * callback
+     *
+     * @see #requestFinished(Request, int, int, int, int, int)
+     */
+    void requestFinished(int what, int success, int serverError, int connectionLost, int systemError) {
+        finishing = trace;
+        trace = null;
+        NetworkThread thread = this.thread;
+        this.thread = null;
+        record(started, thread, what, success, serverError, connectionLost, systemError);
+    }
+
+    /**
+     * Record how a request turned out, given the Message constant of its final callback. Every
+     * SubHelper numbers its constants differently, so the caller says which of its constants means
+     * what. Any constant other than these counts as the server turning the request down, for
+     * example because it wasn't the user's turn. A lost connection counts as a timeout if the
+     * request's thread closed the connection because the server didn't answer in time.
+     * <p>
+     * A server or system error also dumps NetworkLog, whether or not metrics are being recorded, so
+     * that what the network threads were doing leading up to it ends up in logcat.
+     *
+     * @param request        - the request that's finished, as given to send()
+     * @param what           - the constant of the request's final callback
+     * @param success        - the constant meaning the request succeeded
+     * @param serverError    - the constant meaning the server had an error
+     * @param connectionLost - the constant meaning the connection to the server was lost
+     * @param systemError    - the constant meaning something went wrong on our end
+     */
+    void requestFinished(Request request, int what, int success, int serverError, int connectionLost, int systemError) {
+        finishing = request.getTrace();
+        record(request.getStarted(), request.getThread(), what, success, serverError, connectionLost, systemError);
+    }
+
+    /**
+     * Do the work of requestFinished() for a request that started at the given time and was sent
+     * by the given thread
+     */
+    private void record(long started, NetworkThread thread, int what, int success, int serverError, int connectionLost, int systemError) {
+        if (what == serverError || what == systemError) {
+            NetworkLog.dump((what == serverError ? "server error" : "system error") + " in response to "
+                    + command.word);
+        }
+
+        if (!NetworkMetrics.isEnabled()) {
+            return;
+        }
+
+        NetworkMetrics.Outcome outcome;
+        if (what == success) {
+            outcome = NetworkMetrics.Outcome.SUCCESS;
+        } else if (what == serverError) {
+            outcome = NetworkMetrics.Outcome.SERVER_ERROR;
+        } else if (what == connectionLost) {
+            outcome = thread != null && thread.hasTimedOut()
+                    ? NetworkMetrics.Outcome.TIMED_OUT : NetworkMetrics.Outcome.CONNECTION_LOST;
+        } else if (what == systemError) {
+            outcome = NetworkMetrics.Outcome.SYSTEM_ERROR;
+        } else {
+            outcome = NetworkMetrics.Outcome.REJECTED;
+        }
+        NetworkMetrics.finish(command, started, outcome);
+    }
+
+    /**
+     * Stamps the request's trace as its thread posts a result to us, then posts it as usual. Every
+     * way of sending a Message to a Handler ends up here.
+     */
+    @Override
+    public boolean sendMessageAtTime(@NonNull Message msg, long uptimeMillis) {
+        NetworkTrace.Trace trace = traceOf(msg);
+        if (trace != null) {
+            trace.mark(NetworkTrace.Stage.POSTED);
+        }
+        return super.sendMessageAtTime(msg, uptimeMillis);
+    }
+
+    /**
+     * Stamps the request's trace as a result is picked up on the UI thread, and finishes the trace
+     * once the request's final callback has returned
+     */
+    @Override
+    public void dispatchMessage(@NonNull Message msg) {
+        NetworkTrace.Trace trace = traceOf(msg);
+        if (trace != null) {
+            trace.mark(NetworkTrace.Stage.DELIVERED);
+        }
+
+        super.dispatchMessage(msg);
+
+        if (finishing != null) {
+            NetworkTrace.finish(finishing);
+            finishing = null;
+        }
+    }
+
+    /**
+     * Return the trace of the request the given Message is about: that of the Request it carries,
+     * if it carries one, or else that of our request in progress
+     */
+    private NetworkTrace.Trace traceOf(Message msg) {
+        return msg.obj instanceof Request ? ((Request) msg.obj).getTrace() : trace;
     }
 
     /**
@@ -1,5 +1,6 @@
 package com.lukaswillsie.onlinechess.network.helper.requesters;
 
+import com.lukaswillsie.onlinechess.data.GameHistory;
 import com.lukaswillsie.onlinechess.data.UserGame;
 
 import Chess.com.lukaswillsie.chess.Board;
@@ -14,12 +15,13 @@ public interface LoadGameRequester extends Requester {
      * the requested game, and will have been initialized successfully from the data sent over by
      * the server.
      *
-     * @param board - a Board object successfully initialized to contain the state of the board in
-     *              the given game
-     * @param game  - a UserGame object initialized to contain all the high-level information about
-     *              the game that was requested
+     * @param board   - a Board object successfully initialized to contain the state of the board
+     *                in the given game
+     * @param game    - a UserGame object initialized to contain all the high-level information
+     *                about the game that was requested
+     * @param history - the moves played in the game, or null if the server couldn't send them
      */
-    void success(Board board, UserGame game);
+    void success(Board board, UserGame game, GameHistory history);
 
     /**
      * Called if the server responds to the request by saying the supplied gameID is not associated
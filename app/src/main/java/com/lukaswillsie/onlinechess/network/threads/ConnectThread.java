@@ -1,7 +1,9 @@
 package com.lukaswillsie.onlinechess.network.threads;
 
-import android.util.Log;
+import androidx.core.os.TraceCompat;
 
+import com.lukaswillsie.onlinechess.network.NetworkLog;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
 import com.lukaswillsie.onlinechess.network.threads.callers.ConnectCaller;
 
 import java.io.IOException;
@@ -29,7 +31,7 @@ public class ConnectThread extends Thread {
     /*
      * How long ConnectThreads will wait for a connection to be established before timing out
      */
-    private static final int TIMEOUT = 5000;
+    private static final int TIMEOUT = NetworkMetrics.Command.CONNECT.deadline;
 
 
     /*
@@ -64,23 +66,25 @@ public class ConnectThread extends Thread {
      */
     @Override
     public void run() {
-        Log.i(tag, "Attempting to connect to server...");
+        NetworkLog.i(tag, "Attempting to connect to server...");
         try {
             Socket socket = new Socket();
-            socket.connect(new InetSocketAddress(hostname, port), TIMEOUT);
-            Log.i(tag, "Connection with server established. Notifying caller.");
+            TraceCompat.beginSection("connect");
+            try {
+                socket.connect(new InetSocketAddress(hostname, port), TIMEOUT);
+            } finally {
+                TraceCompat.endSection();
+            }
+            NetworkLog.i(tag, "Connection with server established. Notifying caller.");
             caller.connectionEstablished(socket);
         } catch (UnknownHostException e) {
-            Log.e(tag,
-                    "UnknownHostException from Host: \" " + hostname + "\" and Port: " + port);
+            NetworkLog.e(tag, "UnknownHostException connecting to port {} of host \"{}\"", port, hostname);
             caller.connectionFailed();
         } catch (SocketTimeoutException e) {
-            Log.e(tag, "Connection to server timed out after " + TIMEOUT + " milliseconds.");
+            NetworkLog.e(tag, "Connection to server timed out after {} milliseconds.", TIMEOUT);
             caller.connectionFailed();
         } catch (IOException e) {
-            Log.e(tag,
-                    "IOException when trying to connect to" + " Host: \" " + hostname + "\" and Port: "
-                            + port);
+            NetworkLog.e(tag, "IOException connecting to port {} of host \"{}\"", port, hostname);
             caller.connectionFailed();
         }
     }
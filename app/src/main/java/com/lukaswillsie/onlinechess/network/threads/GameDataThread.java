@@ -1,9 +1,9 @@
 package com.lukaswillsie.onlinechess.network.threads;
 
-import android.util.Log;
-
 import com.lukaswillsie.onlinechess.data.ServerData;
 import com.lukaswillsie.onlinechess.data.UserGame;
+import com.lukaswillsie.onlinechess.network.NetworkLog;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
 import com.lukaswillsie.onlinechess.network.ReturnCodes;
 import com.lukaswillsie.onlinechess.network.threads.callers.GameDataCaller;
 
@@ -54,11 +54,14 @@ public class GameDataThread extends NetworkThread {
      * @param reader   - the device that this NetworkThread will use to read from the server
      */
     public GameDataThread(String gameID, String username, GameDataCaller caller, PrintWriter writer, DataInputStream reader) {
-        super(writer, reader);
+        super(NetworkMetrics.Command.GET_GAME_DATA, writer, reader);
+        this.gameID = gameID;
+        this.username = username;
+        this.caller = caller;
     }
 
     @Override
-    public void run() {
+    protected void exchange() {
         sendRequest();
 
         try {
@@ -66,36 +69,36 @@ public class GameDataThread extends NetworkThread {
             int code = readInt();
             switch (code) {
                 case ReturnCodes.NO_USER:
-                    Log.e(tag, "Server says we haven't logged in a user");
+                    NetworkLog.e(tag, "Server says we haven't logged in a user");
 
                     // Treat this as a server error, because we never make this request unless we've
                     // already logged in a user
                     caller.serverError();
                     return;
                 case ReturnCodes.FORMAT_INVALID:
-                    Log.e(tag, "Server says our command was invalidly formatted");
+                    NetworkLog.e(tag, "Server says our command was invalidly formatted");
 
                     // Treat this as a server error, because we always ensure our commands match
                     // protocol
                     caller.serverError();
                     return;
                 case ReturnCodes.SERVER_ERROR:
-                    Log.e(tag, "Server says it encountered an error");
+                    NetworkLog.e(tag, "Server says it encountered an error");
 
                     caller.serverError();
                     return;
                 case ReturnCodes.LoadGames.SUCCESS:
-                    Log.i(tag, "Server says we can expect to receive all the user's games");
+                    NetworkLog.i(tag, "Server says we can expect to receive all the user's games");
                     break;
                 case ReturnCodes.GetGameData.GAME_DOES_NOT_EXIST:
-                    Log.e(tag, "Server says game \"" + gameID + "\" does not exist");
+                    NetworkLog.e(tag, "Server says game \"{}\" does not exist", gameID);
 
                     // Treat this as a server error because we only make requests if we believe them
                     // to be valid, according to data the server has itself given to us
                     caller.serverError();
                     return;
                 case ReturnCodes.GetGameData.USER_NOT_IN_GAME:
-                    Log.e(tag, "Server says user is not in game \"" + gameID + "\"");
+                    NetworkLog.e(tag, "Server says user is not in game \"{}\"", gameID);
 
                     // Treat this as a server error because we only make requests if we believe them
                     // to be valid, according to data the server has itself given to us
@@ -103,7 +106,7 @@ public class GameDataThread extends NetworkThread {
                     return;
                 // Any other return code does not conform to protocol
                 default:
-                    Log.i(tag, "Server returned \"" + code + "\", which is outside of protocol");
+                    NetworkLog.i(tag, "Server returned \"{}\", which is outside of protocol", code);
                     caller.serverError();
                     return;
             }
@@ -126,7 +129,7 @@ public class GameDataThread extends NetworkThread {
             // Convert the data from the server into a UserGame object
             game = new UserGame(username);
             if (game.initialize(serverData) == 1) {
-                Log.e(tag, "A game couldn't be initialized from data sent by server");
+                NetworkLog.e(tag, "A game couldn't be initialized from data sent by server");
                 caller.serverError();
                 return;
             }
@@ -137,18 +140,18 @@ public class GameDataThread extends NetworkThread {
             // This means the server has closed their end of the connection. If the server has
             // disconnected, we can't do anything until a new connection has been made. So notify
             // the caller of the problem, and then exit this thread.
-            Log.e(tag, "Server has disconnected.");
+            NetworkLog.e(tag, "Server has disconnected.");
             caller.connectionLost();
         } catch (SocketException e) {
             // This means some problem occurred with the connection. The server may have crashed,
             // for example. If the server has disconnected, we can't proceed until a new connection
             // has been made. So notify the caller of the problem, and then exit this thread.
-            Log.e(tag, "Server has disconnected.");
+            NetworkLog.e(tag, "Server has disconnected.");
             caller.connectionLost();
         } catch (IOException e) {
             // This means some OTHER problem has occurred, probably within the system. So, again, we
             // notify the caller before exiting the thread.
-            Log.e(tag, "IOException while reading from server");
+            NetworkLog.e(tag, "IOException while reading from server");
             e.printStackTrace();
             caller.systemError();
         }
@@ -1,9 +1,9 @@
 package com.lukaswillsie.onlinechess.network.threads;
 
-import android.util.Log;
-
 import com.lukaswillsie.onlinechess.data.ServerData;
 import com.lukaswillsie.onlinechess.data.UserGame;
+import com.lukaswillsie.onlinechess.network.NetworkLog;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
 import com.lukaswillsie.onlinechess.network.ReturnCodes;
 import com.lukaswillsie.onlinechess.network.threads.callers.JoinGameCaller;
 
@@ -46,14 +46,14 @@ public class JoinGameThread extends NetworkThread {
      * @param reader - the device that this NetworkThread will use to read from the server
      */
     public JoinGameThread(JoinGameCaller caller, String gameID, String username, PrintWriter writer, DataInputStream reader) {
-        super(writer, reader);
+        super(NetworkMetrics.Command.JOIN_GAME, writer, reader);
         this.caller = caller;
         this.gameID = gameID;
         this.username = username;
     }
 
     @Override
-    public void run() {
+    protected void exchange() {
         // First we try and join the game
         this.sendRequest(getJoinRequest(gameID));
 
@@ -61,15 +61,15 @@ public class JoinGameThread extends NetworkThread {
         try {
             response = this.readInt();
         } catch (EOFException e) {
-            Log.i(tag, "Connection to server has been lost on server's end");
+            NetworkLog.i(tag, "Connection to server has been lost on server's end");
             caller.connectionLost();
             return;
         } catch (SocketException e) {
-            Log.i(tag, "Connection to server has been lost on server's end");
+            NetworkLog.i(tag, "Connection to server has been lost on server's end");
             caller.connectionLost();
             return;
         } catch (IOException e) {
-            Log.i(tag, "There was an IOException reading from socket");
+            NetworkLog.i(tag, "There was an IOException reading from socket");
             caller.systemError();
             return;
         }
@@ -77,7 +77,7 @@ public class JoinGameThread extends NetworkThread {
         // Interpret the server's return code
         switch (response) {
             case ReturnCodes.NO_USER:
-                Log.i(tag, "Server says we haven't logged in a user");
+                NetworkLog.i(tag, "Server says we haven't logged in a user");
 
                 // This shouldn't happen; the app should never make a join game request without
                 // first logging in a user. So we treat this as a server error after logging the
@@ -85,39 +85,39 @@ public class JoinGameThread extends NetworkThread {
                 caller.serverError();
                 return;
             case ReturnCodes.FORMAT_INVALID:
-                Log.i(tag, "Server says our command was invalidly formatted");
+                NetworkLog.i(tag, "Server says our command was invalidly formatted");
 
                 // Because our commands are formatted to exactly conform with protocol, we treat
                 // this as an error server-side
                 caller.serverError();
                 return;
             case ReturnCodes.SERVER_ERROR:
-                Log.i(tag, "Server says it encountered an error");
+                NetworkLog.i(tag, "Server says it encountered an error");
 
                 caller.serverError();
                 return;
             case ReturnCodes.JoinGame.SUCCESS:
-                Log.i(tag, "Server says we successfully joined game \"" + gameID + "\"");
+                NetworkLog.i(tag, "Server says we successfully joined game \"{}\"", gameID);
 
                 caller.gameJoined();
                 break;
             case ReturnCodes.JoinGame.GAME_DOES_NOT_EXIST:
-                Log.i(tag, "Server says game \"" + gameID + "\" does not exist");
+                NetworkLog.i(tag, "Server says game \"{}\" does not exist", gameID);
 
                 caller.gameDoesNotExist();
                 return;
             case ReturnCodes.JoinGame.GAME_FULL:
-                Log.i(tag, "Server says game \"" + gameID + "\" is full");
+                NetworkLog.i(tag, "Server says game \"{}\" is full", gameID);
 
                 caller.gameFull();
                 return;
             case ReturnCodes.JoinGame.USER_ALREADY_IN_GAME:
-                Log.i(tag, "Server says user is already in game \"" + gameID + "\"");
+                NetworkLog.i(tag, "Server says user is already in game \"{}\"", gameID);
 
                 caller.userAlreadyInGame();
                 return;
             default:
-                Log.i(tag, "Server returned \"" + response + "\", which is outside of join game protocol");
+                NetworkLog.i(tag, "Server returned \"{}\", which is outside of join game protocol", response);
 
                 // We treat this as an error server side, because the server isn't conforming to
                 // protocol
@@ -132,6 +132,16 @@ public class JoinGameThread extends NetworkThread {
         List<Object> serverData = new ArrayList<>();
 
         try {
+            // Like every other answer, the game's data comes after a return code (see
+            // GameDataThread). We've just joined the game, so anything but success means the
+            // server has gone wrong.
+            response = this.readInt();
+            if (response != ReturnCodes.GetGameData.SUCCESS) {
+                NetworkLog.i(tag, "Server returned \"{}\" when asked for the data of game \"{}\"", response, gameID);
+                caller.serverError();
+                return;
+            }
+
             for (ServerData dataType : ServerData.order) {
                 if (dataType.type == 'i') {
                     serverData.add(this.readInt());
@@ -140,17 +150,17 @@ public class JoinGameThread extends NetworkThread {
                 }
             }
         } catch (EOFException e) {
-            Log.i(tag, "EOFException reading from server. Server has closed the connection");
+            NetworkLog.i(tag, "EOFException reading from server. Server has closed the connection");
 
             caller.connectionLost();
             return;
         } catch (SocketException e) {
-            Log.i(tag, "SocketException reading from server. Server may have crashed.");
+            NetworkLog.i(tag, "SocketException reading from server. Server may have crashed.");
 
             caller.connectionLost();
             return;
         } catch (IOException e) {
-            Log.i(tag, "IOException reading from server. There may have been a system error");
+            NetworkLog.i(tag, "IOException reading from server. There may have been a system error");
             e.printStackTrace();
 
             caller.systemError();
@@ -1,9 +1,11 @@
 package com.lukaswillsie.onlinechess.network.threads;
 
-import android.util.Log;
-
+import com.lukaswillsie.onlinechess.data.GameHistory;
 import com.lukaswillsie.onlinechess.data.ServerData;
 import com.lukaswillsie.onlinechess.data.UserGame;
+import com.lukaswillsie.onlinechess.engine.Position;
+import com.lukaswillsie.onlinechess.network.NetworkLog;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
 import com.lukaswillsie.onlinechess.network.ReturnCodes;
 import com.lukaswillsie.onlinechess.network.threads.callers.LoadGameCaller;
 
@@ -40,6 +42,11 @@ public class LoadGameThread extends NetworkThread {
      */
     private String username;
 
+    /**
+     * Whether or not we should ask the server to send the game's move history along with the board
+     */
+    private boolean requestHistory;
+
     /**
      * Creates a new NetworkThread that will use the given devices to read from and write to the
      * server
@@ -47,35 +54,50 @@ public class LoadGameThread extends NetworkThread {
      * @param caller   - the object that will receive a callback from this thread when the request
      *                 terminates
      * @param gameID   - the ID of the game we are to load
-     * @param username - the username of the user currently logged in to the app; i.e. the one
-     *                 whose game we are loading
-     * @param writer   - the device that this NetworkThread will use to write to the server
-     * @param reader   - the device that this NetworkThread will use to read from the server
+     * @param username       - the username of the user currently logged in to the app; i.e. the one
+     *                       whose game we are loading
+     * @param requestHistory - whether or not to ask the server for the game's move history
+     * @param writer         - the device that this NetworkThread will use to write to the server
+     * @param reader         - the device that this NetworkThread will use to read from the server
      */
-    public LoadGameThread(LoadGameCaller caller, String gameID, String username, PrintWriter writer, DataInputStream reader) {
-        super(writer, reader);
+    public LoadGameThread(LoadGameCaller caller, String gameID, String username, boolean requestHistory, PrintWriter writer, DataInputStream reader) {
+        super(NetworkMetrics.Command.LOAD_GAME, writer, reader);
         this.caller = caller;
         this.gameID = gameID;
         this.username = username;
+        this.requestHistory = requestHistory;
     }
 
     @Override
-    public void run() {
-        this.sendRequest(getRequest(gameID));
+    protected void exchange() {
+        boolean history = requestHistory;
+        this.sendRequest(getRequest(gameID, history));
 
         int result;
         try {
             result = this.readInt();
+
+            // Servers that predate move history reject the extended request as invalidly
+            // formatted. In that case we let our caller know, so that it stops asking on this
+            // connection, and fall back to a plain request.
+            if (history && result == ReturnCodes.FORMAT_INVALID) {
+                NetworkLog.i(tag, "Server doesn't support move history. Loading game \"{}\" without it", gameID);
+                caller.historyNotSupported();
+
+                history = false;
+                this.sendRequest(getRequest(gameID, false));
+                result = this.readInt();
+            }
         } catch (EOFException e) {
-            Log.e(tag, "Server closed the connection");
+            NetworkLog.e(tag, "Server closed the connection");
             caller.connectionLost();
             return;
         } catch (SocketException e) {
-            Log.e(tag, "Connection to server has been lost; server may have crashed");
+            NetworkLog.e(tag, "Connection to server has been lost; server may have crashed");
             caller.connectionLost();
             return;
         } catch (IOException e) {
-            Log.e(tag, "IOException while reading from server");
+            NetworkLog.e(tag, "IOException while reading from server");
             e.printStackTrace();
             caller.systemError();
             return;
@@ -83,7 +105,7 @@ public class LoadGameThread extends NetworkThread {
 
         switch (result) {
             case ReturnCodes.NO_USER:
-                Log.e(tag, "Server says we have no user logged in. Can't join game \"" + gameID + "\"");
+                NetworkLog.e(tag, "Server says we have no user logged in. Can't join game \"{}\"", gameID);
 
                 // We never allow our app to make request of this sort without logging in a user, so
                 // we have no way of dealing with this at runtime other than by calling it a server
@@ -91,27 +113,27 @@ public class LoadGameThread extends NetworkThread {
                 caller.serverError();
                 return;
             case ReturnCodes.FORMAT_INVALID:
-                Log.e(tag, "Server says our load game request was invalidly formatted. Can't load game \"" + gameID + "\"");
+                NetworkLog.e(tag, "Server says our load game request was invalidly formatted. Can't load game \"{}\"", gameID);
 
                 // We ensure that our requests conform strictly to protocol, so we have no recourse
                 // when an error like this surfaces other than to log it and treat it as an error on
                 // the server's part
                 caller.serverError();
             case ReturnCodes.SERVER_ERROR:
-                Log.i(tag, "Server says it encountered an error. Can't load game \"" + gameID + "\"");
+                NetworkLog.i(tag, "Server says it encountered an error. Can't load game \"{}\"", gameID);
 
                 caller.serverError();
                 return;
             case ReturnCodes.LoadGame.SUCCESS:
-                Log.i(tag, "Server says we can load game \"" + gameID + "\"");
+                NetworkLog.i(tag, "Server says we can load game \"{}\"", gameID);
                 break;
             case ReturnCodes.LoadGame.GAME_DOES_NOT_EXIST:
-                Log.e(tag, "Server says game \"" + gameID + "\" does not exist. Can't load it.");
+                NetworkLog.e(tag, "Server says game \"{}\" does not exist. Can't load it.", gameID);
 
                 caller.gameDoesNotExist();
                 return;
             case ReturnCodes.LoadGame.USER_NOT_IN_GAME:
-                Log.e(tag, "Server says our user is not a player in game \"" + gameID + "\"");
+                NetworkLog.e(tag, "Server says our user is not a player in game \"{}\"", gameID);
 
                 caller.userNotInGame();
                 return;
@@ -138,20 +160,20 @@ public class LoadGameThread extends NetworkThread {
             // Convert the data from the server into a UserGame object
             game = new UserGame(username);
             if (game.initialize(serverData) == 1) {
-                Log.e(tag, "A game couldn't be initialized from data sent by server");
+                NetworkLog.e(tag, "A game couldn't be initialized from data sent by server");
                 caller.serverError();
                 return;
             }
         } catch (EOFException e) {
-            Log.e(tag, "Server closed the connection.");
+            NetworkLog.e(tag, "Server closed the connection.");
             caller.connectionLost();
             return;
         } catch (SocketException e) {
-            Log.e(tag, "Connection with server has been lost. Server may have crashed.");
+            NetworkLog.e(tag, "Connection with server has been lost. Server may have crashed.");
             caller.connectionLost();
             return;
         } catch (IOException e) {
-            Log.e(tag, "IOException while reading from server.");
+            NetworkLog.e(tag, "IOException while reading from server.");
             e.printStackTrace();
             caller.systemError();
             return;
@@ -178,21 +200,56 @@ public class LoadGameThread extends NetworkThread {
 
             data.append(this.readInt()).append("\n");
         } catch (EOFException e) {
-            Log.e(tag, "Server closed the connection.");
+            NetworkLog.e(tag, "Server closed the connection.");
             caller.connectionLost();
             return;
         } catch (SocketException e) {
-            Log.e(tag, "Connection with server has been lost. Server may have crashed.");
+            NetworkLog.e(tag, "Connection with server has been lost. Server may have crashed.");
             caller.connectionLost();
             return;
         } catch (IOException e) {
-            Log.e(tag, "IOException while reading from server.");
+            NetworkLog.e(tag, "IOException while reading from server.");
             e.printStackTrace();
             caller.systemError();
             return;
         }
 
-        System.out.println(data);
+        // If we asked for it, the move history comes after the board: one integer giving the number
+        // of plies played, then one integer per ply, as described in GameHistory
+        GameHistory gameHistory = null;
+        if (history) {
+            try {
+                int plies = this.readInt();
+                if (plies < 0) {
+                    NetworkLog.e(tag, "Server sent a negative number of plies in game \"{}\"", gameID);
+                    caller.serverError();
+                    return;
+                }
+
+                // No game we can replay is longer than this, so a bigger count can only be a
+                // broken or hostile server, and we don't want to read that much on its say-so
+                if (plies > Position.MAX_HISTORY) {
+                    NetworkLog.e(tag, "Server sent {} plies for game \"{}\", more than we can hold", plies, gameID);
+                    caller.serverError();
+                    return;
+                }
+                gameHistory = new GameHistory(this.readInts(plies));
+            } catch (EOFException e) {
+                NetworkLog.e(tag, "Server closed the connection.");
+                caller.connectionLost();
+                return;
+            } catch (SocketException e) {
+                NetworkLog.e(tag, "Connection with server has been lost. Server may have crashed.");
+                caller.connectionLost();
+                return;
+            } catch (IOException e) {
+                NetworkLog.e(tag, "IOException while reading from server.");
+                e.printStackTrace();
+                caller.systemError();
+                return;
+            }
+        }
+
         // Wrap a scanner around the data we read from the server so that Board will accept it
         Scanner scanner = new Scanner(data.toString());
         Board board = new Board();
@@ -200,11 +257,14 @@ public class LoadGameThread extends NetworkThread {
         // Attempt to initialize board with the data given us by the server
         int boardBuilt = board.initialize(scanner);
         if (boardBuilt == 1) {
-            Log.e(tag, "Couldn't create a Board object from data sent over by server");
+            NetworkLog.e(tag, "Couldn't create a Board object from data sent over by server");
             caller.serverError();
         } else {
-            Log.i(tag, "Successfully created a Board object from data sent by server");
-            caller.success(board, game);
+            NetworkLog.i(tag, "Successfully created a Board object from data sent by server");
+            // Keep the data the board was built from, so the game can be saved and rebuilt later
+            // without asking the server again
+            game.setBoardData(data.toString());
+            caller.success(board, game, gameHistory);
         }
     }
 
@@ -212,11 +272,12 @@ public class LoadGameThread extends NetworkThread {
      * Return the String that should be sent to the server as part of a request to load the game
      * with the given ID.
      *
-     * @param gameID - the ID of the game to be loaded
+     * @param gameID  - the ID of the game to be loaded
+     * @param history - whether or not to ask for the game's move history as well
      * @return A String that can be sent to the server as part of a request to load the game with
      * the given ID
      */
-    private String getRequest(String gameID) {
-        return "loadgame " + gameID;
+    private String getRequest(String gameID, boolean history) {
+        return history ? "loadgame " + gameID + " history" : "loadgame " + gameID;
     }
 }
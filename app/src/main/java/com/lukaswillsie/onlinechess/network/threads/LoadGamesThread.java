@@ -1,9 +1,9 @@
 package com.lukaswillsie.onlinechess.network.threads;
 
-import android.util.Log;
-
 import com.lukaswillsie.onlinechess.data.ServerData;
 import com.lukaswillsie.onlinechess.data.UserGame;
+import com.lukaswillsie.onlinechess.network.NetworkLog;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
 import com.lukaswillsie.onlinechess.network.ReturnCodes;
 import com.lukaswillsie.onlinechess.network.threads.callers.LoadGamesCaller;
 
@@ -43,13 +43,13 @@ public class LoadGamesThread extends NetworkThread {
      * @param reader   - the device this Thread will use to read from the server
      */
     public LoadGamesThread(String username, LoadGamesCaller caller, PrintWriter writer, DataInputStream reader) {
-        super(writer, reader);
+        super(NetworkMetrics.Command.LOAD_GAMES, writer, reader);
         this.caller = caller;
         this.username = username;
     }
 
     @Override
-    public void run() {
+    protected void exchange() {
         // First, we of course send our request to the server
         sendRequest();
 
@@ -58,7 +58,7 @@ public class LoadGamesThread extends NetworkThread {
             int code = readInt();
             switch (code) {
                 case ReturnCodes.NO_USER:
-                    Log.e(tag, "Server says we haven't logged in a user");
+                    NetworkLog.e(tag, "Server says we haven't logged in a user");
 
                     // Treat this as a server error, because we never make this request unless we've
                     // already logged in a user
@@ -68,11 +68,11 @@ public class LoadGamesThread extends NetworkThread {
                     caller.serverError();
                     return;
                 case ReturnCodes.LoadGames.SUCCESS:
-                    Log.i(tag, "Server says we can expect to receive all the user's games");
+                    NetworkLog.i(tag, "Server says we can expect to receive all the user's games");
                     break;
                 // Any other return code does not conform to protocol
                 default:
-                    Log.i(tag, "Server returned \"" + code + "\", which is outside of protocol");
+                    NetworkLog.i(tag, "Server returned \"{}\", which is outside of protocol", code);
                     caller.serverError();
                     return;
             }
@@ -101,7 +101,7 @@ public class LoadGamesThread extends NetworkThread {
                 // Convert the data from the server into a UserGame object
                 game = new UserGame(username);
                 if (game.initialize(serverData) == 1) {
-                    Log.e(tag, "A game couldn't be initialized from data sent by server");
+                    NetworkLog.e(tag, "A game couldn't be initialized from data sent by server");
                     caller.serverError();
                     return;
                 }
@@ -116,18 +116,18 @@ public class LoadGamesThread extends NetworkThread {
             // This means the server has closed their end of the connection. If the server has
             // disconnected, we can't do anything until a new connection has been made. So notify
             // the caller of the problem, and then exit this thread.
-            Log.e(tag, "Server has disconnected.");
+            NetworkLog.e(tag, "Server has disconnected.");
             caller.connectionLost();
         } catch (SocketException e) {
             // This means some problem occurred with the connection. The server may have crashed,
             // for example. If the server has disconnected, we can't proceed until a new connection
             // has been made. So notify the caller of the problem, and then exit this thread.
-            Log.e(tag, "Server has disconnected.");
+            NetworkLog.e(tag, "Server has disconnected.");
             caller.connectionLost();
         } catch (IOException e) {
             // This means some OTHER problem has occurred, probably within the system. So, again, we
             // notify the caller before exiting the thread.
-            Log.e(tag, "IOException while reading from server");
+            NetworkLog.e(tag, "IOException while reading from server");
             e.printStackTrace();
             caller.systemError();
         }
@@ -1,10 +1,9 @@
 package com.lukaswillsie.onlinechess.network.threads;
 
-
-import android.util.Log;
-
 import com.lukaswillsie.onlinechess.data.ServerData;
 import com.lukaswillsie.onlinechess.data.UserGame;
+import com.lukaswillsie.onlinechess.network.NetworkLog;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
 import com.lukaswillsie.onlinechess.network.ReturnCodes;
 import com.lukaswillsie.onlinechess.network.threads.callers.LoginCaller;
 
@@ -51,7 +50,7 @@ public class LoginThread extends NetworkThread {
      * @param reader   - the device this Thread will use to read from the server
      */
     public LoginThread(String username, String password, LoginCaller caller, PrintWriter writer, DataInputStream reader) {
-        super(writer, reader);
+        super(NetworkMetrics.Command.LOGIN, writer, reader);
         this.caller = caller;
         this.username = username;
         this.password = password;
@@ -77,10 +76,10 @@ public class LoginThread extends NetworkThread {
      * constructed from the batches of data sent over by the server.
      */
     @Override
-    public void run() {
+    protected void exchange() {
         // Send our login request to the server.
         sendRequest("login " + username + " " + password);
-        Log.i(tag, "Sent request \"login " + username + " " + password + "\" to server.");
+        NetworkLog.i(tag, "Sent login request for username \"{}\" to server.", username);
 
         // We encase this code in a try/catch because our readInt and readLine methods throw any
         // exceptions they encounter while trying to read
@@ -89,28 +88,27 @@ public class LoginThread extends NetworkThread {
 
             switch (code) {
                 case ReturnCodes.Login.SUCCESS:
-                    Log.i(tag, "Login successful for credentials: " + username + "," + password);
+                    NetworkLog.i(tag, "Login successful for username \"{}\"", username);
                     caller.loginSuccess();
                     break;
                 case ReturnCodes.Login.USERNAME_DOES_NOT_EXIST:
-                    Log.i(tag, "Username \"" + username + "\" does not exist");
+                    NetworkLog.i(tag, "Username \"{}\" does not exist", username);
                     caller.usernameInvalid();
                     return;
                 case ReturnCodes.Login.PASSWORD_INVALID:
-                    Log.i(tag, "Password \"" + password + "\" invalid for username \"" + username + "\"");
+                    NetworkLog.i(tag, "Password invalid for username \"{}\"", username);
                     caller.passwordInvalid();
                     return;
                 case ReturnCodes.SERVER_ERROR:
-                    Log.e(tag, "Server returned error in response to login request");
+                    NetworkLog.e(tag, "Server returned error in response to login request");
                     caller.serverError();
                     return;
                 case ReturnCodes.FORMAT_INVALID:
-                    Log.e(tag, "Server returned FORMAT_INVALID. Make sure request format " +
-                            "conforms to protocol");
+                    NetworkLog.e(tag, "Server returned FORMAT_INVALID. Make sure request format conforms to protocol");
                     caller.serverError();
                     return;
                 default: // In this case, the server returned a code outside of its defined protocol
-                    Log.e(tag, "Server returned code " + code + ". Invalid for login request.");
+                    NetworkLog.e(tag, "Server returned code {}. Invalid for login request.", code);
                     caller.serverError();
                     return;
             }
@@ -145,7 +143,7 @@ public class LoginThread extends NetworkThread {
 
                 game = new UserGame(username);
                 if (game.initialize(serverData) == 1) {
-                    Log.e(tag, "A game couldn't be initialized from data sent by server");
+                    NetworkLog.e(tag, "A game couldn't be initialized from data sent by server");
                     caller.serverError();
                     return;
                 }
@@ -161,7 +159,7 @@ public class LoginThread extends NetworkThread {
             //
             // If the server has disconnected, we can't proceed with a login until a new connection
             // has been made. So notify the caller of the problem, and then exit this thread.
-            Log.e(tag, "Server has disconnected.");
+            NetworkLog.e(tag, "Server has disconnected.");
             caller.connectionLost();
         } catch (SocketException e) {
             // This means some problem occurred with the connection. The server may have crashed,
@@ -169,10 +167,10 @@ public class LoginThread extends NetworkThread {
             //
             // If the server has disconnected, we can't proceed with a login until a new connection
             // has been made. So notify the caller of the problem, and then exit this thread.
-            Log.e(tag, "Server has disconnected.");
+            NetworkLog.e(tag, "Server has disconnected.");
             caller.connectionLost();
         } catch (IOException e) {
-            Log.e(tag, "IOException while reading from server");
+            NetworkLog.e(tag, "IOException while reading from server");
             e.printStackTrace();
             caller.systemError();
         }
@@ -1,19 +1,57 @@
 package com.lukaswillsie.onlinechess.network.threads;
 
-import android.util.Log;
+import com.lukaswillsie.onlinechess.network.NetworkLog;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
+import com.lukaswillsie.onlinechess.network.NetworkTrace;
 
 import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This class centralizes functionality common to all types of Threads in our app.
+ * <p>
+ * That includes making sure no thread waits on the server forever. Each request has its command's
+ * deadline (see NetworkMetrics.Command) to be answered in full, and a request that runs past it
+ * has its connection closed out from under it. There's no way of abandoning just the one request:
+ * the server's answers aren't labelled, so whatever was left of this answer would be read as the
+ * answer to the next request made on the connection. Closing it wakes the thread up from whatever
+ * read it's stuck in, it reports a lost connection like any other, and the app reconnects as it
+ * would after any other lost connection. The same goes for a single read running past the
+ * socket's read timeout, if one has been set.
  */
-abstract class NetworkThread extends Thread {
+public abstract class NetworkThread extends Thread {
     private static final String tag = "NetworkThread";
 
+    /**
+     * How many integers readInts() makes room for before any have arrived
+     */
+    private static final int INITIAL_INTS = 64;
+
+    /**
+     * Closes the connection of any request that runs past its deadline. A single thread times
+     * every request, so timing them doesn't cost a thread each.
+     */
+    private static final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "NetworkWatchdog");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
     /*
      * The IO devices this object will use to communicate with the server. MUST BE SET through
      * setter methods below before the thread is started
@@ -21,18 +59,130 @@ abstract class NetworkThread extends Thread {
     private PrintWriter writer;
     private DataInputStream reader;
 
+    /**
+     * The command whose request this thread is making; every byte we send and receive is counted
+     * against it in NetworkMetrics
+     */
+    private NetworkMetrics.Command command;
+
+    /**
+     * The trace of the request this thread is making, stamped as the request is sent and answered;
+     * null if the request isn't being traced
+     */
+    private NetworkTrace.Trace trace;
+
+    /**
+     * Set once our exchange with the server is over, either because it finished or because it
+     * timed out, whichever comes first
+     */
+    private final AtomicBoolean over = new AtomicBoolean();
+
+    /**
+     * Whether our request ran past its deadline, or a read ran past the socket's read timeout, and
+     * so had its connection closed
+     */
+    private volatile boolean timedOut;
+
     /**
      * Creates a new NetworkThread that will use the given devices to read from and write to the
      * server
      *
-     * @param writer - the device that this NetworkThread will use to write to the server
-     * @param reader - the device that this NetworkThread will use to read from the server
+     * @param command - the command whose request this thread makes
+     * @param writer  - the device that this NetworkThread will use to write to the server
+     * @param reader  - the device that this NetworkThread will use to read from the server
      */
-    public NetworkThread(PrintWriter writer, DataInputStream reader) {
+    public NetworkThread(NetworkMetrics.Command command, PrintWriter writer, DataInputStream reader) {
+        this.command = command;
         this.writer = writer;
         this.reader = reader;
     }
 
+    /**
+     * Give this thread the trace of the request it's making. Must be called before the thread is
+     * started.
+     *
+     * @param trace - the request's trace, or null if it isn't being traced
+     */
+    public void setTrace(NetworkTrace.Trace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Make this thread's request and read the server's answer. Requests made by different threads
+     * on the same connection used to be able to interleave, and read each other's answers, so we
+     * hold the connection, by way of its reader, for the whole exchange. A thread can also be run
+     * without being started, on a thread of the caller's choosing, as OutboundScheduler does with
+     * every request the app makes.
+     * <p>
+     * Our deadline starts once we have the connection, so time spent waiting on other threads'
+     * requests doesn't count against it.
+     */
+    @Override
+    public final void run() {
+        synchronized (reader) {
+            ScheduledFuture<?> deadline = watchdog.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (over.compareAndSet(false, true)) {
+                        NetworkLog.e(tag, "{}ms passed without an answer to {} request", command.deadline, command.word);
+                        timeOut();
+                    }
+                }
+            }, command.deadline, TimeUnit.MILLISECONDS);
+
+            try {
+                exchange();
+            } finally {
+                over.set(true);
+                deadline.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Send this thread's request to the server and report its answer to the thread's caller. Only
+     * ever called with the connection held.
+     */
+    protected abstract void exchange();
+
+    /**
+     * Check whether our request was abandoned because the server took too long to answer, in
+     * which case the lost connection our caller was told about was our doing. Only meaningful
+     * once the thread has reported back.
+     */
+    public boolean hasTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Abandon our request by closing the connection, which closing our reader does, as it reads
+     * from the socket itself. Any read we're blocked in then fails with a SocketException.
+     */
+    private void timeOut() {
+        timedOut = true;
+        try {
+            reader.close();
+        } catch (IOException e) {
+            NetworkLog.e(tag, "Couldn't close the connection of a {} request that timed out", command.word);
+        }
+    }
+
+    /**
+     * Called when a read runs past the socket's read timeout. The server has gone quiet partway
+     * through its answer, which leaves the connection in the same state as running past our
+     * deadline, so we do the same thing.
+     *
+     * @return An exception to throw in place of the timeout, so that our subclasses report a lost
+     * connection
+     */
+    private SocketException readTimedOut() {
+        if (over.compareAndSet(false, true)) {
+            NetworkLog.e(tag, "Read timed out partway through answer to {} request", command.word);
+            timeOut();
+        }
+        return new SocketException("Read timed out");
+    }
+
     /**
      * Read a single integer from the server and return it
      *
@@ -44,41 +194,126 @@ abstract class NetworkThread extends Thread {
      * @throws IOException     if there is some other problem with the read, like a system error
      */
     int readInt() throws EOFException, SocketException, IOException {
-        int num = reader.readInt();
-        Log.i(tag, "Read: " + num);
+        int num;
+        try {
+            num = reader.readInt();
+        } catch (SocketTimeoutException e) {
+            throw readTimedOut();
+        }
+        responded();
+        NetworkMetrics.received(command, 4);
+        if (NetworkLog.VERBOSE_ENABLED) {
+            NetworkLog.v(tag, "Read: {}", num);
+        }
         return num;
     }
 
+    /**
+     * Read the given number of integers from the server. Unlike readInt(), doesn't log every
+     * integer read, which matters when reading long lists like a game's move history.
+     * <p>
+     * The count usually comes from the server, so we don't allocate room for all of it up front;
+     * the array grows as integers actually arrive, and a server that claims far more than it sends
+     * costs us no more memory than what it sent. Callers should still bound the count themselves.
+     *
+     * @param count - the number of integers to read
+     * @return the integers read from the server, in the order they were read
+     * @throws EOFException    if the server has willfully closed its connection with us when the read
+     *                         occurs
+     * @throws SocketException if the connection with the server has been closed for some other
+     *                         reason, for example if the server crashed
+     * @throws IOException     if there is some other problem with the read, like a system error
+     */
+    int[] readInts(int count) throws EOFException, SocketException, IOException {
+        int[] nums = new int[Math.min(count, INITIAL_INTS)];
+        try {
+            for (int i = 0; i < count; i++) {
+                if (i == nums.length) {
+                    nums = Arrays.copyOf(nums, (int) Math.min(count, 2L * nums.length));
+                }
+                nums[i] = reader.readInt();
+            }
+        } catch (SocketTimeoutException e) {
+            throw readTimedOut();
+        }
+        responded();
+        NetworkMetrics.received(command, 4 * count);
+        if (NetworkLog.VERBOSE_ENABLED) {
+            NetworkLog.v(tag, "Read {} integers", count);
+        }
+        return nums;
+    }
+
     /**
      * Reads a single line of input from the server. That is, reads ONE-BYTE chars from the server
      * repeatedly until a network newline, "\r\n", is found.
      *
+     * @throws EOFException    if the server willfully closes its connection with us before the
+     *                         line is over
      * @throws SocketException if the server has disconnected when this method tries to read from it
      * @throws IOException     if there is some other problem with the read, like a system error
      */
-    String readLine() throws SocketException, IOException {
+    String readLine() throws EOFException, SocketException, IOException {
         char[] last = {'\0', '\0'};
         StringBuilder builder = new StringBuilder();
 
-        char read;
-        while (last[0] != '\r' || last[1] != '\n') {
-            read = (char) reader.read();
-            last[0] = last[1];
-            last[1] = read;
+        int read;
+        try {
+            while (last[0] != '\r' || last[1] != '\n') {
+                read = reader.read();
+
+                // Without this, a server hanging up mid-line would have us appending -1 forever
+                if (read == -1) {
+                    throw new EOFException();
+                }
+                last[0] = last[1];
+                last[1] = (char) read;
 
-            builder.append(read);
+                builder.append((char) read);
+            }
+        } catch (SocketTimeoutException e) {
+            throw readTimedOut();
         }
 
+        responded();
+
+        // Every char is a single byte, and the builder still holds the "\r\n"
+        NetworkMetrics.received(command, builder.length());
+
         // Truncate the builder to omit the "\r\n" at the end of the line
         builder.setLength(builder.length() - 2);
-        Log.i(tag, "Read: " + builder.toString());
-        return builder.toString();
+        String line = builder.toString();
+        if (NetworkLog.VERBOSE_ENABLED) {
+            NetworkLog.v(tag, "Read: {}", line);
+        }
+        return line;
     }
 
     /**
      * Send the given request to the server.
      */
     void sendRequest(String request) {
+        if (trace != null) {
+            trace.mark(NetworkTrace.Stage.SENDING);
+        }
+
         writer.println(request);
+
+        if (trace != null) {
+            trace.mark(NetworkTrace.Stage.SENT);
+        }
+
+        // We only ever send ASCII, followed by a one-byte newline
+        NetworkMetrics.sent(command, request.length() + 1);
+    }
+
+    /**
+     * Stamp the request's trace with the moment the server's answer started arriving, the first
+     * time something is read
+     */
+    private void responded() {
+        if (trace != null && trace.getMark(NetworkTrace.Stage.RESPONDED) == 0) {
+            trace.mark(NetworkTrace.Stage.RESPONDED);
+        }
     }
 }
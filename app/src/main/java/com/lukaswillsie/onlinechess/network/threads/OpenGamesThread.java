@@ -1,9 +1,9 @@
 package com.lukaswillsie.onlinechess.network.threads;
 
-import android.util.Log;
-
 import com.lukaswillsie.onlinechess.data.Game;
 import com.lukaswillsie.onlinechess.data.ServerData;
+import com.lukaswillsie.onlinechess.network.NetworkLog;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
 import com.lukaswillsie.onlinechess.network.ReturnCodes;
 import com.lukaswillsie.onlinechess.network.threads.callers.OpenGamesCaller;
 
@@ -39,12 +39,12 @@ public class OpenGamesThread extends NetworkThread {
      * @param reader - the device to be used to read from the server
      */
     public OpenGamesThread(OpenGamesCaller caller, PrintWriter writer, DataInputStream reader) {
-        super(writer, reader);
+        super(NetworkMetrics.Command.OPEN_GAMES, writer, reader);
         this.caller = caller;
     }
 
     @Override
-    public void run() {
+    protected void exchange() {
         // Send our request to the server
         this.sendRequest(getRequest());
 
@@ -53,22 +53,22 @@ public class OpenGamesThread extends NetworkThread {
         try {
             response = readInt();
         } catch (EOFException e) {
-            Log.e(tag, "Connection with server closed by server");
+            NetworkLog.e(tag, "Connection with server closed by server");
             caller.connectionLost();
             return;
         } catch (SocketException e) {
-            Log.e(tag, "Connection with server closed");
+            NetworkLog.e(tag, "Connection with server closed");
             caller.connectionLost();
             return;
         } catch (IOException e) {
-            Log.e(tag, "IOException reading response from server");
+            NetworkLog.e(tag, "IOException reading response from server");
             e.printStackTrace();
             caller.systemError();
             return;
         }
 
         if (response == ReturnCodes.SERVER_ERROR) {
-            Log.e(tag, "Server returned SERVER_ERROR in response to request \"" + getRequest() + "\"");
+            NetworkLog.e(tag, "Server returned SERVER_ERROR in response to request \"{}\"", getRequest());
             caller.serverError();
             return;
         }
@@ -94,7 +94,7 @@ public class OpenGamesThread extends NetworkThread {
                 int code = game.initialize(data);
                 data = new ArrayList<>();
                 if (code == 1) {
-                    Log.e(tag, "A game couldn't be initialized from data sent by server");
+                    NetworkLog.e(tag, "A game couldn't be initialized from data sent by server");
                     caller.serverError();
                     return;
                 }
@@ -102,15 +102,15 @@ public class OpenGamesThread extends NetworkThread {
                 openGames.add(game);
             }
         } catch (EOFException e) {
-            Log.e(tag, "Connection with server closed by server");
+            NetworkLog.e(tag, "Connection with server closed by server");
             caller.connectionLost();
             return;
         } catch (SocketException e) {
-            Log.e(tag, "Connection with server closed");
+            NetworkLog.e(tag, "Connection with server closed");
             caller.connectionLost();
             return;
         } catch (IOException e) {
-            Log.e(tag, "IOException reading from server");
+            NetworkLog.e(tag, "IOException reading from server");
             caller.systemError();
             return;
         }
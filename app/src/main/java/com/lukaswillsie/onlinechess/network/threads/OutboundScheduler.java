@@ -0,0 +1,203 @@
+package com.lukaswillsie.onlinechess.network.threads;
+
+import com.lukaswillsie.onlinechess.network.NetworkLog;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides the order in which requests go out on a connection. Every request, whether made by a
+ * SubHelper or through ServerApi, is submitted here and run on our one sending thread, one at a
+ * time, which is the order they're answered in too.
+ * <p>
+ * Requests wait in one queue per priority class (see NetworkMetrics.Priority), and the sending
+ * thread always takes the oldest request of the highest class waiting. So a move made while the
+ * list of open games is downloading goes out as soon as the download is over, rather than behind
+ * whatever else has piled up in the meantime. Strict priority could leave a background request
+ * waiting for as long as the user keeps playing, though, so a request at the front of its queue
+ * is overtaken by at most MAX_OVERTAKES requests of higher classes before it's sent anyway.
+ * <p>
+ * The queues are ConcurrentLinkedQueues, so submitting a request never blocks on a lock, whichever
+ * thread it's submitted from, and the sending thread parks while there's nothing to send. How
+ * long each request waited is recorded in NetworkMetrics, by class.
+ * <p>
+ * A scheduler belongs to one connection, and shutdown() must be called once that connection is
+ * replaced, or its sending thread would be left parked for as long as the app runs.
+ */
+public class OutboundScheduler {
+    /**
+     * Tag used for logging to the console
+     */
+    private static final String tag = "OutboundScheduler";
+
+    /**
+     * How many requests of higher classes can be sent ahead of the request at the front of a
+     * queue before it goes first
+     */
+    private static final int MAX_OVERTAKES = 4;
+
+    private static final NetworkMetrics.Priority[] PRIORITIES = NetworkMetrics.Priority.values();
+
+    /**
+     * The requests waiting to be sent, one queue per priority class, by ordinal
+     */
+    private final Queue<Job>[] queues;
+
+    /**
+     * How many requests have been sent ahead of the request at the front of each queue. Only
+     * touched by the sending thread.
+     */
+    private final int[] overtaken = new int[PRIORITIES.length];
+
+    /**
+     * Sends every request, in the order next() picks
+     */
+    private final Thread sender;
+
+    /**
+     * Set by shutdown(), after which the sending thread exits as soon as the queues are empty
+     */
+    private volatile boolean shutdown;
+
+    /**
+     * Create a scheduler for a connection, with a sending thread of its own that runs until
+     * shutdown() is called
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public OutboundScheduler() {
+        queues = new Queue[PRIORITIES.length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ConcurrentLinkedQueue<>();
+        }
+
+        sender = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                send();
+            }
+        }, tag);
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    /**
+     * Queue the given work to be run on our sending thread, after every request of a higher class,
+     * and every request of the same class submitted before it. The work has the connection to
+     * itself until it returns. Can be called from any thread.
+     *
+     * @param command - the command the work sends, whose priority class it waits in
+     * @param work    - sends the request and reads its answer; usually a NetworkThread, which is
+     *                run rather than started
+     */
+    public void submit(NetworkMetrics.Command command, Runnable work) {
+        if (shutdown) {
+            NetworkLog.e(tag, "{} request submitted after shutdown; it may never be sent", command.word);
+        }
+        queues[command.priority.ordinal()].offer(new Job(command, work));
+
+        // If the sender isn't parked, this makes its next park() return straight away, so the job
+        // can't be missed
+        LockSupport.unpark(sender);
+    }
+
+    /**
+     * Stop our sending thread once every request already submitted has been sent. Requests still
+     * waiting are sent rather than dropped, so whoever made them hears back, if only that the
+     * connection was lost. Can be called from any thread, more than once.
+     */
+    public void shutdown() {
+        shutdown = true;
+        LockSupport.unpark(sender);
+    }
+
+    /**
+     * Run on our sending thread: send requests until we're shut down, parking whenever there are
+     * none
+     */
+    private void send() {
+        while (true) {
+            Job job = next();
+            if (job == null) {
+                if (shutdown) {
+                    NetworkLog.i(tag, "Shut down; sending thread exiting");
+                    return;
+                }
+                LockSupport.park(this);
+                continue;
+            }
+
+            NetworkMetrics.waited(job.command.priority, job.queued);
+            try {
+                job.work.run();
+            } catch (RuntimeException e) {
+                // Whoever made the request will never hear back, but everything behind it still can
+                NetworkLog.e(tag, "Uncaught exception sending {} request", job.command.word);
+                e.printStackTrace();
+                NetworkLog.dump("exception sending " + job.command.word);
+            }
+        }
+    }
+
+    /**
+     * Take the request to send next off its queue: the front of any queue that's been overtaken
+     * too often, lowest class first, or else the front of the highest class's queue
+     *
+     * @return The request to send, or null if there are none waiting
+     */
+    private Job next() {
+        for (int i = queues.length - 1; i > 0; i--) {
+            if (overtaken[i] >= MAX_OVERTAKES) {
+                overtaken[i] = 0;
+                Job job = queues[i].poll();
+                if (job != null) {
+                    overtook(i);
+                    return job;
+                }
+            }
+        }
+
+        for (int i = 0; i < queues.length; i++) {
+            Job job = queues[i].poll();
+            if (job != null) {
+                overtaken[i] = 0;
+                overtook(i);
+                return job;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Note that a request of the given class is being sent ahead of whatever is waiting in the
+     * queues of lower classes
+     *
+     * @param index - the ordinal of the class being sent
+     */
+    private void overtook(int index) {
+        for (int i = index + 1; i < queues.length; i++) {
+            if (!queues[i].isEmpty()) {
+                overtaken[i]++;
+            }
+        }
+    }
+
+    /**
+     * A request waiting to be sent
+     */
+    private static class Job {
+        private final NetworkMetrics.Command command;
+        private final Runnable work;
+
+        /**
+         * When the request was queued, as returned by NetworkMetrics.start()
+         */
+        private final long queued = NetworkMetrics.start();
+
+        private Job(NetworkMetrics.Command command, Runnable work) {
+            this.command = command;
+            this.work = work;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.lukaswillsie.onlinechess.network.threads;
 
-import android.util.Log;
-
+import com.lukaswillsie.onlinechess.network.NetworkLog;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
 import com.lukaswillsie.onlinechess.network.threads.callers.ReturnCodeCaller;
 
 import java.io.DataInputStream;
@@ -39,21 +39,22 @@ public class ReturnCodeThread extends NetworkThread {
      * NOTE: The superclass methods setWriter and setReader() MUST BE CALLED before this Thread is
      * started.
      *
+     * @param command - the command the request is for
      * @param request - the request to send to the server when this Thread is run
      * @param caller  - the object to report the result back to
      */
-    public ReturnCodeThread(String request, ReturnCodeCaller caller, PrintWriter writer, DataInputStream reader) {
-        super(writer, reader);
+    public ReturnCodeThread(NetworkMetrics.Command command, String request, ReturnCodeCaller caller, PrintWriter writer, DataInputStream reader) {
+        super(command, writer, reader);
         this.caller = caller;
         this.request = request;
     }
 
     /**
-     * Runs this thread. Simply sends the request given to this object at creation to the server,
-     * and reports the return code back to the caller.
+     * Simply sends the request given to this object at creation to the server, and reports the
+     * return code back to the caller.
      */
     @Override
-    public void run() {
+    protected void exchange() {
         this.sendRequest(request);
 
         try {
@@ -62,15 +63,15 @@ public class ReturnCodeThread extends NetworkThread {
         }
         // These first two exceptions mean that the server has disconnected
         catch (EOFException e) {
-            Log.i(tag, "EOFException thrown. Server disconnected.");
+            NetworkLog.i(tag, "EOFException thrown. Server disconnected.");
             caller.connectionLost();
         } catch (SocketException e) {
-            Log.i(tag, "SocketException thrown. Server disconnected.");
+            NetworkLog.i(tag, "SocketException thrown. Server disconnected.");
             caller.connectionLost();
         }
         // This means that there was some other problem, a system problem, with our attempt to read
         catch (IOException e) {
-            Log.i(tag, "IOException while reading from server");
+            NetworkLog.i(tag, "IOException while reading from server");
             e.printStackTrace();
             caller.systemError();
         }
@@ -1,5 +1,6 @@
 package com.lukaswillsie.onlinechess.network.threads.callers;
 
+import com.lukaswillsie.onlinechess.data.GameHistory;
 import com.lukaswillsie.onlinechess.data.UserGame;
 
 import Chess.com.lukaswillsie.chess.Board;
@@ -19,12 +20,20 @@ public interface LoadGameCaller extends ThreadCaller {
      * together will represent the requested game, and will have been initialized successfully from
      * the data sent over by the server.
      *
-     * @param board - a Board object successfully initialized to contain the state of the board in
-     *              the given game
-     * @param game  - a UserGame object initialized to contain all the high-level information about
-     *              the game that was requested
+     * @param board   - a Board object successfully initialized to contain the state of the board
+     *                in the given game
+     * @param game    - a UserGame object initialized to contain all the high-level information
+     *                about the game that was requested
+     * @param history - the moves played in the game, or null if history wasn't requested or the
+     *                server doesn't support it
      */
-    void success(Board board, UserGame game);
+    void success(Board board, UserGame game, GameHistory history);
+
+    /**
+     * Called if the server rejects a request for move history, meaning it predates that part of
+     * the protocol. The request itself still goes ahead, without history.
+     */
+    void historyNotSupported();
 
     /**
      * Called if the server responds to the request by saying the supplied gameID is not associated
@@ -0,0 +1,158 @@
+package com.lukaswillsie.onlinechess.activities.board;
+
+import android.view.MotionEvent;
+
+import com.lukaswillsie.onlinechess.data.ServerData;
+import com.lukaswillsie.onlinechess.data.UserGame;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import Chess.com.lukaswillsie.chess.Board;
+import Chess.com.lukaswillsie.chess.Pair;
+import Chess.com.lukaswillsie.chess.Piece;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that ChessManager allocates nothing while handling ACTION_MOVE, which arrives many times a
+ * second while the user's finger moves over the board. We count the bytes allocated by the test's
+ * own thread, which needs a JVM that can report them, like HotSpot; elsewhere the test is skipped.
+ */
+public class ChessManagerAllocationTest {
+    /**
+     * The starting position, as Board.initialize() reads it: castling rights, then the rows from
+     * black's back rank down, then the en passant column
+     */
+    private static final String START = "1\n1\n1\n1\n"
+            + "rnbqkbnr\npppppppp\n--------\n--------\n--------\n--------\nPPPPPPPP\nRNBQKBNR\n"
+            + "-1\n";
+
+    /**
+     * How many times we touch every square before counting, so that the JIT has settled
+     */
+    private static final int WARMUP = 20000;
+
+    /**
+     * How many times we touch every square while counting
+     */
+    private static final int SWEEPS = 1000;
+
+    @Test
+    public void dragMoveAllocatesNothingForWhite() {
+        assertSweepAllocatesNothing(manager("alice"));
+    }
+
+    @Test
+    public void dragMoveAllocatesNothingForBlack() {
+        assertSweepAllocatesNothing(manager("bob"));
+    }
+
+    /**
+     * Feed ACTION_MOVE on every square to the given manager, and check that none of it allocated
+     */
+    private static void assertSweepAllocatesNothing(ChessManager manager) {
+        com.sun.management.ThreadMXBean threads = threads();
+        long id = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP; i++) {
+            sweep(manager);
+        }
+
+        // Reading the counter can allocate in its own right, so we measure that and take it off
+        long before = threads.getThreadAllocatedBytes(id);
+        long overhead = threads.getThreadAllocatedBytes(id) - before;
+
+        before = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < SWEEPS; i++) {
+            sweep(manager);
+        }
+        long allocated = threads.getThreadAllocatedBytes(id) - before - overhead;
+
+        assertEquals("Bytes allocated handling ACTION_MOVE", 0, allocated);
+    }
+
+    /**
+     * Touch every square on the board once with ACTION_MOVE
+     */
+    private static void sweep(ChessManager manager) {
+        for (int row = 0; row < 8; row++) {
+            for (int column = 0; column < 8; column++) {
+                manager.onTouch(row, column, MotionEvent.ACTION_MOVE);
+            }
+        }
+    }
+
+    /**
+     * Get the thread bean, skipping the test if it can't count allocations
+     */
+    private static com.sun.management.ThreadMXBean threads() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+
+    /**
+     * Build a manager for a game between alice (white) and bob (black) at the starting position,
+     * seen by the given user, with white to move. Its display draws nothing.
+     */
+    private static ChessManager manager(String username) {
+        List<Object> serverData = new ArrayList<>();
+        for (ServerData data : ServerData.order) {
+            if (data == ServerData.GAMEID) {
+                serverData.add("game");
+            } else if (data == ServerData.WHITE) {
+                serverData.add("alice");
+            } else if (data == ServerData.BLACK) {
+                serverData.add("bob");
+            } else {
+                serverData.add(data.initial);
+            }
+        }
+        UserGame game = new UserGame(username);
+        assertEquals(0, game.initialize(serverData));
+
+        Board board = new Board();
+        assertEquals(0, board.initialize(new Scanner(START)));
+
+        // With white to move, alice's sweeps start a drag on each of her pieces, and bob's only look
+        // at the squares; both have to get through ACTION_MOVE without allocating
+        return new ChessManager("game", new GamePresenter(game, board), new SilentDisplay(), null, null, null);
+    }
+
+    /**
+     * A BoardDisplay with no board behind it, which ignores everything it's asked to show
+     */
+    private static class SilentDisplay extends BoardDisplay {
+        @Override
+        public void activate(GamePresenter presenter, DisplayListener listener) {
+        }
+
+        @Override
+        public void highlightSquares(List<Pair> squares, boolean capture) {
+        }
+
+        @Override
+        public void selectSquare(int row, int column) {
+        }
+
+        @Override
+        public void resetSquares() {
+        }
+
+        @Override
+        public void startDrag(int row, int column) {
+        }
+
+        @Override
+        public void set(int row, int column, Piece piece, boolean playSoundEffect, boolean capture) {
+        }
+    }
+}
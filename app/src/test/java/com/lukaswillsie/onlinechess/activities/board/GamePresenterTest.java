@@ -0,0 +1,283 @@
+package com.lukaswillsie.onlinechess.activities.board;
+
+import com.lukaswillsie.onlinechess.data.GameData;
+import com.lukaswillsie.onlinechess.data.ServerData;
+import com.lukaswillsie.onlinechess.data.UserGame;
+import com.lukaswillsie.onlinechess.engine.Pieces;
+import com.lukaswillsie.onlinechess.engine.Position;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import Chess.com.lukaswillsie.chess.Board;
+import Chess.com.lukaswillsie.chess.Colour;
+import Chess.com.lukaswillsie.chess.Pair;
+import Chess.com.lukaswillsie.chess.Piece;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the Position GamePresenter keeps stays in step with its Board as moves are made, and
+ * that its answers about checkmate and stalemate agree with the Board's own. Also times the two
+ * against each other, as the app pays for them once per move.
+ */
+public class GamePresenterTest {
+    /**
+     * The starting position, as Board.initialize() reads it: castling rights, then the rows from
+     * black's back rank down, then the en passant column
+     */
+    private static final String START = "1\n1\n1\n1\n"
+            + "rnbqkbnr\npppppppp\n--------\n--------\n--------\n--------\nPPPPPPPP\nRNBQKBNR\n"
+            + "-1\n";
+
+    /**
+     * White to move, with a pawn one step from promoting and nobody able to castle
+     */
+    private static final String PROMOTION = "0\n0\n0\n0\n"
+            + "-------k\nP-------\n--------\n--------\n--------\n--------\n--------\nK-------\n"
+            + "-1\n";
+
+    /*
+     * Games played from START, as (from row, from column, to row, to column) for each ply, where
+     * row 0 is white's back rank and column 0 is the a-file
+     */
+
+    /**
+     * Scholar's mate: white mates on its fourth move
+     */
+    private static final int[][] SCHOLARS_MATE = {
+            {1, 4, 3, 4}, {6, 4, 4, 4}, {0, 5, 3, 2}, {7, 1, 5, 2}, {0, 3, 4, 7}, {7, 6, 5, 5},
+            {4, 7, 6, 5}
+    };
+
+    /**
+     * Sam Loyd's ten-move stalemate: white stalemates black with most of the pieces still on
+     */
+    private static final int[][] LOYD_STALEMATE = {
+            {1, 4, 2, 4}, {6, 0, 4, 0}, {0, 3, 4, 7}, {7, 0, 5, 0}, {4, 7, 4, 0}, {6, 7, 4, 7},
+            {1, 7, 3, 7}, {5, 0, 5, 7}, {4, 0, 6, 2}, {6, 5, 5, 5}, {6, 2, 6, 3}, {7, 4, 6, 5},
+            {6, 3, 6, 1}, {7, 3, 2, 3}, {6, 1, 7, 1}, {2, 3, 6, 7}, {7, 1, 7, 2}, {6, 5, 5, 6},
+            {7, 2, 5, 4}
+    };
+
+    /**
+     * Both kings step out and back home, which costs both sides their castling rights even though
+     * every piece ends up where it started
+     */
+    private static final int[][] KINGS_COME_HOME = {
+            {1, 4, 3, 4}, {6, 4, 4, 4}, {0, 4, 1, 4}, {7, 4, 6, 4}, {1, 4, 0, 4}, {6, 4, 7, 4}
+    };
+
+    /**
+     * White castles kingside on its fourth move
+     */
+    private static final int[][] WHITE_CASTLES = {
+            {1, 4, 3, 4}, {6, 4, 4, 4}, {0, 6, 2, 5}, {7, 1, 5, 2}, {0, 5, 3, 2}, {7, 6, 5, 5},
+            {0, 4, 0, 6}
+    };
+
+    /**
+     * The name of the library's class for each engine piece type, by type
+     */
+    private static final String[] NAMES = {"Pawn", "Knight", "Bishop", "Rook", "Queen", "King"};
+
+    /**
+     * How many times each game is played through while timing
+     */
+    private static final int ROUNDS = 2000;
+
+    @Test
+    public void scholarsMateAgreesWithBoard() {
+        assertTrue(playAndCompare(SCHOLARS_MATE).isCheckmate());
+    }
+
+    @Test
+    public void loydStalemateAgreesWithBoard() {
+        assertTrue(playAndCompare(LOYD_STALEMATE).isStalemate());
+    }
+
+    @Test
+    public void kingThatComesHomeCantCastle() {
+        GamePresenter presenter = playAndCompare(KINGS_COME_HOME);
+        assertEquals("Castling rights", 0, presenter.toPosition().getCastling());
+    }
+
+    @Test
+    public void castlingMovesTheRook() {
+        GamePresenter presenter = playAndCompare(WHITE_CASTLES);
+        Position position = presenter.toPosition();
+        assertEquals(Pieces.make(Pieces.WHITE, Pieces.KING), position.getPiece(Pieces.square(0, 6)));
+        assertEquals(Pieces.make(Pieces.WHITE, Pieces.ROOK), position.getPiece(Pieces.square(0, 5)));
+        assertEquals("Castling rights", Position.BLACK_KINGSIDE | Position.BLACK_QUEENSIDE, position.getCastling());
+    }
+
+    @Test
+    public void promotionReplacesThePawn() {
+        GamePresenter presenter = presenter(PROMOTION);
+        assertEquals(-1, presenter.makeMove(new Move(new Pair(6, 0), new Pair(7, 0))));
+        assertMatchesBoard(presenter);
+
+        assertEquals(0, presenter.promote(PieceType.PromotePiece.ROOK));
+        Position position = presenter.toPosition();
+        assertEquals(Pieces.make(Pieces.WHITE, Pieces.ROOK), position.getPiece(Pieces.square(7, 0)));
+        assertEquals(Pieces.BLACK, position.getSideToMove());
+        assertTrue("Rook on a8 should give check", position.inCheck());
+        assertMatchesBoard(presenter);
+    }
+
+    @Test
+    public void restoredPresenterMatchesBoard() {
+        GamePresenter played = playAndCompare(WHITE_CASTLES);
+        GamePresenter restored = GamePresenter.restore(game(START), played.getPlayed());
+        assertEquals(played.toPosition().toFen(), restored.toPosition().toFen());
+        assertMatchesBoard(restored);
+    }
+
+    /**
+     * Not a check so much as a measurement: how long the Board takes to decide whether a move
+     * ended the game, against what our Position costs, which is one make() on top of the Board's
+     * own move and then the two questions
+     */
+    @Test
+    public void compareCostWithBoard() {
+        long[] times = new long[3];
+
+        // The first rounds are only there to let the JIT settle
+        for (int round = 0; round < 2 * ROUNDS; round++) {
+            if (round == ROUNDS) {
+                times = new long[3];
+            }
+            time(SCHOLARS_MATE, times);
+            time(LOYD_STALEMATE, times);
+        }
+
+        int moves = ROUNDS * (SCHOLARS_MATE.length + LOYD_STALEMATE.length);
+        double board = times[0] / (double) moves;
+        double make = times[1] / (double) moves;
+        double position = times[2] / (double) moves;
+        System.out.println(String.format("Per move: Board %.1f ns; Position %.1f ns (make %.1f ns, checks %.1f ns)",
+                board, make + position, make, position));
+    }
+
+    /**
+     * Play the given moves on a presenter for alice, who plays white, and on a Board of its own,
+     * checking after each of alice's moves that the presenter answers as the Board does
+     *
+     * @return The presenter, with every move made
+     */
+    private static GamePresenter playAndCompare(int[][] moves) {
+        GamePresenter presenter = presenter(START);
+        Board board = board(START);
+        for (int ply = 0; ply < moves.length; ply++) {
+            Pair src = new Pair(moves[ply][0], moves[ply][1]);
+            Pair dest = new Pair(moves[ply][2], moves[ply][3]);
+            assertEquals("Move " + ply, 0, presenter.makeMove(new Move(src, dest)));
+            assertEquals("Move " + ply, 0, board.move(src, dest));
+            assertMatchesBoard(presenter);
+
+            if (ply % 2 == 0) {
+                assertEquals("Checkmate after move " + ply, board.isCheckmate(Colour.BLACK), presenter.isCheckmate());
+                assertEquals("Stalemate after move " + ply, board.isStalemate(), presenter.isStalemate());
+            }
+        }
+        return presenter;
+    }
+
+    /**
+     * Play the given moves once on a presenter and once on a bare Board, adding the time the Board
+     * spends answering to times[0], the time the presenter spends keeping its Position in step on
+     * top of the Board's move to times[1], and the time it spends answering to times[2]
+     */
+    private static void time(int[][] moves, long[] times) {
+        GamePresenter presenter = presenter(START);
+        Board board = board(START);
+        Board bare = board(START);
+        for (int ply = 0; ply < moves.length; ply++) {
+            Pair src = new Pair(moves[ply][0], moves[ply][1]);
+            Pair dest = new Pair(moves[ply][2], moves[ply][3]);
+            Move move = new Move(src, dest);
+
+            long start = System.nanoTime();
+            bare.move(src, dest);
+            long bareMove = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            presenter.makeMove(move);
+            long presenterMove = System.nanoTime() - start;
+            times[1] += presenterMove - bareMove;
+
+            board.move(src, dest);
+            Colour moved = (ply % 2 == 0) ? Colour.BLACK : Colour.WHITE;
+            start = System.nanoTime();
+            boolean boardEnded = board.isCheckmate(moved) || board.isStalemate();
+            times[0] += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            boolean presenterEnded = presenter.isCheckmate() || presenter.isStalemate();
+            times[2] += System.nanoTime() - start;
+
+            // Use the answers, so that the JIT can't throw the work away
+            if (boardEnded && presenterEnded && ply < 0) {
+                System.out.println(ply);
+            }
+        }
+    }
+
+    /**
+     * Check, square by square, that the presenter's Position has the same pieces as its Board
+     */
+    private static void assertMatchesBoard(GamePresenter presenter) {
+        Position position = presenter.toPosition();
+        for (int row = 0; row < 8; row++) {
+            for (int column = 0; column < 8; column++) {
+                Piece expected = presenter.getPiece(row, column);
+                int actual = position.getPiece(Pieces.square(row, column));
+                assertEquals("Square " + Pieces.squareName(Pieces.square(row, column)),
+                        expected == null ? "-" : expected.getClass().getSimpleName(),
+                        actual == Pieces.EMPTY ? "-" : NAMES[Pieces.type(actual)]);
+            }
+        }
+    }
+
+    /**
+     * Build a presenter for a game between alice (white) and bob (black) on the given board, seen
+     * by alice, with white to move
+     */
+    private static GamePresenter presenter(String boardData) {
+        return new GamePresenter(game(boardData), board(boardData));
+    }
+
+    /**
+     * Build a game between alice (white) and bob (black), seen by alice, with white to move and
+     * the given board data
+     */
+    private static UserGame game(String boardData) {
+        List<Object> serverData = new ArrayList<>();
+        for (ServerData data : ServerData.order) {
+            if (data == ServerData.GAMEID) {
+                serverData.add("game");
+            } else if (data == ServerData.WHITE) {
+                serverData.add("alice");
+            } else if (data == ServerData.BLACK) {
+                serverData.add("bob");
+            } else {
+                serverData.add(data.initial);
+            }
+        }
+        UserGame game = new UserGame("alice");
+        assertEquals(0, game.initialize(serverData));
+        assertEquals(1, (int) (Integer) game.getData(GameData.STATE));
+        game.setBoardData(boardData);
+        return game;
+    }
+
+    private static Board board(String boardData) {
+        Board board = new Board();
+        assertEquals(0, board.initialize(new Scanner(boardData)));
+        return board;
+    }
+}
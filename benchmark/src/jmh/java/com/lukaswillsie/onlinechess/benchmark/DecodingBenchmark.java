@@ -0,0 +1,179 @@
+package com.lukaswillsie.onlinechess.benchmark;
+
+import android.util.Log;
+
+import com.lukaswillsie.onlinechess.data.Game;
+import com.lukaswillsie.onlinechess.data.UserGame;
+import com.lukaswillsie.onlinechess.network.NetworkLog;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
+import com.lukaswillsie.onlinechess.network.threads.LoadGamesThread;
+import com.lukaswillsie.onlinechess.network.threads.LoginThread;
+import com.lukaswillsie.onlinechess.network.threads.OpenGamesThread;
+import com.lukaswillsie.onlinechess.network.threads.callers.LoadGamesCaller;
+import com.lukaswillsie.onlinechess.network.threads.callers.LoginCaller;
+import com.lukaswillsie.onlinechess.network.threads.callers.OpenGamesCaller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast the app turns the server's responses to login, loadgames and opengames into
+ * games, for users with a handful of games up to an unrealistic number of them.
+ * <p>
+ * Each benchmark runs the real request thread, synchronously, against a response held in memory,
+ * so it covers everything between the socket and the list handed to the caller: reading integers
+ * and lines off a DataInputStream, boxing them into a list, and building each game's HashMap. The
+ * network itself isn't part of it. Run with the gc profiler, which the build turns on, to see how
+ * much each response allocates as well as how long it takes.
+ * <p>
+ * With logging on, every field read is written to NetworkLog's ring buffer at the verbose level,
+ * as in a debuggable build; with it off, the calls are still made but return straight away.
+ * Release builds don't make them at all, so off is an upper bound on what logging costs there.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DecodingBenchmark {
+    private static final String USERNAME = "benchmarker";
+
+    /**
+     * The number of games in each response
+     */
+    @Param({"10", "1000", "100000"})
+    public int games;
+
+    /**
+     * Whether NetworkMetrics is recording, as it does in debuggable builds. Off by default, to
+     * measure what release builds do.
+     */
+    @Param({"false"})
+    public boolean metrics;
+
+    /**
+     * Whether NetworkLog keeps verbose messages, as it does in debuggable builds
+     */
+    @Param({"false", "true"})
+    public boolean logging;
+
+    private byte[] login;
+    private byte[] loadGames;
+    private byte[] openGames;
+
+    /**
+     * Stands in for the server's end of the connection when we send a request; the requests are a
+     * few bytes each and not worth measuring
+     */
+    private final PrintWriter discard = new PrintWriter(new Writer() {
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    });
+
+    private final Results results = new Results();
+
+    @Setup
+    public void setUp() {
+        NetworkMetrics.setEnabled(metrics);
+        NetworkLog.setLevel(logging ? Log.VERBOSE : NetworkLog.OFF);
+
+        login = Payloads.login(USERNAME, games);
+        loadGames = Payloads.loadGames(USERNAME, games);
+        openGames = Payloads.openGames(games);
+    }
+
+    @Benchmark
+    public List<UserGame> login() {
+        new LoginThread(USERNAME, "password", results, discard, read(login)).run();
+        return results.userGames;
+    }
+
+    @Benchmark
+    public List<UserGame> loadGames() {
+        new LoadGamesThread(USERNAME, results, discard, read(loadGames)).run();
+        return results.userGames;
+    }
+
+    @Benchmark
+    public List<Game> openGames() {
+        new OpenGamesThread(results, discard, read(openGames)).run();
+        return results.games;
+    }
+
+    private static DataInputStream read(byte[] response) {
+        return new DataInputStream(new ByteArrayInputStream(response));
+    }
+
+    /**
+     * Takes the result of each request. Anything other than success means the response we built
+     * isn't one the app accepts, which would make the numbers meaningless, so we fail loudly.
+     */
+    private static final class Results implements LoginCaller, LoadGamesCaller, OpenGamesCaller {
+        private List<UserGame> userGames;
+        private List<Game> games;
+
+        @Override
+        public void loginSuccess() {
+        }
+
+        @Override
+        public void loginComplete(List<UserGame> games) {
+            this.userGames = games;
+        }
+
+        @Override
+        public void success(List<UserGame> games) {
+            this.userGames = games;
+        }
+
+        @Override
+        public void openGames(List<Game> games) {
+            this.games = games;
+        }
+
+        @Override
+        public void usernameInvalid() {
+            throw new IllegalStateException("Server response rejected our username");
+        }
+
+        @Override
+        public void passwordInvalid() {
+            throw new IllegalStateException("Server response rejected our password");
+        }
+
+        @Override
+        public void serverError() {
+            throw new IllegalStateException("Server response couldn't be decoded");
+        }
+
+        @Override
+        public void systemError() {
+            throw new IllegalStateException("System error while decoding server response");
+        }
+
+        @Override
+        public void connectionLost() {
+            throw new IllegalStateException("Server response ended early");
+        }
+    }
+}
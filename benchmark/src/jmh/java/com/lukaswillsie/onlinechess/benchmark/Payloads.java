@@ -0,0 +1,113 @@
+package com.lukaswillsie.onlinechess.benchmark;
+
+import com.lukaswillsie.onlinechess.data.ServerData;
+import com.lukaswillsie.onlinechess.network.ReturnCodes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * Builds synthetic server responses, byte for byte as the server sends them: integers as four
+ * big-endian bytes, and lines as one byte per character followed by "\r\n".
+ * <p>
+ * Games are described in the order given by ServerData.order, and vary the way a real user's games
+ * would: the user plays white in some and black in others, some are over, some have a draw offer
+ * outstanding, and IDs and opponents' names differ in length.
+ */
+final class Payloads {
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private Payloads() {
+    }
+
+    /**
+     * Build the server's response to "login username password" for a user with the given number of
+     * games
+     */
+    static byte[] login(String username, int games) {
+        return gameList(ReturnCodes.Login.SUCCESS, username, games);
+    }
+
+    /**
+     * Build the server's response to "loadgames" for a user with the given number of games
+     */
+    static byte[] loadGames(String username, int games) {
+        return gameList(ReturnCodes.LoadGames.SUCCESS, username, games);
+    }
+
+    /**
+     * Build the server's response to "opengames" when there are the given number of games open.
+     * None of them involve the user, and, unlike every other response, there's no return code up
+     * front.
+     */
+    static byte[] openGames(int games) {
+        return gameList(null, "nobody", games);
+    }
+
+    private static byte[] gameList(Integer code, String username, int games) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(games * 96 + 8);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            if (code != null) {
+                out.writeInt(code);
+            }
+            out.writeInt(games);
+            for (int i = 0; i < games; i++) {
+                writeGame(out, username, i);
+            }
+        } catch (IOException e) {
+            // We're writing to memory, which can't fail
+            throw new AssertionError(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Write the i-th game of the given user, one piece of ServerData after the other
+     */
+    private static void writeGame(DataOutputStream out, String username, int i) throws IOException {
+        String opponent = "opponent" + (i % 37);
+        boolean userIsWhite = i % 2 == 0;
+        boolean over = i % 5 == 0;
+
+        for (ServerData data : ServerData.order) {
+            switch (data) {
+                case GAMEID:
+                    writeLine(out, "game" + i);
+                    break;
+                case WHITE:
+                    writeLine(out, userIsWhite ? username : opponent);
+                    break;
+                case BLACK:
+                    writeLine(out, userIsWhite ? opponent : username);
+                    break;
+                case STATE:
+                    out.writeInt(i % 3 == 0 ? 1 : 0);
+                    break;
+                case TURN:
+                    out.writeInt(1 + i % 60);
+                    break;
+                case DRAW_OFFERED:
+                    out.writeInt(!over && i % 7 == 0 ? 1 : 0);
+                    break;
+                case WINNER:
+                    writeLine(out, over ? (i % 10 == 0 ? username : opponent) : "");
+                    break;
+                case FORFEIT:
+                    out.writeInt(over && i % 3 == 0 ? 1 : 0);
+                    break;
+                default:
+                    out.writeInt(0);
+                    break;
+            }
+        }
+    }
+
+    private static void writeLine(DataOutputStream out, String line) throws IOException {
+        out.write(line.getBytes(ASCII));
+        out.write('\r');
+        out.write('\n');
+    }
+}
@@ -0,0 +1,184 @@
+package com.lukaswillsie.onlinechess.loadgen;
+
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
+import com.lukaswillsie.onlinechess.server.ChessServer;
+import com.lukaswillsie.onlinechess.server.NetworkConditions;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A headless client that puts load on a chess server by having thousands of simulated players
+ * (see Match) play against each other at once, and reports how each kind of request fared:
+ * throughput, latency percentiles and error rates.
+ * <p>
+ * It runs the app's own networking code, minus the Android parts, so it's as much a test of how
+ * the client behaves at scale as it is of the server. Without --host, it starts a stand-in server
+ * (see ChessServer) in the same process, whose network can be made slow or unreliable with the
+ * same options the stand-in takes. Run it with ./gradlew :benchmark:loadTest --args='...', or with
+ * --args=--help to list every option.
+ * <p>
+ * Every player holds a connection open for the whole run, so a large run may need the limit on
+ * open files raised, on both ends.
+ */
+public class LoadGenerator {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String host = null;
+        int port = ChessServer.DEFAULT_PORT;
+        int matches = 500;
+        int threads = 200;
+        int rounds = 1;
+        long thinkMillis = 0;
+        NetworkConditions conditions = new NetworkConditions();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--host":
+                        host = args[++i];
+                        break;
+                    case "--port":
+                        port = Integer.parseInt(args[++i]);
+                        break;
+                    case "--players":
+                        // Players come in pairs
+                        matches = (Integer.parseInt(args[++i]) + 1) / 2;
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--rounds":
+                        rounds = Integer.parseInt(args[++i]);
+                        break;
+                    case "--think":
+                        thinkMillis = Long.parseLong(args[++i]);
+                        break;
+                    case "--latency":
+                        conditions.setLatency(Long.parseLong(args[++i]));
+                        break;
+                    case "--jitter":
+                        conditions.setJitter(Long.parseLong(args[++i]));
+                        break;
+                    case "--error-rate":
+                        conditions.setErrorRate(Double.parseDouble(args[++i]));
+                        break;
+                    case "--disconnect-rate":
+                        conditions.setDisconnectRate(Double.parseDouble(args[++i]));
+                        break;
+                    default:
+                        printUsage();
+                        return;
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            printUsage();
+            return;
+        }
+
+        ChessServer server = null;
+        if (host == null) {
+            server = new ChessServer(0, conditions, 0, false);
+            server.start();
+            host = "localhost";
+            port = server.getPort();
+            System.out.println("Started a stand-in server with " + conditions);
+        }
+
+        // Names are unique to this run, so that runs against the same server don't collide
+        String run = Long.toString(System.currentTimeMillis(), 36);
+
+        NetworkMetrics.setEnabled(true);
+        NetworkMetrics.reset();
+        Tally tally = new Tally();
+
+        System.out.println("Running " + matches + " matches (" + 2 * matches + " players) of " + rounds
+                + " game(s) each against " + host + ":" + port + " on " + threads + " threads");
+        long started = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < matches; i++) {
+            Player white = new Player("lg" + run + "w" + i, thinkMillis);
+            Player black = new Player("lg" + run + "b" + i, thinkMillis);
+            executor.execute(new Match(white, black, "lg" + run + "m" + i, rounds, host, port, tally));
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.println(report(NetworkMetrics.snapshot(), seconds, tally));
+
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * Lay out the results of a run as a table, one row for each command sent
+     *
+     * @param snapshot - the metrics recorded over the run
+     * @param seconds  - how long the run took
+     * @param tally    - how many matches were finished and abandoned
+     */
+    private static String report(NetworkMetrics.Snapshot snapshot, double seconds, Tally tally) {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.US, "%d matches finished, %d abandoned, in %.1fs%n%n",
+                tally.finished.get(), tally.abandoned.get(), seconds));
+        report.append(String.format(Locale.US, "%-12s %8s %9s %7s %7s %7s %7s %7s%n",
+                "command", "count", "req/s", "err%", "p50", "p90", "p99", "max"));
+
+        long total = 0;
+        for (NetworkMetrics.Command command : NetworkMetrics.Command.values()) {
+            long count = snapshot.count(command);
+            if (count == 0) {
+                continue;
+            }
+            total += count;
+
+            long failed = count - snapshot.count(command, NetworkMetrics.Outcome.SUCCESS);
+            report.append(String.format(Locale.US, "%-12s %8d %9.1f %7.2f %7d %7d %7d %7d%n",
+                    command.word, count, count / seconds, 100.0 * failed / count,
+                    snapshot.percentileMillis(command, 50), snapshot.percentileMillis(command, 90),
+                    snapshot.percentileMillis(command, 99), snapshot.maxMillis(command)));
+        }
+        report.append(String.format(Locale.US, "%-12s %8d %9.1f%n", "total", total, total / seconds));
+        report.append("Latencies in ms, as upper bounds of power-of-two buckets; errors are any outcome but success\n\n");
+
+        // The full breakdown, with outcomes and bytes
+        report.append(snapshot);
+        return report.toString();
+    }
+
+    private static void printUsage() {
+        System.out.println("Options:");
+        System.out.println("  --host NAME          server to load; without it, a stand-in is started in-process");
+        System.out.println("  --port N             server's port (default " + ChessServer.DEFAULT_PORT + ")");
+        System.out.println("  --players N          simulated players, playing in pairs (default 1000)");
+        System.out.println("  --threads N          matches played at once (default 200)");
+        System.out.println("  --rounds N           games each pair plays (default 1)");
+        System.out.println("  --think MS           pause before each request, like a user would");
+        System.out.println("  --latency MS         stand-in only: delay before every reply");
+        System.out.println("  --jitter MS          stand-in only: most extra random delay before a reply");
+        System.out.println("  --error-rate P       stand-in only: chance of a server error");
+        System.out.println("  --disconnect-rate P  stand-in only: chance of hanging up instead of answering");
+    }
+
+    /**
+     * Counts matches as they end, from every thread
+     */
+    static final class Tally {
+        private final AtomicInteger finished = new AtomicInteger();
+        private final AtomicInteger abandoned = new AtomicInteger();
+
+        void finished() {
+            finished.incrementAndGet();
+        }
+
+        void abandoned() {
+            abandoned.incrementAndGet();
+        }
+    }
+}
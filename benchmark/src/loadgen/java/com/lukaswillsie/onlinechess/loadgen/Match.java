@@ -0,0 +1,126 @@
+package com.lukaswillsie.onlinechess.loadgen;
+
+import com.lukaswillsie.onlinechess.network.ReturnCodes;
+
+/**
+ * Two simulated players going through what a pair of real users would: signing up, logging in,
+ * looking at their games and the open games, then one of them creating a game and the other
+ * joining it, and the two of them playing it out.
+ * <p>
+ * Every game follows the same script, a short line in which white promotes a pawn on the fifth
+ * move, after which black offers a draw, white turns it down, black offers again and white
+ * accepts. That way every game makes moves, a promotion, draw offers and a rejection, and ends.
+ * <p>
+ * Both players are driven from the thread running the match, one request at a time, so each one
+ * is always waiting on the other, as opponents do. A request that doesn't go as scripted abandons
+ * the match, since nothing after it would make sense.
+ */
+final class Match implements Runnable {
+    /**
+     * The moves of the scripted game, alternating white and black, in the form the server expects:
+     * "src_row,src_col->dest_row,dest_col", where row 0 is white's back rank. In algebraic
+     * notation: 1. a4 b5 2. axb5 a6 3. bxa6 Bb7 4. axb7 Nc6 5. bxa8=Q
+     */
+    private static final String[] MOVES = {
+            "1,0->3,0", "6,1->4,1",
+            "3,0->4,1", "6,0->5,0",
+            "4,1->5,0", "7,2->6,1",
+            "5,0->6,1", "7,1->5,2",
+            "6,1->7,0"
+    };
+
+    private final Player white;
+    private final Player black;
+    private final String gamePrefix;
+    private final int rounds;
+    private final String host;
+    private final int port;
+    private final LoadGenerator.Tally tally;
+
+    /**
+     * Set up a match between two new players
+     *
+     * @param white      - the player who creates each game, and plays white in it
+     * @param black      - the player who joins each game, and plays black in it
+     * @param gamePrefix - the start of the ID of every game in this match; must be unique to it
+     * @param rounds     - the number of games to play
+     * @param host       - the server's host name
+     * @param port       - the server's port
+     * @param tally      - where to count finished and abandoned matches
+     */
+    Match(Player white, Player black, String gamePrefix, int rounds, String host, int port, LoadGenerator.Tally tally) {
+        this.white = white;
+        this.black = black;
+        this.gamePrefix = gamePrefix;
+        this.rounds = rounds;
+        this.host = host;
+        this.port = port;
+        this.tally = tally;
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (play()) {
+                tally.finished();
+            } else {
+                tally.abandoned();
+            }
+        } finally {
+            white.close();
+            black.close();
+        }
+    }
+
+    /**
+     * Play the whole match
+     *
+     * @return Whether every request went as scripted
+     */
+    private boolean play() {
+        if (!signIn(white) || !signIn(black)) {
+            return false;
+        }
+
+        for (int round = 0; round < rounds; round++) {
+            String gameID = gamePrefix + "r" + round;
+            if (!white.createGame(gameID) || !black.openGames() || !black.joinGame(gameID)) {
+                return false;
+            }
+
+            for (int i = 0; i < MOVES.length; i++) {
+                Player mover = i % 2 == 0 ? white : black;
+                int expected = i == MOVES.length - 1 ? ReturnCodes.Move.SUCCESS_PROMOTION_NEEDED : ReturnCodes.Move.SUCCESS;
+                if (!mover.move(gameID, MOVES[i], expected)) {
+                    return false;
+                }
+            }
+
+            if (!white.promote(gameID, 'q')
+                    || !black.draw(gameID)
+                    || !white.reject(gameID)
+                    || !black.draw(gameID)
+                    || !white.draw(gameID)) {
+                return false;
+            }
+
+            // Back to their lists of games, to see how it ended
+            if (!white.loadGames() || !black.loadGames()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Connect the given player, create their account and log them in, then have them look at
+     * their games and the open games, the way the app does after logging in
+     */
+    private boolean signIn(Player player) {
+        return player.connect(host, port)
+                && player.createAccount()
+                && player.login()
+                && player.loadGames()
+                && player.openGames();
+    }
+}
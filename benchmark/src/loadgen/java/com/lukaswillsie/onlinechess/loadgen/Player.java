@@ -0,0 +1,298 @@
+package com.lukaswillsie.onlinechess.loadgen;
+
+import com.lukaswillsie.onlinechess.data.Game;
+import com.lukaswillsie.onlinechess.data.UserGame;
+import com.lukaswillsie.onlinechess.network.NetworkMetrics;
+import com.lukaswillsie.onlinechess.network.ReturnCodes;
+import com.lukaswillsie.onlinechess.network.threads.JoinGameThread;
+import com.lukaswillsie.onlinechess.network.threads.LoadGamesThread;
+import com.lukaswillsie.onlinechess.network.threads.LoginThread;
+import com.lukaswillsie.onlinechess.network.threads.OpenGamesThread;
+import com.lukaswillsie.onlinechess.network.threads.ReturnCodeThread;
+import com.lukaswillsie.onlinechess.network.threads.callers.JoinGameCaller;
+import com.lukaswillsie.onlinechess.network.threads.callers.LoadGamesCaller;
+import com.lukaswillsie.onlinechess.network.threads.callers.LoginCaller;
+import com.lukaswillsie.onlinechess.network.threads.callers.OpenGamesCaller;
+import com.lukaswillsie.onlinechess.network.threads.callers.ReturnCodeCaller;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * A simulated user, with a connection to the server of their own.
+ * <p>
+ * Each request is made with the same thread class the app uses for it, run on the calling thread
+ * instead of being started, so the requests and the decoding of the server's answers are exactly
+ * the app's. Every request is timed, and its outcome recorded, in NetworkMetrics, the same way the
+ * app's SubHelpers do it; bytes are counted by the threads themselves.
+ * <p>
+ * Each request method returns whether the request succeeded. A Player is used by one thread at a
+ * time.
+ */
+final class Player implements ReturnCodeCaller, LoginCaller, LoadGamesCaller, OpenGamesCaller, JoinGameCaller {
+    /**
+     * How long we wait for a connection to the server before giving up, the same as the app
+     */
+    private static final int CONNECT_TIMEOUT = 5000;
+
+    private static final String PASSWORD = "password";
+
+    private final String username;
+    private final long thinkMillis;
+
+    private Socket socket;
+    private PrintWriter out;
+    private DataInputStream in;
+
+    /*
+     * The result of the request in progress. outcome is null until a callback has been given, and
+     * code is only set by ReturnCodeThread.
+     */
+    private NetworkMetrics.Outcome outcome;
+    private int code;
+
+    /**
+     * Create a new Player, who isn't connected to the server yet
+     *
+     * @param username    - the name the player creates an account under and logs in with
+     * @param thinkMillis - how long the player waits before each request, like a user would
+     */
+    Player(String username, long thinkMillis) {
+        this.username = username;
+        this.thinkMillis = thinkMillis;
+    }
+
+    String getUsername() {
+        return username;
+    }
+
+    /**
+     * Connect to the server at the given address
+     */
+    boolean connect(String host, int port) {
+        long started = NetworkMetrics.start();
+        try {
+            socket = new Socket();
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+            out = new PrintWriter(socket.getOutputStream(), true);
+            in = new DataInputStream(socket.getInputStream());
+        } catch (IOException e) {
+            NetworkMetrics.finish(NetworkMetrics.Command.CONNECT, started, NetworkMetrics.Outcome.CONNECTION_LOST);
+            return false;
+        }
+        NetworkMetrics.finish(NetworkMetrics.Command.CONNECT, started, NetworkMetrics.Outcome.SUCCESS);
+        return true;
+    }
+
+    /**
+     * Create an account for this player. An account that already exists, for example from an
+     * earlier run against the same server, is good enough, though it's recorded as rejected.
+     */
+    boolean createAccount() {
+        return returnCode(NetworkMetrics.Command.CREATE_ACCOUNT, "create " + username + " " + PASSWORD,
+                ReturnCodes.Create.SUCCESS) || code == ReturnCodes.Create.USERNAME_IN_USE;
+    }
+
+    boolean login() {
+        begin();
+        long started = NetworkMetrics.start();
+        new LoginThread(username, PASSWORD, this, out, in).run();
+        return end(NetworkMetrics.Command.LOGIN, started);
+    }
+
+    boolean loadGames() {
+        begin();
+        long started = NetworkMetrics.start();
+        new LoadGamesThread(username, this, out, in).run();
+        return end(NetworkMetrics.Command.LOAD_GAMES, started);
+    }
+
+    boolean openGames() {
+        begin();
+        long started = NetworkMetrics.start();
+        new OpenGamesThread(this, out, in).run();
+        return end(NetworkMetrics.Command.OPEN_GAMES, started);
+    }
+
+    /**
+     * Create an open game with the given ID, which this player plays white in
+     */
+    boolean createGame(String gameID) {
+        return returnCode(NetworkMetrics.Command.CREATE_GAME, "creategame " + gameID + " 1", ReturnCodes.CreateGame.SUCCESS);
+    }
+
+    /**
+     * Join the game with the given ID, as black
+     */
+    boolean joinGame(String gameID) {
+        begin();
+        long started = NetworkMetrics.start();
+        new JoinGameThread(this, gameID, username, out, in).run();
+        return end(NetworkMetrics.Command.JOIN_GAME, started);
+    }
+
+    /**
+     * Make the given move in the given game
+     *
+     * @param expected - the code the server should answer with, which tells us whether the move
+     *                 should leave a pawn waiting to be promoted
+     */
+    boolean move(String gameID, String move, int expected) {
+        return returnCode(NetworkMetrics.Command.MOVE, "move " + gameID + " " + move, expected);
+    }
+
+    boolean promote(String gameID, char charRep) {
+        return returnCode(NetworkMetrics.Command.PROMOTE, "promote " + gameID + " " + charRep, ReturnCodes.Promote.SUCCESS);
+    }
+
+    /**
+     * Offer a draw in the given game, or accept the one on offer
+     */
+    boolean draw(String gameID) {
+        return returnCode(NetworkMetrics.Command.DRAW, "draw " + gameID, ReturnCodes.Draw.SUCCESS);
+    }
+
+    boolean reject(String gameID) {
+        return returnCode(NetworkMetrics.Command.REJECT, "reject " + gameID, ReturnCodes.Reject.SUCCESS);
+    }
+
+    /**
+     * Hang up on the server
+     */
+    void close() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // We're done with the connection either way
+            }
+        }
+    }
+
+    /**
+     * Make a request that's answered with a single return code
+     */
+    private boolean returnCode(NetworkMetrics.Command command, String request, int success) {
+        begin();
+        long started = NetworkMetrics.start();
+        new ReturnCodeThread(command, request, this, out, in).run();
+
+        if (outcome == null) {
+            if (code == success) {
+                outcome = NetworkMetrics.Outcome.SUCCESS;
+            } else if (code == ReturnCodes.SERVER_ERROR || code == ReturnCodes.NO_USER
+                    || code == ReturnCodes.FORMAT_INVALID) {
+                outcome = NetworkMetrics.Outcome.SERVER_ERROR;
+            } else {
+                outcome = NetworkMetrics.Outcome.REJECTED;
+            }
+        }
+        return end(command, started);
+    }
+
+    /**
+     * Get ready to make a request, waiting first if this player is meant to think between requests
+     */
+    private void begin() {
+        if (thinkMillis > 0) {
+            try {
+                Thread.sleep(thinkMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        outcome = null;
+        code = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Record the outcome of the request that's just finished
+     */
+    private boolean end(NetworkMetrics.Command command, long started) {
+        // A thread that ends without a callback has gone wrong on our end
+        if (outcome == null) {
+            outcome = NetworkMetrics.Outcome.SYSTEM_ERROR;
+        }
+        NetworkMetrics.finish(command, started, outcome);
+        return outcome == NetworkMetrics.Outcome.SUCCESS;
+    }
+
+    @Override
+    public void onServerReturn(int code) {
+        this.code = code;
+    }
+
+    @Override
+    public void loginSuccess() {
+        // The request isn't over until the user's games have been read
+    }
+
+    @Override
+    public void loginComplete(List<UserGame> games) {
+        outcome = NetworkMetrics.Outcome.SUCCESS;
+    }
+
+    @Override
+    public void usernameInvalid() {
+        outcome = NetworkMetrics.Outcome.REJECTED;
+    }
+
+    @Override
+    public void passwordInvalid() {
+        outcome = NetworkMetrics.Outcome.REJECTED;
+    }
+
+    @Override
+    public void success(List<UserGame> games) {
+        outcome = NetworkMetrics.Outcome.SUCCESS;
+    }
+
+    @Override
+    public void openGames(List<Game> games) {
+        outcome = NetworkMetrics.Outcome.SUCCESS;
+    }
+
+    @Override
+    public void gameJoined() {
+        // The request isn't over until the game's data has been read
+    }
+
+    @Override
+    public void joinGameComplete(UserGame game) {
+        outcome = NetworkMetrics.Outcome.SUCCESS;
+    }
+
+    @Override
+    public void gameDoesNotExist() {
+        outcome = NetworkMetrics.Outcome.REJECTED;
+    }
+
+    @Override
+    public void gameFull() {
+        outcome = NetworkMetrics.Outcome.REJECTED;
+    }
+
+    @Override
+    public void userAlreadyInGame() {
+        outcome = NetworkMetrics.Outcome.REJECTED;
+    }
+
+    @Override
+    public void serverError() {
+        outcome = NetworkMetrics.Outcome.SERVER_ERROR;
+    }
+
+    @Override
+    public void systemError() {
+        outcome = NetworkMetrics.Outcome.SYSTEM_ERROR;
+    }
+
+    @Override
+    public void connectionLost() {
+        outcome = NetworkMetrics.Outcome.CONNECTION_LOST;
+    }
+}
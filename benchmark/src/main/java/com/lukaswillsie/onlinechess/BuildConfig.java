@@ -0,0 +1,13 @@
+package com.lukaswillsie.onlinechess;
+
+/**
+ * Stands in for the BuildConfig the Android build generates for the app. We measure the code of a
+ * debuggable build, in which verbose network logging is compiled in, so that the benchmarks can
+ * compare it turned on and off.
+ */
+public final class BuildConfig {
+    public static final boolean DEBUG = true;
+
+    private BuildConfig() {
+    }
+}
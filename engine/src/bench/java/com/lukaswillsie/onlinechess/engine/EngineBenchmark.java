@@ -0,0 +1,75 @@
+package com.lukaswillsie.onlinechess.engine;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Measures how fast AnalysisEngine searches, in nodes per second, on a handful of typical
+ * positions. Run it with "./gradlew :engine:benchmark". It searches each position to a fixed depth
+ * once with a single thread and once with every available core, so that both raw search speed and
+ * Lazy SMP scaling can be compared against earlier runs.
+ */
+public class EngineBenchmark {
+    /**
+     * The positions we search: the opening, a busy middlegame and a pawn endgame
+     */
+    private static final String[] POSITIONS = {
+            Position.START_FEN,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP1B1PPP/R2QKB1R w KQ - 0 8",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+    };
+
+    /**
+     * The depth each position is searched to, unless overridden with -Ddepth=N
+     */
+    private static final int DEFAULT_DEPTH = 9;
+
+    public static void main(String[] args) throws InterruptedException {
+        int depth = Integer.getInteger("depth", DEFAULT_DEPTH);
+        int cores = Integer.getInteger("threads", Runtime.getRuntime().availableProcessors());
+
+        // Warm up the JIT so that the first measured run isn't penalised
+        run(new AnalysisEngine(1, 16), Position.fromFen(POSITIONS[1]), Math.min(depth, 6));
+
+        int[] threadCounts = cores > 1 ? new int[]{1, cores} : new int[]{1};
+        for (int threads : threadCounts) {
+            AnalysisEngine engine = new AnalysisEngine(threads, 64);
+            long totalNodes = 0;
+            long totalMillis = 0;
+
+            System.out.println("Threads: " + threads + ", depth: " + depth);
+            for (String fen : POSITIONS) {
+                AnalysisInfo info = run(engine, Position.fromFen(fen), depth);
+                totalNodes += info.getNodes();
+                totalMillis += info.getMillis();
+                System.out.println(String.format("  %,12d nodes %7d ms %,10d nps  %s",
+                        info.getNodes(), info.getMillis(), info.getNodesPerSecond(), fen));
+            }
+            System.out.println(String.format("  Total: %,d nodes in %d ms, %,d nps",
+                    totalNodes, totalMillis, totalMillis == 0 ? 0 : totalNodes * 1000 / totalMillis));
+            engine.shutdown();
+        }
+    }
+
+    /**
+     * Analyse the given position to the given depth on the given engine, and wait for the result
+     */
+    private static AnalysisInfo run(AnalysisEngine engine, Position position, int depth) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<AnalysisInfo> result = new AtomicReference<>();
+
+        engine.analyse(position, depth, 0, new AnalysisListener() {
+            @Override
+            public void analysisUpdated(AnalysisInfo info) {
+                if (info.isFinal()) {
+                    result.set(info);
+                    done.countDown();
+                }
+            }
+        });
+
+        done.await();
+        return result.get();
+    }
+}
@@ -0,0 +1,162 @@
+package com.lukaswillsie.onlinechess.engine;
+
+/**
+ * Compares the two ways of deciding whether a game has ended in checkmate or stalemate: the full
+ * path, which generates every move and tries each one with make() until one turns out to be legal,
+ * and Position's attack-map path (isCheckmate() and isStalemate()). Run it with
+ * "./gradlew :engine:gameEndBenchmark".
+ * <p>
+ * GamePresenter keeps a Position alongside the Board it's showing and makes every move on it, so
+ * the app pays for one make() and the attack-map path. We also time the attack-map path starting
+ * from FEN, which is what building a new Position from the Board for every move would cost
+ * instead. GamePresenterTest, in the app's unit tests, times the app's path against the library
+ * Board's own checks, which can't be run from here.
+ */
+public class GameEndBenchmark {
+    /**
+     * The positions we test: ordinary positions, positions in check, and finished games, which are
+     * the worst case for the full path because it has to try every move before giving up
+     */
+    private static final String[] POSITIONS = {
+            Position.START_FEN,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r1bqkb1r/pppp1Qpp/2n2n2/4p3/2B1P3/8/PPPP1PPP/RNB1K1NR b KQkq - 0 4",
+            "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3",
+            "4k3/4P3/4K3/8/8/8/8/8 b - - 0 1",
+            "8/8/8/8/8/5k2/5p2/5K2 w - - 0 1",
+            "6k1/5ppp/8/8/8/8/5PPP/3r2K1 w - - 0 1",
+            "r1b1kb1r/pp1n1ppp/2p1pn2/q7/2PP4/2N2NP1/PP2PPBP/R1BQK2R w KQkq - 2 8"
+    };
+
+    /**
+     * How many times each position is tested in each measured round
+     */
+    private static final int ITERATIONS = 200000;
+
+    /*
+     * The paths run() can take
+     */
+    private static final int COPY_ONLY = 0;
+    private static final int FULL = 1;
+    private static final int ATTACK_MAPS = 2;
+    private static final int FROM_FEN = 3;
+
+    public static void main(String[] args) {
+        Position[] positions = new Position[POSITIONS.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = Position.fromFen(POSITIONS[i]);
+        }
+        Position scratch = new Position();
+        int[] buffer = new int[MoveGenerator.MAX_MOVES];
+
+        // Warm up the JIT so that the first measured run isn't penalised
+        for (int round = 0; round < 5; round++) {
+            for (int path = COPY_ONLY; path <= FROM_FEN; path++) {
+                run(positions, scratch, buffer, path);
+            }
+        }
+
+        long fullTotal = 0;
+        long mapsTotal = 0;
+        long fenTotal = 0;
+        for (int i = 0; i < positions.length; i++) {
+            Position[] single = {positions[i]};
+            long copy = time(single, scratch, buffer, COPY_ONLY);
+            long full = Math.max(0, time(single, scratch, buffer, FULL) - copy);
+            long maps = Math.max(0, time(single, scratch, buffer, ATTACK_MAPS) - copy);
+            long fen = Math.max(0, time(single, scratch, buffer, FROM_FEN) - copy);
+            fullTotal += full;
+            mapsTotal += maps;
+            fenTotal += fen;
+            System.out.println(String.format("  %-9s full %7.1f ns, attack maps %7.1f ns, from FEN %7.1f ns  %s",
+                    describe(positions[i]), full / (double) ITERATIONS, maps / (double) ITERATIONS,
+                    fen / (double) ITERATIONS, POSITIONS[i]));
+        }
+
+        int calls = ITERATIONS * positions.length;
+        System.out.println(String.format("  Average: full %.1f ns, attack maps %.1f ns, %.1fx faster",
+                fullTotal / (double) calls, mapsTotal / (double) calls, fullTotal / (double) Math.max(1, mapsTotal)));
+        System.out.println(String.format("  Average from FEN, rebuilding the Position for each move: %.1f ns, %.1fx %s than full",
+                fenTotal / (double) calls, ratio(fullTotal, fenTotal), fenTotal <= fullTotal ? "faster" : "slower"));
+    }
+
+    /**
+     * Time ITERATIONS rounds over the given positions using one of the paths
+     *
+     * @return The time taken, in nanoseconds
+     */
+    private static long time(Position[] positions, Position scratch, int[] buffer, int path) {
+        long start = System.nanoTime();
+        int ended = run(positions, scratch, buffer, path);
+        long elapsed = System.nanoTime() - start;
+
+        // Use the result, so that the JIT can't throw the work away
+        if (ended < 0) {
+            System.out.println(ended);
+        }
+        return elapsed;
+    }
+
+    /**
+     * Check each position ITERATIONS times using the given path. Each check works on a fresh copy
+     * of the position, so that the attack-map path can't reuse the maps it built last time; the
+     * COPY_ONLY path measures the cost of that copy so it can be subtracted. The FROM_FEN path
+     * builds its own Position from the copy's FEN.
+     *
+     * @return The number of finished games found
+     */
+    private static int run(Position[] positions, Position scratch, int[] buffer, int path) {
+        int ended = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (Position position : positions) {
+                scratch.copyFrom(position);
+                if (path == FULL) {
+                    int side = scratch.getSideToMove();
+                    int king = scratch.kingSquare(side);
+                    boolean inCheck = king < 64 && scratch.isAttacked(king, side ^ 1);
+                    if (!MoveGenerator.hasLegalMove(scratch, buffer)) {
+                        ended += inCheck ? 2 : 1;
+                    }
+                } else if (path == ATTACK_MAPS) {
+                    if (scratch.isCheckmate()) {
+                        ended += 2;
+                    } else if (scratch.isStalemate()) {
+                        ended++;
+                    }
+                } else if (path == FROM_FEN) {
+                    // Both questions are asked of one Position, built once for the move
+                    Position built = Position.fromFen(scratch.toFen());
+                    if (built.isCheckmate()) {
+                        ended += 2;
+                    } else if (built.isStalemate()) {
+                        ended++;
+                    }
+                } else {
+                    ended += scratch.getSideToMove();
+                }
+            }
+        }
+        return ended;
+    }
+
+    /**
+     * Return how many times larger the bigger of two times is than the smaller
+     */
+    private static double ratio(long a, long b) {
+        return Math.max(a, b) / (double) Math.max(1, Math.min(a, b));
+    }
+
+    /**
+     * Describe how the game stands in the given position
+     */
+    private static String describe(Position position) {
+        if (position.isCheckmate()) {
+            return "mate";
+        } else if (position.isStalemate()) {
+            return "stalemate";
+        } else if (position.inCheck()) {
+            return "check";
+        }
+        return "";
+    }
+}
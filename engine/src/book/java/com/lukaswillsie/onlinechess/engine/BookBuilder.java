@@ -0,0 +1,246 @@
+package com.lukaswillsie.onlinechess.engine;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds an opening book file, in the format read by OpeningBook, from a text file of named
+ * opening lines (see openings.txt in this source set for the format). Run it with
+ * "./gradlew :engine:buildOpeningBook", which reads openings.txt and writes the book into the
+ * app's assets.
+ */
+public class BookBuilder {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * The moves played from each position, by key, with the number of lines that play each one
+     */
+    private final Map<Long, Map<Integer, Integer>> moves = new HashMap<>();
+
+    /**
+     * The names given to positions by the lines that end in them
+     */
+    private final Map<Long, String> explicitNames = new HashMap<>();
+
+    /**
+     * The name of every position in the book, including inherited ones
+     */
+    private final Map<Long, String> names = new HashMap<>();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BookBuilder <openings file> <book file>");
+            System.exit(1);
+        }
+
+        List<String[]> lines = read(args[0]);
+        BookBuilder builder = new BookBuilder();
+        for (String[] line : lines) {
+            builder.name(line[0], line[1]);
+        }
+        for (String[] line : lines) {
+            builder.add(line[1]);
+        }
+        int entries = builder.write(args[1]);
+        System.out.println("Wrote " + entries + " entries for " + builder.names.size() + " positions to " + args[1]);
+    }
+
+    /**
+     * Read the given openings file
+     *
+     * @return Every line in the file, as a {name, moves} pair
+     */
+    private static List<String[]> read(String path) throws IOException {
+        List<String[]> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(path), UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() == 0 || line.startsWith("#")) {
+                    continue;
+                }
+
+                int separator = line.indexOf('|');
+                if (separator == -1) {
+                    throw new IOException("Missing \"|\" in line: " + line);
+                }
+                lines.add(new String[]{line.substring(0, separator).trim(), line.substring(separator + 1).trim()});
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Record that the position at the end of the given line has the given name
+     */
+    private void name(String name, String line) throws IOException {
+        Position position = play(line, false);
+        String existing = explicitNames.get(position.getKey());
+        if (existing != null && !existing.equals(name)) {
+            System.err.println("Warning: \"" + name + "\" reaches the same position as \"" + existing + "\"; keeping the first");
+            return;
+        }
+        explicitNames.put(position.getKey(), name);
+    }
+
+    /**
+     * Add every position and move along the given line to the book
+     */
+    private void add(String line) throws IOException {
+        play(line, true);
+    }
+
+    /**
+     * Play out the given line from the starting position. If record is true, every move is added
+     * to the book, and every position is named.
+     *
+     * @return The position at the end of the line
+     */
+    private Position play(String line, boolean record) throws IOException {
+        Position position = Position.fromFen(Position.START_FEN);
+        String name = null;
+
+        for (String token : line.split("\\s+")) {
+            // Allow move numbers, like "1." or "1...", to appear in lines
+            if (token.matches("\\d+\\.*")) {
+                continue;
+            }
+
+            if (record) {
+                name = visit(position, name);
+            }
+            int move = parse(position, token);
+            if (record) {
+                increment(position.getKey(), move);
+            }
+            position.make(move);
+        }
+
+        if (record) {
+            visit(position, name);
+        }
+        return position;
+    }
+
+    /**
+     * Give the given position a name, if it doesn't already have one, and make sure it appears in
+     * the book even if no moves are played from it
+     *
+     * @return The name of the position
+     */
+    private String visit(Position position, String inherited) {
+        long key = position.getKey();
+        String name = explicitNames.containsKey(key) ? explicitNames.get(key) : inherited;
+        if (name != null && !names.containsKey(key)) {
+            names.put(key, name);
+        }
+        if (!moves.containsKey(key)) {
+            moves.put(key, new LinkedHashMap<Integer, Integer>());
+        }
+        return name;
+    }
+
+    /**
+     * Count one more line playing the given move from the given position
+     */
+    private void increment(long key, int move) {
+        Map<Integer, Integer> counts = moves.get(key);
+        Integer count = counts.get(move);
+        counts.put(move, count == null ? 1 : count + 1);
+    }
+
+    /**
+     * Find the legal move in the given position with the given SAN, ignoring check and mate
+     * markers
+     */
+    private static int parse(Position position, String san) throws IOException {
+        String wanted = san.replaceAll("[+#!?]", "");
+        for (int move : MoveGenerator.legalMoves(position)) {
+            if (Notation.toSan(position, move).replaceAll("[+#]", "").equals(wanted)) {
+                return move;
+            }
+        }
+        throw new IOException("Illegal move " + san + " in position " + position.toFen());
+    }
+
+    /**
+     * Write the book to the given file
+     *
+     * @return The number of entries written
+     */
+    private int write(String path) throws IOException {
+        // Give every distinct name an index
+        List<String> nameList = new ArrayList<>();
+        Map<String, Integer> nameIndices = new HashMap<>();
+        List<Long> keys = new ArrayList<>(moves.keySet());
+        Collections.sort(keys);
+        for (long key : keys) {
+            String name = names.get(key);
+            if (name != null && !nameIndices.containsKey(name)) {
+                nameIndices.put(name, nameList.size());
+                nameList.add(name);
+            }
+        }
+
+        List<long[]> entries = new ArrayList<>();
+        for (long key : keys) {
+            String name = names.get(key);
+            int nameIndex = name == null ? -1 : nameIndices.get(name);
+
+            List<Map.Entry<Integer, Integer>> counts = new ArrayList<>(moves.get(key).entrySet());
+            Collections.sort(counts, new Comparator<Map.Entry<Integer, Integer>>() {
+                @Override
+                public int compare(Map.Entry<Integer, Integer> a, Map.Entry<Integer, Integer> b) {
+                    return b.getValue().compareTo(a.getValue());
+                }
+            });
+
+            if (counts.isEmpty()) {
+                entries.add(new long[]{key, Moves.NONE, 0, nameIndex});
+            }
+            for (Map.Entry<Integer, Integer> count : counts) {
+                entries.add(new long[]{key, count.getKey(), Math.min(count.getValue(), 0xFFFF), nameIndex});
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(path))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(OpeningBook.VERSION);
+            out.writeInt(entries.size());
+            out.writeInt(nameList.size());
+
+            for (long[] entry : entries) {
+                out.writeLong(entry[0]);
+                out.writeInt((int) entry[1]);
+                out.writeShort((int) entry[2]);
+                out.writeShort((int) entry[3]);
+            }
+
+            List<byte[]> encoded = new ArrayList<>();
+            int offset = 0;
+            for (String name : nameList) {
+                byte[] bytes = name.getBytes(UTF_8);
+                encoded.add(bytes);
+                out.writeInt(offset);
+                offset += 2 + bytes.length;
+            }
+            for (byte[] bytes : encoded) {
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+        }
+        return entries.size();
+    }
+}
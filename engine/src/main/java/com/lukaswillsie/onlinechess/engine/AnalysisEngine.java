@@ -0,0 +1,295 @@
+package com.lukaswillsie.onlinechess.engine;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Analyses chess positions in the background. An analysis is an iterative-deepening alpha-beta
+ * search run on every one of this engine's threads at once, with all threads sharing a single
+ * lock-free TranspositionTable (the "Lazy SMP" approach). One thread, the main thread, reports its
+ * results to an AnalysisListener after every completed depth; the others exist only to fill the
+ * table with results the main thread can reuse.
+ * <p>
+ * Only one analysis runs at a time. Starting a new one cancels the previous one, and cancel() can
+ * be used to stop an analysis at any time. After cancel() returns, the cancelled analysis's
+ * listener will never be called again.
+ * <p>
+ * Search threads belong to a dedicated executor owned by this object, and are reused from one
+ * analysis to the next. Call shutdown() to release them.
+ */
+public class AnalysisEngine {
+    /**
+     * The deepest an analysis can go, in plies. Leaves room for check extensions and quiescence
+     * search within Searcher.MAX_PLY.
+     */
+    public static final int MAX_DEPTH = 64;
+
+    /**
+     * The executor that runs our search threads
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The number of threads that work on each analysis
+     */
+    private final int threads;
+
+    /**
+     * The table shared by all of our search threads
+     */
+    private final TranspositionTable table;
+
+    /**
+     * Each search thread keeps one Searcher for its whole life, since Searchers are fairly large
+     * and we don't want to allocate them for every analysis
+     */
+    private final ThreadLocal<Searcher> searchers = new ThreadLocal<Searcher>() {
+        @Override
+        protected Searcher initialValue() {
+            return new Searcher();
+        }
+    };
+
+    /**
+     * The analysis currently running, or null if there isn't one
+     */
+    private Session current;
+
+    /**
+     * Create a new AnalysisEngine
+     *
+     * @param threads        - the number of threads to search with; usually the number of cores
+     * @param tableMegabytes - the size of the transposition table, in megabytes
+     */
+    public AnalysisEngine(int threads, int tableMegabytes) {
+        this.threads = Math.max(1, threads);
+        this.table = new TranspositionTable(tableMegabytes);
+        this.executor = Executors.newFixedThreadPool(this.threads, new SearchThreadFactory());
+    }
+
+    /**
+     * Get the number of threads this engine searches with
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Start analysing the given position, cancelling any analysis that is already running. The
+     * analysis ends once it has searched to maxDepth or maxMillis have passed, whichever comes
+     * first, or when it is cancelled.
+     *
+     * @param position  - the position to analyse; the engine takes its own copies, so the caller
+     *                  is free to modify it afterwards
+     * @param maxDepth  - the depth at which to stop, at most MAX_DEPTH
+     * @param maxMillis - the number of milliseconds after which to stop, or 0 for no time limit
+     * @param listener  - the object that will receive the results of the analysis
+     */
+    public synchronized void analyse(Position position, int maxDepth, long maxMillis, AnalysisListener listener) {
+        cancel();
+        table.newGeneration();
+
+        Session session = new Session(position.copy(), Math.min(maxDepth, MAX_DEPTH), maxMillis, listener, threads);
+        current = session;
+        for (int i = 0; i < threads; i++) {
+            executor.execute(new SearchTask(session, i));
+        }
+    }
+
+    /**
+     * Cancel the running analysis, if there is one. Returns immediately; the search threads stop
+     * within a fraction of a millisecond, and the analysis's listener is guaranteed not to be
+     * called again once this method has returned.
+     */
+    public synchronized void cancel() {
+        if (current != null) {
+            current.cancel();
+            current = null;
+        }
+    }
+
+    /**
+     * Cancel any running analysis and shut down this engine's threads. The engine can't be used
+     * after this method is called.
+     */
+    public synchronized void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Represents a single analysis. Searchers check it regularly to find out whether they should
+     * stop.
+     */
+    static class Session {
+        private final Position root;
+        private final int maxDepth;
+        private final long deadline;
+        private final AnalysisListener listener;
+        private final long start;
+
+        /**
+         * The Searchers working on this analysis, so that the main thread can count nodes across
+         * every thread. Entries are null until the corresponding thread has started.
+         */
+        private final Searcher[] searchers;
+
+        /**
+         * Set when the search threads should stop searching
+         */
+        private volatile boolean stopped;
+
+        /**
+         * Set when the listener should no longer receive callbacks. Guarded by this object's lock.
+         */
+        private boolean cancelled;
+
+        private Session(Position root, int maxDepth, long maxMillis, AnalysisListener listener, int threads) {
+            this.root = root;
+            this.maxDepth = maxDepth;
+            this.start = System.nanoTime();
+            this.deadline = maxMillis > 0 ? start + maxMillis * 1000000L : 0;
+            this.listener = listener;
+            this.searchers = new Searcher[threads];
+        }
+
+        /**
+         * Check whether search threads should stop, either because the analysis has been cancelled
+         * or has run out of time
+         */
+        boolean isStopped() {
+            if (!stopped && deadline != 0 && System.nanoTime() - deadline > 0) {
+                stopped = true;
+            }
+            return stopped;
+        }
+
+        /**
+         * Stop the search threads and suppress any further callbacks to the listener
+         */
+        private synchronized void cancel() {
+            stopped = true;
+            cancelled = true;
+        }
+
+        /**
+         * Give the listener a result, unless the analysis has been cancelled
+         */
+        private synchronized void report(AnalysisInfo info) {
+            if (!cancelled) {
+                listener.analysisUpdated(info);
+            }
+        }
+
+        /**
+         * Count the nodes searched by every thread so far
+         */
+        private long countNodes() {
+            long nodes = 0;
+            for (int i = 0; i < searchers.length; i++) {
+                Searcher searcher = searchers[i];
+                if (searcher != null) {
+                    nodes += searcher.getNodes();
+                }
+            }
+            return nodes;
+        }
+
+        /**
+         * Get the number of milliseconds since this analysis started
+         */
+        private long elapsedMillis() {
+            return (System.nanoTime() - start) / 1000000L;
+        }
+    }
+
+    /**
+     * The work done by one search thread for one analysis. Thread 0 is the main thread.
+     */
+    private class SearchTask implements Runnable {
+        private final Session session;
+        private final int id;
+
+        private SearchTask(Session session, int id) {
+            this.session = session;
+            this.id = id;
+        }
+
+        @Override
+        public void run() {
+            if (session.stopped) {
+                return;
+            }
+
+            Searcher searcher = searchers.get();
+            // Helper threads alternate between searching the main thread's depth and one deeper
+            searcher.reset(session.root, table, session, id == 0 ? 0 : id & 1);
+            session.searchers[id] = searcher;
+
+            if (id == 0) {
+                runMainSearch(searcher);
+            } else {
+                for (int depth = 1; depth <= session.maxDepth && !session.isStopped(); depth++) {
+                    searcher.search(depth);
+                }
+            }
+        }
+
+        /**
+         * Iteratively deepen, reporting after every depth, and stop the helper threads when done
+         */
+        private void runMainSearch(Searcher searcher) {
+            int sideToMove = session.root.getSideToMove();
+            int[] scratch = new int[MoveGenerator.MAX_MOVES];
+
+            // If the game is already over there's nothing to search
+            if (!MoveGenerator.hasLegalMove(session.root, scratch)) {
+                int score = session.root.inCheck() ? -Searcher.MATE : 0;
+                session.stopped = true;
+                session.report(AnalysisInfo.fromSearch(0, score, sideToMove, new int[0], 0, session.elapsedMillis(), true));
+                return;
+            }
+
+            AnalysisInfo last = null;
+            for (int depth = 1; depth <= session.maxDepth; depth++) {
+                int score = searcher.search(depth);
+                if (score == Integer.MIN_VALUE) {
+                    break;
+                }
+
+                last = AnalysisInfo.fromSearch(depth, score, sideToMove, searcher.getPrincipalVariation(),
+                        session.countNodes(), session.elapsedMillis(), false);
+                session.report(last);
+
+                // Once a forced mate has been found, searching deeper can't change the result
+                if (last.isMate() && 2 * last.getMateIn() <= depth) {
+                    break;
+                }
+            }
+            session.stopped = true;
+
+            if (last != null) {
+                session.report(new AnalysisInfo(last.getDepth(), last.getScore(), last.isMate(), last.getMateIn(),
+                        last.getLine(), session.countNodes(), session.elapsedMillis(), true));
+            }
+        }
+    }
+
+    /**
+     * Creates our search threads. They are daemon threads, so they never keep the process alive,
+     * and run just below normal priority, so that they never compete with the UI thread.
+     */
+    private static class SearchThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "analysis-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    }
+}
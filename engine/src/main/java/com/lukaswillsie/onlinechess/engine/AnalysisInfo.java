@@ -0,0 +1,145 @@
+package com.lukaswillsie.onlinechess.engine;
+
+/**
+ * An immutable snapshot of the progress of an analysis, handed to AnalysisListeners.
+ * <p>
+ * Scores are always given from WHITE's point of view, regardless of whose turn it is in the
+ * analysed position, since that's how evaluation bars are usually drawn.
+ */
+public class AnalysisInfo {
+    /**
+     * The depth, in plies, that was fully searched to produce this result
+     */
+    private final int depth;
+
+    /**
+     * The evaluation in centipawns from white's point of view, if this isn't a mate score
+     */
+    private final int score;
+
+    /**
+     * Whether or not the search found a forced mate (or the position is already checkmate)
+     */
+    private final boolean mate;
+
+    /**
+     * If mate is true, the number of moves (not plies) until mate; 0 if the position is already
+     * checkmate
+     */
+    private final int mateIn;
+
+    /**
+     * The best line found, starting from the analysed position
+     */
+    private final int[] line;
+
+    /**
+     * The number of positions searched, across all threads
+     */
+    private final long nodes;
+
+    /**
+     * The time spent searching, in milliseconds
+     */
+    private final long millis;
+
+    /**
+     * Whether or not this is the last result the analysis will produce
+     */
+    private final boolean isFinal;
+
+    AnalysisInfo(int depth, int score, boolean mate, int mateIn, int[] line, long nodes, long millis, boolean isFinal) {
+        this.depth = depth;
+        this.score = score;
+        this.mate = mate;
+        this.mateIn = mateIn;
+        this.line = line;
+        this.nodes = nodes;
+        this.millis = millis;
+        this.isFinal = isFinal;
+    }
+
+    /**
+     * Build an AnalysisInfo from a raw search score
+     *
+     * @param score      - the score from the point of view of the side to move in the root position
+     * @param sideToMove - the colour whose turn it is in the root position
+     */
+    static AnalysisInfo fromSearch(int depth, int score, int sideToMove, int[] line, long nodes, long millis, boolean isFinal) {
+        boolean mate = Math.abs(score) > Searcher.MATE_BOUND;
+        // A mate score is MATE minus the number of plies until mate
+        int mateIn = mate ? (Searcher.MATE - Math.abs(score) + 1) / 2 : 0;
+
+        if (sideToMove == Pieces.BLACK) {
+            score = -score;
+        }
+        return new AnalysisInfo(depth, score, mate, mateIn, line, nodes, millis, isFinal);
+    }
+
+    /**
+     * Get the depth, in plies, that was fully searched to produce this result
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Get the evaluation in centipawns from white's point of view. If isMate() returns true, this
+     * is a very large positive number if white is the one mating, and a very large negative number
+     * otherwise.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Check whether the search found a forced mate
+     */
+    public boolean isMate() {
+        return mate;
+    }
+
+    /**
+     * If isMate() is true, get the number of moves until mate, or 0 if the analysed position is
+     * already checkmate. Use getScore() to find out which side is mating.
+     */
+    public int getMateIn() {
+        return mateIn;
+    }
+
+    /**
+     * Get the best line found, as encoded moves (see Moves). The returned array must not be
+     * modified.
+     */
+    public int[] getLine() {
+        return line;
+    }
+
+    /**
+     * Get the number of positions searched so far, across all threads
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Get the time spent searching so far, in milliseconds
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * Get the search speed, in nodes per second
+     */
+    public long getNodesPerSecond() {
+        return millis == 0 ? nodes * 1000 : nodes * 1000 / millis;
+    }
+
+    /**
+     * Check whether this is the last result the analysis will produce
+     */
+    public boolean isFinal() {
+        return isFinal;
+    }
+}
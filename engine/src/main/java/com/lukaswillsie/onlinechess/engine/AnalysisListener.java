@@ -0,0 +1,18 @@
+package com.lukaswillsie.onlinechess.engine;
+
+/**
+ * Receives the results of an analysis started with AnalysisEngine.analyse().
+ * <p>
+ * Callbacks are made on one of AnalysisEngine's search threads, NOT on the thread that started the
+ * analysis. Implementations that touch the UI must hand the result over to the UI thread
+ * themselves.
+ */
+public interface AnalysisListener {
+    /**
+     * Called every time the search completes another depth, and one final time when the analysis
+     * ends (see AnalysisInfo.isFinal()). Never called after the analysis has been cancelled.
+     *
+     * @param info - the best result found so far
+     */
+    void analysisUpdated(AnalysisInfo info);
+}
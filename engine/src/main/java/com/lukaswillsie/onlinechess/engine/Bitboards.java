@@ -0,0 +1,262 @@
+package com.lukaswillsie.onlinechess.engine;
+
+/**
+ * Static helpers and pre-computed attack tables for working with bitboards. A bitboard is a long
+ * in which bit i is set if and only if square i (see Pieces) is part of the set being described.
+ * <p>
+ * Sliding pieces are handled with pre-computed rays: we take the ray from a square in a given
+ * direction, find the first blocker along it, and cut the ray off past that blocker.
+ */
+public final class Bitboards {
+    /**
+     * Squares in the a-file and h-file, used to stop shifts from wrapping around the board
+     */
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = 0x8080808080808080L;
+
+    /**
+     * Squares in the 1st and 8th ranks
+     */
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = 0xFF00000000000000L;
+
+    /*
+     * Ray directions. The first four move towards higher square indices, the last four towards
+     * lower ones, which tells us whether to look for the lowest or highest blocker on a ray.
+     */
+    private static final int NORTH = 0;
+    private static final int EAST = 1;
+    private static final int NORTH_EAST = 2;
+    private static final int NORTH_WEST = 3;
+    private static final int SOUTH = 4;
+    private static final int WEST = 5;
+    private static final int SOUTH_WEST = 6;
+    private static final int SOUTH_EAST = 7;
+
+    /**
+     * Row and column steps corresponding to each ray direction
+     */
+    private static final int[] ROW_STEP = {1, 0, 1, 1, -1, 0, -1, -1};
+    private static final int[] COLUMN_STEP = {0, 1, 1, -1, 0, -1, -1, 1};
+
+    /**
+     * RAYS[direction][square] holds every square reachable from square in the given direction on
+     * an empty board
+     */
+    private static final long[][] RAYS = new long[8][64];
+
+    /**
+     * Squares attacked by a knight or king standing on each square
+     */
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+
+    /**
+     * PAWN_ATTACKS[colour][square] holds the squares attacked by a pawn of the given colour
+     * standing on square
+     */
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    /**
+     * BETWEEN[a][b] holds the squares strictly between a and b if they share a row, column or
+     * diagonal, and is empty otherwise
+     */
+    private static final long[][] BETWEEN = new long[64][64];
+
+    /**
+     * LINE[a][b] holds the entire line (edge to edge) through a and b if they share a row,
+     * column or diagonal, and is empty otherwise
+     */
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        int[][] knightSteps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+
+        for (int square = 0; square < 64; square++) {
+            int row = square >> 3;
+            int column = square & 7;
+
+            for (int direction = 0; direction < 8; direction++) {
+                int r = row + ROW_STEP[direction];
+                int c = column + COLUMN_STEP[direction];
+                while (onBoard(r, c)) {
+                    RAYS[direction][square] |= bit(r * 8 + c);
+                    r += ROW_STEP[direction];
+                    c += COLUMN_STEP[direction];
+                }
+
+                if (onBoard(row + ROW_STEP[direction], column + COLUMN_STEP[direction])) {
+                    KING_ATTACKS[square] |= bit((row + ROW_STEP[direction]) * 8 + column + COLUMN_STEP[direction]);
+                }
+            }
+
+            for (int[] step : knightSteps) {
+                if (onBoard(row + step[0], column + step[1])) {
+                    KNIGHT_ATTACKS[square] |= bit((row + step[0]) * 8 + column + step[1]);
+                }
+            }
+
+            if (onBoard(row + 1, column - 1)) {
+                PAWN_ATTACKS[Pieces.WHITE][square] |= bit(square + 7);
+            }
+            if (onBoard(row + 1, column + 1)) {
+                PAWN_ATTACKS[Pieces.WHITE][square] |= bit(square + 9);
+            }
+            if (onBoard(row - 1, column - 1)) {
+                PAWN_ATTACKS[Pieces.BLACK][square] |= bit(square - 9);
+            }
+            if (onBoard(row - 1, column + 1)) {
+                PAWN_ATTACKS[Pieces.BLACK][square] |= bit(square - 7);
+            }
+        }
+
+        for (int a = 0; a < 64; a++) {
+            for (int direction = 0; direction < 8; direction++) {
+                long ray = RAYS[direction][a];
+                long bits = ray;
+                while (bits != 0) {
+                    int b = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+
+                    BETWEEN[a][b] = ray & ~RAYS[direction][b] & ~bit(b);
+                    // The opposite direction is always 4 away in our ordering
+                    LINE[a][b] = ray | RAYS[(direction + 4) % 8][a] | bit(a);
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    /**
+     * Check whether the given coordinates lie on the board
+     */
+    private static boolean onBoard(int row, int column) {
+        return row >= 0 && row < 8 && column >= 0 && column < 8;
+    }
+
+    /**
+     * Get the bitboard containing only the given square
+     *
+     * @param square - the square to convert
+     * @return A bitboard with only the bit for square set
+     */
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * Get the lowest square in the given non-empty bitboard
+     *
+     * @param bitboard - a non-empty bitboard
+     * @return The index of the lowest set bit in bitboard
+     */
+    public static int first(long bitboard) {
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+
+    /**
+     * Count the squares in the given bitboard
+     *
+     * @param bitboard - the bitboard to count
+     * @return The number of set bits in bitboard
+     */
+    public static int count(long bitboard) {
+        return Long.bitCount(bitboard);
+    }
+
+    /**
+     * Get the squares attacked by a knight on the given square
+     */
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    /**
+     * Get the squares attacked by a king on the given square
+     */
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * Get the squares attacked by a pawn of the given colour on the given square
+     */
+    public static long pawnAttacks(int colour, int square) {
+        return PAWN_ATTACKS[colour][square];
+    }
+
+    /**
+     * Get the squares strictly between a and b, or an empty bitboard if they aren't aligned
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * Get the full line through a and b, or an empty bitboard if they aren't aligned
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    /**
+     * Get the squares attacked by a rook on the given square, given the occupied squares
+     *
+     * @param square   - the square the rook stands on
+     * @param occupied - every occupied square on the board
+     * @return The squares the rook attacks, including any blockers it runs into
+     */
+    public static long rookAttacks(int square, long occupied) {
+        return positiveRay(NORTH, square, occupied)
+                | positiveRay(EAST, square, occupied)
+                | negativeRay(SOUTH, square, occupied)
+                | negativeRay(WEST, square, occupied);
+    }
+
+    /**
+     * Get the squares attacked by a bishop on the given square, given the occupied squares
+     *
+     * @param square   - the square the bishop stands on
+     * @param occupied - every occupied square on the board
+     * @return The squares the bishop attacks, including any blockers it runs into
+     */
+    public static long bishopAttacks(int square, long occupied) {
+        return positiveRay(NORTH_EAST, square, occupied)
+                | positiveRay(NORTH_WEST, square, occupied)
+                | negativeRay(SOUTH_WEST, square, occupied)
+                | negativeRay(SOUTH_EAST, square, occupied);
+    }
+
+    /**
+     * Get the squares attacked by a queen on the given square, given the occupied squares
+     */
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /**
+     * Compute the attacks along a ray that runs towards higher square indices
+     */
+    private static long positiveRay(int direction, int square, long occupied) {
+        long attacks = RAYS[direction][square];
+        long blockers = attacks & occupied;
+        if (blockers != 0) {
+            attacks ^= RAYS[direction][Long.numberOfTrailingZeros(blockers)];
+        }
+        return attacks;
+    }
+
+    /**
+     * Compute the attacks along a ray that runs towards lower square indices
+     */
+    private static long negativeRay(int direction, int square, long occupied) {
+        long attacks = RAYS[direction][square];
+        long blockers = attacks & occupied;
+        if (blockers != 0) {
+            attacks ^= RAYS[direction][63 - Long.numberOfLeadingZeros(blockers)];
+        }
+        return attacks;
+    }
+}
@@ -0,0 +1,139 @@
+package com.lukaswillsie.onlinechess.engine;
+
+/**
+ * Statically evaluates positions. The evaluation is deliberately simple: material plus
+ * piece-square tables, with the king switching to an endgame table once the queens are off or
+ * material is low. It is cheap, which matters more on a phone than a few points of accuracy.
+ */
+public final class Evaluator {
+    /**
+     * The value of each piece type, in centipawns
+     */
+    public static final int[] VALUES = {100, 320, 330, 500, 900, 0};
+
+    /*
+     * Piece-square tables, written the way the board looks to white (row 8 at the top), giving a
+     * bonus or penalty in centipawns for a piece standing on each square.
+     */
+    private static final int[] PAWN_TABLE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] KNIGHT_TABLE = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] BISHOP_TABLE = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] ROOK_TABLE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0
+    };
+    private static final int[] QUEEN_TABLE = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+    };
+    private static final int[] KING_MIDDLEGAME_TABLE = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20
+    };
+    private static final int[] KING_ENDGAME_TABLE = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    /**
+     * TABLES[type] is the piece-square table for the given piece type (the middlegame one for
+     * kings)
+     */
+    private static final int[][] TABLES = {PAWN_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE, KING_MIDDLEGAME_TABLE};
+
+    /**
+     * Once the non-pawn material on the board drops to this (in centipawns), we consider the game
+     * to be in an endgame
+     */
+    private static final int ENDGAME_MATERIAL = 1300;
+
+    private Evaluator() {
+    }
+
+    /**
+     * Evaluate the given position
+     *
+     * @param position - the position to evaluate
+     * @return The value of the position in centipawns, from the point of view of the side to move
+     */
+    public static int evaluate(Position position) {
+        int nonPawnMaterial = 0;
+        for (int type = Pieces.KNIGHT; type <= Pieces.QUEEN; type++) {
+            nonPawnMaterial += VALUES[type] * Long.bitCount(position.getPieces(type) | position.getPieces(type + 6));
+        }
+        boolean endgame = nonPawnMaterial <= ENDGAME_MATERIAL
+                || (position.getPieces(Pieces.QUEEN) | position.getPieces(Pieces.QUEEN + 6)) == 0;
+
+        int score = 0;
+        for (int piece = 0; piece < 12; piece++) {
+            int type = Pieces.type(piece);
+            int[] table = (type == Pieces.KING && endgame) ? KING_ENDGAME_TABLE : TABLES[type];
+            boolean white = Pieces.colour(piece) == Pieces.WHITE;
+
+            long bits = position.getPieces(piece);
+            while (bits != 0) {
+                int square = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                // The tables are written from white's point of view with row 8 first, so white's
+                // squares need flipping vertically and black's can be read directly
+                int index = white ? square ^ 56 : square;
+                int value = VALUES[type] + table[index];
+                score += white ? value : -value;
+            }
+        }
+
+        return position.getSideToMove() == Pieces.WHITE ? score : -score;
+    }
+}
@@ -0,0 +1,249 @@
+package com.lukaswillsie.onlinechess.engine;
+
+/**
+ * Generates moves for a Position. The generated moves are pseudo-legal: they obey the movement
+ * rules of each piece but may leave the mover's king in check. Position.make() rejects those, so
+ * callers simply skip any move that make() refuses.
+ * <p>
+ * Moves are written into a caller-supplied int array so that generation never allocates.
+ */
+public final class MoveGenerator {
+    /**
+     * An upper bound on the number of pseudo-legal moves in any reachable position
+     */
+    public static final int MAX_MOVES = 256;
+
+    /*
+     * Squares that must be empty for each castle to be possible
+     */
+    private static final long WHITE_KINGSIDE_EMPTY = Bitboards.bit(5) | Bitboards.bit(6);
+    private static final long WHITE_QUEENSIDE_EMPTY = Bitboards.bit(1) | Bitboards.bit(2) | Bitboards.bit(3);
+    private static final long BLACK_KINGSIDE_EMPTY = Bitboards.bit(61) | Bitboards.bit(62);
+    private static final long BLACK_QUEENSIDE_EMPTY = Bitboards.bit(57) | Bitboards.bit(58) | Bitboards.bit(59);
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Write every pseudo-legal move in the given position into moves, starting at index start
+     *
+     * @param position - the position to generate moves for
+     * @param moves    - the array to write moves into; must have room for MAX_MOVES more moves
+     * @param start    - the index in moves at which to write the first move
+     * @return The index one past the last move written
+     */
+    public static int generate(Position position, int[] moves, int start) {
+        return generate(position, moves, start, false);
+    }
+
+    /**
+     * Write every pseudo-legal capture and queen promotion in the given position into moves,
+     * starting at index start. These are the moves considered by quiescence search.
+     *
+     * @param position - the position to generate moves for
+     * @param moves    - the array to write moves into; must have room for MAX_MOVES more moves
+     * @param start    - the index in moves at which to write the first move
+     * @return The index one past the last move written
+     */
+    public static int generateCaptures(Position position, int[] moves, int start) {
+        return generate(position, moves, start, true);
+    }
+
+    /**
+     * Compute every strictly legal move in the given position. Unlike generate(), this allocates,
+     * so it is meant for the UI and the opening book rather than for searching.
+     *
+     * @param position - the position to generate moves for
+     * @return An array containing exactly the legal moves in the given position
+     */
+    public static int[] legalMoves(Position position) {
+        int[] buffer = new int[MAX_MOVES];
+        int end = generate(position, buffer, 0, false);
+
+        int count = 0;
+        for (int i = 0; i < end; i++) {
+            if (position.make(buffer[i])) {
+                position.unmake();
+                buffer[count++] = buffer[i];
+            }
+        }
+
+        int[] legal = new int[count];
+        System.arraycopy(buffer, 0, legal, 0, count);
+        return legal;
+    }
+
+    /**
+     * Check whether the side to move has at least one legal move
+     *
+     * @param position - the position to examine
+     * @param buffer   - scratch space with room for MAX_MOVES moves
+     * @return true if and only if the side to move can make a legal move
+     */
+    public static boolean hasLegalMove(Position position, int[] buffer) {
+        int end = generate(position, buffer, 0, false);
+        for (int i = 0; i < end; i++) {
+            if (position.make(buffer[i])) {
+                position.unmake();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Does the work for generate() and generateCaptures()
+     */
+    private static int generate(Position position, int[] moves, int index, boolean capturesOnly) {
+        int side = position.getSideToMove();
+        int offset = side * 6;
+        long own = position.getOccupancy(side);
+        long enemy = position.getOccupancy(side ^ 1);
+        long occupied = own | enemy;
+        long targets = capturesOnly ? enemy : ~own;
+
+        index = generatePawnMoves(position, moves, index, side, enemy, occupied, capturesOnly);
+
+        long knights = position.getPieces(offset + Pieces.KNIGHT);
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            index = addMoves(moves, index, from, Bitboards.knightAttacks(from) & targets);
+        }
+
+        long bishops = position.getPieces(offset + Pieces.BISHOP) | position.getPieces(offset + Pieces.QUEEN);
+        while (bishops != 0) {
+            int from = Long.numberOfTrailingZeros(bishops);
+            bishops &= bishops - 1;
+            index = addMoves(moves, index, from, Bitboards.bishopAttacks(from, occupied) & targets);
+        }
+
+        long rooks = position.getPieces(offset + Pieces.ROOK) | position.getPieces(offset + Pieces.QUEEN);
+        while (rooks != 0) {
+            int from = Long.numberOfTrailingZeros(rooks);
+            rooks &= rooks - 1;
+            index = addMoves(moves, index, from, Bitboards.rookAttacks(from, occupied) & targets);
+        }
+
+        long king = position.getPieces(offset + Pieces.KING);
+        if (king != 0) {
+            int from = Long.numberOfTrailingZeros(king);
+            index = addMoves(moves, index, from, Bitboards.kingAttacks(from) & targets);
+
+            if (!capturesOnly) {
+                index = generateCastles(position, moves, index, side, occupied);
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Generate pawn pushes, captures, promotions and en passant captures
+     */
+    private static int generatePawnMoves(Position position, int[] moves, int index, int side, long enemy, long occupied, boolean capturesOnly) {
+        long pawns = position.getPieces(Pieces.make(side, Pieces.PAWN));
+        int forward = (side == Pieces.WHITE) ? 8 : -8;
+        long promotionRank = (side == Pieces.WHITE) ? Bitboards.RANK_8 : Bitboards.RANK_1;
+        int startRow = (side == Pieces.WHITE) ? 1 : 6;
+        int enPassant = position.getEnPassant();
+
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+
+            int to = from + forward;
+            if ((occupied & Bitboards.bit(to)) == 0) {
+                if ((Bitboards.bit(to) & promotionRank) != 0) {
+                    index = addPromotions(moves, index, from, to, capturesOnly);
+                } else if (!capturesOnly) {
+                    moves[index++] = Moves.make(from, to);
+
+                    int doubleTo = to + forward;
+                    if (Pieces.row(from) == startRow && (occupied & Bitboards.bit(doubleTo)) == 0) {
+                        moves[index++] = Moves.make(from, doubleTo, Pieces.PAWN, Moves.DOUBLE_PUSH);
+                    }
+                }
+            }
+
+            long captures = Bitboards.pawnAttacks(side, from) & enemy;
+            while (captures != 0) {
+                int target = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                if ((Bitboards.bit(target) & promotionRank) != 0) {
+                    index = addPromotions(moves, index, from, target, capturesOnly);
+                } else {
+                    moves[index++] = Moves.make(from, target);
+                }
+            }
+
+            if (enPassant != Position.NO_SQUARE && (Bitboards.pawnAttacks(side, from) & Bitboards.bit(enPassant)) != 0) {
+                moves[index++] = Moves.make(from, enPassant, Pieces.PAWN, Moves.EN_PASSANT);
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Add the promotions from "from" to "to". Quiescence search only looks at queen promotions,
+     * since under-promotions almost never change the evaluation of a position.
+     */
+    private static int addPromotions(int[] moves, int index, int from, int to, boolean queenOnly) {
+        moves[index++] = Moves.make(from, to, Pieces.QUEEN, Moves.NORMAL);
+        if (!queenOnly) {
+            moves[index++] = Moves.make(from, to, Pieces.KNIGHT, Moves.NORMAL);
+            moves[index++] = Moves.make(from, to, Pieces.ROOK, Moves.NORMAL);
+            moves[index++] = Moves.make(from, to, Pieces.BISHOP, Moves.NORMAL);
+        }
+        return index;
+    }
+
+    /**
+     * Add a normal move from "from" to every square in targets
+     */
+    private static int addMoves(int[] moves, int index, int from, long targets) {
+        while (targets != 0) {
+            moves[index++] = Moves.make(from, Long.numberOfTrailingZeros(targets));
+            targets &= targets - 1;
+        }
+        return index;
+    }
+
+    /**
+     * Add any castling moves available to the given side. The king may not castle out of, through
+     * or into check; the "into" part is caught by Position.make() like any other move.
+     */
+    private static int generateCastles(Position position, int[] moves, int index, int side, long occupied) {
+        int rights = position.getCastling();
+        int enemy = side ^ 1;
+
+        if (side == Pieces.WHITE) {
+            if ((rights & (Position.WHITE_KINGSIDE | Position.WHITE_QUEENSIDE)) == 0 || position.isAttacked(4, enemy)) {
+                return index;
+            }
+            if ((rights & Position.WHITE_KINGSIDE) != 0 && (occupied & WHITE_KINGSIDE_EMPTY) == 0
+                    && !position.isAttacked(5, enemy)) {
+                moves[index++] = Moves.make(4, 6, Pieces.PAWN, Moves.CASTLE);
+            }
+            if ((rights & Position.WHITE_QUEENSIDE) != 0 && (occupied & WHITE_QUEENSIDE_EMPTY) == 0
+                    && !position.isAttacked(3, enemy)) {
+                moves[index++] = Moves.make(4, 2, Pieces.PAWN, Moves.CASTLE);
+            }
+        } else {
+            if ((rights & (Position.BLACK_KINGSIDE | Position.BLACK_QUEENSIDE)) == 0 || position.isAttacked(60, enemy)) {
+                return index;
+            }
+            if ((rights & Position.BLACK_KINGSIDE) != 0 && (occupied & BLACK_KINGSIDE_EMPTY) == 0
+                    && !position.isAttacked(61, enemy)) {
+                moves[index++] = Moves.make(60, 62, Pieces.PAWN, Moves.CASTLE);
+            }
+            if ((rights & Position.BLACK_QUEENSIDE) != 0 && (occupied & BLACK_QUEENSIDE_EMPTY) == 0
+                    && !position.isAttacked(59, enemy)) {
+                moves[index++] = Moves.make(60, 58, Pieces.PAWN, Moves.CASTLE);
+            }
+        }
+
+        return index;
+    }
+}
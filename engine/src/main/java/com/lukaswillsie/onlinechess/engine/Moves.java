@@ -0,0 +1,100 @@
+package com.lukaswillsie.onlinechess.engine;
+
+/**
+ * The engine encodes moves as ints so that move lists can be kept in plain int arrays. This class
+ * defines that encoding:
+ * <p>
+ * bits 0-5: the source square <br>
+ * bits 6-11: the destination square <br>
+ * bits 12-14: the piece type being promoted to, or 0 (PAWN) if the move isn't a promotion <br>
+ * bits 15-16: one of the flags below
+ * <p>
+ * NONE (0) is never a valid move, since it would move a piece from a1 to a1.
+ */
+public final class Moves {
+    /**
+     * Represents the absence of a move
+     */
+    public static final int NONE = 0;
+
+    /*
+     * Flags identifying special moves
+     */
+    public static final int NORMAL = 0;
+    public static final int DOUBLE_PUSH = 1;
+    public static final int EN_PASSANT = 2;
+    public static final int CASTLE = 3;
+
+    private Moves() {
+    }
+
+    /**
+     * Encode a move with no promotion and no special flag
+     *
+     * @param from - the source square
+     * @param to   - the destination square
+     * @return The encoded move
+     */
+    public static int make(int from, int to) {
+        return from | (to << 6);
+    }
+
+    /**
+     * Encode a move
+     *
+     * @param from      - the source square
+     * @param to        - the destination square
+     * @param promotion - the piece type being promoted to, or Pieces.PAWN for no promotion
+     * @param flag      - one of NORMAL, DOUBLE_PUSH, EN_PASSANT or CASTLE
+     * @return The encoded move
+     */
+    public static int make(int from, int to, int promotion, int flag) {
+        return from | (to << 6) | (promotion << 12) | (flag << 15);
+    }
+
+    /**
+     * Get the source square of the given move
+     */
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    /**
+     * Get the destination square of the given move
+     */
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * Get the type of piece the given move promotes to, or Pieces.PAWN if it isn't a promotion
+     */
+    public static int promotion(int move) {
+        return (move >>> 12) & 7;
+    }
+
+    /**
+     * Get the special flag of the given move
+     */
+    public static int flag(int move) {
+        return (move >>> 15) & 3;
+    }
+
+    /**
+     * Represent the given move in coordinate notation, for example "e2e4" or "e7e8q"
+     *
+     * @param move - the move to represent
+     * @return A String representing the given move in coordinate notation
+     */
+    public static String toString(int move) {
+        if (move == NONE) {
+            return "0000";
+        }
+
+        String result = Pieces.squareName(from(move)) + Pieces.squareName(to(move));
+        if (promotion(move) != Pieces.PAWN) {
+            result += Character.toLowerCase(Pieces.toChar(promotion(move)));
+        }
+        return result;
+    }
+}
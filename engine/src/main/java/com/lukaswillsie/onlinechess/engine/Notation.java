@@ -0,0 +1,130 @@
+package com.lukaswillsie.onlinechess.engine;
+
+/**
+ * Converts moves into standard algebraic notation (SAN), the notation players are used to seeing:
+ * "Nf3", "exd5", "O-O", "e8=Q#", and so on.
+ */
+public final class Notation {
+    /**
+     * The letters used for each piece type in SAN; pawns don't get one
+     */
+    private static final String PIECE_LETTERS = " NBRQK";
+
+    private Notation() {
+    }
+
+    /**
+     * Represent the given legal move in SAN
+     *
+     * @param position - the position in which the move is to be made; left unchanged
+     * @param move     - a legal move in position
+     * @return The given move in standard algebraic notation
+     */
+    public static String toSan(Position position, int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int type = Pieces.type(position.getPiece(from));
+        StringBuilder builder = new StringBuilder();
+
+        if (Moves.flag(move) == Moves.CASTLE) {
+            builder.append(Pieces.column(to) == 6 ? "O-O" : "O-O-O");
+        } else {
+            boolean capture = position.getPiece(to) != Pieces.EMPTY || Moves.flag(move) == Moves.EN_PASSANT;
+
+            if (type == Pieces.PAWN) {
+                if (capture) {
+                    builder.append((char) ('a' + Pieces.column(from)));
+                }
+            } else {
+                builder.append(PIECE_LETTERS.charAt(type));
+                appendDisambiguation(builder, position, move, type);
+            }
+
+            if (capture) {
+                builder.append('x');
+            }
+            builder.append(Pieces.squareName(to));
+
+            if (Moves.promotion(move) != Pieces.PAWN) {
+                builder.append('=').append(PIECE_LETTERS.charAt(Moves.promotion(move)));
+            }
+        }
+
+        if (position.make(move)) {
+            if (position.inCheck()) {
+                builder.append(position.isCheckmate() ? '#' : '+');
+            }
+            position.unmake();
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Represent the given line of moves in SAN, with move numbers, for example "12. Nf3 Nc6 13. d4"
+     * or "12... Nc6 13. d4" if the line starts with a black move
+     *
+     * @param position - the position from which the line starts; left unchanged
+     * @param line     - a sequence of legal moves, starting in position
+     * @return The given line in standard algebraic notation
+     */
+    public static String toSan(Position position, int[] line) {
+        StringBuilder builder = new StringBuilder();
+        int made = 0;
+
+        for (int i = 0; i < line.length; i++) {
+            if (position.getSideToMove() == Pieces.WHITE) {
+                if (builder.length() > 0) {
+                    builder.append(' ');
+                }
+                builder.append(position.getFullmoveNumber()).append(". ");
+            } else if (i == 0) {
+                builder.append(position.getFullmoveNumber()).append("... ");
+            } else {
+                builder.append(' ');
+            }
+
+            builder.append(toSan(position, line[i]));
+            if (!position.make(line[i])) {
+                break;
+            }
+            made++;
+        }
+
+        for (int i = 0; i < made; i++) {
+            position.unmake();
+        }
+        return builder.toString();
+    }
+
+    /**
+     * If another piece of the same type could also legally move to the destination square, add
+     * the file, rank, or both, of the moving piece so that the move is unambiguous
+     */
+    private static void appendDisambiguation(StringBuilder builder, Position position, int move, int type) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        boolean ambiguous = false;
+        boolean sameColumn = false;
+        boolean sameRow = false;
+
+        for (int other : MoveGenerator.legalMoves(position)) {
+            int otherFrom = Moves.from(other);
+            if (otherFrom != from && Moves.to(other) == to && Pieces.type(position.getPiece(otherFrom)) == type) {
+                ambiguous = true;
+                sameColumn |= Pieces.column(otherFrom) == Pieces.column(from);
+                sameRow |= Pieces.row(otherFrom) == Pieces.row(from);
+            }
+        }
+
+        if (ambiguous) {
+            if (!sameColumn) {
+                builder.append((char) ('a' + Pieces.column(from)));
+            } else if (!sameRow) {
+                builder.append((char) ('1' + Pieces.row(from)));
+            } else {
+                builder.append(Pieces.squareName(from));
+            }
+        }
+    }
+}
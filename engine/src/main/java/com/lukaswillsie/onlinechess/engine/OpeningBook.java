@@ -0,0 +1,216 @@
+package com.lukaswillsie.onlinechess.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Reads an opening book: a file mapping positions, by Zobrist hash, to the moves that are
+ * commonly played from them, and to the name of the opening they belong to.
+ * <p>
+ * The book is never loaded into the heap. It is meant to be memory-mapped, so that a lookup is a
+ * binary search over pages the operating system brings in on demand, and takes microseconds.
+ * Lookups never modify the underlying buffer, so a single OpeningBook can safely be used from any
+ * number of threads.
+ * <p>
+ * All values are big-endian. The file is laid out as follows: <br>
+ * header: the int MAGIC, the int VERSION, the number of entries (int) and the number of opening
+ * names (int) <br>
+ * entries: ENTRY_SIZE bytes each, sorted by key, then by descending weight. Each entry is a
+ * position's hash (long), a move (int, as in Moves, or Moves.NONE if the entry exists only to
+ * name the position), the move's weight (unsigned short), and the index of the position's
+ * opening name (short, or -1 if it has none) <br>
+ * name offsets: one int per name, giving the position of the name relative to the start of the
+ * name data <br>
+ * name data: each name as an unsigned short length followed by that many bytes of UTF-8
+ * <p>
+ * Book files are written by the BookBuilder tool in this module's book source set. Because keys
+ * are Zobrist hashes, any change to Zobrist's keys means every book has to be rebuilt.
+ */
+public final class OpeningBook {
+    /**
+     * The first four bytes of every book file: "OCBK"
+     */
+    public static final int MAGIC = 0x4F43424B;
+
+    /**
+     * The version of the format described above
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The size of the header, in bytes
+     */
+    public static final int HEADER_SIZE = 16;
+
+    /**
+     * The size of a single entry, in bytes
+     */
+    public static final int ENTRY_SIZE = 16;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * The whole book file
+     */
+    private final ByteBuffer buffer;
+
+    private final int entryCount;
+    private final int nameCount;
+
+    /**
+     * The absolute positions within buffer of the name offset table and the name data
+     */
+    private final int namesStart;
+    private final int nameDataStart;
+
+    /**
+     * Create an OpeningBook backed by the given buffer, which should hold a complete book file,
+     * starting at its position. The buffer is never modified.
+     *
+     * @param buffer - the book file; usually memory-mapped
+     * @throws IOException If the buffer doesn't hold a valid book file
+     */
+    public OpeningBook(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        if (this.buffer.capacity() < HEADER_SIZE || this.buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an opening book");
+        }
+        if (this.buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported opening book version " + this.buffer.getInt(4));
+        }
+
+        this.entryCount = this.buffer.getInt(8);
+        this.nameCount = this.buffer.getInt(12);
+        this.namesStart = HEADER_SIZE + entryCount * ENTRY_SIZE;
+        this.nameDataStart = namesStart + nameCount * 4;
+        if (entryCount < 0 || nameCount < 0 || nameDataStart > this.buffer.capacity()) {
+            throw new IOException("Opening book is truncated");
+        }
+    }
+
+    /**
+     * Memory-map the book occupying the given region of a file. The mapping remains valid after
+     * the channel is closed.
+     *
+     * @param channel - a channel open for reading on the file containing the book
+     * @param offset  - the position within the file at which the book starts
+     * @param length  - the length of the book, in bytes
+     * @return An OpeningBook reading from the mapped region
+     * @throws IOException If the region can't be mapped or doesn't hold a valid book
+     */
+    public static OpeningBook map(FileChannel channel, long offset, long length) throws IOException {
+        return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    /**
+     * Get the number of entries in this book
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Check whether the given position is in this book, either because it has book moves or
+     * because it has a name
+     *
+     * @param position - the position to look up
+     * @return Whether or not the book knows the given position
+     */
+    public boolean contains(Position position) {
+        return findFirst(position.getKey()) != -1;
+    }
+
+    /**
+     * Find the book moves for the given position, most popular first
+     *
+     * @param position - the position to look up
+     * @param moves    - the array to put the moves in
+     * @param weights  - the array to put the moves' weights in, in the same order; may be null
+     * @return The number of moves found, at most moves.length
+     */
+    public int getMoves(Position position, int[] moves, int[] weights) {
+        long key = position.getKey();
+        int index = findFirst(key);
+        if (index == -1) {
+            return 0;
+        }
+
+        int count = 0;
+        for (; index < entryCount && count < moves.length && keyAt(index) == key; index++) {
+            int offset = HEADER_SIZE + index * ENTRY_SIZE;
+            int move = buffer.getInt(offset + 8);
+
+            // A move whose piece doesn't belong to the side to move can only come from a hash
+            // collision, so we never hand one out
+            if (move == Moves.NONE) {
+                continue;
+            }
+            int piece = position.getPiece(Moves.from(move));
+            if (piece == Pieces.EMPTY || Pieces.colour(piece) != position.getSideToMove()) {
+                continue;
+            }
+
+            moves[count] = move;
+            if (weights != null) {
+                weights[count] = buffer.getShort(offset + 12) & 0xFFFF;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Get the name of the opening the given position belongs to
+     *
+     * @param position - the position to look up
+     * @return The name of the position's opening, or null if the book doesn't name it
+     */
+    public String getOpeningName(Position position) {
+        int index = findFirst(position.getKey());
+        if (index == -1) {
+            return null;
+        }
+
+        int name = buffer.getShort(HEADER_SIZE + index * ENTRY_SIZE + 14);
+        if (name < 0 || name >= nameCount) {
+            return null;
+        }
+
+        int start = nameDataStart + buffer.getInt(namesStart + name * 4);
+        int length = buffer.getShort(start) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(start + 2 + i);
+        }
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Binary search for the first entry with the given key
+     *
+     * @return The index of the first entry with the given key, or -1 if there isn't one
+     */
+    private int findFirst(long key) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keyAt(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < entryCount && keyAt(low) == key ? low : -1;
+    }
+
+    /**
+     * Get the key of the entry at the given index
+     */
+    private long keyAt(int index) {
+        return buffer.getLong(HEADER_SIZE + index * ENTRY_SIZE);
+    }
+}
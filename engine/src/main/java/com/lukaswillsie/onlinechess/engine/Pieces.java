@@ -0,0 +1,136 @@
+package com.lukaswillsie.onlinechess.engine;
+
+/**
+ * The engine represents pieces, colours and squares as plain ints so that positions can be
+ * searched without allocating. This class defines those encodings in one place.
+ * <p>
+ * A square is an int from 0 to 63, computed as row * 8 + column, where (row, column) = (0, 0) is
+ * what white would call the bottom left corner (a1). This is the same convention used by the
+ * Board class, so coordinates can be passed back and forth without any conversion.
+ * <p>
+ * A piece is an int from 0 to 11, computed as colour * 6 + type.
+ */
+public final class Pieces {
+    /*
+     * Colours
+     */
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    /*
+     * Piece types. The order matters: it is used to index material values, piece-square tables
+     * and promotion encodings.
+     */
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    /**
+     * Used for squares that aren't occupied by any piece
+     */
+    public static final int EMPTY = -1;
+
+    /**
+     * The characters used to represent each piece in FEN, indexed by piece code
+     */
+    private static final String FEN_CHARS = "PNBRQKpnbrqk";
+
+    private Pieces() {
+    }
+
+    /**
+     * Compute the code for a piece of the given type and colour
+     *
+     * @param colour - WHITE or BLACK
+     * @param type   - one of PAWN, KNIGHT, BISHOP, ROOK, QUEEN or KING
+     * @return The piece code for the described piece
+     */
+    public static int make(int colour, int type) {
+        return colour * 6 + type;
+    }
+
+    /**
+     * Get the type (PAWN, KNIGHT, etc.) of the given piece
+     *
+     * @param piece - a piece code (not EMPTY)
+     * @return The type of the given piece
+     */
+    public static int type(int piece) {
+        return piece % 6;
+    }
+
+    /**
+     * Get the colour (WHITE or BLACK) of the given piece
+     *
+     * @param piece - a piece code (not EMPTY)
+     * @return The colour of the given piece
+     */
+    public static int colour(int piece) {
+        return piece / 6;
+    }
+
+    /**
+     * Get the FEN character for the given piece, uppercase for white and lowercase for black
+     *
+     * @param piece - a piece code (not EMPTY)
+     * @return The character representing the given piece in FEN
+     */
+    public static char toChar(int piece) {
+        return FEN_CHARS.charAt(piece);
+    }
+
+    /**
+     * Get the piece represented by the given FEN character
+     *
+     * @param c - the character to decode
+     * @return The piece code represented by c, or EMPTY if c doesn't represent a piece
+     */
+    public static int fromChar(char c) {
+        int index = FEN_CHARS.indexOf(c);
+        return index == -1 ? EMPTY : index;
+    }
+
+    /**
+     * Compute the square with the given coordinates
+     *
+     * @param row    - the row of the square, 0 to 7, with 0 being white's back rank
+     * @param column - the column of the square, 0 to 7, with 0 being the a-file
+     * @return The square at (row, column)
+     */
+    public static int square(int row, int column) {
+        return row * 8 + column;
+    }
+
+    /**
+     * Get the row of the given square
+     *
+     * @param square - the square to examine
+     * @return The row (0 to 7) of the given square
+     */
+    public static int row(int square) {
+        return square >> 3;
+    }
+
+    /**
+     * Get the column of the given square
+     *
+     * @param square - the square to examine
+     * @return The column (0 to 7) of the given square
+     */
+    public static int column(int square) {
+        return square & 7;
+    }
+
+    /**
+     * Get the algebraic name ("e4", "h8", etc.) of the given square
+     *
+     * @param square - the square to name
+     * @return The algebraic name of the given square
+     */
+    public static String squareName(int square) {
+        return "" + (char) ('a' + column(square)) + (char) ('1' + row(square));
+    }
+}
@@ -0,0 +1,961 @@
+package com.lukaswillsie.onlinechess.engine;
+
+/**
+ * A chess position, stored as bitboards alongside a square-indexed array of pieces. Unlike the
+ * Board class used by the app, a Position supports undoing moves: make() pushes the information
+ * needed to reverse a move onto an internal stack and unmake() pops it. This is what lets the
+ * search walk millions of positions without allocating or copying anything.
+ * <p>
+ * Position is not thread-safe. Every search thread works on its own copy (see copy()).
+ */
+public final class Position {
+    /**
+     * The FEN of the standard starting position
+     */
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /*
+     * Castling rights, stored as a 4-bit mask
+     */
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    /**
+     * Used as the en passant square when no en passant capture is available
+     */
+    public static final int NO_SQUARE = -1;
+
+    /**
+     * The maximum number of moves that can be made (and not yet unmade) on a Position
+     */
+    public static final int MAX_HISTORY = 1024;
+
+    /**
+     * CASTLING_MASK[square] is ANDed into the castling rights whenever a piece moves from or to
+     * square, so that moving a king or rook, or capturing a rook, removes the right rights.
+     */
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            CASTLING_MASK[square] = 15;
+        }
+        CASTLING_MASK[0] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[7] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[56] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASK[63] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+    }
+
+    /**
+     * pieces[piece] is the bitboard of squares occupied by the given piece
+     */
+    private final long[] pieces = new long[12];
+
+    /**
+     * occupancy[colour] is the bitboard of squares occupied by pieces of the given colour
+     */
+    private final long[] occupancy = new long[2];
+
+    /**
+     * board[square] is the piece on the given square, or Pieces.EMPTY
+     */
+    private final int[] board = new int[64];
+
+    /*
+     * The rest of the state of the position
+     */
+    private int side;
+    private int castling;
+    private int enPassant = NO_SQUARE;
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+    private long key;
+
+    /**
+     * The pieces giving check to the side to move. Kept up to date by make() and unmake(), since
+     * the search asks whether it is in check at every node.
+     */
+    private long checkers;
+
+    /*
+     * Attack information about the current position, computed the first time someone asks for it
+     * and reused until the position changes (see updateAttacks()). The search makes and unmakes
+     * far more moves than it examines attack maps for, so rebuilding these on every move would
+     * slow it down for nothing.
+     */
+    private boolean attacksValid;
+    private final long[] attacks = new long[2];
+    private long kingDanger;
+    private long pinned;
+
+    /*
+     * The undo stack. Entry i holds the state from before the i-th move still on the stack.
+     */
+    private final int[] moveStack = new int[MAX_HISTORY];
+    private final int[] capturedStack = new int[MAX_HISTORY];
+    private final int[] castlingStack = new int[MAX_HISTORY];
+    private final int[] enPassantStack = new int[MAX_HISTORY];
+    private final int[] halfmoveStack = new int[MAX_HISTORY];
+    private final long[] keyStack = new long[MAX_HISTORY];
+    private final long[] checkersStack = new long[MAX_HISTORY];
+    private int depth;
+
+    /**
+     * Create an empty Position, with no pieces, white to move and no castling rights. Use
+     * fromFen() to create a Position with pieces on it.
+     */
+    public Position() {
+        for (int square = 0; square < 64; square++) {
+            board[square] = Pieces.EMPTY;
+        }
+    }
+
+    /**
+     * Create a Position from the given FEN string. The halfmove clock and fullmove number fields
+     * are optional.
+     *
+     * @param fen - the FEN string describing the position
+     * @return A Position representing the given FEN
+     * @throws IllegalArgumentException - if the given String is not valid FEN
+     */
+    public static Position fromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("FEN has too few fields: " + fen);
+        }
+
+        Position position = new Position();
+
+        String[] rows = fields[0].split("/");
+        if (rows.length != 8) {
+            throw new IllegalArgumentException("FEN doesn't have 8 rows: " + fen);
+        }
+        for (int i = 0; i < 8; i++) {
+            // FEN lists rows from black's back rank down to white's
+            int row = 7 - i;
+            int column = 0;
+            for (char c : rows[i].toCharArray()) {
+                if (c >= '1' && c <= '8') {
+                    column += c - '0';
+                } else {
+                    int piece = Pieces.fromChar(c);
+                    if (piece == Pieces.EMPTY || column > 7) {
+                        throw new IllegalArgumentException("Invalid FEN row '" + rows[i] + "': " + fen);
+                    }
+                    position.addPiece(Pieces.square(row, column), piece);
+                    column++;
+                }
+            }
+            if (column != 8) {
+                throw new IllegalArgumentException("Invalid FEN row '" + rows[i] + "': " + fen);
+            }
+        }
+
+        if (fields[1].equals("w")) {
+            position.side = Pieces.WHITE;
+        } else if (fields[1].equals("b")) {
+            position.side = Pieces.BLACK;
+            position.key ^= Zobrist.BLACK_TO_MOVE;
+        } else {
+            throw new IllegalArgumentException("Invalid side to move: " + fen);
+        }
+
+        int castling = 0;
+        if (!fields[2].equals("-")) {
+            for (char c : fields[2].toCharArray()) {
+                switch (c) {
+                    case 'K':
+                        castling |= WHITE_KINGSIDE;
+                        break;
+                    case 'Q':
+                        castling |= WHITE_QUEENSIDE;
+                        break;
+                    case 'k':
+                        castling |= BLACK_KINGSIDE;
+                        break;
+                    case 'q':
+                        castling |= BLACK_QUEENSIDE;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Invalid castling rights: " + fen);
+                }
+            }
+        }
+        // Drop any rights that the pieces on the board contradict, so that we never try to castle
+        // with a rook that isn't there
+        int whiteKing = Pieces.make(Pieces.WHITE, Pieces.KING);
+        int whiteRook = Pieces.make(Pieces.WHITE, Pieces.ROOK);
+        int blackKing = Pieces.make(Pieces.BLACK, Pieces.KING);
+        int blackRook = Pieces.make(Pieces.BLACK, Pieces.ROOK);
+        if (position.board[4] != whiteKing || position.board[7] != whiteRook) {
+            castling &= ~WHITE_KINGSIDE;
+        }
+        if (position.board[4] != whiteKing || position.board[0] != whiteRook) {
+            castling &= ~WHITE_QUEENSIDE;
+        }
+        if (position.board[60] != blackKing || position.board[63] != blackRook) {
+            castling &= ~BLACK_KINGSIDE;
+        }
+        if (position.board[60] != blackKing || position.board[56] != blackRook) {
+            castling &= ~BLACK_QUEENSIDE;
+        }
+        position.castling = castling;
+        position.key ^= Zobrist.CASTLING[castling];
+
+        if (!fields[3].equals("-")) {
+            if (fields[3].length() != 2) {
+                throw new IllegalArgumentException("Invalid en passant square: " + fen);
+            }
+            int square = Pieces.square(fields[3].charAt(1) - '1', fields[3].charAt(0) - 'a');
+            if (square < 0 || square > 63) {
+                throw new IllegalArgumentException("Invalid en passant square: " + fen);
+            }
+            position.setEnPassant(square);
+        }
+
+        try {
+            if (fields.length > 4) {
+                position.halfmoveClock = Integer.parseInt(fields[4]);
+            }
+            if (fields.length > 5) {
+                position.fullmoveNumber = Integer.parseInt(fields[5]);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid move counters: " + fen);
+        }
+
+        position.checkers = position.findCheckers();
+        return position;
+    }
+
+    /**
+     * Create an independent copy of this Position. The copy does not share the undo history of
+     * this Position, so moves made on this Position can't be unmade on the copy.
+     *
+     * @return A copy of this Position
+     */
+    public Position copy() {
+        Position copy = new Position();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * Overwrite this Position so that it represents the same position as other. Like copy(), this
+     * does not carry over the undo history of other, but it doesn't allocate.
+     *
+     * @param other - the Position to copy
+     */
+    public void copyFrom(Position other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, 12);
+        System.arraycopy(other.occupancy, 0, occupancy, 0, 2);
+        System.arraycopy(other.board, 0, board, 0, 64);
+        side = other.side;
+        castling = other.castling;
+        enPassant = other.enPassant;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        key = other.key;
+        checkers = other.checkers;
+        attacksValid = false;
+        depth = 0;
+    }
+
+    /**
+     * Represent this Position as a FEN string
+     *
+     * @return The FEN string describing this Position
+     */
+    public String toFen() {
+        StringBuilder builder = new StringBuilder();
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int column = 0; column < 8; column++) {
+                int piece = board[Pieces.square(row, column)];
+                if (piece == Pieces.EMPTY) {
+                    empty++;
+                } else {
+                    if (empty > 0) {
+                        builder.append(empty);
+                        empty = 0;
+                    }
+                    builder.append(Pieces.toChar(piece));
+                }
+            }
+            if (empty > 0) {
+                builder.append(empty);
+            }
+            if (row > 0) {
+                builder.append('/');
+            }
+        }
+
+        builder.append(side == Pieces.WHITE ? " w " : " b ");
+
+        if (castling == 0) {
+            builder.append('-');
+        } else {
+            if ((castling & WHITE_KINGSIDE) != 0) builder.append('K');
+            if ((castling & WHITE_QUEENSIDE) != 0) builder.append('Q');
+            if ((castling & BLACK_KINGSIDE) != 0) builder.append('k');
+            if ((castling & BLACK_QUEENSIDE) != 0) builder.append('q');
+        }
+
+        builder.append(' ').append(enPassant == NO_SQUARE ? "-" : Pieces.squareName(enPassant));
+        builder.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return builder.toString();
+    }
+
+    /**
+     * Get the piece on the given square
+     *
+     * @param square - the square to examine
+     * @return The piece on the given square, or Pieces.EMPTY if it is empty
+     */
+    public int getPiece(int square) {
+        return board[square];
+    }
+
+    /**
+     * Get the bitboard of squares occupied by the given piece
+     */
+    public long getPieces(int piece) {
+        return pieces[piece];
+    }
+
+    /**
+     * Get the bitboard of squares occupied by pieces of the given colour
+     */
+    public long getOccupancy(int colour) {
+        return occupancy[colour];
+    }
+
+    /**
+     * Get the bitboard of all occupied squares
+     */
+    public long getOccupied() {
+        return occupancy[0] | occupancy[1];
+    }
+
+    /**
+     * Get the colour whose turn it is
+     */
+    public int getSideToMove() {
+        return side;
+    }
+
+    /**
+     * Get the castling rights, as a combination of WHITE_KINGSIDE, WHITE_QUEENSIDE, etc.
+     */
+    public int getCastling() {
+        return castling;
+    }
+
+    /**
+     * Get the square a pawn can move to to capture en passant, or NO_SQUARE
+     */
+    public int getEnPassant() {
+        return enPassant;
+    }
+
+    /**
+     * Get the number of halfmoves since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Get the number of the current full move, starting at 1 and incremented after black moves
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Get the Zobrist hash of this position
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Get the number of moves that have been made on this Position and not yet unmade
+     */
+    public int getHistoryLength() {
+        return depth;
+    }
+
+    /**
+     * Get the square occupied by the king of the given colour
+     *
+     * @param colour - the colour of the king to find
+     * @return The square the given king stands on, or 64 if there is no such king
+     */
+    public int kingSquare(int colour) {
+        return Long.numberOfTrailingZeros(pieces[Pieces.make(colour, Pieces.KING)]);
+    }
+
+    /**
+     * Check whether the given square is attacked by any piece of the given colour
+     *
+     * @param square - the square to check
+     * @param by     - the colour of the attacking side
+     * @return true if and only if a piece of colour "by" attacks square
+     */
+    public boolean isAttacked(int square, int by) {
+        return attackersOf(square, by, getOccupied()) != 0;
+    }
+
+    /**
+     * Find every piece of the given colour that attacks the given square, treating the squares in
+     * occupied as the only occupied squares on the board
+     *
+     * @param square   - the square being attacked
+     * @param by       - the colour of the attacking side
+     * @param occupied - the occupied squares to use for sliding pieces
+     * @return A bitboard of the attacking pieces
+     */
+    public long attackersOf(int square, int by, long occupied) {
+        int offset = by * 6;
+        long queens = pieces[offset + Pieces.QUEEN];
+        return (Bitboards.pawnAttacks(by ^ 1, square) & pieces[offset + Pieces.PAWN])
+                | (Bitboards.knightAttacks(square) & pieces[offset + Pieces.KNIGHT])
+                | (Bitboards.kingAttacks(square) & pieces[offset + Pieces.KING])
+                | (Bitboards.bishopAttacks(square, occupied) & (pieces[offset + Pieces.BISHOP] | queens))
+                | (Bitboards.rookAttacks(square, occupied) & (pieces[offset + Pieces.ROOK] | queens));
+    }
+
+    /**
+     * Check whether the side to move is in check
+     *
+     * @return true if and only if the king of the side to move is attacked
+     */
+    public boolean inCheck() {
+        return checkers != 0;
+    }
+
+    /**
+     * Get the pieces giving check to the side to move
+     *
+     * @return A bitboard of the checking pieces, which is empty if the side to move isn't in check
+     */
+    public long getCheckers() {
+        return checkers;
+    }
+
+    /**
+     * Get every square attacked by at least one piece of the given colour
+     *
+     * @param colour - the colour of the attacking side
+     * @return A bitboard of the attacked squares
+     */
+    public long getAttacks(int colour) {
+        updateAttacks();
+        return attacks[colour];
+    }
+
+    /**
+     * Get the pieces belonging to the side to move that are pinned to their king, and so may only
+     * move along the line between their king and the piece pinning them
+     *
+     * @return A bitboard of the pinned pieces
+     */
+    public long getPinned() {
+        updateAttacks();
+        return pinned;
+    }
+
+    /**
+     * Check whether the side to move has been checkmated
+     *
+     * @return true if and only if the side to move is in check and has no legal moves
+     */
+    public boolean isCheckmate() {
+        return checkers != 0 && !hasLegalMove();
+    }
+
+    /**
+     * Check whether the side to move has been stalemated
+     *
+     * @return true if and only if the side to move is not in check but has no legal moves
+     */
+    public boolean isStalemate() {
+        return checkers == 0 && !hasLegalMove();
+    }
+
+    /**
+     * Check whether the side to move has at least one legal move. Rather than generating moves
+     * and trying each one, we work from the attack maps: a king move is legal if it steps onto a
+     * square the enemy doesn't attack, and another piece's move is legal if it deals with any
+     * check and keeps any pin. Only en passant, which can expose the king in ways the maps don't
+     * capture, is tried out with make().
+     *
+     * @return true if and only if the side to move can make a legal move
+     */
+    public boolean hasLegalMove() {
+        updateAttacks();
+        int king = kingSquare(side);
+        long own = occupancy[side];
+        long occupied = getOccupied();
+
+        if (king < 64) {
+            if ((Bitboards.kingAttacks(king) & ~own & ~kingDanger) != 0) {
+                return true;
+            }
+            // Only the king can escape a double check. We don't need to look at castling: if
+            // castling is legal, so is the king's one-step move towards the rook.
+            if (Bitboards.count(checkers) > 1) {
+                return false;
+            }
+        }
+
+        // If we're in check, every move other than a king move has to capture the checking piece
+        // or block the check
+        long targets = ~own;
+        if (checkers != 0) {
+            targets &= checkers | Bitboards.between(king, Bitboards.first(checkers));
+        }
+
+        int offset = side * 6;
+        for (int type = Pieces.KNIGHT; type <= Pieces.QUEEN; type++) {
+            long bits = pieces[offset + type];
+            while (bits != 0) {
+                int from = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if ((pinnedMask(king, from) & attacksFrom(type, side, from, occupied) & targets) != 0) {
+                    return true;
+                }
+            }
+        }
+
+        int forward = (side == Pieces.WHITE) ? 8 : -8;
+        int startRow = (side == Pieces.WHITE) ? 1 : 6;
+        long pawns = pieces[offset + Pieces.PAWN];
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+
+            long moves = Bitboards.pawnAttacks(side, from) & occupancy[side ^ 1];
+            int to = from + forward;
+            // A pawn waiting on the last rank to be promoted has nowhere to go
+            if (to >= 0 && to < 64 && (occupied & Bitboards.bit(to)) == 0) {
+                moves |= Bitboards.bit(to);
+                if (Pieces.row(from) == startRow && (occupied & Bitboards.bit(to + forward)) == 0) {
+                    moves |= Bitboards.bit(to + forward);
+                }
+            }
+            if ((pinnedMask(king, from) & moves & targets) != 0) {
+                return true;
+            }
+        }
+
+        if (enPassant != NO_SQUARE) {
+            long capturers = Bitboards.pawnAttacks(side ^ 1, enPassant) & pieces[offset + Pieces.PAWN];
+            while (capturers != 0) {
+                int from = Long.numberOfTrailingZeros(capturers);
+                capturers &= capturers - 1;
+                if (make(Moves.make(from, enPassant, Pieces.PAWN, Moves.EN_PASSANT))) {
+                    unmake();
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Check whether the current position has occurred before in the moves made on this Position,
+     * since the last capture or pawn move
+     *
+     * @return true if and only if the current position is a repetition
+     */
+    public boolean isRepetition() {
+        int earliest = Math.max(0, depth - halfmoveClock);
+        for (int i = depth - 2; i >= earliest; i -= 2) {
+            if (keyStack[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Make the given move, which must have been produced by MoveGenerator for this position. If
+     * the move would leave the mover's king in check, it is immediately unmade and false is
+     * returned, leaving this Position unchanged.
+     *
+     * @param move - the move to make
+     * @return true if the move was made, false if it was illegal
+     */
+    public boolean make(int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int flag = Moves.flag(move);
+        int promotion = Moves.promotion(move);
+        int piece = board[from];
+
+        moveStack[depth] = move;
+        castlingStack[depth] = castling;
+        enPassantStack[depth] = enPassant;
+        halfmoveStack[depth] = halfmoveClock;
+        keyStack[depth] = key;
+        checkersStack[depth] = checkers;
+        attacksValid = false;
+
+        int captured;
+        if (flag == Moves.EN_PASSANT) {
+            int capturedSquare = (side == Pieces.WHITE) ? to - 8 : to + 8;
+            captured = board[capturedSquare];
+            removePiece(capturedSquare);
+        } else {
+            captured = board[to];
+            if (captured != Pieces.EMPTY) {
+                removePiece(to);
+            }
+        }
+        capturedStack[depth] = captured;
+        depth++;
+
+        if (enPassant != NO_SQUARE) {
+            key ^= Zobrist.EN_PASSANT[enPassant & 7];
+            enPassant = NO_SQUARE;
+        }
+
+        movePiece(from, to);
+        if (promotion != Pieces.PAWN) {
+            removePiece(to);
+            addPiece(to, Pieces.make(side, promotion));
+        }
+
+        if (flag == Moves.CASTLE) {
+            switch (to) {
+                case 6:
+                    movePiece(7, 5);
+                    break;
+                case 2:
+                    movePiece(0, 3);
+                    break;
+                case 62:
+                    movePiece(63, 61);
+                    break;
+                case 58:
+                    movePiece(56, 59);
+                    break;
+            }
+        }
+
+        key ^= Zobrist.CASTLING[castling];
+        castling &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        key ^= Zobrist.CASTLING[castling];
+
+        if (Pieces.type(piece) == Pieces.PAWN || captured != Pieces.EMPTY) {
+            halfmoveClock = 0;
+        } else {
+            halfmoveClock++;
+        }
+        if (side == Pieces.BLACK) {
+            fullmoveNumber++;
+        }
+
+        side ^= 1;
+        key ^= Zobrist.BLACK_TO_MOVE;
+
+        if (flag == Moves.DOUBLE_PUSH) {
+            setEnPassant((from + to) >> 1);
+        }
+
+        int king = kingSquare(side ^ 1);
+        if (king < 64 && isAttacked(king, side)) {
+            unmake();
+            return false;
+        }
+
+        checkers = findCheckers(from, to, flag);
+        return true;
+    }
+
+    /**
+     * Unmake the last move made on this Position that hasn't already been unmade
+     *
+     * @throws IllegalStateException - if there are no moves to unmake
+     */
+    public void unmake() {
+        if (depth == 0) {
+            throw new IllegalStateException("No moves to unmake");
+        }
+        depth--;
+
+        int move = moveStack[depth];
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int flag = Moves.flag(move);
+
+        side ^= 1;
+        if (side == Pieces.BLACK) {
+            fullmoveNumber--;
+        }
+
+        if (flag == Moves.CASTLE) {
+            switch (to) {
+                case 6:
+                    movePiece(5, 7);
+                    break;
+                case 2:
+                    movePiece(3, 0);
+                    break;
+                case 62:
+                    movePiece(61, 63);
+                    break;
+                case 58:
+                    movePiece(59, 56);
+                    break;
+            }
+        }
+
+        if (Moves.promotion(move) != Pieces.PAWN) {
+            removePiece(to);
+            addPiece(to, Pieces.make(side, Pieces.PAWN));
+        }
+        movePiece(to, from);
+
+        int captured = capturedStack[depth];
+        if (captured != Pieces.EMPTY) {
+            addPiece(flag == Moves.EN_PASSANT ? (side == Pieces.WHITE ? to - 8 : to + 8) : to, captured);
+        }
+
+        castling = castlingStack[depth];
+        enPassant = enPassantStack[depth];
+        halfmoveClock = halfmoveStack[depth];
+        key = keyStack[depth];
+        checkers = checkersStack[depth];
+        attacksValid = false;
+    }
+
+    /**
+     * Pass the turn to the other side without moving anything. This isn't a legal chess move,
+     * but the search uses it to test whether a position is so good that even passing wins (null
+     * move pruning). Must not be called while the side to move is in check.
+     */
+    public void makeNull() {
+        moveStack[depth] = Moves.NONE;
+        castlingStack[depth] = castling;
+        enPassantStack[depth] = enPassant;
+        halfmoveStack[depth] = halfmoveClock;
+        keyStack[depth] = key;
+        capturedStack[depth] = Pieces.EMPTY;
+        checkersStack[depth] = checkers;
+        depth++;
+
+        // The side that passed wasn't in check, so it can't have left the other side in check
+        checkers = 0;
+        attacksValid = false;
+
+        if (enPassant != NO_SQUARE) {
+            key ^= Zobrist.EN_PASSANT[enPassant & 7];
+            enPassant = NO_SQUARE;
+        }
+        halfmoveClock++;
+        side ^= 1;
+        key ^= Zobrist.BLACK_TO_MOVE;
+    }
+
+    /**
+     * Undo a call to makeNull()
+     */
+    public void unmakeNull() {
+        depth--;
+        side ^= 1;
+        castling = castlingStack[depth];
+        enPassant = enPassantStack[depth];
+        halfmoveClock = halfmoveStack[depth];
+        key = keyStack[depth];
+        checkers = checkersStack[depth];
+        attacksValid = false;
+    }
+
+    /**
+     * Get the move that was made most recently and hasn't been unmade
+     *
+     * @return The last move made, or Moves.NONE if there is none
+     */
+    public int lastMove() {
+        return depth == 0 ? Moves.NONE : moveStack[depth - 1];
+    }
+
+    /**
+     * Find the pieces giving check to the side to move
+     */
+    private long findCheckers() {
+        int king = kingSquare(side);
+        return king < 64 ? attackersOf(king, side ^ 1, getOccupied()) : 0;
+    }
+
+    /**
+     * Find the pieces giving check to the side to move, just after the other side made the given
+     * move. A normal move can only give check with the piece that moved, or by uncovering a slider
+     * lined up behind the square it left, so we only look at those; castling and en passant move
+     * more than one piece, so for them we fall back on the full search.
+     */
+    private long findCheckers(int from, int to, int flag) {
+        int king = kingSquare(side);
+        if (king >= 64) {
+            return 0;
+        }
+        long occupied = getOccupied();
+        if (flag == Moves.CASTLE || flag == Moves.EN_PASSANT) {
+            return attackersOf(king, side ^ 1, occupied);
+        }
+
+        int piece = board[to];
+        long result = (attacksFrom(Pieces.type(piece), side ^ 1, to, occupied) & Bitboards.bit(king)) != 0
+                ? Bitboards.bit(to) : 0;
+        if (Bitboards.line(king, from) != 0) {
+            int offset = (side ^ 1) * 6;
+            long queens = pieces[offset + Pieces.QUEEN];
+            result |= (Bitboards.rookAttacks(king, occupied) & (pieces[offset + Pieces.ROOK] | queens))
+                    | (Bitboards.bishopAttacks(king, occupied) & (pieces[offset + Pieces.BISHOP] | queens));
+        }
+        return result;
+    }
+
+    /**
+     * Rebuild the attack maps, king danger squares and pins for the current position, unless
+     * they are already up to date
+     */
+    private void updateAttacks() {
+        if (attacksValid) {
+            return;
+        }
+
+        long occupied = getOccupied();
+        attacks[Pieces.WHITE] = attacksBy(Pieces.WHITE, occupied);
+        attacks[Pieces.BLACK] = attacksBy(Pieces.BLACK, occupied);
+
+        int king = kingSquare(side);
+        pinned = 0;
+        if (king < 64) {
+            // The king can't escape a slider by stepping back along the line it's attacked on, so
+            // the squares it may step to are computed as though it weren't on the board
+            kingDanger = attacksBy(side ^ 1, occupied & ~Bitboards.bit(king));
+
+            int offset = (side ^ 1) * 6;
+            long queens = pieces[offset + Pieces.QUEEN];
+            long snipers = (Bitboards.rookAttacks(king, 0) & (pieces[offset + Pieces.ROOK] | queens))
+                    | (Bitboards.bishopAttacks(king, 0) & (pieces[offset + Pieces.BISHOP] | queens));
+            while (snipers != 0) {
+                int sniper = Long.numberOfTrailingZeros(snipers);
+                snipers &= snipers - 1;
+                long blockers = Bitboards.between(king, sniper) & occupied;
+                if (Bitboards.count(blockers) == 1) {
+                    pinned |= blockers & occupancy[side];
+                }
+            }
+        } else {
+            kingDanger = attacks[side ^ 1];
+        }
+
+        attacksValid = true;
+    }
+
+    /**
+     * Compute every square attacked by the given colour, treating the squares in occupied as the
+     * only occupied squares on the board
+     */
+    private long attacksBy(int colour, long occupied) {
+        long result = 0;
+        int offset = colour * 6;
+        for (int type = Pieces.PAWN; type <= Pieces.KING; type++) {
+            long bits = pieces[offset + type];
+            while (bits != 0) {
+                int square = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                result |= attacksFrom(type, colour, square, occupied);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the squares attacked by a piece of the given type and colour on the given square
+     */
+    private static long attacksFrom(int type, int colour, int square, long occupied) {
+        switch (type) {
+            case Pieces.PAWN:
+                return Bitboards.pawnAttacks(colour, square);
+            case Pieces.KNIGHT:
+                return Bitboards.knightAttacks(square);
+            case Pieces.BISHOP:
+                return Bitboards.bishopAttacks(square, occupied);
+            case Pieces.ROOK:
+                return Bitboards.rookAttacks(square, occupied);
+            case Pieces.QUEEN:
+                return Bitboards.queenAttacks(square, occupied);
+            default:
+                return Bitboards.kingAttacks(square);
+        }
+    }
+
+    /**
+     * Get the squares the piece of the side to move on the given square may move to without
+     * breaking a pin: every square if it isn't pinned, or only the line through it and its king if
+     * it is. Must only be called once updateAttacks() has run.
+     */
+    private long pinnedMask(int king, int square) {
+        return (pinned & Bitboards.bit(square)) == 0 ? -1L : Bitboards.line(king, square);
+    }
+
+    /**
+     * Record that a pawn can be captured en passant by moving to the given square, but only if a
+     * pawn of the side to move is actually in a position to do so. Keeping "useless" en passant
+     * squares out of the position means the same position always has the same hash, however we
+     * arrived at it.
+     */
+    private void setEnPassant(int square) {
+        if ((Bitboards.pawnAttacks(side ^ 1, square) & pieces[Pieces.make(side, Pieces.PAWN)]) != 0) {
+            enPassant = square;
+            key ^= Zobrist.EN_PASSANT[square & 7];
+        }
+    }
+
+    /**
+     * Place the given piece on the given (empty) square
+     */
+    private void addPiece(int square, int piece) {
+        long bit = 1L << square;
+        pieces[piece] |= bit;
+        occupancy[piece / 6] |= bit;
+        board[square] = piece;
+        key ^= Zobrist.PIECE_SQUARE[piece][square];
+    }
+
+    /**
+     * Remove whatever piece is on the given (occupied) square
+     */
+    private void removePiece(int square) {
+        int piece = board[square];
+        long bit = 1L << square;
+        pieces[piece] &= ~bit;
+        occupancy[piece / 6] &= ~bit;
+        board[square] = Pieces.EMPTY;
+        key ^= Zobrist.PIECE_SQUARE[piece][square];
+    }
+
+    /**
+     * Move whatever piece is on from to the (empty) square to
+     */
+    private void movePiece(int from, int to) {
+        int piece = board[from];
+        long bits = (1L << from) | (1L << to);
+        pieces[piece] ^= bits;
+        occupancy[piece / 6] ^= bits;
+        board[from] = Pieces.EMPTY;
+        board[to] = piece;
+        key ^= Zobrist.PIECE_SQUARE[piece][from] ^ Zobrist.PIECE_SQUARE[piece][to];
+    }
+}
@@ -0,0 +1,476 @@
+package com.lukaswillsie.onlinechess.engine;
+
+/**
+ * Runs an iterative-deepening alpha-beta search on a single thread. AnalysisEngine runs several of
+ * these at once over the same root position, all sharing one TranspositionTable (Lazy SMP): the
+ * threads don't coordinate at all, they just keep finding each other's results in the table.
+ * <p>
+ * Everything a search needs is allocated when the Searcher is created, so that searching itself
+ * never allocates.
+ */
+class Searcher {
+    /**
+     * The score of being checkmated at the root. Mate scores are stored as MATE - plies, so
+     * shorter mates score higher.
+     */
+    static final int MATE = 30000;
+
+    /**
+     * Any score with an absolute value above this is a mate score
+     */
+    static final int MATE_BOUND = MATE - 1000;
+
+    /**
+     * The deepest we will ever search, including extensions and quiescence
+     */
+    static final int MAX_PLY = 100;
+
+    /**
+     * How much shallower we search after passing the turn in null move pruning
+     */
+    private static final int NULL_MOVE_REDUCTION = 2;
+
+    /**
+     * We check whether we've been told to stop every this many nodes (minus one; it's a mask)
+     */
+    private static final int STOP_CHECK_MASK = 1023;
+
+    /*
+     * Move ordering scores
+     */
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 24;
+    private static final int KILLER_SCORE = 1 << 20;
+
+    /**
+     * The table shared with every other Searcher working on the same analysis
+     */
+    private TranspositionTable table;
+
+    /**
+     * Lets AnalysisEngine stop this Searcher at any time
+     */
+    private AnalysisEngine.Session session;
+
+    /**
+     * Helper threads start one ply deeper every other thread, so that they spread out across
+     * depths rather than all repeating the main thread's work
+     */
+    private int depthOffset;
+
+    /**
+     * Our own copy of the root position
+     */
+    private final Position position = new Position();
+
+    /**
+     * moves[ply] holds the moves generated at the given ply, and scores[ply] their ordering scores
+     */
+    private final int[][] moves = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final int[][] scores = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+
+    /**
+     * The principal variation found at each ply (a triangular array)
+     */
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+
+    /**
+     * Two quiet moves per ply that recently caused cutoffs, tried early at the same ply elsewhere
+     */
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+
+    /**
+     * history[piece][square] grows whenever moving piece to square causes a cutoff
+     */
+    private final int[][] history = new int[12][64];
+
+    /**
+     * The number of positions visited so far. Only this Searcher's thread writes it; other threads
+     * should read publishedNodes instead.
+     */
+    private long nodes;
+
+    /**
+     * A copy of nodes, updated regularly, that other threads can safely read
+     */
+    private volatile long publishedNodes;
+
+    /**
+     * Set once we notice we've been told to stop, so that the whole search unwinds immediately
+     */
+    private boolean aborted;
+
+    /**
+     * Prepare this Searcher to work on a new analysis. Searchers are reused from one analysis to
+     * the next (each search thread keeps its own), since they are fairly large.
+     *
+     * @param root        - the position to search; the Searcher takes its own copy
+     * @param table       - the TranspositionTable shared by all threads in this analysis
+     * @param session     - the session this Searcher is working for
+     * @param depthOffset - 0 for the main thread, and 0 or 1 for helper threads
+     */
+    void reset(Position root, TranspositionTable table, AnalysisEngine.Session session, int depthOffset) {
+        position.copyFrom(root);
+        this.table = table;
+        this.session = session;
+        this.depthOffset = depthOffset;
+        this.nodes = 0;
+        this.publishedNodes = 0;
+        this.aborted = false;
+        this.pvLength[0] = 0;
+
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = Moves.NONE;
+            plyKillers[1] = Moves.NONE;
+        }
+        for (int[] pieceHistory : history) {
+            for (int square = 0; square < 64; square++) {
+                pieceHistory[square] = 0;
+            }
+        }
+    }
+
+    /**
+     * Get the number of nodes this Searcher has visited. Safe to call from any thread.
+     */
+    long getNodes() {
+        return publishedNodes;
+    }
+
+    /**
+     * Search the root position to the given depth
+     *
+     * @param depth - the depth to search to, in plies
+     * @return The score of the root position from the point of view of the side to move, or
+     * Integer.MIN_VALUE if the search was stopped before it finished
+     */
+    int search(int depth) {
+        int score = alphaBeta(depth + depthOffset, -MATE - 1, MATE + 1, 0, true);
+        publishedNodes = nodes;
+        return aborted ? Integer.MIN_VALUE : score;
+    }
+
+    /**
+     * Get the principal variation found by the last completed call to search()
+     *
+     * @return The moves of the principal variation
+     */
+    int[] getPrincipalVariation() {
+        int[] line = new int[pvLength[0]];
+        System.arraycopy(pv[0], 0, line, 0, line.length);
+        return line;
+    }
+
+    /**
+     * The main alpha-beta search, using principal variation search: after the first move at a
+     * node, we search each move with a null window and only re-search with the full window if it
+     * turns out to be better.
+     */
+    private int alphaBeta(int depth, int alpha, int beta, int ply, boolean pvNode) {
+        pvLength[ply] = 0;
+        if (depth <= 0) {
+            return quiesce(alpha, beta, ply);
+        }
+        if (countNode()) {
+            return 0;
+        }
+
+        if (ply > 0) {
+            if (position.getHalfmoveClock() >= 100 || position.isRepetition()) {
+                return 0;
+            }
+            if (ply >= MAX_PLY) {
+                return Evaluator.evaluate(position);
+            }
+        }
+
+        long entry = table.probe(position.getKey());
+        int hashMove = Moves.NONE;
+        if (entry != TranspositionTable.MISS) {
+            hashMove = TranspositionTable.move(entry);
+            if (!pvNode && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        boolean inCheck = position.inCheck();
+        if (inCheck) {
+            depth++;
+        }
+
+        // Null move pruning: if we can pass the turn and a reduced search still fails high, the
+        // position is almost certainly good enough to cut off. We don't try it without pieces,
+        // where passing might genuinely be the best "move" (zugzwang).
+        if (!pvNode && !inCheck && ply > 0 && depth > NULL_MOVE_REDUCTION && hasPieces()
+                && Evaluator.evaluate(position) >= beta) {
+            position.makeNull();
+            int score = -alphaBeta(depth - 1 - NULL_MOVE_REDUCTION, -beta, -beta + 1, ply + 1, false);
+            position.unmakeNull();
+
+            if (aborted) {
+                return 0;
+            }
+            if (score >= beta && score < MATE_BOUND) {
+                return beta;
+            }
+        }
+
+        int[] list = moves[ply];
+        int count = MoveGenerator.generate(position, list, 0);
+        scoreMoves(list, scores[ply], count, hashMove, ply);
+
+        int originalAlpha = alpha;
+        int bestScore = -MATE - 1;
+        int bestMove = Moves.NONE;
+        int legal = 0;
+
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(list, scores[ply], i, count);
+            if (!position.make(move)) {
+                continue;
+            }
+            legal++;
+
+            int score;
+            if (legal == 1) {
+                score = -alphaBeta(depth - 1, -beta, -alpha, ply + 1, pvNode);
+            } else {
+                // Late move reductions: quiet moves ordered late rarely turn out best, so we
+                // search them one ply shallower first and only search fully if they surprise us
+                int reduction = (depth >= 3 && legal > 3 && !inCheck && scores[ply][i] < KILLER_SCORE
+                        && !position.inCheck()) ? 1 : 0;
+                score = -alphaBeta(depth - 1 - reduction, -alpha - 1, -alpha, ply + 1, false);
+                if (reduction > 0 && score > alpha) {
+                    score = -alphaBeta(depth - 1, -alpha - 1, -alpha, ply + 1, false);
+                }
+                if (score > alpha && score < beta) {
+                    score = -alphaBeta(depth - 1, -beta, -alpha, ply + 1, true);
+                }
+            }
+            position.unmake();
+
+            if (aborted) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+
+                    if (score >= beta) {
+                        if (isQuiet(move)) {
+                            rememberCutoff(move, ply, depth);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (legal == 0) {
+            // Checkmate or stalemate
+            return inCheck ? -MATE + ply : 0;
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.LOWER
+                : bestScore > originalAlpha ? TranspositionTable.EXACT
+                : TranspositionTable.UPPER;
+        table.store(position.getKey(), bestMove, toTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    /**
+     * Quiescence search: only consider captures (and queen promotions) until the position is
+     * quiet, so that we never statically evaluate a position in the middle of an exchange.
+     */
+    private int quiesce(int alpha, int beta, int ply) {
+        pvLength[ply] = 0;
+        if (countNode()) {
+            return 0;
+        }
+
+        int standPat = Evaluator.evaluate(position);
+        if (ply >= MAX_PLY || standPat >= beta) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        int[] list = moves[ply];
+        int count = MoveGenerator.generateCaptures(position, list, 0);
+        scoreMoves(list, scores[ply], count, Moves.NONE, ply);
+
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(list, scores[ply], i, count);
+            if (!position.make(move)) {
+                continue;
+            }
+            int score = -quiesce(-beta, -alpha, ply + 1);
+            position.unmake();
+
+            if (aborted) {
+                return 0;
+            }
+            if (score > alpha) {
+                alpha = score;
+                updatePrincipalVariation(ply, move);
+                if (score >= beta) {
+                    break;
+                }
+            }
+        }
+
+        return alpha;
+    }
+
+    /**
+     * Check whether the side to move has any pieces other than pawns and its king
+     */
+    private boolean hasPieces() {
+        int offset = position.getSideToMove() * 6;
+        return (position.getPieces(offset + Pieces.KNIGHT) | position.getPieces(offset + Pieces.BISHOP)
+                | position.getPieces(offset + Pieces.ROOK) | position.getPieces(offset + Pieces.QUEEN)) != 0;
+    }
+
+    /**
+     * Count a visited node, and every so often check whether we've been told to stop
+     *
+     * @return true if the search has been aborted
+     */
+    private boolean countNode() {
+        nodes++;
+        if ((nodes & STOP_CHECK_MASK) == 0) {
+            publishedNodes = nodes;
+            if (session.isStopped()) {
+                aborted = true;
+            }
+        }
+        return aborted;
+    }
+
+    /**
+     * Assign an ordering score to each move: the hash move first, then captures (most valuable
+     * victim, least valuable attacker), then killer moves, then quiet moves by history.
+     */
+    private void scoreMoves(int[] list, int[] moveScores, int count, int hashMove, int ply) {
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            int from = Moves.from(move);
+            int to = Moves.to(move);
+            int attacker = position.getPiece(from);
+            int victim = position.getPiece(to);
+
+            if (move == hashMove) {
+                moveScores[i] = HASH_MOVE_SCORE;
+            } else if (victim != Pieces.EMPTY || Moves.flag(move) == Moves.EN_PASSANT || Moves.promotion(move) == Pieces.QUEEN) {
+                int victimValue = victim == Pieces.EMPTY ? Evaluator.VALUES[Pieces.PAWN] : Evaluator.VALUES[Pieces.type(victim)];
+                moveScores[i] = CAPTURE_SCORE + victimValue * 16 - Pieces.type(attacker)
+                        + (Moves.promotion(move) == Pieces.QUEEN ? Evaluator.VALUES[Pieces.QUEEN] : 0);
+            } else if (move == killers[ply][0] || move == killers[ply][1]) {
+                moveScores[i] = KILLER_SCORE;
+            } else {
+                moveScores[i] = history[attacker][to];
+            }
+        }
+    }
+
+    /**
+     * Selection sort, one step at a time: swap the best remaining move into position index and
+     * return it. Cutoffs usually happen early, so this beats sorting the whole list up front.
+     */
+    private static int pickNext(int[] list, int[] moveScores, int index, int count) {
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (moveScores[i] > moveScores[best]) {
+                best = i;
+            }
+        }
+
+        int move = list[best];
+        list[best] = list[index];
+        list[index] = move;
+
+        int score = moveScores[best];
+        moveScores[best] = moveScores[index];
+        moveScores[index] = score;
+
+        return move;
+    }
+
+    /**
+     * Check whether the given move (not yet made) is neither a capture nor a promotion
+     */
+    private boolean isQuiet(int move) {
+        return position.getPiece(Moves.to(move)) == Pieces.EMPTY
+                && Moves.flag(move) != Moves.EN_PASSANT
+                && Moves.promotion(move) == Pieces.PAWN;
+    }
+
+    /**
+     * Record that the given quiet move caused a cutoff, for move ordering
+     */
+    private void rememberCutoff(int move, int ply, int depth) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+
+        int[] row = history[position.getPiece(Moves.from(move))];
+        row[Moves.to(move)] += depth * depth;
+        // Keep history scores well below the killer and capture scores
+        if (row[Moves.to(move)] > KILLER_SCORE / 2) {
+            for (int[] pieceHistory : history) {
+                for (int square = 0; square < 64; square++) {
+                    pieceHistory[square] >>= 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Set the principal variation at ply to the given move followed by the one found at ply + 1
+     */
+    private void updatePrincipalVariation(int ply, int move) {
+        pv[ply][0] = move;
+        int childLength = pvLength[ply + 1];
+        System.arraycopy(pv[ply + 1], 0, pv[ply], 1, childLength);
+        pvLength[ply] = childLength + 1;
+    }
+
+    /**
+     * Mate scores are relative to the root, but the table is shared between positions at
+     * different distances from the root, so we store them relative to the current node instead
+     */
+    private static int toTable(int score, int ply) {
+        if (score > MATE_BOUND) {
+            return score + ply;
+        } else if (score < -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Undo toTable()
+     */
+    private static int fromTable(int score, int ply) {
+        if (score > MATE_BOUND) {
+            return score - ply;
+        } else if (score < -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,162 @@
+package com.lukaswillsie.onlinechess.engine;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size hash table of search results, shared by every search thread without any locking.
+ * <p>
+ * Each slot is two longs: the entry's data, and the position's hash XORed with that data. Two
+ * threads can write the same slot at once and leave it holding one thread's data and the other's
+ * check word. A reader recomputes hash ^ data and only trusts the entry if it matches the hash it
+ * is looking for, so such a torn entry is simply treated as a miss. This is the "lockless hashing"
+ * scheme used by most parallel chess engines. We use an AtomicLongArray rather than a long[] only
+ * so that individual longs can never be torn on 32-bit devices; we never use its compare-and-set
+ * operations.
+ * <p>
+ * Entry data is packed as follows: <br>
+ * bits 0-17: the best move found <br>
+ * bits 18-33: the score, offset by 32768 to make it non-negative <br>
+ * bits 34-40: the depth searched <br>
+ * bits 41-42: the bound type <br>
+ * bits 43-48: the search generation that wrote the entry
+ */
+public final class TranspositionTable {
+    /*
+     * Bound types. EXACT means the score is the true value of the position; LOWER and UPPER mean
+     * the true value is at least or at most the stored score, respectively.
+     */
+    public static final int EXACT = 1;
+    public static final int LOWER = 2;
+    public static final int UPPER = 3;
+
+    /**
+     * Returned by probe() when the table holds nothing for a position. Every real entry has a
+     * non-zero bound, so real data is never 0.
+     */
+    public static final long MISS = 0;
+
+    /**
+     * The slots, two longs each
+     */
+    private final AtomicLongArray slots;
+
+    /**
+     * Used to map a hash to a slot; the number of slots is always a power of two
+     */
+    private final long mask;
+
+    /**
+     * The current search generation. Entries from older generations are replaced first.
+     */
+    private volatile int generation;
+
+    /**
+     * Create a new TranspositionTable using roughly the given amount of memory
+     *
+     * @param megabytes - the size of the table, in megabytes; rounded down to a power of two
+     */
+    public TranspositionTable(int megabytes) {
+        long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+        // Each slot takes 16 bytes
+        long slotCount = Long.highestOneBit(bytes / 16);
+        this.slots = new AtomicLongArray((int) (slotCount * 2));
+        this.mask = slotCount - 1;
+    }
+
+    /**
+     * Start a new search generation. Call this at the start of every search so that entries
+     * written by previous searches become preferred candidates for replacement.
+     */
+    public void newGeneration() {
+        generation = (generation + 1) & 63;
+    }
+
+    /**
+     * Erase every entry in the table
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.lazySet(i, 0);
+        }
+    }
+
+    /**
+     * Look up the given position
+     *
+     * @param key - the Zobrist hash of the position
+     * @return The packed entry data, or MISS if there is no (intact) entry for the position
+     */
+    public long probe(long key) {
+        int index = (int) (key & mask) << 1;
+        long data = slots.get(index + 1);
+        long check = slots.get(index);
+        return (check ^ data) == key ? data : MISS;
+    }
+
+    /**
+     * Store a search result. An existing entry for a different position is only overwritten if it
+     * is from an older generation or was searched no deeper than the new one.
+     *
+     * @param key   - the Zobrist hash of the position
+     * @param move  - the best move found, or Moves.NONE
+     * @param score - the score found, between -32768 and 32767
+     * @param depth - the depth searched, between 0 and 127
+     * @param bound - one of EXACT, LOWER or UPPER
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) (key & mask) << 1;
+        long oldData = slots.get(index + 1);
+        long oldKey = slots.get(index) ^ oldData;
+
+        if (oldData != MISS && oldKey != key && generation(oldData) == generation && depth(oldData) > depth) {
+            return;
+        }
+        // Keep the old best move if we didn't find one this time
+        if (move == Moves.NONE && oldKey == key) {
+            move = move(oldData);
+        }
+
+        long data = (move & 0x3FFFFL)
+                | ((long) ((score + 32768) & 0xFFFF) << 18)
+                | ((long) (depth & 127) << 34)
+                | ((long) bound << 41)
+                | ((long) generation << 43);
+        slots.lazySet(index, key ^ data);
+        slots.lazySet(index + 1, data);
+    }
+
+    /**
+     * Extract the best move from packed entry data
+     */
+    public static int move(long data) {
+        return (int) (data & 0x3FFFF);
+    }
+
+    /**
+     * Extract the score from packed entry data
+     */
+    public static int score(long data) {
+        return (int) ((data >>> 18) & 0xFFFF) - 32768;
+    }
+
+    /**
+     * Extract the depth from packed entry data
+     */
+    public static int depth(long data) {
+        return (int) ((data >>> 34) & 127);
+    }
+
+    /**
+     * Extract the bound type from packed entry data
+     */
+    public static int bound(long data) {
+        return (int) ((data >>> 41) & 3);
+    }
+
+    /**
+     * Extract the generation from packed entry data
+     */
+    private static int generation(long data) {
+        return (int) ((data >>> 43) & 63);
+    }
+}
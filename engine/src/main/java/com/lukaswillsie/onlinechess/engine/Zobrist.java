@@ -0,0 +1,78 @@
+package com.lukaswillsie.onlinechess.engine;
+
+/**
+ * Holds the random keys used to compute Zobrist hashes of positions. A position's hash is the XOR
+ * of the keys for every (piece, square) pair on the board, its castling rights, its en passant
+ * file, and whose turn it is, which lets Position update its hash incrementally as moves are made.
+ * <p>
+ * The keys are generated from a fixed seed, so the same position always has the same hash on
+ * every device and every run. Anything that stores hashes to disk (the opening book, for example)
+ * depends on this.
+ */
+public final class Zobrist {
+    /**
+     * PIECE_SQUARE[piece][square] is the key for the given piece standing on the given square
+     */
+    static final long[][] PIECE_SQUARE = new long[12][64];
+
+    /**
+     * CASTLING[rights] is the key for the given set of castling rights (see Position)
+     */
+    static final long[] CASTLING = new long[16];
+
+    /**
+     * EN_PASSANT[column] is the key for an en passant capture being available on the given column
+     */
+    static final long[] EN_PASSANT = new long[8];
+
+    /**
+     * XORed into the hash whenever it is black's turn
+     */
+    static final long BLACK_TO_MOVE;
+
+    /**
+     * The seed used to generate every key above. Changing this invalidates every hash that has
+     * ever been written to disk.
+     */
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+
+    static {
+        long state = SEED;
+        for (int piece = 0; piece < 12; piece++) {
+            for (int square = 0; square < 64; square++) {
+                state = next(state);
+                PIECE_SQUARE[piece][square] = scramble(state);
+            }
+        }
+        for (int rights = 0; rights < 16; rights++) {
+            state = next(state);
+            CASTLING[rights] = scramble(state);
+        }
+        for (int column = 0; column < 8; column++) {
+            state = next(state);
+            EN_PASSANT[column] = scramble(state);
+        }
+        state = next(state);
+        BLACK_TO_MOVE = scramble(state);
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Advance the state of our xorshift generator
+     */
+    private static long next(long state) {
+        state ^= state >>> 12;
+        state ^= state << 25;
+        state ^= state >>> 27;
+        return state;
+    }
+
+    /**
+     * Turn generator state into an output value (the "star" step of xorshift64*)
+     */
+    private static long scramble(long state) {
+        return state * 0x2545F4914F6CDD1DL;
+    }
+}
@@ -0,0 +1,183 @@
+package com.lukaswillsie.onlinechess.server;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Random;
+
+/**
+ * A stand-in for the real chess server, which speaks the whole protocol the app uses, so that the
+ * app's network code can be run, tested and benchmarked on a local machine.
+ * <p>
+ * It keeps its users and games in memory, starting empty every time, and plays by the rules using
+ * the engine. Replies can be slowed down and faults injected with NetworkConditions, to see how the
+ * app copes with a poor connection.
+ * <p>
+ * Run it from the command line with ./gradlew :server:run, or start one from code with start(),
+ * for example on port 0 to have a free port picked, followed by getPort(). To point the app at it,
+ * change HOSTNAME and PORT in ServerHelper.
+ */
+public class ChessServer {
+    /**
+     * The port the real server listens on, which the app connects to by default
+     */
+    public static final int DEFAULT_PORT = 46751;
+
+    /**
+     * How many connections can wait to be accepted at once. The default of 50 turns clients away
+     * when hundreds connect together, as they do under a load test.
+     */
+    private static final int BACKLOG = 1024;
+
+    private final int port;
+    private final NetworkConditions conditions;
+    private final Random seeds;
+    private final boolean verbose;
+    private final Database database = new Database();
+
+    private ServerSocket socket;
+
+    /**
+     * Create a new ChessServer. It won't accept connections until start() is called.
+     *
+     * @param port       - the port to listen on, or 0 to have one picked
+     * @param conditions - the network to pretend every client is on
+     * @param seed       - seeds the randomness behind jitter and faults, so that runs can be
+     *                   repeated
+     * @param verbose    - whether to print every command received
+     */
+    public ChessServer(int port, NetworkConditions conditions, long seed, boolean verbose) {
+        this.port = port;
+        this.conditions = conditions;
+        this.seeds = new Random(seed);
+        this.verbose = verbose;
+    }
+
+    /**
+     * Start listening for clients, on a background thread. Each client is served on a thread of
+     * its own.
+     *
+     * @throws IOException - if we can't listen on our port
+     */
+    public synchronized void start() throws IOException {
+        socket = new ServerSocket(port, BACKLOG);
+        final ServerSocket listening = socket;
+
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!listening.isClosed()) {
+                    try {
+                        Socket client = listening.accept();
+                        client.setTcpNoDelay(true);
+                        if (verbose) {
+                            System.out.println("Accepted connection from " + client.getRemoteSocketAddress());
+                        }
+
+                        Random random;
+                        synchronized (seeds) {
+                            random = new Random(seeds.nextLong());
+                        }
+                        Thread session = new Thread(new ClientSession(client, database, conditions, random, verbose),
+                                "ClientSession " + client.getRemoteSocketAddress());
+                        session.setDaemon(true);
+                        session.start();
+                    } catch (IOException e) {
+                        if (!listening.isClosed()) {
+                            System.out.println("Couldn't accept a connection: " + e.getMessage());
+                        }
+                    }
+                }
+            }
+        }, "ChessServer acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Get the port we're listening on, which is only known for sure once start() has been called
+     */
+    public synchronized int getPort() {
+        return socket == null ? port : socket.getLocalPort();
+    }
+
+    /**
+     * Stop accepting new clients. Clients that are already connected carry on being served until
+     * they disconnect.
+     *
+     * @throws IOException - if the listening socket can't be closed
+     */
+    public synchronized void close() throws IOException {
+        if (socket != null) {
+            socket.close();
+        }
+    }
+
+    /**
+     * Run a stand-in server until the process is killed. Run with --help to see the options.
+     *
+     * @param args - the command line options
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = DEFAULT_PORT;
+        long seed = System.nanoTime();
+        boolean verbose = false;
+        NetworkConditions conditions = new NetworkConditions();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--port":
+                        port = Integer.parseInt(args[++i]);
+                        break;
+                    case "--latency":
+                        conditions.setLatency(Long.parseLong(args[++i]));
+                        break;
+                    case "--jitter":
+                        conditions.setJitter(Long.parseLong(args[++i]));
+                        break;
+                    case "--bandwidth":
+                        conditions.setBandwidth(Integer.parseInt(args[++i]) * 1024);
+                        break;
+                    case "--error-rate":
+                        conditions.setErrorRate(Double.parseDouble(args[++i]));
+                        break;
+                    case "--disconnect-rate":
+                        conditions.setDisconnectRate(Double.parseDouble(args[++i]));
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(args[++i]);
+                        break;
+                    case "--verbose":
+                        verbose = true;
+                        break;
+                    default:
+                        printUsage();
+                        return;
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            printUsage();
+            return;
+        }
+
+        ChessServer server = new ChessServer(port, conditions, seed, verbose);
+        server.start();
+        System.out.println("Listening on port " + server.getPort() + " with " + conditions + ", seed " + seed);
+
+        // Our threads are all daemons, so we keep the process alive ourselves
+        Thread.sleep(Long.MAX_VALUE);
+    }
+
+    private static void printUsage() {
+        System.out.println("Options:");
+        System.out.println("  --port N             port to listen on (default " + DEFAULT_PORT + ")");
+        System.out.println("  --latency MS         delay before every reply");
+        System.out.println("  --jitter MS          most extra random delay before a reply");
+        System.out.println("  --bandwidth KB       kilobytes per second sent to each client");
+        System.out.println("  --error-rate P       chance of answering a command with a server error");
+        System.out.println("  --disconnect-rate P  chance of hanging up instead of answering a command");
+        System.out.println("  --seed N             seed for jitter and faults, to repeat a run");
+        System.out.println("  --verbose            print every command received");
+    }
+}
@@ -0,0 +1,388 @@
+package com.lukaswillsie.onlinechess.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves a single client, on its own thread, for as long as it stays connected.
+ * <p>
+ * The app sends one command per line, as a word followed by its arguments, separated by spaces.
+ * We answer each one in full before reading the next, since the app never sends a command before
+ * it has read the answer to the last. Each answer starts with a return code, from ReturnCodes,
+ * which may be followed by more data, as described in each command's method below.
+ */
+final class ClientSession implements Runnable {
+    /**
+     * The format of the squares in a move command: "src_row,src_col->dest_row,dest_col"
+     */
+    private static final Pattern MOVE = Pattern.compile("([0-7]),([0-7])->([0-7]),([0-7])");
+
+    private final Socket socket;
+    private final Database database;
+    private final NetworkConditions conditions;
+    private final Random random;
+    private final boolean verbose;
+
+    /**
+     * The user this client has logged in, or null if it hasn't logged in anyone
+     */
+    private String username;
+
+    /**
+     * Create a new ClientSession to serve the client on the other end of the given socket
+     *
+     * @param socket     - the client's socket
+     * @param database   - the users and games the client can see
+     * @param conditions - the network the client is pretending to be on
+     * @param random     - the source of randomness for the client's jitter and faults
+     * @param verbose    - whether to print every command received
+     */
+    ClientSession(Socket socket, Database database, NetworkConditions conditions, Random random, boolean verbose) {
+        this.socket = socket;
+        this.database = database;
+        this.conditions = conditions;
+        this.random = random;
+        this.verbose = verbose;
+    }
+
+    @Override
+    public void run() {
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "ISO-8859-1"));
+            OutputStream out = conditions.limit(socket.getOutputStream());
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (verbose) {
+                    System.out.println(socket.getRemoteSocketAddress() + ": " + line);
+                }
+
+                if (conditions.shouldDisconnect(random)) {
+                    System.out.println("Hanging up on " + socket.getRemoteSocketAddress() + " instead of answering \"" + line + "\"");
+                    break;
+                }
+
+                Reply reply = new Reply();
+                if (conditions.shouldFail(random)) {
+                    reply.writeInt(ReturnCodes.SERVER_ERROR);
+                } else {
+                    handle(line.trim().split(" "), reply);
+                }
+
+                conditions.delay(random);
+                out.write(reply.toByteArray());
+                out.flush();
+            }
+        } catch (IOException e) {
+            System.out.println("Lost connection to " + socket.getRemoteSocketAddress() + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // We're done with the socket either way
+            }
+        }
+    }
+
+    /**
+     * Carry out the given command, writing our answer to the given reply
+     *
+     * @param words - the command, split on spaces
+     * @param reply - where to write our answer
+     */
+    private void handle(String[] words, Reply reply) {
+        String command = words[0];
+
+        // These are the only commands that can be made without a user logged in
+        if (command.equals("login")) {
+            login(words, reply);
+            return;
+        } else if (command.equals("create")) {
+            create(words, reply);
+            return;
+        }
+
+        if (username == null) {
+            reply.writeInt(ReturnCodes.NO_USER);
+            return;
+        }
+
+        switch (command) {
+            case "creategame":
+                createGame(words, reply);
+                break;
+            case "joingame":
+                joinGame(words, reply);
+                break;
+            case "getgamedata":
+                getGameData(words, reply);
+                break;
+            case "loadgame":
+                loadGame(words, reply);
+                break;
+            case "loadgames":
+                loadGames(words, reply);
+                break;
+            case "opengames":
+                openGames(words, reply);
+                break;
+            case "move":
+                move(words, reply);
+                break;
+            case "promote":
+                promote(words, reply);
+                break;
+            case "draw":
+            case "reject":
+            case "forfeit":
+            case "archive":
+            case "restore":
+                simple(words, reply);
+                break;
+            default:
+                reply.writeInt(ReturnCodes.FORMAT_INVALID);
+                break;
+        }
+    }
+
+    /**
+     * "login username password": a code from ReturnCodes.Login, followed, on success, by the
+     * number of games the user is playing in and the data for each one
+     */
+    private void login(String[] words, Reply reply) {
+        if (words.length != 3) {
+            reply.writeInt(ReturnCodes.FORMAT_INVALID);
+            return;
+        }
+
+        int code = database.login(words[1], words[2]);
+        reply.writeInt(code);
+        if (code == ReturnCodes.Login.SUCCESS) {
+            username = words[1];
+            writeGames(database.getGames(username), reply);
+        }
+    }
+
+    /**
+     * "create username password": a code from ReturnCodes.Create. On success, the new user is
+     * logged in.
+     */
+    private void create(String[] words, Reply reply) {
+        if (words.length != 3) {
+            reply.writeInt(ReturnCodes.FORMAT_INVALID);
+            return;
+        }
+
+        int code = database.createAccount(words[1], words[2]);
+        reply.writeInt(code);
+        if (code == ReturnCodes.Create.SUCCESS) {
+            username = words[1];
+        }
+    }
+
+    /**
+     * "creategame gameID open", where open is 1 if anyone should be able to join the game and 0
+     * otherwise: a code from ReturnCodes.CreateGame
+     */
+    private void createGame(String[] words, Reply reply) {
+        if (words.length != 3 || !(words[2].equals("0") || words[2].equals("1"))) {
+            reply.writeInt(ReturnCodes.FORMAT_INVALID);
+            return;
+        }
+
+        reply.writeInt(database.createGame(words[1], username, words[2].equals("1")));
+    }
+
+    /**
+     * "joingame gameID": a code from ReturnCodes.JoinGame. The app asks for the game's data
+     * separately, with getgamedata.
+     */
+    private void joinGame(String[] words, Reply reply) {
+        if (words.length != 2) {
+            reply.writeInt(ReturnCodes.FORMAT_INVALID);
+            return;
+        }
+
+        synchronized (database) {
+            ServerGame game = database.getGame(words[1]);
+            reply.writeInt(game == null ? ReturnCodes.JoinGame.GAME_DOES_NOT_EXIST : game.join(username));
+        }
+    }
+
+    /**
+     * "getgamedata gameID": a code from ReturnCodes.GetGameData, followed, on success, by the
+     * game's data
+     */
+    private void getGameData(String[] words, Reply reply) {
+        if (words.length != 2) {
+            reply.writeInt(ReturnCodes.FORMAT_INVALID);
+            return;
+        }
+
+        synchronized (database) {
+            ServerGame game = database.getGame(words[1]);
+            if (game == null) {
+                reply.writeInt(ReturnCodes.GetGameData.GAME_DOES_NOT_EXIST);
+            } else if (game.colourOf(username) == -1) {
+                reply.writeInt(ReturnCodes.GetGameData.USER_NOT_IN_GAME);
+            } else {
+                reply.writeInt(ReturnCodes.GetGameData.SUCCESS);
+                game.writeData(reply);
+            }
+        }
+    }
+
+    /**
+     * "loadgame gameID", or "loadgame gameID history": a code from ReturnCodes.LoadGame,
+     * followed, on success, by the game's data and its board, and its move history if it was
+     * asked for
+     */
+    private void loadGame(String[] words, Reply reply) {
+        boolean history = words.length == 3 && words[2].equals("history");
+        if (words.length != 2 && !history) {
+            reply.writeInt(ReturnCodes.FORMAT_INVALID);
+            return;
+        }
+
+        synchronized (database) {
+            ServerGame game = database.getGame(words[1]);
+            if (game == null) {
+                reply.writeInt(ReturnCodes.LoadGame.GAME_DOES_NOT_EXIST);
+            } else if (game.colourOf(username) == -1) {
+                reply.writeInt(ReturnCodes.LoadGame.USER_NOT_IN_GAME);
+            } else {
+                reply.writeInt(ReturnCodes.LoadGame.SUCCESS);
+                game.writeData(reply);
+                game.writeBoard(reply);
+                if (history) {
+                    game.writeHistory(reply);
+                }
+            }
+        }
+    }
+
+    /**
+     * "loadgames": ReturnCodes.LoadGames.SUCCESS, followed by the number of games the user is
+     * playing in and the data for each one
+     */
+    private void loadGames(String[] words, Reply reply) {
+        if (words.length != 1) {
+            reply.writeInt(ReturnCodes.FORMAT_INVALID);
+            return;
+        }
+
+        reply.writeInt(ReturnCodes.LoadGames.SUCCESS);
+        writeGames(database.getGames(username), reply);
+    }
+
+    /**
+     * "opengames": the number of open games the user could join, followed by the data for each
+     * one. Unlike every other command, there's no return code up front.
+     */
+    private void openGames(String[] words, Reply reply) {
+        if (words.length != 1) {
+            reply.writeInt(ReturnCodes.FORMAT_INVALID);
+            return;
+        }
+
+        writeGames(database.getOpenGames(username), reply);
+    }
+
+    /**
+     * "move gameID src_row,src_col->dest_row,dest_col": a code from ReturnCodes.Move
+     */
+    private void move(String[] words, Reply reply) {
+        Matcher matcher;
+        if (words.length != 3 || !(matcher = MOVE.matcher(words[2])).matches()) {
+            reply.writeInt(ReturnCodes.FORMAT_INVALID);
+            return;
+        }
+
+        synchronized (database) {
+            ServerGame game = database.getGame(words[1]);
+            if (game == null) {
+                reply.writeInt(ReturnCodes.Move.GAME_DOES_NOT_EXIST);
+            } else {
+                reply.writeInt(game.move(username, Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)),
+                        Integer.parseInt(matcher.group(3)), Integer.parseInt(matcher.group(4))));
+            }
+        }
+    }
+
+    /**
+     * "promote gameID charRep": a code from ReturnCodes.Promote
+     */
+    private void promote(String[] words, Reply reply) {
+        if (words.length != 3 || words[2].length() != 1) {
+            reply.writeInt(ReturnCodes.FORMAT_INVALID);
+            return;
+        }
+
+        synchronized (database) {
+            ServerGame game = database.getGame(words[1]);
+            if (game == null) {
+                reply.writeInt(ReturnCodes.Promote.GAME_DOES_NOT_EXIST);
+            } else {
+                reply.writeInt(game.promote(username, words[2].charAt(0)));
+            }
+        }
+    }
+
+    /**
+     * "draw gameID", "reject gameID", "forfeit gameID", "archive gameID" and "restore gameID": a
+     * code from the matching class in ReturnCodes. In all of them, 1 means the game doesn't exist.
+     */
+    private void simple(String[] words, Reply reply) {
+        if (words.length != 2) {
+            reply.writeInt(ReturnCodes.FORMAT_INVALID);
+            return;
+        }
+
+        synchronized (database) {
+            ServerGame game = database.getGame(words[1]);
+            if (game == null) {
+                reply.writeInt(ReturnCodes.Draw.GAME_DOES_NOT_EXIST);
+                return;
+            }
+
+            switch (words[0]) {
+                case "draw":
+                    reply.writeInt(game.draw(username));
+                    break;
+                case "reject":
+                    reply.writeInt(game.reject(username));
+                    break;
+                case "forfeit":
+                    reply.writeInt(game.forfeit(username));
+                    break;
+                case "archive":
+                    reply.writeInt(game.setArchived(username, true));
+                    break;
+                default:
+                    reply.writeInt(game.setArchived(username, false));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Write the number of games in the given list, followed by each game's data
+     */
+    private void writeGames(List<ServerGame> games, Reply reply) {
+        synchronized (database) {
+            reply.writeInt(games.size());
+            for (ServerGame game : games) {
+                game.writeData(reply);
+            }
+        }
+    }
+}
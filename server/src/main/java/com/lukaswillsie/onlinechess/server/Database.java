@@ -0,0 +1,130 @@
+package com.lukaswillsie.onlinechess.server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything the stand-in server knows: its user accounts and its games. Nothing is saved to disk;
+ * the server starts empty every time it's run.
+ * <p>
+ * Every client's commands run on that client's own thread, so the methods here are synchronized.
+ * ServerGame objects aren't thread-safe, so anyone using one has to hold the lock on this object
+ * while they do.
+ */
+final class Database {
+    /**
+     * Each user's password, by username
+     */
+    private final Map<String, String> passwords = new HashMap<>();
+
+    /**
+     * Every game, by ID, in the order they were created
+     */
+    private final Map<String, ServerGame> games = new LinkedHashMap<>();
+
+    /**
+     * Check the given username and password
+     *
+     * @param username - the username to log in with
+     * @param password - the password to log in with
+     * @return One of the codes in ReturnCodes.Login
+     */
+    synchronized int login(String username, String password) {
+        String expected = passwords.get(username);
+        if (expected == null) {
+            return ReturnCodes.Login.USERNAME_DOES_NOT_EXIST;
+        } else if (!expected.equals(password)) {
+            return ReturnCodes.Login.PASSWORD_INVALID;
+        }
+        return ReturnCodes.Login.SUCCESS;
+    }
+
+    /**
+     * Create an account with the given username and password
+     *
+     * @param username - the username of the new account
+     * @param password - the password of the new account
+     * @return One of the codes in ReturnCodes.Create
+     */
+    synchronized int createAccount(String username, String password) {
+        if (!isValid(username) || !isValid(password)) {
+            return ReturnCodes.Create.FORMAT_INVALID;
+        } else if (passwords.containsKey(username)) {
+            return ReturnCodes.Create.USERNAME_IN_USE;
+        }
+
+        passwords.put(username, password);
+        return ReturnCodes.Create.SUCCESS;
+    }
+
+    /**
+     * Create a game with the given ID, with the given user playing white
+     *
+     * @param gameID   - the ID of the new game
+     * @param username - the user creating the game
+     * @param open     - whether the game should be listed for anyone to join
+     * @return One of the codes in ReturnCodes.CreateGame
+     */
+    synchronized int createGame(String gameID, String username, boolean open) {
+        if (!isValid(gameID)) {
+            return ReturnCodes.CreateGame.FORMAT_INVALID;
+        } else if (games.containsKey(gameID)) {
+            return ReturnCodes.CreateGame.GAMEID_IN_USE;
+        }
+
+        games.put(gameID, new ServerGame(gameID, username, open));
+        return ReturnCodes.CreateGame.SUCCESS;
+    }
+
+    /**
+     * Get the game with the given ID
+     *
+     * @param gameID - the ID of the game
+     * @return The game, or null if there isn't one with the given ID
+     */
+    synchronized ServerGame getGame(String gameID) {
+        return games.get(gameID);
+    }
+
+    /**
+     * Get every game the given user is playing in, archived or not
+     *
+     * @param username - the user whose games to get
+     */
+    synchronized List<ServerGame> getGames(String username) {
+        List<ServerGame> result = new ArrayList<>();
+        for (ServerGame game : games.values()) {
+            if (game.colourOf(username) != -1) {
+                result.add(game);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get every open game the given user could join
+     *
+     * @param username - the user looking for games to join
+     */
+    synchronized List<ServerGame> getOpenGames(String username) {
+        List<ServerGame> result = new ArrayList<>();
+        for (ServerGame game : games.values()) {
+            if (game.isJoinableBy(username)) {
+                result.add(game);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Check whether the given String can be used as a username, password or game ID. Our commands
+     * are split on spaces, and the real server keeps its records comma-separated, so neither may
+     * appear.
+     */
+    private static boolean isValid(String s) {
+        return !s.isEmpty() && s.indexOf(',') == -1 && s.indexOf(' ') == -1;
+    }
+}
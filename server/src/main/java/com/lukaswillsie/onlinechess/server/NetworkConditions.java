@@ -0,0 +1,177 @@
+package com.lukaswillsie.onlinechess.server;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * The network the stand-in server pretends its clients are on, so that the app's network code can
+ * be tried against the slow, lossy connections phones actually have, on a machine where the
+ * server is a few microseconds away.
+ * <p>
+ * Every reply the server sends is held back by the latency, plus a random amount of up to the
+ * jitter, and then trickled out no faster than the bandwidth allows. Faults can be injected, too:
+ * each command has a chance of being answered with ReturnCodes.SERVER_ERROR instead of being
+ * carried out, and a chance of the server hanging up on the client instead of answering at all.
+ * <p>
+ * By default there's no delay, no limit on bandwidth and no faults.
+ */
+public final class NetworkConditions {
+    private long latencyMillis;
+    private long jitterMillis;
+    private int bytesPerSecond;
+    private double errorRate;
+    private double disconnectRate;
+
+    /**
+     * Set how long every reply is held back for, before any jitter
+     *
+     * @param latencyMillis - the delay, in milliseconds
+     * @return This object, so that calls can be chained
+     */
+    public NetworkConditions setLatency(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    /**
+     * Set the most that a reply can be held back for on top of the latency. Each reply gets a
+     * different, uniformly random, amount.
+     *
+     * @param jitterMillis - the largest extra delay, in milliseconds
+     * @return This object, so that calls can be chained
+     */
+    public NetworkConditions setJitter(long jitterMillis) {
+        this.jitterMillis = jitterMillis;
+        return this;
+    }
+
+    /**
+     * Set how fast replies are sent to each client
+     *
+     * @param bytesPerSecond - the bandwidth of each client's connection, or 0 for no limit
+     * @return This object, so that calls can be chained
+     */
+    public NetworkConditions setBandwidth(int bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * Set the chance of a command being answered with ReturnCodes.SERVER_ERROR
+     *
+     * @param errorRate - a probability, from 0 to 1
+     * @return This object, so that calls can be chained
+     */
+    public NetworkConditions setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * Set the chance of the server hanging up on a client instead of answering a command
+     *
+     * @param disconnectRate - a probability, from 0 to 1
+     * @return This object, so that calls can be chained
+     */
+    public NetworkConditions setDisconnectRate(double disconnectRate) {
+        this.disconnectRate = disconnectRate;
+        return this;
+    }
+
+    /**
+     * Decide whether the next command should fail with a server error
+     *
+     * @param random - the client's source of randomness
+     */
+    boolean shouldFail(Random random) {
+        return errorRate > 0 && random.nextDouble() < errorRate;
+    }
+
+    /**
+     * Decide whether to hang up on the client instead of answering the next command
+     *
+     * @param random - the client's source of randomness
+     */
+    boolean shouldDisconnect(Random random) {
+        return disconnectRate > 0 && random.nextDouble() < disconnectRate;
+    }
+
+    /**
+     * Hold the calling thread back for as long as the next reply should be delayed
+     *
+     * @param random - the client's source of randomness
+     * @throws InterruptedException - if the thread is interrupted while waiting
+     */
+    void delay(Random random) throws InterruptedException {
+        long millis = latencyMillis;
+        if (jitterMillis > 0) {
+            millis += (long) (random.nextDouble() * jitterMillis);
+        }
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    /**
+     * Wrap the given stream so that data written to it goes no faster than our bandwidth
+     *
+     * @param out - a client's socket's output stream
+     * @return A stream limited to our bandwidth, or out itself if there's no limit
+     */
+    OutputStream limit(OutputStream out) {
+        return bytesPerSecond > 0 ? new ThrottledOutputStream(out, bytesPerSecond) : out;
+    }
+
+    @Override
+    public String toString() {
+        return "latency " + latencyMillis + "ms (+" + jitterMillis + "ms jitter), bandwidth "
+                + (bytesPerSecond > 0 ? bytesPerSecond + "B/s" : "unlimited") + ", error rate "
+                + errorRate + ", disconnect rate " + disconnectRate;
+    }
+
+    /**
+     * Sends data in small slices, sleeping after each one for as long as the slice would take to
+     * send at the given bandwidth
+     */
+    private static final class ThrottledOutputStream extends FilterOutputStream {
+        /**
+         * How many slices a second's worth of data is split into. More slices trickle data out
+         * more smoothly, at the cost of waking up more often.
+         */
+        private static final int SLICES_PER_SECOND = 20;
+
+        private final int bytesPerSecond;
+        private final int sliceSize;
+
+        ThrottledOutputStream(OutputStream out, int bytesPerSecond) {
+            super(out);
+            this.bytesPerSecond = bytesPerSecond;
+            this.sliceSize = Math.max(1, bytesPerSecond / SLICES_PER_SECOND);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int slice = Math.min(len, sliceSize);
+                out.write(b, off, slice);
+                out.flush();
+                off += slice;
+                len -= slice;
+
+                try {
+                    Thread.sleep(slice * 1000L / bytesPerSecond);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while sending data", e);
+                }
+            }
+        }
+    }
+}
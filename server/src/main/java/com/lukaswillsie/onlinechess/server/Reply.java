@@ -0,0 +1,47 @@
+package com.lukaswillsie.onlinechess.server;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Collects everything the server sends in answer to one command, so that the whole answer can be
+ * held back and then sent at once, under whatever NetworkConditions the server is running with.
+ * <p>
+ * Integers are written as four big-endian bytes, as the app's DataInputStream expects, and lines
+ * of text as one byte per character followed by a network newline, "\r\n", as the app's
+ * NetworkThread.readLine() expects.
+ */
+final class Reply {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    /**
+     * Add the given integer to this reply
+     *
+     * @param value - the integer to send
+     */
+    void writeInt(int value) {
+        bytes.write(value >>> 24);
+        bytes.write(value >>> 16);
+        bytes.write(value >>> 8);
+        bytes.write(value);
+    }
+
+    /**
+     * Add the given line of text to this reply
+     *
+     * @param line - the line to send, which mustn't contain a newline
+     */
+    void writeLine(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            bytes.write(line.charAt(i));
+        }
+        bytes.write('\r');
+        bytes.write('\n');
+    }
+
+    /**
+     * Get everything written to this reply so far, ready to be sent
+     */
+    byte[] toByteArray() {
+        return bytes.toByteArray();
+    }
+}
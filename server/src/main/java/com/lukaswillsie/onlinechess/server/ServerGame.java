@@ -0,0 +1,422 @@
+package com.lukaswillsie.onlinechess.server;
+
+import com.lukaswillsie.onlinechess.engine.MoveGenerator;
+import com.lukaswillsie.onlinechess.engine.Moves;
+import com.lukaswillsie.onlinechess.engine.Pieces;
+import com.lukaswillsie.onlinechess.engine.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single game, as the stand-in server keeps it. Holds everything the server sends about a game
+ * (see ServerData), along with the position on the board, the moves played so far, and any
+ * promotion the player to move still owes, and implements the rules behind each game command.
+ * <p>
+ * The board is kept as FEN and checked with the engine, so the server enforces the same rules the
+ * app's analysis does. Each command method returns the code the server should send back, from the
+ * matching class in ReturnCodes; they don't check that the game exists or that a user is logged in,
+ * which is left to ClientSession.
+ * <p>
+ * This class isn't thread-safe. Only use it while holding the lock on the Database it belongs to.
+ */
+final class ServerGame {
+    /*
+     * The possible values of a move's promotion field in the history we send, as in the app's
+     * GameHistory
+     */
+    private static final int PROMOTION_NONE = 0;
+    private static final String PROMOTION_CHARS = "qrbn";
+
+    /*
+     * The data we send about this game, in the order given by ServerData
+     */
+    final String gameID;
+    final String white;
+    String black = "";
+    final boolean open;
+    int state = Pieces.WHITE;
+    int turn = 1;
+    boolean whiteArchived;
+    boolean blackArchived;
+    boolean drawOffered;
+    boolean drawn;
+    String winner = "";
+    boolean forfeit;
+    boolean whiteCheck;
+    boolean blackCheck;
+    boolean promotionNeeded;
+
+    /**
+     * The position on the board, as FEN. Its side to move isn't always the same as state, since
+     * offering a draw hands the turn to the opponent without a move being made.
+     */
+    private String fen = Position.START_FEN;
+
+    /**
+     * If promotionNeeded is true, the move that reached the back rank, as squares, waiting to be
+     * made once we know which piece the pawn becomes
+     */
+    private int promotionFrom;
+    private int promotionTo;
+
+    /**
+     * Every move played in the game, packed as in the app's GameHistory
+     */
+    private final List<Integer> history = new ArrayList<>();
+
+    /**
+     * Create a new game, with the given user playing white and nobody playing black yet
+     *
+     * @param gameID - the ID of the game
+     * @param white  - the user who created the game
+     * @param open   - whether any user can find and join the game through the open games list
+     */
+    ServerGame(String gameID, String white, boolean open) {
+        this.gameID = gameID;
+        this.white = white;
+        this.open = open;
+    }
+
+    /**
+     * Get the colour the given user is playing in this game
+     *
+     * @param username - the user to look for
+     * @return Pieces.WHITE or Pieces.BLACK, or -1 if the user isn't a player in this game
+     */
+    int colourOf(String username) {
+        if (white.equals(username)) {
+            return Pieces.WHITE;
+        } else if (black.equals(username)) {
+            return Pieces.BLACK;
+        } else {
+            return -1;
+        }
+    }
+
+    /**
+     * Check whether the game is over, by checkmate, stalemate, agreement or forfeit
+     */
+    boolean isOver() {
+        return !winner.isEmpty() || drawn;
+    }
+
+    /**
+     * Check whether the given user could join this game from the open games list
+     *
+     * @param username - the user looking for a game to join
+     */
+    boolean isJoinableBy(String username) {
+        return open && black.isEmpty() && !white.equals(username);
+    }
+
+    /**
+     * Have the given user join this game as black
+     *
+     * @param username - the user joining
+     * @return One of the codes in ReturnCodes.JoinGame
+     */
+    int join(String username) {
+        if (colourOf(username) != -1) {
+            return ReturnCodes.JoinGame.USER_ALREADY_IN_GAME;
+        } else if (!black.isEmpty()) {
+            return ReturnCodes.JoinGame.GAME_FULL;
+        }
+
+        black = username;
+        return ReturnCodes.JoinGame.SUCCESS;
+    }
+
+    /**
+     * Make the given move for the given user. If it takes a pawn to the back rank, the move isn't
+     * made until the user tells us what to promote it into with promote().
+     *
+     * @param username   - the user making the move
+     * @param fromRow    - the row of the square to move from
+     * @param fromColumn - the column of the square to move from
+     * @param toRow      - the row of the square to move to
+     * @param toColumn   - the column of the square to move to
+     * @return One of the codes in ReturnCodes.Move
+     */
+    int move(String username, int fromRow, int fromColumn, int toRow, int toColumn) {
+        int code = checkTurn(username, ReturnCodes.Move.USER_NOT_IN_GAME, ReturnCodes.Move.NO_OPPONENT,
+                ReturnCodes.Move.GAME_IS_OVER, ReturnCodes.Move.NOT_USER_TURN);
+        if (code != ReturnCodes.Move.SUCCESS) {
+            return code;
+        } else if (promotionNeeded) {
+            return ReturnCodes.Move.HAS_TO_PROMOTE;
+        } else if (drawOffered) {
+            return ReturnCodes.Move.RESPOND_TO_DRAW;
+        }
+
+        Position position = Position.fromFen(fen);
+        int move = findMove(position, Pieces.square(fromRow, fromColumn), Pieces.square(toRow, toColumn), -1);
+        if (move == Moves.NONE) {
+            return ReturnCodes.Move.MOVE_INVALID;
+        }
+
+        if (Moves.promotion(move) != Pieces.PAWN) {
+            promotionNeeded = true;
+            promotionFrom = Moves.from(move);
+            promotionTo = Moves.to(move);
+            return ReturnCodes.Move.SUCCESS_PROMOTION_NEEDED;
+        }
+
+        play(position, move, PROMOTION_NONE);
+        return ReturnCodes.Move.SUCCESS;
+    }
+
+    /**
+     * Finish the given user's promotion, turning their pawn into the piece with the given
+     * character
+     *
+     * @param username - the user promoting
+     * @param charRep  - one of 'q', 'r', 'b' or 'n'
+     * @return One of the codes in ReturnCodes.Promote
+     */
+    int promote(String username, char charRep) {
+        int code = checkTurn(username, ReturnCodes.Promote.USER_NOT_IN_GAME, ReturnCodes.Promote.NO_OPPONENT,
+                ReturnCodes.Promote.GAME_IS_OVER, ReturnCodes.Promote.NOT_USER_TURN);
+        if (code != ReturnCodes.Promote.SUCCESS) {
+            return code;
+        } else if (!promotionNeeded) {
+            return ReturnCodes.Promote.NO_PROMOTION;
+        }
+
+        int index = PROMOTION_CHARS.indexOf(charRep);
+        if (index == -1) {
+            return ReturnCodes.Promote.CHAR_REP_INVALID;
+        }
+        int type = new int[]{Pieces.QUEEN, Pieces.ROOK, Pieces.BISHOP, Pieces.KNIGHT}[index];
+
+        Position position = Position.fromFen(fen);
+        play(position, findMove(position, promotionFrom, promotionTo, type), index + 1);
+        return ReturnCodes.Promote.SUCCESS;
+    }
+
+    /**
+     * Offer a draw for the given user, or accept their opponent's offer if there is one. Offering
+     * a draw takes the place of a move: the turn passes to the opponent, who has to accept or
+     * reject the offer.
+     *
+     * @param username - the user offering or accepting a draw
+     * @return One of the codes in ReturnCodes.Draw
+     */
+    int draw(String username) {
+        int code = checkTurn(username, ReturnCodes.Draw.USER_NOT_IN_GAME, ReturnCodes.Draw.NO_OPPONENT,
+                ReturnCodes.Draw.GAME_IS_OVER, ReturnCodes.Draw.NOT_USER_TURN);
+        if (code != ReturnCodes.Draw.SUCCESS) {
+            return code;
+        }
+
+        if (drawOffered) {
+            drawOffered = false;
+            drawn = true;
+        } else {
+            drawOffered = true;
+            state = 1 - state;
+        }
+        return ReturnCodes.Draw.SUCCESS;
+    }
+
+    /**
+     * Reject the draw offered to the given user, handing the turn back to their opponent
+     *
+     * @param username - the user rejecting a draw
+     * @return One of the codes in ReturnCodes.Reject
+     */
+    int reject(String username) {
+        int code = checkTurn(username, ReturnCodes.Reject.USER_NOT_IN_GAME, ReturnCodes.Reject.NO_OPPONENT,
+                ReturnCodes.Reject.GAME_IS_OVER, ReturnCodes.Reject.NOT_USER_TURN);
+        if (code != ReturnCodes.Reject.SUCCESS) {
+            return code;
+        } else if (!drawOffered) {
+            return ReturnCodes.Reject.NO_DRAW_OFFER;
+        }
+
+        drawOffered = false;
+        state = 1 - state;
+        return ReturnCodes.Reject.SUCCESS;
+    }
+
+    /**
+     * Have the given user forfeit the game, on their turn
+     *
+     * @param username - the user forfeiting
+     * @return One of the codes in ReturnCodes.Forfeit
+     */
+    int forfeit(String username) {
+        int code = checkTurn(username, ReturnCodes.Forfeit.USER_NOT_IN_GAME, ReturnCodes.Forfeit.NO_OPPONENT,
+                ReturnCodes.Forfeit.GAME_IS_OVER, ReturnCodes.Forfeit.NOT_USER_TURN);
+        if (code != ReturnCodes.Forfeit.SUCCESS) {
+            return code;
+        }
+
+        winner = colourOf(username) == Pieces.WHITE ? black : white;
+        forfeit = true;
+        drawOffered = false;
+        promotionNeeded = false;
+        return ReturnCodes.Forfeit.SUCCESS;
+    }
+
+    /**
+     * Archive or restore this game for the given user. The codes in ReturnCodes.Archive and
+     * ReturnCodes.Restore are the same, so either can be used to interpret the result.
+     *
+     * @param username - the user archiving or restoring the game
+     * @param archived - true to archive the game, false to restore it
+     * @return One of the codes in ReturnCodes.Archive
+     */
+    int setArchived(String username, boolean archived) {
+        int colour = colourOf(username);
+        if (colour == -1) {
+            return ReturnCodes.Archive.USER_NOT_IN_GAME;
+        }
+
+        if (colour == Pieces.WHITE) {
+            whiteArchived = archived;
+        } else {
+            blackArchived = archived;
+        }
+        return ReturnCodes.Archive.SUCCESS;
+    }
+
+    /**
+     * Write the data describing this game, in the order given by ServerData
+     *
+     * @param reply - the reply to write to
+     */
+    void writeData(Reply reply) {
+        reply.writeLine(gameID);
+        reply.writeLine(white);
+        reply.writeLine(black);
+        reply.writeInt(open ? 1 : 0);
+        reply.writeInt(state);
+        reply.writeInt(turn);
+        reply.writeInt(whiteArchived ? 1 : 0);
+        reply.writeInt(blackArchived ? 1 : 0);
+        reply.writeInt(drawOffered ? 1 : 0);
+        reply.writeInt(drawn ? 1 : 0);
+        reply.writeLine(winner);
+        reply.writeInt(forfeit ? 1 : 0);
+        reply.writeInt(whiteCheck ? 1 : 0);
+        reply.writeInt(blackCheck ? 1 : 0);
+        reply.writeInt(promotionNeeded ? 1 : 0);
+    }
+
+    /**
+     * Write the state of the board, in the form the app feeds to Board.initialize(): 4 integers,
+     * then 8 lines of text, then 1 more integer.
+     * <p>
+     * The integers up front say whether white can still castle kingside and queenside, then black,
+     * as 1 or 0. The lines are the board's rows, from black's back rank down to white's, with a
+     * FEN character for each piece and '-' for each empty square. The last integer is the column
+     * of a pawn that can be captured en passant, or -1 if there isn't one.
+     *
+     * @param reply - the reply to write to
+     */
+    void writeBoard(Reply reply) {
+        Position position = Position.fromFen(fen);
+        int castling = position.getCastling();
+        reply.writeInt((castling & Position.WHITE_KINGSIDE) != 0 ? 1 : 0);
+        reply.writeInt((castling & Position.WHITE_QUEENSIDE) != 0 ? 1 : 0);
+        reply.writeInt((castling & Position.BLACK_KINGSIDE) != 0 ? 1 : 0);
+        reply.writeInt((castling & Position.BLACK_QUEENSIDE) != 0 ? 1 : 0);
+
+        StringBuilder line = new StringBuilder(8);
+        for (int row = 7; row >= 0; row--) {
+            line.setLength(0);
+            for (int column = 0; column < 8; column++) {
+                int piece = position.getPiece(Pieces.square(row, column));
+                line.append(piece == Pieces.EMPTY ? '-' : Pieces.toChar(piece));
+            }
+            reply.writeLine(line.toString());
+        }
+
+        int enPassant = position.getEnPassant();
+        reply.writeInt(enPassant == Position.NO_SQUARE ? -1 : Pieces.column(enPassant));
+    }
+
+    /**
+     * Write the moves played in this game: the number of plies, then one packed move per ply
+     *
+     * @param reply - the reply to write to
+     */
+    void writeHistory(Reply reply) {
+        reply.writeInt(history.size());
+        for (int move : history) {
+            reply.writeInt(move);
+        }
+    }
+
+    /**
+     * Check that it's the given user's turn in a game that can still be played, returning the
+     * given code for the first thing that's wrong, or 0 (every command's SUCCESS) if nothing is
+     */
+    private int checkTurn(String username, int notInGame, int noOpponent, int gameOver, int notTurn) {
+        int colour = colourOf(username);
+        if (colour == -1) {
+            return notInGame;
+        } else if (black.isEmpty()) {
+            return noOpponent;
+        } else if (isOver()) {
+            return gameOver;
+        } else if (state != colour) {
+            return notTurn;
+        }
+        return 0;
+    }
+
+    /**
+     * Find the legal move in the given position from one square to another
+     *
+     * @param position  - the position to look in
+     * @param from      - the square to move from
+     * @param to        - the square to move to
+     * @param promotion - the piece type to promote to, or -1 to accept any
+     * @return The move, or Moves.NONE if there isn't one
+     */
+    private static int findMove(Position position, int from, int to, int promotion) {
+        for (int move : MoveGenerator.legalMoves(position)) {
+            if (Moves.from(move) == from && Moves.to(move) == to
+                    && (promotion == -1 || Moves.promotion(move) == promotion)) {
+                return move;
+            }
+        }
+        return Moves.NONE;
+    }
+
+    /**
+     * Make the given legal move, record it, and bring the game's data up to date with the new
+     * position
+     *
+     * @param position  - the position before the move, built from fen
+     * @param move      - the move to make
+     * @param promotion - the move's promotion, as in the app's GameHistory
+     */
+    private void play(Position position, int move, int promotion) {
+        int mover = position.getSideToMove();
+        position.make(move);
+
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        history.add(Pieces.row(from) | Pieces.column(from) << 3 | Pieces.row(to) << 6
+                | Pieces.column(to) << 9 | promotion << 12);
+
+        fen = position.toFen();
+        state = position.getSideToMove();
+        promotionNeeded = false;
+        if (mover == Pieces.BLACK) {
+            turn++;
+        }
+
+        boolean check = position.inCheck();
+        whiteCheck = check && state == Pieces.WHITE;
+        blackCheck = check && state == Pieces.BLACK;
+        if (position.isCheckmate()) {
+            winner = mover == Pieces.WHITE ? white : black;
+        } else if (position.isStalemate()) {
+            drawn = true;
+        }
+    }
+}